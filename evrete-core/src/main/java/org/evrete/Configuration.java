@@ -36,6 +36,11 @@ public class Configuration extends Properties implements Copyable<Configuration>
     public static final String RULE_BASE_CLASS = "evrete.impl.rule-base-class";
     public static final String SPI_LHS_STRIP_WHITESPACES = "evrete.spi.compiler.lhs-strip-whitespaces";
     public static final String DISABLE_LITERAL_DATA = "evrete.core.disable-literal-data";
+    public static final String COMPILER_CACHE_DIRECTORY = "evrete.spi.compiler.cache-directory";
+    public static final String COMPILER_PRECOMPILED_RESOURCES = "evrete.spi.compiler.precompiled-resources";
+    public static final String COMPILER_MIN_SHARD_SIZE = "evrete.spi.compiler.min-shard-size";
+    public static final int COMPILER_MIN_SHARD_SIZE_DEFAULT = 32;
+    public static final String COMPILER_INTERPRET_CONDITIONS = "evrete.spi.compiler.interpret-conditions";
 
 
     private static final Set<String> OBSOLETE_PROPERTIES = new HashSet<>(Arrays.asList(
@@ -1,5 +1,7 @@
 package org.evrete.api;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
@@ -58,6 +60,45 @@ public interface StatefulSession extends RuleSession<StatefulSession>,  AutoClos
     void clear();
 
 
+    /**
+     * <p>
+     * Writes a binary snapshot of the session's memory to the provided file. Along with the facts, the snapshot
+     * contains the results of the session's condition evaluations, so that the session can be restored with
+     * the {@link #restoreSnapshot(Path)} method without evaluating any conditions.
+     * </p>
+     * <p>
+     * Facts, and the values of their fields, must be {@link java.io.Serializable}. Snapshots can be written
+     * only when the session has no pending changes, i.e. after the session has been fired, and the session
+     * must not be modified while the snapshot is being written.
+     * </p>
+     * <p>
+     * Facts are serialized in batches, so that large sessions can be written without keeping track of every
+     * serialized object. Objects shared by facts are restored as shared only if the facts belong to the same
+     * batch, otherwise each fact gets its own copy.
+     * </p>
+     *
+     * @param file the destination file, existing files are overwritten
+     * @return this instance
+     * @throws IOException           if an I/O error occurs
+     * @throws IllegalStateException if the session has unprocessed changes
+     */
+    StatefulSession writeSnapshot(Path file) throws IOException;
+
+    /**
+     * <p>
+     * Restores the session's memory from a snapshot written by the {@link #writeSnapshot(Path)} method.
+     * The session must be empty and must belong to the same, or identically built, knowledge as the session
+     * that has written the snapshot. Restored facts keep their fact handles.
+     * </p>
+     *
+     * @param file the snapshot file
+     * @return this instance
+     * @throws IOException           if an I/O error occurs or the file is not a session snapshot
+     * @throws IllegalStateException if the session is not empty, or if the snapshot's types or memories
+     *                               don't match those of the session
+     */
+    StatefulSession restoreSnapshot(Path file) throws IOException;
+
     /**
      * <p>
      * A full-scan memory inspection method.
@@ -27,4 +27,48 @@ public interface TypeField extends Named {
      * @return the field value
      */
     <T> T readValue(Object subject);
+
+    /**
+     * Reads the value of an {@code int} field without boxing, if the implementation supports it.
+     *
+     * @param subject the Java object from which to read the field value
+     * @return the field value
+     * @throws NullPointerException if the field value is {@code null}
+     */
+    default int readInt(Object subject) {
+        return this.<Integer>readValue(subject);
+    }
+
+    /**
+     * Reads the value of a {@code long} field without boxing, if the implementation supports it.
+     *
+     * @param subject the Java object from which to read the field value
+     * @return the field value
+     * @throws NullPointerException if the field value is {@code null}
+     */
+    default long readLong(Object subject) {
+        return this.<Long>readValue(subject);
+    }
+
+    /**
+     * Reads the value of a {@code double} field without boxing, if the implementation supports it.
+     *
+     * @param subject the Java object from which to read the field value
+     * @return the field value
+     * @throws NullPointerException if the field value is {@code null}
+     */
+    default double readDouble(Object subject) {
+        return this.<Double>readValue(subject);
+    }
+
+    /**
+     * Reads the value of a {@code boolean} field without boxing, if the implementation supports it.
+     *
+     * @param subject the Java object from which to read the field value
+     * @return the field value
+     * @throws NullPointerException if the field value is {@code null}
+     */
+    default boolean readBoolean(Object subject) {
+        return this.<Boolean>readValue(subject);
+    }
 }
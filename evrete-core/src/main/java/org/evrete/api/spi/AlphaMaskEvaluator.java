@@ -0,0 +1,18 @@
+package org.evrete.api.spi;
+
+/**
+ * A generated evaluator of a type's alpha conditions. Implementations read the arguments directly
+ * from the fact's field values, call the conditions' static methods inline, and record the results
+ * as bits of a <code>long[]</code> mask.
+ */
+public interface AlphaMaskEvaluator {
+
+    /**
+     * Evaluates the conditions and sets the bits of those that are met. Bits of failed
+     * conditions are left unchanged.
+     *
+     * @param values      the fact's field values
+     * @param destination the result mask, indexed by the conditions' indexes
+     */
+    void evaluate(FieldValues values, long[] destination);
+}
@@ -0,0 +1,37 @@
+package org.evrete.api.spi;
+
+/**
+ * Field values of a fact as they are passed to generated evaluators, see {@link FusedEvaluator} and
+ * {@link AlphaMaskEvaluator}. The typed accessors like {@link #intAt(int)} read values of primitive
+ * fields without boxing. A typed accessor may be called for any field whose values are instances
+ * of the accessor's wrapper type.
+ */
+public interface FieldValues {
+
+    /**
+     * @return number of values
+     */
+    int size();
+
+    /**
+     * @param index the value's index
+     * @return the value, boxed if the field is primitive
+     */
+    Object valueAt(int index);
+
+    int intAt(int index);
+
+    long longAt(int index);
+
+    double doubleAt(int index);
+
+    float floatAt(int index);
+
+    short shortAt(int index);
+
+    byte byteAt(int index);
+
+    char charAt(int index);
+
+    boolean booleanAt(int index);
+}
@@ -0,0 +1,15 @@
+package org.evrete.api.spi;
+
+/**
+ * A generated evaluator that tests all the conditions of a Rete condition node at once. Implementations
+ * read the arguments directly from the field values of the node's facts and call the conditions'
+ * static methods inline.
+ */
+public interface FusedEvaluator {
+
+    /**
+     * @param values field values of the node's facts, in the order of the node's fact types
+     * @return true if all the node's conditions are met
+     */
+    boolean test(FieldValues[] values);
+}
@@ -49,6 +49,17 @@ public interface GroupingReteMemory<V> extends ReteMemory<Long> {
      */
     Iterator<V> valueIterator(MemoryScope scope, long key);
 
+    /**
+     * Indicates whether the {@link #insert(long, Object)} and {@link #delete(long, Object)} methods
+     * may be called concurrently. The engine splits large batches of inserts and deletes into parallel
+     * tasks only for concurrent memories. Concurrent updates are never mixed with reads or commits.
+     *
+     * @return true if the memory can be updated by several threads at once, false by default
+     */
+    default boolean isConcurrent() {
+        return false;
+    }
+
 
     /**
      * Provides a default implementation for streaming over stored elements based on the provided key and scope.
@@ -68,4 +79,22 @@ public interface GroupingReteMemory<V> extends ReteMemory<Long> {
     default Iterator<Long> keyIterator(MemoryScope scope) {
         return iterator(scope);
     }
+
+    /**
+     * Returns the number of keys in the given scope. The engine calls this method on every commit,
+     * so implementations are encouraged to override the default implementation, which counts
+     * the keys one by one.
+     *
+     * @param scope the memory scope
+     * @return the number of keys in the scope
+     */
+    default long keyCount(MemoryScope scope) {
+        long count = 0L;
+        Iterator<Long> keys = keyIterator(scope);
+        while (keys.hasNext()) {
+            keys.next();
+            count++;
+        }
+        return count;
+    }
 }
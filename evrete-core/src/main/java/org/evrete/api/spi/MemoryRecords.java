@@ -0,0 +1,114 @@
+package org.evrete.api.spi;
+
+import org.evrete.api.FactHandle;
+
+/**
+ * <p>
+ * Besides user objects, the engine passes its own internal values to the memories created by a
+ * {@link MemoryFactory}: fact handles, fact holders, and fact field values. This interface gives memory
+ * implementations access to the components of these values, so that the values can be stored outside
+ * the Java heap and re-created later, without depending on the engine's internal classes.
+ * </p>
+ * <p>
+ * The values' types are recognized by {@link #kindOf(Class)}, the values themselves are passed around
+ * as opaque objects.
+ * </p>
+ *
+ * @see MemoryFactoryProvider
+ */
+public interface MemoryRecords {
+
+    /**
+     * @return the engine's implementation of this interface
+     */
+    static MemoryRecords getInstance() {
+        return org.evrete.runtime.DefaultMemoryRecords.INSTANCE;
+    }
+
+    /**
+     * Returns the kind of values of the given type.
+     *
+     * @param valueType the type of values passed to a memory
+     * @return the values' kind, {@link Kind#OTHER} for user objects
+     */
+    Kind kindOf(Class<?> valueType);
+
+    /**
+     * @param handle a fact handle created by the engine
+     * @return the index of the handle's fact type
+     */
+    int handleType(FactHandle handle);
+
+    /**
+     * Re-creates a previously issued fact handle.
+     *
+     * @param id   the handle's identifier, see {@link FactHandle#getId()}
+     * @param type the index of the handle's fact type, see {@link #handleType(FactHandle)}
+     * @return the fact handle
+     */
+    FactHandle newHandle(long id, int type);
+
+    /**
+     * @param holder a fact holder
+     * @return the holder's fact handle
+     */
+    FactHandle holderHandle(Object holder);
+
+    /**
+     * @param holder a fact holder
+     * @return the identifier of the fact's field values
+     */
+    long holderFieldValuesId(Object holder);
+
+    /**
+     * @param holder a fact holder
+     * @return the holder's fact
+     */
+    Object holderFact(Object holder);
+
+    /**
+     * Re-creates a fact holder from its components.
+     *
+     * @param handle        the holder's fact handle
+     * @param fieldValuesId the identifier of the fact's field values
+     * @param fact          the fact
+     * @return the fact holder
+     */
+    Object newHolder(FactHandle handle, long fieldValuesId, Object fact);
+
+    /**
+     * @param fieldValues fact field values
+     * @return a new array with the field values, primitive values are boxed
+     */
+    Object[] fieldValues(Object fieldValues);
+
+    /**
+     * Re-creates fact field values.
+     *
+     * @param values the field values
+     * @return the fact field values
+     */
+    Object newFieldValues(Object[] values);
+
+    /**
+     * Kinds of values that are passed to memories.
+     */
+    enum Kind {
+        /**
+         * Fact handles
+         */
+        FACT_HANDLE,
+        /**
+         * Fact holders, which combine a fact with its handle and the identifier of its field values
+         */
+        FACT_HOLDER,
+        /**
+         * Field values of facts
+         */
+        FIELD_VALUES,
+        /**
+         * User objects
+         */
+        OTHER
+    }
+}
@@ -1,5 +1,6 @@
 package org.evrete.api.spi;
 
+import org.evrete.Configuration;
 import org.evrete.api.OrderedServiceProvider;
 
 /**
@@ -15,4 +16,17 @@ public interface SourceCompilerProvider extends OrderedServiceProvider {
      */
     SourceCompiler instance(ClassLoader classLoader);
 
+    /**
+     * Creates a new instance of {@link SourceCompiler} for the given configuration. Implementations
+     * may use the configuration to enable optional features like caching of compiled classes,
+     * see {@link Configuration#COMPILER_CACHE_DIRECTORY}.
+     *
+     * @param configuration the configuration of the context that requests the compiler
+     * @param classLoader   the class loader to be used by the {@link SourceCompiler}.
+     * @return a new instance of {@link SourceCompiler}.
+     */
+    default SourceCompiler instance(Configuration configuration, ClassLoader classLoader) {
+        return instance(classLoader);
+    }
+
 }
@@ -28,6 +28,12 @@ import org.evrete.api.annotations.Nullable;
  * as many instances of this interface as there are logical types in the ruleset. The implementations
  * must be thread-safe.
  * </p>
+ * <p>
+ * The engine references a value once for each stored fact that has it (see {@link #retain(long)} and
+ * {@link #release(long)}), and periodically calls {@link #reclaim()} so that implementations can delete
+ * values that are no longer in use. Condition nodes' memories don't hold references, they drop the
+ * identifiers of deleted facts before the values are reclaimed.
+ * </p>
  *
  * @param <V> The type of values stored in the collection.
  */
@@ -66,6 +72,32 @@ public interface ValueIndexer<V> {
      */
     void assignId(long id, @NonNull V value);
 
+    /**
+     * Registers a new reference to the value with the given identifier.
+     *
+     * @param id the value's identifier
+     */
+    default void retain(long id) {
+    }
+
+    /**
+     * Releases a reference to the value with the given identifier. Values without references
+     * must remain available until the next call of {@link #reclaim()}.
+     *
+     * @param id the value's identifier
+     */
+    default void release(long id) {
+    }
+
+    /**
+     * Deletes the values whose references have all been released. The engine calls this method
+     * when its memories no longer refer to the identifiers of such values, typically at the end
+     * of a fire cycle. Values that have been looked up by {@link #getOrCreateId(Object)} or assigned
+     * since the previous call must not be deleted, because the engine might not have referenced them yet.
+     */
+    default void reclaim() {
+    }
+
     /**
      * Clears the internally stored mapping.
      */
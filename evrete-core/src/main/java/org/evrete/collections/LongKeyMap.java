@@ -2,40 +2,50 @@ package org.evrete.collections;
 
 import org.evrete.api.annotations.NonNull;
 
-import java.util.Arrays;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
-
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * A map with primitive <code>long</code> keys, based on an open-addressing table with linear probing.
+ * </p>
+ * <p>
+ * Reads are lock-free. Once a table slot is assigned to a key, the slot keeps that key until the table
+ * is rebuilt, and removed values are replaced with tombstones, so a reader never observes an entry moving
+ * between slots. Writers claim empty slots with a CAS and hold a shared lock which only table rebuilds
+ * (growing, shrinking or purging tombstones) acquire exclusively.
+ * </p>
+ * <p>
+ * Iterators and streams are weakly consistent, streams split the table into slot ranges when run in parallel.
+ * Null values are not supported.
+ * </p>
+ *
+ * @param <T> value type
+ */
 public class LongKeyMap<T> implements Iterable<T> {
     private static final int INITIAL_CAPACITY = 16;
-    private static final float LOAD_FACTOR = 0.75f;
-    private static final float SHRINK_FACTOR = 0.25f;
-
-    private static class Entry<T> {
-        final long key;
-        T value;
-        Entry<T> next;
-
-        Entry(long key, T value) {
-            this.key = key;
-            this.value = value;
-        }
-    }
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final float SHRINK_FACTOR = 0.075f;
+    // A slot whose key is present, but which holds no value
+    private static final Object TOMBSTONE = new Object();
+    // A slot that is being assigned to a key
+    private static final Object RESERVED = new Object();
 
-    private Entry<T>[] table;
-    private int size;
-    private int threshold;
-    private int shrinkThreshold;
-    private final Object lock = new Object();
+    private final StampedLock lock = new StampedLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Table table;
 
-    @SuppressWarnings("unchecked")
     public LongKeyMap() {
-        table = (Entry<T>[]) new Entry[INITIAL_CAPACITY];
-        threshold = (int) (INITIAL_CAPACITY * LOAD_FACTOR);
-        shrinkThreshold = (int) (INITIAL_CAPACITY * SHRINK_FACTOR);
+        this.table = new Table(INITIAL_CAPACITY);
     }
 
     /**
@@ -43,199 +53,359 @@ public class LongKeyMap<T> implements Iterable<T> {
      * @param other the source map
      */
     public LongKeyMap(final LongKeyMap<T> other) {
-        synchronized (other.lock) {
-            table = other.table.clone();
-            threshold = other.threshold;
-            shrinkThreshold = other.shrinkThreshold;
-            size = other.size;
+        long stamp = other.lock.writeLock();
+        try {
+            this.table = other.table.rebuild(capacityFor(other.size.get()));
+            this.size.set(other.size.get());
+        } finally {
+            other.lock.unlockWrite(stamp);
         }
     }
 
-
-    private int hash(long key) {
-        return Integer.hashCode((int)key) & (table.length - 1);
+    private static int hash(long key) {
+        int h = Long.hashCode(key);
+        return h ^ (h >>> 16);
     }
 
-    public T put(long key, T value) {
-        synchronized (lock) {
-            int index = hash(key);
-            Entry<T> entry = table[index];
-            Entry<T> prev = null;
+    private static int capacityFor(int size) {
+        int capacity = INITIAL_CAPACITY;
+        // Rebuilt tables are filled at most to the half of their load factor
+        while (size * 2 >= capacity * LOAD_FACTOR) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
 
-            while (entry != null) {
-                if (entry.key == key) {
-                    T oldValue = entry.value;
-                    entry.value = value; // Update value if key exists
-                    return oldValue;
+    @SuppressWarnings("unchecked")
+    public T put(long key, @NonNull T value) {
+        Objects.requireNonNull(value);
+        while (true) {
+            long stamp = lock.readLock();
+            try {
+                Table t = this.table;
+                int i = t.claim(key);
+                if (i >= 0) {
+                    Object old = t.values.getAndSet(i, value);
+                    if (old == TOMBSTONE) {
+                        size.incrementAndGet();
+                        return null;
+                    } else {
+                        return (T) old;
+                    }
                 }
-                prev = entry;
-                entry = entry.next;
-            }
-
-            if (prev == null) {
-                table[index] = new Entry<>(key, value); // Add new entry if chain is empty
-            } else {
-                prev.next = new Entry<>(key, value); // Add new entry to the chain
+            } finally {
+                lock.unlockRead(stamp);
             }
+            // No free slots left
+            rebuild();
+        }
+    }
 
-            if (++size > threshold) {
-                resize(table.length * 2);
+    @SuppressWarnings("unchecked")
+    private T putIfAbsent(long key, T value) {
+        while (true) {
+            long stamp = lock.readLock();
+            try {
+                Table t = this.table;
+                int i = t.claim(key);
+                if (i >= 0) {
+                    if (t.values.compareAndSet(i, TOMBSTONE, value)) {
+                        size.incrementAndGet();
+                        return null;
+                    } else {
+                        // Values are never replaced with RESERVED, only with other values or TOMBSTONE
+                        Object existing = t.values.get(i);
+                        if (existing != TOMBSTONE) {
+                            return (T) existing;
+                        }
+                        continue;
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
             }
-
-            return null;
+            rebuild();
         }
     }
 
     public void clear() {
-        synchronized (lock) {
-            @SuppressWarnings("unchecked")
-            Entry<T>[] newTable = (Entry<T>[]) new Entry[INITIAL_CAPACITY];
-            table = newTable;
-            size = 0;
-            threshold = (int) (INITIAL_CAPACITY * LOAD_FACTOR);
-            shrinkThreshold = (int) (INITIAL_CAPACITY * SHRINK_FACTOR);
-        }
-    }
-
-    private Stream<Entry<T>> entries() {
-        return Arrays.stream(table)
-                .filter(Objects::nonNull)
-                .flatMap(entry -> {
-                    Stream.Builder<Entry<T>> builder = Stream.builder();
-                    while (entry != null) {
-                        builder.accept(entry);
-                        entry = entry.next;
-                    }
-                    return builder.build();
-                });
+        long stamp = lock.writeLock();
+        try {
+            this.table = new Table(INITIAL_CAPACITY);
+            this.size.set(0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     public Stream<T> values() {
-        return entries().map(entry -> entry.value);
+        return StreamSupport.stream(valueSpliterator(), false);
     }
 
     public Stream<Long> keys() {
-        return entries().map(entry -> entry.key);
+        return StreamSupport.stream(new TableSpliterator<>(table, (key, value) -> key, Spliterator.NONNULL | Spliterator.DISTINCT), false);
     }
 
-    public T computeIfAbsent(long key, Supplier<T> supplier) {
+    /**
+     * Returns the value associated with the key, or creates a new one. Unlike
+     * {@link java.util.Map#computeIfAbsent(Object, java.util.function.Function)}, the method doesn't lock
+     * the key: concurrent calls for the same key may invoke the supplier more than once, and only one of
+     * the results gets stored and returned. Suppliers must therefore be free of side effects.
+     *
+     * @param key      the key
+     * @param supplier value supplier
+     * @return existing or new value
+     */
+    public T getOrCreate(long key, Supplier<T> supplier) {
         T result = get(key);
-        if(result == null) {
-            synchronized (lock) {
-                result = get(key);
-                if(result == null) {
-                    result = supplier.get();
-                    put(key,result);
-                }
-            }
+        if (result == null) {
+            T created = Objects.requireNonNull(supplier.get());
+            T existing = putIfAbsent(key, created);
+            return existing == null ? created : existing;
+        } else {
+            return result;
         }
-        return result;
     }
 
-
+    @SuppressWarnings("unchecked")
     public T get(long key) {
-        int index = hash(key);
-        Entry<T> entry = table[index];
-
-        while (entry != null) {
-            if (entry.key == key) {
-                return entry.value;
-            }
-            entry = entry.next;
+        Table t = this.table;
+        int i = t.find(key);
+        if (i < 0) {
+            return null;
+        } else {
+            Object value = t.values.get(i);
+            return value == TOMBSTONE ? null : (T) value;
         }
-        return null;
     }
 
-    public synchronized T remove(long key) {
-        synchronized (lock) {
-            int index = hash(key);
-            Entry<T> entry = table[index];
-            Entry<T> prev = null;
-
-            while (entry != null) {
-                if (entry.key == key) {
-                    if (prev == null) {
-                        table[index] = entry.next; // Remove first entry in chain
-                    } else {
-                        prev.next = entry.next; // Remove middle or last entry in chain
-                    }
-                    size--;
-                    T ret = entry.value;
-                    if (size < shrinkThreshold && table.length > INITIAL_CAPACITY) {
-                        resize(table.length / 2);
-                    }
-
-                    return ret;
-                }
-                prev = entry;
-                entry = entry.next;
+    @SuppressWarnings("unchecked")
+    public T remove(long key) {
+        Object old;
+        long stamp = lock.readLock();
+        try {
+            Table t = this.table;
+            int i = t.find(key);
+            if (i < 0) {
+                return null;
             }
+            old = t.values.getAndSet(i, TOMBSTONE);
+        } finally {
+            lock.unlockRead(stamp);
+        }
 
-            return null; // Key not found
+        if (old == TOMBSTONE) {
+            return null;
+        } else {
+            int newSize = size.decrementAndGet();
+            int capacity = table.capacity();
+            if (capacity > INITIAL_CAPACITY && newSize < capacity * SHRINK_FACTOR) {
+                rebuild();
+            }
+            return (T) old;
         }
     }
 
     @Override
     @NonNull
     public Iterator<T> iterator() {
-        return new It();
+        return Spliterators.iterator(valueSpliterator());
     }
 
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        valueSpliterator().forEachRemaining(action);
+    }
 
     @SuppressWarnings("unchecked")
-    private void resize(int newCapacity) {
-        Entry<T>[] oldTable = table;
-        table = (Entry<T>[]) new Entry[newCapacity];
-        threshold = (int) (newCapacity * LOAD_FACTOR);
-        shrinkThreshold = (int) (newCapacity * SHRINK_FACTOR);
-        size = 0;
-
-        for (Entry<T> entry : oldTable) {
-            while (entry != null) {
-                put(entry.key, entry.value);
-                entry = entry.next;
+    private Spliterator<T> valueSpliterator() {
+        return new TableSpliterator<>(table, (key, value) -> (T) value, Spliterator.NONNULL);
+    }
+
+    private void rebuild() {
+        long stamp = lock.writeLock();
+        try {
+            Table t = this.table;
+            int capacity = capacityFor(size.get());
+            // The table might have been rebuilt by another thread
+            if (t.used.get() >= t.threshold || capacity < t.capacity()) {
+                this.table = t.rebuild(capacity);
             }
+        } finally {
+            lock.unlockWrite(stamp);
         }
     }
 
     public int size() {
-        return size;
+        return size.get();
     }
 
-    private class It implements Iterator<T> {
-        int bucketIndex = 0;
-        Entry<T> currentEntry = null;
+    private static final class Table {
+        private final long[] keys;
+        private final AtomicReferenceArray<Object> values;
+        // Number of slots assigned to keys, including tombstones
+        private final AtomicInteger used = new AtomicInteger();
+        private final int threshold;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
 
-        @Override
-        public boolean hasNext() {
-            if (currentEntry != null && currentEntry.next != null) {
-                return true;
+        int capacity() {
+            return keys.length;
+        }
+
+        /**
+         * @return the key's slot, or -1 if the key is not present
+         */
+        int find(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values.get(i);
+                if (value == null) {
+                    return -1;
+                } else if (value != RESERVED && keys[i] == key) {
+                    // The volatile read of the value guarantees that the key is visible
+                    return i;
+                }
+                i = (i + 1) & mask;
             }
-            while (bucketIndex < table.length) {
-                if (table[bucketIndex] != null) {
+            return -1;
+        }
+
+        /**
+         * Looks up the key's slot and assigns a new one if the key is missing.
+         * Newly assigned slots hold a {@link #TOMBSTONE}.
+         *
+         * @return the key's slot, or -1 if the table needs to be rebuilt
+         */
+        int claim(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values.get(i);
+                if (value == null) {
+                    if (used.get() >= threshold) {
+                        return -1;
+                    }
+                    if (values.compareAndSet(i, null, RESERVED)) {
+                        used.incrementAndGet();
+                        keys[i] = key;
+                        values.set(i, TOMBSTONE);
+                        return i;
+                    }
+                    // Another thread has claimed the slot, it needs to be checked again
+                    value = values.get(i);
+                }
+                while (value == RESERVED) {
+                    Thread.yield();
+                    value = values.get(i);
+                }
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Copies the table's live entries into a new table. Must be called exclusively.
+         */
+        Table rebuild(int capacity) {
+            Table rebuilt = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < keys.length; i++) {
+                Object value = values.get(i);
+                if (value != null && value != TOMBSTONE) {
+                    long key = keys[i];
+                    int j = hash(key) & mask;
+                    while (rebuilt.values.get(j) != null) {
+                        j = (j + 1) & mask;
+                    }
+                    rebuilt.keys[j] = key;
+                    rebuilt.values.lazySet(j, value);
+                    rebuilt.used.incrementAndGet();
+                }
+            }
+            return rebuilt;
+        }
+    }
+
+    private interface EntryMapper<R> {
+        R apply(long key, Object value);
+    }
+
+    /**
+     * A spliterator over a range of table slots, splits in halves.
+     */
+    private static final class TableSpliterator<R> implements Spliterator<R> {
+        private final Table table;
+        private final EntryMapper<R> mapper;
+        private final int characteristics;
+        private int index;
+        private final int fence;
+
+        TableSpliterator(Table table, EntryMapper<R> mapper, int characteristics) {
+            this(table, mapper, characteristics, 0, table.capacity());
+        }
+
+        private TableSpliterator(Table table, EntryMapper<R> mapper, int characteristics, int index, int fence) {
+            this.table = table;
+            this.mapper = mapper;
+            this.characteristics = characteristics | Spliterator.CONCURRENT;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            while (index < fence) {
+                int i = index++;
+                Object value = table.values.get(i);
+                if (value != null && value != TOMBSTONE && value != RESERVED) {
+                    action.accept(mapper.apply(table.keys[i], value));
                     return true;
                 }
-                bucketIndex++;
             }
             return false;
         }
 
         @Override
-        public T next() {
-            if (currentEntry != null && currentEntry.next != null) {
-                currentEntry = currentEntry.next;
-            } else {
-                while (bucketIndex < table.length && table[bucketIndex] == null) {
-                    bucketIndex++;
+        public void forEachRemaining(Consumer<? super R> action) {
+            int i = index;
+            index = fence;
+            for (; i < fence; i++) {
+                Object value = table.values.get(i);
+                if (value != null && value != TOMBSTONE && value != RESERVED) {
+                    action.accept(mapper.apply(table.keys[i], value));
                 }
-                if (bucketIndex >= table.length) {
-                    throw new NoSuchElementException();
-                }
-                currentEntry = table[bucketIndex];
-                bucketIndex++;
             }
-            return currentEntry.value;
         }
 
+        @Override
+        public Spliterator<R> trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (mid <= lo) {
+                return null;
+            } else {
+                this.index = mid;
+                return new TableSpliterator<>(table, mapper, characteristics, lo, mid);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
     }
 }
@@ -78,7 +78,9 @@ public abstract class AbstractRuleSession<S extends RuleSession<S>> extends Abst
                                 .thenCompose(unused -> fireCycle(ctx, mode, newActions));
                     });
         } else {
-            // No actions, end of the fire cycle
+            // No actions, end of the fire cycle. All the deletes have been applied to the memories,
+            // so field values of deleted facts can be reclaimed.
+            memory.reclaimFieldValues();
             return CompletableFuture.completedFuture(null);
         }
     }
@@ -7,6 +7,7 @@ import org.evrete.api.spi.FactStorage;
 import org.evrete.api.spi.GroupingReteMemory;
 import org.evrete.api.spi.MemoryFactory;
 import org.evrete.api.spi.ValueIndexer;
+import org.evrete.runtime.rete.ReteSessionNodes;
 import org.evrete.util.SessionCollector;
 
 import java.util.Map;
@@ -26,6 +27,7 @@ public abstract class AbstractRuleSessionBase<S extends RuleSession<S>> extends
     private volatile boolean active = true;
     protected final boolean warnUnknownTypes;
     private final MemoryFactory<DefaultFactHandle> memoryFactory;
+    private final ReteSessionNodes reteNodes = new ReteSessionNodes();
 
     AbstractRuleSessionBase(KnowledgeRuntime knowledge) {
         super(knowledge);
@@ -43,6 +45,10 @@ public abstract class AbstractRuleSessionBase<S extends RuleSession<S>> extends
         return memoryFactory;
     }
 
+    ReteSessionNodes getReteNodes() {
+        return reteNodes;
+    }
+
     @Override
     public final S setActivationManager(ActivationManager activationManager) {
         this.activationManager = activationManager;
@@ -46,6 +46,7 @@ public abstract class AbstractRuleSessionDeployment<S extends RuleSession<S>> ex
 
     private CompletableFuture<List<SessionRule>> allocateBetaNodes(List<SessionRule> sessionRules, boolean hotDeployment) {
         if (hotDeployment) {
+            getReteNodes().newComputeCycle();
             List<CompletableFuture<Void>> betaUpdateTasks = new ArrayList<>(sessionRules.size());
             for (SessionRule r : sessionRules) {
                 betaUpdateTasks.add(r.getLhs().buildDeltas(DeltaMemoryMode.HOT_DEPLOYMENT));
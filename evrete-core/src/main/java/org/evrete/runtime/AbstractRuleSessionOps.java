@@ -4,12 +4,13 @@ import org.evrete.api.*;
 import org.evrete.api.annotations.NonNull;
 import org.evrete.api.annotations.Nullable;
 import org.evrete.api.spi.ValueIndexer;
-import org.evrete.runtime.evaluation.AlphaConditionHandle;
 import org.evrete.util.CommonUtils;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -22,6 +23,7 @@ import java.util.logging.Logger;
 public abstract class AbstractRuleSessionOps<S extends RuleSession<S>> extends AbstractRuleSessionBase<S> {
     private static final Logger LOGGER = Logger.getLogger(AbstractRuleSessionOps.class.getName());
     private final WorkMemoryActionBuffer actionBuffer;
+    private final Map<ActiveType.Idx, AlphaConditionDispatch> alphaConditionDispatches = new ConcurrentHashMap<>();
 
     AbstractRuleSessionOps(KnowledgeRuntime knowledge) {
         super(knowledge);
@@ -286,24 +288,25 @@ public abstract class AbstractRuleSessionOps<S extends RuleSession<S>> extends A
     Collection<AlphaAddress> matchingAlphaLocations(DefaultFactHandle handle, FactFieldValues values) {
         // 1. Evaluate alpha conditions
         ActiveType activeType = getActiveType(handle);
-        Mask<AlphaConditionHandle> alphaConditionResults = alphaConditionResults(activeType, values);
+        long[] alphaConditionResults = alphaConditionResults(activeType, values);
 
         // 2.
         return AlphaAddress.matchingLocations(alphaConditionResults, activeType.getKnownAlphaLocations());
     }
 
 
-    Mask<AlphaConditionHandle> alphaConditionResults(ActiveType activeType, FactFieldValues values) {
-        Mask<AlphaConditionHandle> alphaConditionResults = Mask.alphaConditionsMask();
+    long[] alphaConditionResults(ActiveType activeType, FactFieldValues values) {
+        return alphaConditionDispatch(activeType).evaluate(this, values);
+    }
+
+    AlphaConditionDispatch alphaConditionDispatch(ActiveType activeType) {
         ActiveEvaluatorGenerator context = getEvaluatorsContext();
-        activeType.forEachAlphaCondition(indexedHandle -> {
-            StoredCondition evaluator = context.get(indexedHandle.getHandle(), false);
-            ActiveField activeField = evaluator.getDescriptor().get(0).field();
-            IntToValue args = index -> values.valueAt(activeField.valueIndex());
-            alphaConditionResults.set(indexedHandle, evaluator.test(this, args));
-        });
-
-        return alphaConditionResults;
+        AlphaConditionDispatch dispatch = alphaConditionDispatches.get(activeType.getId());
+        if (dispatch == null || !dispatch.isValid(activeType, context)) {
+            dispatch = new AlphaConditionDispatch(activeType, context);
+            alphaConditionDispatches.put(activeType.getId(), dispatch);
+        }
+        return dispatch;
     }
 
 
@@ -1,5 +1,6 @@
 package org.evrete.runtime;
 
+import org.evrete.runtime.rete.ReteSessionConditionNode;
 import org.evrete.util.CommonUtils;
 
 import java.util.*;
@@ -10,6 +11,10 @@ import java.util.logging.Logger;
 
 class ActivationContext {
     private static final Logger LOGGER = Logger.getLogger(ActivationContext.class.getName());
+    /**
+     * Inserts and deletes of a concurrent alpha memory are split into parallel tasks of this size
+     */
+    static final int ALPHA_MEMORY_CHUNK_SIZE = 4096;
     private final AtomicInteger activationCount = new AtomicInteger();
     private final SessionMemory memory;
     private final List<SessionRule> rules;
@@ -55,7 +60,7 @@ class ActivationContext {
 
             final MapOfList<TypeAlphaMemory, FactHolder> deletesByAlphaMemory = new MapOfList<>();
             final MapOfList<TypeMemory, DefaultFactHandle> nonAppliedDeletes = new MapOfList<>();
-            final MapOfList<SessionFactGroup, FactHolder> deletesByFactGroups = new MapOfList<>();
+            final MapOfSet<ReteSessionConditionNode, FactHolder> deletesByConditionNodes = new MapOfSet<>();
 
             for(WorkMemoryActionBuffer.SplitView view : typedActions) {
                 ActiveType type = view.getType();
@@ -77,11 +82,11 @@ class ActivationContext {
                         deletesByAlphaMemory.add(alphaMemory, factHolder);
                     });
 
-                    // c) split by fact groups
+                    // c) split by condition nodes of matching fact groups (nodes can be shared between rules)
                     for (SessionRule rule : rules) {
                         for (SessionFactGroup group : rule.getLhs().getFactGroups()) {
                             if (!group.isPlain() && group.getTypeMask().get(type)) {
-                                deletesByFactGroups.add(group, factHolder);
+                                group.forEachConditionNode(node -> deletesByConditionNodes.add(node, factHolder));
                             }
                         }
                     }
@@ -92,7 +97,7 @@ class ActivationContext {
             // Turn the collected data into futures
             final Collection<CompletableFuture<Void>> deleteFutures = new ArrayList<>();
 
-            LOGGER.fine(() -> "Scheduling delete ops: alpha memories: [" + deletesByAlphaMemory.size() + "], type memories: [" + nonAppliedDeletes.size() + "],  fact groups: [" + deletesByFactGroups.size() + "]");
+            LOGGER.fine(() -> "Scheduling delete ops: alpha memories: [" + deletesByAlphaMemory.size() + "], type memories: [" + nonAppliedDeletes.size() + "],  condition nodes: [" + deletesByConditionNodes.size() + "]");
             deletesByAlphaMemory.forEach(
                     (memory, value) -> deleteFutures.add(processDeleteDeltaActions(memory, value))
             );
@@ -101,8 +106,8 @@ class ActivationContext {
                     (memory, factWrappers) -> deleteFutures.add(handleNonAppliedDeletes(memory, factWrappers))
             );
 
-            deletesByFactGroups.forEach(
-                    (group, ops) -> deleteFutures.add(group.processDeleteDeltaActions(ops))
+            deletesByConditionNodes.forEach(
+                    (node, ops) -> deleteFutures.add(CompletableFuture.runAsync(() -> node.deleteAll(ops), executor))
             );
 
             return CommonUtils.completeAll(deleteFutures);
@@ -173,17 +178,11 @@ class ActivationContext {
 
             // 4. Identifying which rules (and their condition graphs) are affected by the inserts
             Mask<AlphaAddress> insertMask = Mask.alphaAddressMask().set(insertsByAlphaLocation.keySet());
-
+            MapOfList<SessionRule, SessionFactGroup> affectedGroupsByRule = new MapOfList<>();
             for (SessionRule rule : rules) {
-                boolean ruleAdded = false;
                 for (SessionFactGroup group : rule.getLhs().getFactGroups()) {
-                    //if (CommonUtils.intersecting(group.getAlphaAddressMask(), alphaConditionSets)) {
                     if (group.getAlphaAddressMask().intersects(insertMask)) {
-                        result.addAffectedFactGroup(group);
-                        if (!ruleAdded) {
-                            result.addAffectedRule(rule);
-                            ruleAdded = true;
-                        }
+                        affectedGroupsByRule.add(rule, group);
                     }
                 }
             }
@@ -194,11 +193,48 @@ class ActivationContext {
             return CommonUtils.completeAll(insertFutures)
                     .thenComposeAsync(
                             unused -> {
-                                // 5. Now computing the condition fact groups ()
-                                return CommonUtils.completeAll(
-                                        result.affectedFactGroups,
-                                        group -> group.buildDeltas(DeltaMemoryMode.DEFAULT)
-                                ).thenApply(unused1 -> result);
+                                // 6. Rules with empty fact types can not be activated, their fact groups are
+                                //    unlinked instead of being computed. Linked rules with previously
+                                //    unlinked groups need those groups rebuilt first.
+                                List<SessionFactGroup> unlinkedGroups = new LinkedList<>();
+                                List<SessionFactGroup> relinkedGroups = new LinkedList<>();
+                                for (SessionRule rule : rules) {
+                                    List<SessionFactGroup> affectedGroups = affectedGroupsByRule.get(rule);
+                                    if (affectedGroups != null) {
+                                        if (rule.getLhs().isLinked()) {
+                                            affectedGroups.forEach(result::addAffectedFactGroup);
+                                            result.addAffectedRule(rule);
+                                            relinkedGroups.addAll(Arrays.asList(rule.getLhs().getFactGroups()));
+                                        } else {
+                                            unlinkedGroups.addAll(affectedGroups);
+                                        }
+                                    }
+                                }
+                                LOGGER.fine(() -> "Affected rules: [" + result.agenda.size() + "], unlinked fact groups: [" + unlinkedGroups.size() + "]");
+
+                                session.getReteNodes().newComputeCycle();
+                                return CommonUtils.completeAll(relinkedGroups, SessionFactGroup::relink)
+                                        .thenCompose(unused1 -> {
+                                            // 7. Now computing the condition fact groups
+                                            session.getReteNodes().newComputeCycle();
+                                            return CommonUtils.completeAll(
+                                                    result.affectedFactGroups,
+                                                    group -> group.buildDeltas(DeltaMemoryMode.DEFAULT)
+                                            );
+                                        })
+                                        .thenApply(unused1 -> {
+                                            // 8. Unlinking the nodes that have missed the changes
+                                            if (!unlinkedGroups.isEmpty()) {
+                                                Set<ReteSessionConditionNode> maintainedNodes = new HashSet<>();
+                                                for (SessionFactGroup group : result.affectedFactGroups) {
+                                                    group.forEachConditionNode(maintainedNodes::add);
+                                                }
+                                                for (SessionFactGroup group : unlinkedGroups) {
+                                                    group.unlink(insertMask, maintainedNodes);
+                                                }
+                                            }
+                                            return result;
+                                        });
                             },
                             executor
                     );
@@ -209,15 +245,30 @@ class ActivationContext {
     CompletableFuture<Void> commitMemories(Status status) {
         LOGGER.fine(() -> "Scheduling memory commits. Fact groups: " + status.affectedFactGroups.size() + ", alpha memories: " + status.affectedAlphaBuckets.size());
         final List<CompletableFuture<Void>> commitFutures = new ArrayList<>();
-        // 1. Per group tasks (committing beta condition nodes)
+        // 1. Committing beta condition nodes, each shared node only once
+        Set<ReteSessionConditionNode> conditionNodes = new HashSet<>();
         for (SessionFactGroup group : status.affectedFactGroups) {
-            commitFutures.add(group.commitDeltas());
+            group.forEachConditionNode(conditionNodes::add);
+        }
+        for (ReteSessionConditionNode node : conditionNodes) {
+            commitFutures.add(CompletableFuture.runAsync(node::commit, executor));
         }
         // 2. Committing alpha memories
         for (TypeAlphaMemory alphaMemory : status.affectedAlphaBuckets) {
             commitFutures.add(alphaMemory.commit(executor));
         }
-        return CommonUtils.completeAll(commitFutures);
+        // 3. With all the memories committed, fact groups can re-plan their condition graphs.
+        //    Groups are processed one by one because their new graphs can share condition nodes.
+        return CommonUtils.completeAll(commitFutures)
+                .thenCompose(unused -> replanGraphs(status.affectedFactGroups.iterator()));
+    }
+
+    private static CompletableFuture<Void> replanGraphs(Iterator<SessionFactGroup> groups) {
+        if (groups.hasNext()) {
+            return groups.next().replanGraph().thenCompose(unused -> replanGraphs(groups));
+        } else {
+            return CompletableFuture.completedFuture(null);
+        }
     }
 
     CompletableFuture<Void> handleNonAppliedInserts(TypeMemory typeMemory, Collection<FactHolder> facts) {
@@ -240,28 +291,51 @@ class ActivationContext {
         );
     }
 
-    CompletableFuture<Void> processDeleteDeltaActions(TypeAlphaMemory memory, Collection<FactHolder> deletes) {
-        return CompletableFuture.runAsync(
-                () -> {
-                    for (FactHolder delete : deletes) {
-                        memory.delete(delete.getFieldValuesId(), delete.getHandle());
-                    }
-                },
-                executor
+    CompletableFuture<Void> processDeleteDeltaActions(TypeAlphaMemory memory, List<FactHolder> deletes) {
+        return CommonUtils.completeAll(
+                chunks(memory, deletes),
+                chunk -> CompletableFuture.runAsync(
+                        () -> {
+                            for (FactHolder delete : chunk) {
+                                memory.delete(delete.getFieldValuesId(), delete.getHandle());
+                            }
+                        },
+                        executor
+                )
         );
     }
 
-    CompletableFuture<Void> processInsertDeltaActions(TypeAlphaMemory memory, Collection<FactHolder> inserts) {
-        return CompletableFuture.runAsync(
-                () -> {
-                    for (FactHolder insert : inserts) {
-                        memory.insert(insert.getFieldValuesId(), insert.getHandle());
-                    }
-                },
-                executor
+    CompletableFuture<Void> processInsertDeltaActions(TypeAlphaMemory memory, List<FactHolder> inserts) {
+        return CommonUtils.completeAll(
+                chunks(memory, inserts),
+                chunk -> CompletableFuture.runAsync(
+                        () -> {
+                            for (FactHolder insert : chunk) {
+                                memory.insert(insert.getFieldValuesId(), insert.getHandle());
+                            }
+                        },
+                        executor
+                )
         );
     }
 
+    /**
+     * Splits the provided operations into parallel chunks if the memory supports concurrent updates.
+     */
+    private static List<List<FactHolder>> chunks(TypeAlphaMemory memory, List<FactHolder> ops) {
+        if (ops.size() <= ALPHA_MEMORY_CHUNK_SIZE || !memory.isConcurrent()) {
+            return Collections.singletonList(ops);
+        } else {
+            // Sub-lists of linked lists are not cheap to iterate
+            List<FactHolder> list = ops instanceof RandomAccess ? ops : new ArrayList<>(ops);
+            List<List<FactHolder>> chunks = new ArrayList<>(list.size() / ALPHA_MEMORY_CHUNK_SIZE + 1);
+            for (int start = 0; start < list.size(); start += ALPHA_MEMORY_CHUNK_SIZE) {
+                chunks.add(list.subList(start, Math.min(start + ALPHA_MEMORY_CHUNK_SIZE, list.size())));
+            }
+            return chunks;
+        }
+    }
+
 
     static class Status {
         final List<SessionRule> agenda = new LinkedList<>();
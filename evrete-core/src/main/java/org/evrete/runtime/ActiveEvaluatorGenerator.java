@@ -10,6 +10,7 @@ import org.evrete.runtime.evaluation.DefaultEvaluatorHandle;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
 /**
@@ -18,6 +19,8 @@ import java.util.function.BiConsumer;
 public class ActiveEvaluatorGenerator extends IndexingArrayMap<ActiveEvaluatorGenerator.InnerKey, ActiveEvaluatorGenerator.InnerKey, DefaultEvaluatorHandle, StoredCondition> implements Copyable<ActiveEvaluatorGenerator>, EvaluatorsContext {
     // Executor is required for evaluator publishers
     private final Executor executor;
+    // Incremented each time a stored condition changes its predicate or gets a publisher
+    private final AtomicInteger version = new AtomicInteger();
 
     ActiveEvaluatorGenerator(Executor executor) {
         super(innerKey -> innerKey);
@@ -50,6 +53,16 @@ public class ActiveEvaluatorGenerator extends IndexingArrayMap<ActiveEvaluatorGe
         replace((DefaultEvaluatorHandle) handle, newPredicate);
     }
 
+    /**
+     * Returns the current version of stored conditions. Structures that are derived from
+     * the conditions' predicates must be rebuilt once the version changes.
+     *
+     * @return the current version
+     */
+    int getVersion() {
+        return version.get();
+    }
+
     /**
      * <p>
      * Registers new condition and returns its handle.
@@ -67,7 +80,9 @@ public class ActiveEvaluatorGenerator extends IndexingArrayMap<ActiveEvaluatorGe
     @Override
     @NonNull
     public Events.Publisher<ConditionEvaluationEvent> publisher(EvaluatorHandle handle) {
-        return get((DefaultEvaluatorHandle) handle, false).getCreatePublisher(this.executor);
+        Events.Publisher<ConditionEvaluationEvent> publisher = get((DefaultEvaluatorHandle) handle, false).getCreatePublisher(this.executor);
+        version.incrementAndGet();
+        return publisher;
     }
 
     @Override
@@ -78,6 +93,7 @@ public class ActiveEvaluatorGenerator extends IndexingArrayMap<ActiveEvaluatorGe
 
     private void replace(DefaultEvaluatorHandle handle, ValuesPredicate predicate) {
         get(handle, false).setPredicate(predicate);
+        version.incrementAndGet();
     }
 
     public StoredCondition get(DefaultEvaluatorHandle handle, boolean returnNull) {
@@ -30,6 +30,7 @@ public class ActiveType implements Copyable<ActiveType> {
     private final Type<?> value;
     private final Idx id;
     private final Set<AlphaAddress> knownAlphaLocations;
+    private volatile FieldValuesLayout fieldValuesLayout;
 
     public ActiveType(Idx id, Type<?> value) {
         this.value = value;
@@ -88,12 +89,23 @@ public class ActiveType implements Copyable<ActiveType> {
     }
 
     FactFieldValues readFactValue(Type<?> type, Object fact) {
-        final Object[] values = new Object[activeFields.size()];
-        activeFields.forEachValue(activeField -> {
-            TypeField field = type.getField(activeField.getName());
-            values[activeField.valueIndex()] = field.readValue(fact);
-        });
-        return new FactFieldValues(values);
+        return fieldValuesLayout(type).read(fact);
+    }
+
+    FactFieldValues restoreFactValue(Type<?> type, Object[] values) {
+        return fieldValuesLayout(type).restore(values);
+    }
+
+    private FieldValuesLayout fieldValuesLayout(Type<?> type) {
+        FieldValuesLayout current = this.fieldValuesLayout;
+        if (current == null || !current.isValid(type, activeFields.size())) {
+            // Active fields have changed, or values are read with another type instance
+            TypeField[] fields = new TypeField[activeFields.size()];
+            activeFields.forEachValue(activeField -> fields[activeField.valueIndex()] = type.getField(activeField.getName()));
+            current = FieldValuesLayout.of(type, fields);
+            this.fieldValuesLayout = current;
+        }
+        return current;
     }
 
     ActiveField getCreateActiveField(TypeField field) {
@@ -17,11 +17,14 @@ import java.util.Set;
 public class AlphaAddress extends PreHashed implements Indexed {
     private final int index;
     private final TypeAlphaConditions typeAlphaConditions;
+    // Required alpha conditions as bit mask words
+    private final long[] requiredConditions;
 
     public AlphaAddress(int index, TypeAlphaConditions typeAlphaConditions) {
         super(index);
         this.index = index;
         this.typeAlphaConditions = typeAlphaConditions;
+        this.requiredConditions = typeAlphaConditions.getMask().getDelegate().toLongArray();
     }
 
     private Mask<AlphaConditionHandle> getMask() {
@@ -57,7 +60,27 @@ public class AlphaAddress extends PreHashed implements Indexed {
         return alphaConditionResults.containsAll(getMask());
     }
 
+    /**
+     * @param alphaConditionResults alpha condition results as bit mask words, indexed by
+     *                              {@link AlphaConditionHandle#getIndex()}
+     * @return true if all the address' conditions are met
+     */
+    public boolean matches(long[] alphaConditionResults) {
+        for (int i = 0; i < requiredConditions.length; i++) {
+            long required = requiredConditions[i];
+            long actual = i < alphaConditionResults.length ? alphaConditionResults[i] : 0L;
+            if ((actual & required) != required) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static Collection<AlphaAddress> matchingLocations(Mask<AlphaConditionHandle> alphaConditionResults, Set<AlphaAddress> scope) {
+        return matchingLocations(alphaConditionResults.getDelegate().toLongArray(), scope);
+    }
+
+    public static Collection<AlphaAddress> matchingLocations(long[] alphaConditionResults, Set<AlphaAddress> scope) {
         List<AlphaAddress> matching = new ArrayList<>(scope.size());
         for (AlphaAddress alphaAddress : scope) {
             if (alphaAddress.matches(alphaConditionResults)) {
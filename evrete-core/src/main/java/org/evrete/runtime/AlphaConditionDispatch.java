@@ -0,0 +1,244 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.IntToValue;
+import org.evrete.api.RuleSession;
+import org.evrete.api.ValuesPredicate;
+import org.evrete.api.spi.AlphaMaskEvaluator;
+import org.evrete.runtime.compiler.FusedEvaluatorCompiler;
+import org.evrete.runtime.evaluation.AlphaConditionHandle;
+import org.evrete.runtime.evaluation.StaticMethodPredicate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Evaluates alpha conditions of an {@link ActiveType}. Conditions of the <code>field == constant</code> kind
+ * (see {@link StoredCondition#getEqualityConstant()}) are grouped by their field, so that their results
+ * are obtained with a single hash lookup per field, no matter how many such conditions the type has.
+ * The rest of the conditions are evaluated one by one.
+ * </p>
+ * <p>
+ * Once the type has seen enough facts, literal conditions (see {@link StaticMethodPredicate}) get compiled
+ * in the background into {@link AlphaMaskEvaluator} classes which call the conditions' methods directly,
+ * one class per class loader of the conditions' sources. Results are returned as <code>long[]</code>
+ * masks indexed by {@link AlphaConditionHandle#getIndex()}, see {@link AlphaAddress#matches(long[])}.
+ * </p>
+ * <p>
+ * Instances are immutable and must be rebuilt once the type gets new alpha conditions or
+ * the stored conditions change, see {@link #isValid(ActiveType, ActiveEvaluatorGenerator)}.
+ * </p>
+ */
+final class AlphaConditionDispatch {
+    private static final Logger LOGGER = Logger.getLogger(AlphaConditionDispatch.class.getName());
+    private static final AtomicBoolean compilationFailureReported = new AtomicBoolean();
+    /**
+     * Number of evaluated facts after which the type's literal conditions get compiled
+     */
+    static final long COMPILATION_THRESHOLD = 10_000L;
+    private final ActiveType type;
+    private final int conditionCount;
+    private final int version;
+    private final int maskLength;
+    private final FieldDispatch[] dispatched;
+    private final Condition[] evaluated;
+    private final Condition[] compilable;
+    private final AtomicLong evaluationCount = new AtomicLong();
+    private final AtomicBoolean compilationRequested = new AtomicBoolean();
+    private volatile AlphaMaskEvaluator[] compiled;
+
+    AlphaConditionDispatch(ActiveType type, ActiveEvaluatorGenerator context) {
+        this.type = type;
+        this.version = context.getVersion();
+        this.conditionCount = type.getCountOfAlphaConditions();
+
+        Map<Integer, FieldDispatch> byField = new HashMap<>();
+        List<Condition> other = new ArrayList<>();
+        List<Condition> literal = new ArrayList<>();
+        int[] maxIndex = {-1};
+        type.forEachAlphaCondition(indexedHandle -> {
+            StoredCondition condition = context.get(indexedHandle.getHandle(), false);
+            Condition c = new Condition(indexedHandle, condition);
+            Object constant = condition.getEqualityConstant();
+            if (constant != null) {
+                byField.computeIfAbsent(c.valueIndexes[0], FieldDispatch::new).add(constant, c);
+            } else if (!condition.hasPublisher() && condition.getCondition() instanceof StaticMethodPredicate) {
+                literal.add(c);
+            } else {
+                other.add(c);
+            }
+            maxIndex[0] = Math.max(maxIndex[0], indexedHandle.getIndex());
+        });
+        this.maskLength = (maxIndex[0] + 64) >>> 6;
+        this.dispatched = byField.values().toArray(new FieldDispatch[0]);
+        this.evaluated = other.toArray(new Condition[0]);
+        this.compilable = literal.toArray(new Condition[0]);
+    }
+
+    boolean isValid(ActiveType type, ActiveEvaluatorGenerator context) {
+        return this.type == type
+                && this.conditionCount == type.getCountOfAlphaConditions()
+                && this.version == context.getVersion();
+    }
+
+    /**
+     * Evaluates the type's alpha conditions against the provided field values.
+     *
+     * @param session the session
+     * @param values  the fact's field values
+     * @return the mask of conditions that are met
+     */
+    long[] evaluate(AbstractRuleSessionBase<?> session, FactFieldValues values) {
+        long[] destination = new long[maskLength];
+        for (FieldDispatch fieldDispatch : dispatched) {
+            Object value = values.valueAt(fieldDispatch.valueIndex);
+            if (value == null) {
+                // Null values are left to the conditions themselves
+                for (Condition condition : fieldDispatch.conditions) {
+                    condition.evaluate(session, values, destination);
+                }
+            } else {
+                Condition[] matching = fieldDispatch.byConstant.get(value);
+                if (matching != null) {
+                    for (Condition condition : matching) {
+                        condition.set(destination);
+                    }
+                }
+            }
+        }
+
+        for (Condition condition : evaluated) {
+            condition.evaluate(session, values, destination);
+        }
+
+        if (compilable.length > 0) {
+            evaluateLiterals(session, values, destination);
+        }
+        return destination;
+    }
+
+    private void evaluateLiterals(AbstractRuleSessionBase<?> session, FactFieldValues values, long[] destination) {
+        AlphaMaskEvaluator[] evaluators = this.compiled;
+        if (evaluators != null) {
+            try {
+                for (AlphaMaskEvaluator evaluator : evaluators) {
+                    evaluator.evaluate(values, destination);
+                }
+                return;
+            } catch (RuntimeException e) {
+                // Falling back to per-condition evaluation, which reports the failing condition
+                LOGGER.log(Level.FINE, e, () -> "Compiled alpha evaluation failed for type " + type);
+                for (Condition condition : compilable) {
+                    condition.clear(destination);
+                }
+            }
+        } else if (evaluationCount.incrementAndGet() >= COMPILATION_THRESHOLD && compilationRequested.compareAndSet(false, true)) {
+            requestCompilation(session);
+        }
+
+        for (Condition condition : compilable) {
+            condition.evaluate(session, values, destination);
+        }
+    }
+
+    private void requestCompilation(AbstractRuleSessionBase<?> session) {
+        KnowledgeService service = session.getService();
+        // Generated classes must see the conditions' classes, so the conditions are grouped by their class loaders
+        Map<ClassLoader, List<Condition>> byClassLoader = new IdentityHashMap<>();
+        for (Condition condition : compilable) {
+            ClassLoader classLoader = ((StaticMethodPredicate) condition.predicate).getDeclaringClass().getClassLoader();
+            byClassLoader.computeIfAbsent(classLoader, k -> new ArrayList<>()).add(condition);
+        }
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                List<AlphaMaskEvaluator> result = new ArrayList<>(byClassLoader.size());
+                for (List<Condition> group : byClassLoader.values()) {
+                    List<FusedEvaluatorCompiler.Call> calls = new ArrayList<>(group.size());
+                    int[] bits = new int[group.size()];
+                    for (int i = 0; i < bits.length; i++) {
+                        Condition condition = group.get(i);
+                        calls.add(new FusedEvaluatorCompiler.Call((StaticMethodPredicate) condition.predicate, new int[condition.valueIndexes.length], condition.valueIndexes));
+                        bits[i] = condition.handle.getIndex();
+                    }
+                    result.add(FusedEvaluatorCompiler.compileAlpha(service.getSourceCompilerProvider(), session.getConfiguration(), calls, bits));
+                }
+                this.compiled = result.toArray(new AlphaMaskEvaluator[0]);
+            } catch (Exception | LinkageError e) {
+                // Conditions will be evaluated one by one. Errors would otherwise be kept by the discarded future.
+                Level level = compilationFailureReported.compareAndSet(false, true) ? Level.WARNING : Level.FINE;
+                LOGGER.log(level, e, () -> "Unable to compile alpha conditions of type " + type);
+            }
+        }, service.getExecutor());
+    }
+
+    /**
+     * @return true if the type's literal conditions are evaluated by generated classes
+     */
+    boolean isCompiled() {
+        return compiled != null;
+    }
+
+    private static final class Condition {
+        private final AlphaConditionHandle handle;
+        private final StoredCondition condition;
+        private final ValuesPredicate predicate;
+        private final int[] valueIndexes;
+        private final int word;
+        private final long bit;
+
+        Condition(AlphaConditionHandle handle, StoredCondition condition) {
+            this.handle = handle;
+            this.condition = condition;
+            this.predicate = condition.getCondition();
+            this.valueIndexes = new int[condition.getDescriptor().length()];
+            for (int i = 0; i < valueIndexes.length; i++) {
+                this.valueIndexes[i] = condition.getDescriptor().get(i).field().valueIndex();
+            }
+            this.word = handle.getIndex() >>> 6;
+            this.bit = 1L << (handle.getIndex() & 63);
+        }
+
+        void set(long[] destination) {
+            destination[word] |= bit;
+        }
+
+        void clear(long[] destination) {
+            destination[word] &= ~bit;
+        }
+
+        void evaluate(RuleSession<?> session, FactFieldValues values, long[] destination) {
+            IntToValue args = index -> values.valueAt(valueIndexes[index]);
+            if (condition.test(session, args)) {
+                set(destination);
+            }
+        }
+    }
+
+    private static final class FieldDispatch {
+        private final int valueIndex;
+        private final Map<Object, Condition[]> byConstant = new HashMap<>();
+        private final List<Condition> conditions = new ArrayList<>();
+
+        FieldDispatch(int valueIndex) {
+            this.valueIndex = valueIndex;
+        }
+
+        void add(Object constant, Condition condition) {
+            Condition[] existing = byConstant.get(constant);
+            if (existing == null) {
+                byConstant.put(constant, new Condition[]{condition});
+            } else {
+                Condition[] extended = Arrays.copyOf(existing, existing.length + 1);
+                extended[existing.length] = condition;
+                byConstant.put(constant, extended);
+            }
+            conditions.add(condition);
+        }
+    }
+}
@@ -23,6 +23,22 @@ public final class DefaultFactHandle extends PreHashed implements FactHandle {
         this.type = typeId;
     }
 
+    /**
+     * Re-creates a previously issued fact handle, for example when reading it back from an external storage.
+     * The internal counter is advanced if needed, so that new handles never get the same identifier.
+     *
+     * @param id     the handle's identifier
+     * @param typeId the handle's type
+     */
+    DefaultFactHandle(long id, ActiveType.Idx typeId) {
+        super(typeId.getIndex());
+        this.id = id;
+        this.type = typeId;
+        if (COUNTER.get() < id) {
+            COUNTER.accumulateAndGet(id, Math::max);
+        }
+    }
+
     public ActiveType.Idx getType() {
         return type;
     }
@@ -0,0 +1,94 @@
+package org.evrete.runtime;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.spi.MemoryRecords;
+
+import java.util.Arrays;
+
+/**
+ * The engine's implementation of {@link MemoryRecords}.
+ */
+public final class DefaultMemoryRecords implements MemoryRecords {
+    public static final DefaultMemoryRecords INSTANCE = new DefaultMemoryRecords();
+    // Type indices are shared by all the re-created handles of a type
+    private volatile ActiveType.Idx[] types = new ActiveType.Idx[0];
+
+    private DefaultMemoryRecords() {
+    }
+
+    @Override
+    public Kind kindOf(Class<?> valueType) {
+        if (valueType == DefaultFactHandle.class) {
+            return Kind.FACT_HANDLE;
+        } else if (valueType == FactHolder.class) {
+            return Kind.FACT_HOLDER;
+        } else if (valueType == FactFieldValues.class) {
+            return Kind.FIELD_VALUES;
+        } else {
+            return Kind.OTHER;
+        }
+    }
+
+    @Override
+    public int handleType(FactHandle handle) {
+        return ((DefaultFactHandle) handle).getType().getIndex();
+    }
+
+    @Override
+    public FactHandle newHandle(long id, int type) {
+        return new DefaultFactHandle(id, type(type));
+    }
+
+    @Override
+    public FactHandle holderHandle(Object holder) {
+        return ((FactHolder) holder).getHandle();
+    }
+
+    @Override
+    public long holderFieldValuesId(Object holder) {
+        return ((FactHolder) holder).getFieldValuesId();
+    }
+
+    @Override
+    public Object holderFact(Object holder) {
+        return ((FactHolder) holder).getFact();
+    }
+
+    @Override
+    public Object newHolder(FactHandle handle, long fieldValuesId, Object fact) {
+        return new FactHolder((DefaultFactHandle) handle, fieldValuesId, fact);
+    }
+
+    @Override
+    public Object[] fieldValues(Object fieldValues) {
+        FactFieldValues values = (FactFieldValues) fieldValues;
+        Object[] result = new Object[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.valueAt(i);
+        }
+        return result;
+    }
+
+    @Override
+    public Object newFieldValues(Object[] values) {
+        return new FactFieldValues(values);
+    }
+
+    private ActiveType.Idx type(int index) {
+        ActiveType.Idx[] current = this.types;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = this.types;
+            if (index >= current.length) {
+                ActiveType.Idx[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new ActiveType.Idx(i);
+                }
+                this.types = current = grown;
+            }
+            return current[index];
+        }
+    }
+}
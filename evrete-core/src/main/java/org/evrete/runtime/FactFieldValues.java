@@ -1,25 +1,122 @@
 package org.evrete.runtime;
 
+import org.evrete.api.spi.FieldValues;
+
 import java.util.Arrays;
+import java.util.Objects;
 
-public final class FactFieldValues extends PreHashed{
-    private final Object[] values;
+/**
+ * <p>
+ * Field values of a fact. Values of primitive fields are stored unboxed (see {@link FieldValuesLayout}),
+ * so they can be hashed and compared without allocations, and read by compiled conditions with
+ * the typed accessors like {@link #intAt(int)}. The {@link #valueAt(int)} method boxes such values on demand.
+ * </p>
+ * <p>
+ * Hashing and equality don't depend on the layout: the hash code is the one of the boxed values' array,
+ * and instances with different layouts are equal if their boxed values are. This allows restoring
+ * instances from their values only, see {@link #FactFieldValues(Object[])}.
+ * </p>
+ * <p>
+ * A typed accessor may be called for any field whose values are instances of the accessor's wrapper type.
+ * </p>
+ */
+public final class FactFieldValues extends PreHashed implements FieldValues {
+    private final FieldValuesLayout layout;
+    private final long[] primitives;
+    private final Object[] references;
 
     public FactFieldValues(Object[] values) {
-        super(Arrays.hashCode(values));
-        this.values = values;
+        this(FieldValuesLayout.referenceOnly(values.length), new long[0], values);
+    }
+
+    FactFieldValues(FieldValuesLayout layout, long[] primitives, Object[] references) {
+        super(hash(layout, primitives, references));
+        this.layout = layout;
+        this.primitives = primitives;
+        this.references = references;
     }
 
+    /**
+     * Computes the same hash code as {@link Arrays#hashCode(Object[])} does for the boxed values.
+     */
+    private static int hash(FieldValuesLayout layout, long[] primitives, Object[] references) {
+        int result = 1;
+        for (int i = 0; i < layout.size(); i++) {
+            byte kind = layout.kind(i);
+            int slot = layout.slot(i);
+            int h = kind == FieldValuesLayout.REFERENCE ? Objects.hashCode(references[slot]) : FieldValuesLayout.hash(kind, primitives[slot]);
+            result = 31 * result + h;
+        }
+        return result;
+    }
+
+    @Override
     public int size() {
-        return values.length;
+        return layout.size();
     }
 
+    @Override
     public Object valueAt(int index) {
-        return values[index];
+        byte kind = layout.kind(index);
+        int slot = layout.slot(index);
+        return kind == FieldValuesLayout.REFERENCE ? references[slot] : FieldValuesLayout.decode(kind, primitives[slot]);
+    }
+
+    @Override
+    public int intAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.INT ? (int) primitives[layout.slot(index)] : (Integer) valueAt(index);
+    }
+
+    @Override
+    public long longAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.LONG ? primitives[layout.slot(index)] : (Long) valueAt(index);
+    }
+
+    @Override
+    public double doubleAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.DOUBLE ? Double.longBitsToDouble(primitives[layout.slot(index)]) : (Double) valueAt(index);
+    }
+
+    @Override
+    public float floatAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.FLOAT ? Float.intBitsToFloat((int) primitives[layout.slot(index)]) : (Float) valueAt(index);
+    }
+
+    @Override
+    public short shortAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.SHORT ? (short) primitives[layout.slot(index)] : (Short) valueAt(index);
+    }
+
+    @Override
+    public byte byteAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.BYTE ? (byte) primitives[layout.slot(index)] : (Byte) valueAt(index);
+    }
+
+    @Override
+    public char charAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.CHAR ? (char) primitives[layout.slot(index)] : (Character) valueAt(index);
+    }
+
+    @Override
+    public boolean booleanAt(int index) {
+        return layout.kind(index) == FieldValuesLayout.BOOLEAN ? primitives[layout.slot(index)] != 0L : (Boolean) valueAt(index);
     }
 
     private boolean equalsTo(FactFieldValues that) {
-        return Arrays.equals(values, that.values);
+        if (layout == that.layout || layout.equals(that.layout)) {
+            return Arrays.equals(primitives, that.primitives) && Arrays.equals(references, that.references);
+        } else {
+            int size = size();
+            if (size != that.size()) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (!Objects.equals(valueAt(i), that.valueAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     @Override
@@ -31,9 +128,12 @@ public final class FactFieldValues extends PreHashed{
 
     @Override
     public String toString() {
-        String[] types = new String[values.length];
-        for (int i = 0; i < values.length; i++) {
-            Object value = values[i];
+        int size = size();
+        Object[] values = new Object[size];
+        String[] types = new String[size];
+        for (int i = 0; i < size; i++) {
+            Object value = valueAt(i);
+            values[i] = value;
             types[i] = value == null ? null : value.getClass().getName();
         }
         return Arrays.toString(values) + "/" + Arrays.toString(types);
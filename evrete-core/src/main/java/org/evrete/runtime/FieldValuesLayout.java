@@ -0,0 +1,311 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Type;
+import org.evrete.api.TypeField;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Describes how the field values of an {@link ActiveType} are stored in {@link FactFieldValues}. Values
+ * of primitive fields are encoded into a <code>long[]</code> array, values of other fields are stored
+ * in an <code>Object[]</code> array. Each layout has a reference-only twin, which is used for facts
+ * whose primitive fields unexpectedly return <code>null</code>.
+ * </p>
+ */
+final class FieldValuesLayout {
+    static final byte REFERENCE = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte FLOAT = 4;
+    static final byte SHORT = 5;
+    static final byte BYTE = 6;
+    static final byte CHAR = 7;
+    static final byte BOOLEAN = 8;
+
+    private static final long[] NO_PRIMITIVES = new long[0];
+    private static final Object[] NO_REFERENCES = new Object[0];
+
+    private final Type<?> type;
+    private final TypeField[] fields;
+    private final byte[] kinds;
+    private final int[] slots;
+    private final int primitiveCount;
+    private final int referenceCount;
+    private final int hash;
+    private FieldValuesLayout referenceOnly;
+
+    private FieldValuesLayout(Type<?> type, TypeField[] fields, byte[] kinds) {
+        this.type = type;
+        this.fields = fields;
+        this.kinds = kinds;
+        this.slots = new int[kinds.length];
+        int primitives = 0;
+        int references = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            slots[i] = kinds[i] == REFERENCE ? references++ : primitives++;
+        }
+        this.primitiveCount = primitives;
+        this.referenceCount = references;
+        this.hash = Arrays.hashCode(kinds);
+    }
+
+    static FieldValuesLayout of(Type<?> type, TypeField[] fields) {
+        byte[] kinds = new byte[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            kinds[i] = fields[i] == null ? REFERENCE : kindOf(fields[i].getValueType());
+        }
+        FieldValuesLayout layout = new FieldValuesLayout(type, fields, kinds);
+        layout.referenceOnly = layout.primitiveCount == 0 ? layout : new FieldValuesLayout(type, fields, new byte[fields.length]);
+        layout.referenceOnly.referenceOnly = layout.referenceOnly;
+        return layout;
+    }
+
+    /**
+     * Creates a layout for values that are stored as references only.
+     *
+     * @param size number of values
+     * @return new layout
+     */
+    static FieldValuesLayout referenceOnly(int size) {
+        return of(null, new TypeField[size]);
+    }
+
+    private static byte kindOf(Class<?> valueType) {
+        if (valueType == null || !valueType.isPrimitive()) {
+            return REFERENCE;
+        } else if (valueType == int.class) {
+            return INT;
+        } else if (valueType == long.class) {
+            return LONG;
+        } else if (valueType == double.class) {
+            return DOUBLE;
+        } else if (valueType == float.class) {
+            return FLOAT;
+        } else if (valueType == short.class) {
+            return SHORT;
+        } else if (valueType == byte.class) {
+            return BYTE;
+        } else if (valueType == char.class) {
+            return CHAR;
+        } else if (valueType == boolean.class) {
+            return BOOLEAN;
+        } else {
+            return REFERENCE;
+        }
+    }
+
+    /**
+     * Checks whether the layout still matches the type's declarations. Fields can be re-declared
+     * with the same name, so each field is looked up again.
+     *
+     * @param type       the type
+     * @param fieldCount number of active fields
+     * @return true if the layout can be used for reading values
+     */
+    boolean isValid(Type<?> type, int fieldCount) {
+        if (this.type != type || this.fields.length != fieldCount) {
+            return false;
+        }
+        for (TypeField field : fields) {
+            if (field == null || type.getField(field.getName()) != field) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return kinds.length;
+    }
+
+    byte kind(int index) {
+        return kinds[index];
+    }
+
+    int slot(int index) {
+        return slots[index];
+    }
+
+    FactFieldValues read(Object fact) {
+        try {
+            return readValues(fact);
+        } catch (NullPointerException e) {
+            if (primitiveCount == 0) {
+                throw e;
+            } else {
+                // A primitive field has returned null, or the field's function has failed.
+                // In the latter case, the exception will be thrown again.
+                return referenceOnly.read(fact);
+            }
+        }
+    }
+
+    private FactFieldValues readValues(Object fact) {
+        long[] primitives = primitiveCount == 0 ? NO_PRIMITIVES : new long[primitiveCount];
+        Object[] references = referenceCount == 0 ? NO_REFERENCES : new Object[referenceCount];
+        for (int i = 0; i < kinds.length; i++) {
+            TypeField field = fields[i];
+            int slot = slots[i];
+            switch (kinds[i]) {
+                case REFERENCE:
+                    references[slot] = field.readValue(fact);
+                    break;
+                case INT:
+                    primitives[slot] = field.readInt(fact);
+                    break;
+                case LONG:
+                    primitives[slot] = field.readLong(fact);
+                    break;
+                case DOUBLE:
+                    // The same canonical form that Double.equals() uses
+                    primitives[slot] = Double.doubleToLongBits(field.readDouble(fact));
+                    break;
+                case BOOLEAN:
+                    primitives[slot] = field.readBoolean(fact) ? 1L : 0L;
+                    break;
+                default:
+                    Object value = field.readValue(fact);
+                    if (value == null) {
+                        return referenceOnly.read(fact);
+                    }
+                    primitives[slot] = encode(kinds[i], value);
+            }
+        }
+        return new FactFieldValues(this, primitives, references);
+    }
+
+    /**
+     * Stores the provided values as references.
+     *
+     * @param values the values
+     * @return new field values
+     */
+    FactFieldValues wrap(Object[] values) {
+        if (primitiveCount > 0 || values.length != kinds.length) {
+            throw new IllegalArgumentException("Layout " + this + " does not store " + values.length + " references");
+        }
+        return new FactFieldValues(this, NO_PRIMITIVES, values);
+    }
+
+    /**
+     * Converts boxed values, like those returned by {@link FactFieldValues#valueAt(int)}, back into this layout.
+     * If a primitive field's value is <code>null</code> or of an unexpected type, the values are stored
+     * in the reference-only layout, as the {@link #read(Object)} method does.
+     *
+     * @param values the boxed values
+     * @return new field values
+     */
+    FactFieldValues restore(Object[] values) {
+        if (values.length != kinds.length) {
+            throw new IllegalArgumentException("Layout " + this + " does not store " + values.length + " values");
+        }
+        if (primitiveCount == 0) {
+            return new FactFieldValues(this, NO_PRIMITIVES, values);
+        }
+        long[] primitives = new long[primitiveCount];
+        Object[] references = referenceCount == 0 ? NO_REFERENCES : new Object[referenceCount];
+        try {
+            for (int i = 0; i < kinds.length; i++) {
+                Object value = values[i];
+                int slot = slots[i];
+                switch (kinds[i]) {
+                    case REFERENCE:
+                        references[slot] = value;
+                        break;
+                    case INT:
+                        primitives[slot] = (Integer) value;
+                        break;
+                    case LONG:
+                        primitives[slot] = (Long) value;
+                        break;
+                    case DOUBLE:
+                        primitives[slot] = Double.doubleToLongBits((Double) value);
+                        break;
+                    case BOOLEAN:
+                        primitives[slot] = (Boolean) value ? 1L : 0L;
+                        break;
+                    default:
+                        primitives[slot] = encode(kinds[i], Objects.requireNonNull(value));
+                }
+            }
+        } catch (NullPointerException | ClassCastException e) {
+            return referenceOnly.wrap(values);
+        }
+        return new FactFieldValues(this, primitives, references);
+    }
+
+    private static long encode(byte kind, Object value) {
+        switch (kind) {
+            case SHORT:
+            case BYTE:
+                return ((Number) value).intValue();
+            case FLOAT:
+                return Float.floatToIntBits((Float) value);
+            case CHAR:
+                return (Character) value;
+            default:
+                throw new IllegalStateException("Unknown kind " + kind);
+        }
+    }
+
+    static Object decode(byte kind, long value) {
+        switch (kind) {
+            case INT:
+                return (int) value;
+            case LONG:
+                return value;
+            case DOUBLE:
+                return Double.longBitsToDouble(value);
+            case FLOAT:
+                return Float.intBitsToFloat((int) value);
+            case SHORT:
+                return (short) value;
+            case BYTE:
+                return (byte) value;
+            case CHAR:
+                return (char) value;
+            case BOOLEAN:
+                return value != 0L;
+            default:
+                throw new IllegalStateException("Unknown kind " + kind);
+        }
+    }
+
+    /**
+     * @param kind  value kind
+     * @param value encoded value
+     * @return the hash code of the boxed value
+     */
+    static int hash(byte kind, long value) {
+        switch (kind) {
+            case LONG:
+            case DOUBLE:
+                return Long.hashCode(value);
+            case BOOLEAN:
+                return Boolean.hashCode(value != 0L);
+            default:
+                // Same as the hash codes of Integer, Float, Short, Byte and Character
+                return (int) value;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(kinds, ((FieldValuesLayout) o).kinds);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(kinds);
+    }
+}
@@ -8,11 +8,13 @@ import org.evrete.util.MapFunction;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public final class KnowledgeFactGroupBuilder {
     private static final Logger LOGGER = Logger.getLogger(KnowledgeFactGroupBuilder.class.getName());
+    static final int MAX_ORDERED_CONDITIONS = 6;
 
     static KnowledgeFactGroup[] build(Collection<FactType> factTypes, Collection<BetaEvaluator> flattenedBetaConditions) {
 
@@ -23,14 +25,113 @@ public final class KnowledgeFactGroupBuilder {
         betaEvaluators.sort(BetaEvaluator::compare);
         LOGGER.fine(() -> "Building fact groups for fact types: " + FactType.toSimpleDebugString(factTypes) + " and beta conditions: " + flattenedBetaConditions);
 
-        // As every beta condition has a unique combination (unordered) of the fact types it is dealing with,
-        // we'll be using a fact type mask as a means to build the groups.
+        List<FactTypeNode> unallocatedEntryNodes = entryNodes(factTypes);
+        List<EvaluatorNode> unallocatedConditionNodes = allocate(unallocatedEntryNodes, betaEvaluators);
+
+        // At this point we're supposed to have \:
+        //   1) possibly empty collection of unallocated fact types,
+        //      they will form a single plain fact group (w/o beta conditions).
+        //   2) possibly empty collection of unallocated nested condition nodes,
+        //      prototypes of the so-called terminal RETE nodes
+
+        return arrange(unallocatedEntryNodes, unallocatedConditionNodes);
+    }
+
+    /**
+     * Rebuilds the condition graph of a beta group so that condition nodes are created in the provided order
+     * rather than the one defined by {@link BetaEvaluator#compare(BetaEvaluator, BetaEvaluator)}.
+     *
+     * @param factTypes      the group's fact types
+     * @param betaEvaluators the group's beta conditions in the desired order
+     * @return new beta group
+     * @throws IllegalStateException if the conditions do not connect the fact types into a single graph
+     */
+    static KnowledgeFactGroup.Beta rebuild(FactType[] factTypes, List<BetaEvaluator> betaEvaluators) {
+        List<FactTypeNode> unallocatedEntryNodes = entryNodes(Arrays.asList(factTypes));
+        List<EvaluatorNode> terminalNodes = allocate(unallocatedEntryNodes, betaEvaluators);
+        if (unallocatedEntryNodes.isEmpty() && terminalNodes.size() == 1) {
+            return (KnowledgeFactGroup.Beta) betaGroup(terminalNodes.get(0));
+        } else {
+            throw new IllegalStateException("Conditions " + betaEvaluators + " do not form a single graph");
+        }
+    }
+
+    /**
+     * <p>
+     * Looks for an order of the provided beta conditions that results in a cheaper condition graph.
+     * The cost of a graph is the estimated total size of its condition nodes' memories, where the size of
+     * a node is the product of its sources' sizes and the selectivity of its condition.
+     * </p>
+     * <p>
+     * All the orders are evaluated, so the method returns <code>null</code> if there are
+     * more than {@link #MAX_ORDERED_CONDITIONS} conditions.
+     * </p>
+     *
+     * @param factTypes      the group's fact types
+     * @param betaEvaluators the group's beta conditions
+     * @param cardinality    the estimated number of entries for each fact type
+     * @param selectivity    the estimated share of combinations that pass each condition
+     * @param maxCost        the cost to beat
+     * @return the cheapest order, or <code>null</code> if no order is cheaper than the provided cost
+     */
+    static List<BetaEvaluator> cheaperOrder(FactType[] factTypes, List<BetaEvaluator> betaEvaluators, ToDoubleFunction<FactType> cardinality, ToDoubleFunction<BetaEvaluator> selectivity, double maxCost) {
+        if (betaEvaluators.size() > MAX_ORDERED_CONDITIONS) {
+            return null;
+        }
+        List<BetaEvaluator> best = null;
+        double bestCost = maxCost;
+        for (List<BetaEvaluator> order : permutations(betaEvaluators)) {
+            List<FactTypeNode> unallocatedEntryNodes = entryNodes(Arrays.asList(factTypes));
+            List<EvaluatorNode> terminalNodes = allocate(unallocatedEntryNodes, order);
+            double cost = 0.0;
+            for (EvaluatorNode terminalNode : terminalNodes) {
+                cost += terminalNode.estimateCost(cardinality, selectivity)[1];
+            }
+            if (cost < bestCost) {
+                best = order;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private static List<List<BetaEvaluator>> permutations(List<BetaEvaluator> evaluators) {
+        List<List<BetaEvaluator>> result = new ArrayList<>();
+        if (evaluators.size() <= 1) {
+            result.add(evaluators);
+        } else {
+            for (BetaEvaluator first : evaluators) {
+                List<BetaEvaluator> rest = new ArrayList<>(evaluators);
+                rest.remove(first);
+                for (List<BetaEvaluator> tail : permutations(rest)) {
+                    List<BetaEvaluator> order = new ArrayList<>(evaluators.size());
+                    order.add(first);
+                    order.addAll(tail);
+                    result.add(order);
+                }
+            }
+        }
+        return result;
+    }
 
-        List<FactTypeNode> unallocatedEntryNodes = new ArrayList<>(factTypes.size());
+    private static List<FactTypeNode> entryNodes(Collection<FactType> factTypes) {
+        List<FactTypeNode> result = new ArrayList<>(factTypes.size());
         for (FactType factType : factTypes) {
-            unallocatedEntryNodes.add(new FactTypeNode(factType));
+            result.add(new FactTypeNode(factType));
         }
+        return result;
+    }
 
+    /**
+     * Creates condition nodes in the order of the provided conditions.
+     *
+     * @param unallocatedEntryNodes entry nodes, the method removes those that become sources of condition nodes
+     * @param betaEvaluators        ordered beta conditions
+     * @return terminal condition nodes
+     */
+    private static List<EvaluatorNode> allocate(List<FactTypeNode> unallocatedEntryNodes, List<BetaEvaluator> betaEvaluators) {
+        // As every beta condition has a unique combination (unordered) of the fact types it is dealing with,
+        // we'll be using a fact type mask as a means to build the groups.
         List<EvaluatorNode> unallocatedConditionNodes = new LinkedList<>();
 
         for (BetaEvaluator evaluator : betaEvaluators) {
@@ -86,14 +187,7 @@ public final class KnowledgeFactGroupBuilder {
             // And add it back to the unallocated condition nodes
             unallocatedConditionNodes.add(evaluatorNode);
         }
-
-        // At this point we're supposed to have \:
-        //   1) possibly empty collection of unallocated fact types,
-        //      they will form a single plain fact group (w/o beta conditions).
-        //   2) possibly empty collection of unallocated nested condition nodes,
-        //      prototypes of the so-called terminal RETE nodes
-
-        return arrange(unallocatedEntryNodes, unallocatedConditionNodes);
+        return unallocatedConditionNodes;
     }
 
     private static KnowledgeFactGroup[] arrange(List<FactTypeNode> unallocatedEntryNodes, List<EvaluatorNode> unallocatedNodes) {
@@ -220,6 +314,24 @@ public final class KnowledgeFactGroupBuilder {
             }
         }
 
+        /**
+         * @return the estimated size of this node's memory and the estimated total size of this and upstream
+         * condition nodes' memories
+         */
+        double[] estimateCost(ToDoubleFunction<FactType> cardinality, ToDoubleFunction<BetaEvaluator> selectivity) {
+            double size = selectivity.applyAsDouble(evaluator);
+            double cost = 0.0;
+            for (FactTypeNode factTypeNode : entryNodeSources) {
+                size *= cardinality.applyAsDouble(factTypeNode.factType);
+            }
+            for (EvaluatorNode conditionNode : conditionNodeSources) {
+                double[] sourceEstimate = conditionNode.estimateCost(cardinality, selectivity);
+                size *= sourceEstimate[0];
+                cost += sourceEstimate[1];
+            }
+            return new double[]{size, cost + size};
+        }
+
         ReteKnowledgeConditionNode toReteNode(MapFunction<FactType, ReteKnowledgeEntryNode> entryNodeMapping) {
             List<ReteKnowledgeNode> sourceNodes = new ArrayList<>();
             // 1. Add fact type nodes as sources
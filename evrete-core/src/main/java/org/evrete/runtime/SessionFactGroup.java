@@ -1,11 +1,13 @@
 package org.evrete.runtime;
 
 import org.evrete.api.spi.MemoryScope;
+import org.evrete.runtime.rete.ReteSessionConditionNode;
 
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * A session counterpart of the {@link KnowledgeFactGroup}. The goal here is to create them as fast as possible
@@ -35,16 +37,64 @@ abstract class SessionFactGroup extends KnowledgeFactGroup {
 
     abstract void clearMemories();
 
-    abstract CompletableFuture<Void> processDeleteDeltaActions(Collection<FactHolder> deletes);
-
     protected abstract boolean isPlain();
 
     abstract Iterator<DefaultFactHandle[]> factHandles(MemoryScope scope);
 
-    abstract CompletableFuture<Void> commitDeltas();
+    /**
+     * Applies the action to each of the group's condition nodes. Condition nodes can be shared
+     * between rules, so callers that process several groups should not assume the nodes are unique.
+     *
+     * @param action the action
+     */
+    abstract void forEachConditionNode(Consumer<ReteSessionConditionNode> action);
 
     abstract CompletableFuture<Void> buildDeltas(DeltaMemoryMode mode);
 
+    /**
+     * A group is linked if each of its fact types has at least one matching fact in either of the memory
+     * scopes. Rules with unlinked groups can not be activated.
+     *
+     * @return true if the group is linked
+     */
+    boolean isLinked() {
+        for (SessionFactType factType : factTypes) {
+            if (!factType.keyIterator(MemoryScope.MAIN).hasNext() && !factType.keyIterator(MemoryScope.DELTA).hasNext()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Called instead of {@link #buildDeltas(DeltaMemoryMode)} if the group's rule is not linked. Condition nodes
+     * that depend on the changed alpha memories and are not maintained by other groups are unlinked.
+     *
+     * @param changes         alpha memories with new data
+     * @param maintainedNodes condition nodes whose delta memories have been computed by other groups
+     */
+    abstract void unlink(Mask<AlphaAddress> changes, Set<ReteSessionConditionNode> maintainedNodes);
+
+    /**
+     * Rebuilds the memories of the group's unlinked condition nodes.
+     *
+     * @return a future that completes when the group's condition nodes are in sync with their sources
+     */
+    abstract CompletableFuture<Void> relink();
+
+    /**
+     * Called when the session's memories have been restored from a snapshot. Condition nodes that
+     * haven't been restored are unlinked, so that their memories are rebuilt once the group's rule is linked.
+     */
+    abstract void onMemoryRestored();
+
+    /**
+     * Rebuilds the group's condition graph if the collected statistics suggest a cheaper join order.
+     *
+     * @return a future that completes when the group is ready for the next delta computation
+     */
+    abstract CompletableFuture<Void> replanGraph();
+
     public static SessionFactGroup factory(AbstractRuleSessionBase<?> runtime, KnowledgeFactGroup knowledgeFactGroup) {
         if (knowledgeFactGroup instanceof Plain) {
             return new SessionFactGroupPlain(runtime, (Plain) knowledgeFactGroup);
@@ -1,34 +1,42 @@
 package org.evrete.runtime;
 
 import org.evrete.api.spi.MemoryScope;
+import org.evrete.runtime.evaluation.BetaEvaluator;
 import org.evrete.runtime.rete.*;
 import org.evrete.util.CombinationIterator;
-import org.evrete.util.CommonUtils;
 import org.evrete.util.FlatMapIterator;
 
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 class SessionFactGroupBeta extends SessionFactGroup {
     private static final Logger LOGGER = Logger.getLogger(SessionFactGroupBeta.class.getName());
-    private final ReteGraph<ReteSessionNode, ReteSessionEntryNode, ReteSessionConditionNode> graph;
+    /**
+     * Condition graphs whose memories are smaller than this value are not worth re-planning
+     */
+    static final long MIN_REPLAN_MEMORY_SIZE = 4096L;
+    /**
+     * A new join order is applied only if its estimated cost is this many times lower than the current one
+     */
+    static final double REPLAN_COST_FACTOR = 10.0;
+    private final AbstractRuleSessionBase<?> runtime;
     private final DefaultFactHandle[] currentFactHandles;
+    private volatile Plan plan;
+    // Total size of the condition memories when the join order was last checked
+    private long checkedMemorySize;
+    // Whether some of the group's condition nodes are unlinked
+    private boolean unlinked;
 
     SessionFactGroupBeta(AbstractRuleSessionBase<?> runtime, Beta factGroup) {
         super(runtime, factGroup);
+        this.runtime = runtime;
 
         int totalFactTypes = getEntryNodes().length;
         this.currentFactHandles = new DefaultFactHandle[totalFactTypes];
-        // Transform the condition graph and allocate the nodes' memory structures.
-        this.graph = factGroup.getGraph().transform(
-                ReteSessionNode.class,
-                (conditionNode, sources) -> new ReteSessionConditionNode(runtime, sources, conditionNode),
-                entryNode -> new ReteSessionEntryNode(runtime, entryNode)
-        );
+        this.plan = new Plan(factGroup);
     }
 
     @Override
@@ -37,53 +45,208 @@ class SessionFactGroupBeta extends SessionFactGroup {
     }
 
     @Override
-    CompletableFuture<Void> processDeleteDeltaActions(Collection<FactHolder> factHolders) {
-        Collection<ReteSessionConditionNode> conditionNodes = new LinkedList<>();
-        this.graph.forEachConditionNode(conditionNodes::add);
-        return CommonUtils.completeAll(
-                conditionNodes,
-                node -> CompletableFuture.runAsync(
-                        () -> node.deleteAll(factHolders),
-                        executor
-                )
-        );
+    void forEachConditionNode(Consumer<ReteSessionConditionNode> action) {
+        this.plan.graph.forEachConditionNode(action);
     }
 
     @Override
     void clearMemories() {
-        graph.forEachConditionNode(ReteSessionConditionNode::clearMemories);
+        plan.graph.forEachConditionNode(ReteSessionConditionNode::clearMemories);
     }
 
     public ReteGraph<ReteSessionNode, ReteSessionEntryNode, ReteSessionConditionNode> getGraph() {
-        return graph;
+        return plan.graph;
     }
 
     @Override
     CompletableFuture<Void> buildDeltas(DeltaMemoryMode mode) {
         LOGGER.fine(() -> "Starting to build delta memory for group " + FactType.toSimpleDebugString(this.factTypes) + " in mode: " + mode);
-        return graph.terminalNode().computeDeltaMemoryAsync(mode);
+        return plan.graph.terminalNode().computeDeltaMemoryAsync(mode);
+    }
+
+    @Override
+    void unlink(Mask<AlphaAddress> changes, Set<ReteSessionConditionNode> maintainedNodes) {
+        plan.graph.forEachConditionNode(node -> {
+            if (node.dependsOn(changes) && !maintainedNodes.contains(node)) {
+                node.unlink();
+                this.unlinked = true;
+            }
+        });
+    }
+
+    @Override
+    CompletableFuture<Void> relink() {
+        if (unlinked) {
+            LOGGER.fine(() -> "Relinking group " + FactType.toSimpleDebugString(this.factTypes));
+            this.unlinked = false;
+            return buildDeltas(DeltaMemoryMode.HOT_DEPLOYMENT);
+        } else {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @Override
+    void onMemoryRestored() {
+        plan.graph.forEachConditionNode(node -> {
+            if (!node.isLive()) {
+                this.unlinked = true;
+            }
+        });
     }
 
+    /**
+     * <p>
+     * Re-plans the group's condition graph if the observed memory sizes show that another join order
+     * would produce much smaller intermediate results. The sizes of the nodes' memories and those of
+     * their sources give the selectivity of each condition, which is then used to estimate the cost of
+     * every possible order (see {@link KnowledgeFactGroupBuilder#cheaperOrder}).
+     * </p>
+     * <p>
+     * The new graph's memories are computed in the {@link DeltaMemoryMode#HOT_DEPLOYMENT} mode, the same way
+     * as for rules deployed into a live session. The method must be called when all the session's memories
+     * are committed. To keep the overhead low, the check is repeated only when the graph's memories double in size.
+     * </p>
+     *
+     * @return a future that completes when the graph is re-planned or when re-planning is not needed
+     */
     @Override
-    public CompletableFuture<Void> commitDeltas() {
-        List<CompletableFuture<Void>> futures = new LinkedList<>();
-        this.graph.forEachConditionNode(node -> futures.add(CompletableFuture.runAsync(node::commit, executor)));
-        return CommonUtils.completeAll(futures);
+    CompletableFuture<Void> replanGraph() {
+        Plan current = this.plan;
+
+        // 1. Collecting node statistics. Shared session nodes may refer to fact types and conditions
+        //    of other rules, so the statistics are keyed by the nodes of this group's knowledge graph.
+        List<BetaEvaluator> evaluators = new ArrayList<>();
+        double[] memorySize = new double[1];
+        current.forEachConditionNode((knowledgeNode, sessionNode) -> {
+            memorySize[0] += sessionNode.size(MemoryScope.MAIN);
+            evaluators.add(knowledgeNode.getBetaEvaluator());
+        });
+        if (memorySize[0] < MIN_REPLAN_MEMORY_SIZE || memorySize[0] < 2.0 * checkedMemorySize) {
+            return CompletableFuture.completedFuture(null);
+        }
+        this.checkedMemorySize = (long) memorySize[0];
+
+        Map<FactType, Double> cardinalities = new IdentityHashMap<>();
+        Map<BetaEvaluator, Double> selectivities = new IdentityHashMap<>();
+        boolean[] complete = {true};
+        current.forEachConditionNode((knowledgeNode, sessionNode) -> {
+            double inputs = 1.0;
+            ReteKnowledgeNode[] knowledgeSources = knowledgeNode.sourceNodes();
+            ReteSessionNode[] sessionSources = sessionNode.sourceNodes();
+            for (int i = 0; i < sessionSources.length; i++) {
+                long sourceSize = sessionSources[i].size(MemoryScope.MAIN);
+                if (!knowledgeSources[i].isConditionNode()) {
+                    cardinalities.put(knowledgeSources[i].getNodeFactTypes()[0], (double) sourceSize);
+                }
+                inputs *= sourceSize;
+            }
+            if (inputs > 0.0) {
+                selectivities.put(knowledgeNode.getBetaEvaluator(), sessionNode.size(MemoryScope.MAIN) / inputs);
+            } else {
+                complete[0] = false;
+            }
+        });
+        if (!complete[0]) {
+            // Not enough data
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // 2. Looking for a cheaper order
+        List<BetaEvaluator> order = KnowledgeFactGroupBuilder.cheaperOrder(
+                getEntryNodes(),
+                evaluators,
+                cardinalities::get,
+                selectivities::get,
+                memorySize[0] / REPLAN_COST_FACTOR
+        );
+        if (order == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // 3. Building and computing the new graph
+        LOGGER.fine(() -> "Re-planning group " + FactType.toSimpleDebugString(this.factTypes) + ", new condition order: " + order);
+        Beta rebuilt = KnowledgeFactGroupBuilder.rebuild(getEntryNodes(), order);
+        Plan newPlan = new Plan(rebuilt);
+        ReteSessionNodes sessionNodes = runtime.getReteNodes();
+        sessionNodes.newComputeCycle();
+        return newPlan.graph.terminalNode()
+                .computeDeltaMemoryAsync(DeltaMemoryMode.HOT_DEPLOYMENT)
+                .thenRun(() -> {
+                    this.plan = newPlan;
+                    this.checkedMemorySize = 0L;
+                    current.graph.forEachConditionNode(sessionNodes::release);
+                });
     }
 
     @Override
     Iterator<DefaultFactHandle[]> factHandles(MemoryScope scope) {
         // Fact keys are taken from the terminal node's delta memory
+        Plan current = this.plan;
         return new FlatMapIterator<>(
-                this.graph.terminalNode().memoryIterator(scope),
-                this::combinations
+                current.graph.terminalNode().memoryIterator(scope),
+                entry -> combinations(entry, current.positions)
         );
     }
 
-    private Iterator<DefaultFactHandle[]> combinations(ConditionMemory.ScopedValueId[] keys) {
+    private Iterator<DefaultFactHandle[]> combinations(ConditionMemory.MemoryEntry entry, int[] positions) {
         return new CombinationIterator<>(
                 this.currentFactHandles,
-                index -> factTypes[index].factIterator(keys[index])
+                index -> factTypes[index].factIterator(entry.scope(positions[index]), entry.valueId(positions[index]))
         );
     }
+
+    /**
+     * A condition graph and the positions of the group's fact types in its terminal node. Re-planned graphs
+     * may store facts in an order other than the one used by the rule's LHS.
+     */
+    private class Plan {
+        private final ReteGraph<ReteKnowledgeNode, ReteKnowledgeEntryNode, ReteKnowledgeConditionNode> knowledgeGraph;
+        private final ReteGraph<ReteSessionNode, ReteSessionEntryNode, ReteSessionConditionNode> graph;
+        private final int[] positions;
+
+        Plan(Beta factGroup) {
+            this.knowledgeGraph = factGroup.getGraph();
+            // Transforming the condition graph and allocating the nodes' memory structures.
+            // Condition nodes that are identical to those of already deployed rules are shared.
+            ReteSessionNodes sessionNodes = runtime.getReteNodes();
+            this.graph = knowledgeGraph.transform(
+                    ReteSessionNode.class,
+                    (conditionNode, sources) -> sessionNodes.getCreateConditionNode(runtime, sources, conditionNode),
+                    entryNode -> new ReteSessionEntryNode(runtime, entryNode)
+            );
+
+            FactType[] groupTypes = getEntryNodes();
+            FactType[] terminalTypes = factGroup.getEntryNodes();
+            this.positions = new int[groupTypes.length];
+            for (int i = 0; i < groupTypes.length; i++) {
+                this.positions[i] = -1;
+                for (int j = 0; j < terminalTypes.length; j++) {
+                    if (terminalTypes[j] == groupTypes[i]) {
+                        this.positions[i] = j;
+                    }
+                }
+                if (this.positions[i] < 0) {
+                    throw new IllegalStateException("Fact type " + groupTypes[i] + " is missing in the condition graph");
+                }
+            }
+        }
+
+        /**
+         * Iterates over condition nodes of the knowledge graph and their session counterparts.
+         */
+        void forEachConditionNode(BiConsumer<ReteKnowledgeConditionNode, ReteSessionConditionNode> action) {
+            forEachConditionNode(knowledgeGraph.terminalNode(), graph.terminalNode(), action);
+        }
+
+        private void forEachConditionNode(ReteKnowledgeNode knowledgeNode, ReteSessionNode sessionNode, BiConsumer<ReteKnowledgeConditionNode, ReteSessionConditionNode> action) {
+            if (knowledgeNode.isConditionNode()) {
+                action.accept((ReteKnowledgeConditionNode) knowledgeNode, (ReteSessionConditionNode) sessionNode);
+                ReteKnowledgeNode[] knowledgeSources = knowledgeNode.sourceNodes();
+                ReteSessionNode[] sessionSources = sessionNode.sourceNodes();
+                for (int i = 0; i < knowledgeSources.length; i++) {
+                    forEachConditionNode(knowledgeSources[i], sessionSources[i], action);
+                }
+            }
+        }
+    }
 }
@@ -1,12 +1,14 @@
 package org.evrete.runtime;
 
 import org.evrete.api.spi.MemoryScope;
+import org.evrete.runtime.rete.ReteSessionConditionNode;
 import org.evrete.util.CombinationIterator;
 import org.evrete.util.FlatMapIterator;
 
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 class SessionFactGroupPlain extends SessionFactGroup {
     private final DefaultFactHandle[] currentFactHandles;
@@ -24,9 +26,8 @@ class SessionFactGroupPlain extends SessionFactGroup {
     }
 
     @Override
-    CompletableFuture<Void> commitDeltas() {
-        // Nothing to commit
-        return CompletableFuture.completedFuture(null);
+    void forEachConditionNode(Consumer<ReteSessionConditionNode> action) {
+        // Plain fact groups have no condition nodes
     }
 
     @Override
@@ -35,14 +36,30 @@ class SessionFactGroupPlain extends SessionFactGroup {
     }
 
     @Override
-    CompletableFuture<Void> processDeleteDeltaActions(Collection<FactHolder> deletes) {
-        // Plain fact groups have no memory, skipping
+    CompletableFuture<Void> buildDeltas(DeltaMemoryMode mode) {
+        // Nothing to compute
         return CompletableFuture.completedFuture(null);
     }
 
     @Override
-    CompletableFuture<Void> buildDeltas(DeltaMemoryMode mode) {
-        // Nothing to compute
+    void unlink(Mask<AlphaAddress> changes, Set<ReteSessionConditionNode> maintainedNodes) {
+        // Plain fact groups have no condition nodes
+    }
+
+    @Override
+    CompletableFuture<Void> relink() {
+        // Nothing to rebuild
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    void onMemoryRestored() {
+        // Plain fact groups have no condition nodes
+    }
+
+    @Override
+    CompletableFuture<Void> replanGraph() {
+        // Nothing to plan
         return CompletableFuture.completedFuture(null);
     }
 
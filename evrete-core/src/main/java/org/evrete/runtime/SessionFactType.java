@@ -2,7 +2,6 @@ package org.evrete.runtime;
 
 import org.evrete.api.spi.GroupingReteMemory;
 import org.evrete.api.spi.MemoryScope;
-import org.evrete.runtime.rete.ConditionMemory;
 import org.evrete.util.FlatMapIterator;
 
 import java.util.Iterator;
@@ -76,8 +75,8 @@ class SessionFactType extends FactType {
      * @return fact handle iterator
      * @see GroupingReteMemory
      */
-    Iterator<DefaultFactHandle> factIterator(ConditionMemory.ScopedValueId key) {
-        return alphaMemory().valueIterator(key.getScope(), key.getValueId());
+    Iterator<DefaultFactHandle> factIterator(MemoryScope scope, long valueId) {
+        return alphaMemory().valueIterator(scope, valueId);
     }
 
     @Override
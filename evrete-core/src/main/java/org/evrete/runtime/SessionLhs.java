@@ -16,6 +16,19 @@ public class SessionLhs extends ActiveLhs<SessionFactGroup> {
         return CommonUtils.completeAll(getFactGroups(), g -> g.buildDeltas(mode));
     }
 
+    /**
+     * @return true if every fact group of the LHS is linked
+     * @see SessionFactGroup#isLinked()
+     */
+    boolean isLinked() {
+        for (SessionFactGroup group : getFactGroups()) {
+            if (!group.isLinked()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     static SessionLhs factory(AbstractRuleSessionBase<?> runtime, KnowledgeLhs descriptor) {
         return new SessionLhs(descriptor, group -> SessionFactGroup.factory(runtime, group));
     }
@@ -7,7 +7,6 @@ import org.evrete.api.spi.FactStorage;
 import org.evrete.api.spi.GroupingReteMemory;
 import org.evrete.api.spi.ValueIndexer;
 import org.evrete.collections.ArrayMap;
-import org.evrete.runtime.evaluation.AlphaConditionHandle;
 import org.evrete.util.CompletionManager;
 import org.evrete.util.GroupingReteMemoryWrapper;
 
@@ -38,7 +37,14 @@ public class SessionMemory implements MemoryStreaming {
         alphaMemories.forEach(TypeAlphaMemory::clear);
     }
 
-    // Used in unit tests
+    /**
+     * Deletes field values of facts that have been removed from the memory,
+     * see {@link TypeMemory#reclaimFieldValues()}.
+     */
+    void reclaimFieldValues() {
+        typedMemories.forEach(TypeMemory::reclaimFieldValues);
+    }
+
     ArrayMap<AlphaAddress, TypeAlphaMemory> getAlphaMemories() {
         return alphaMemories;
     }
@@ -48,7 +54,7 @@ public class SessionMemory implements MemoryStreaming {
         return typeMemoryDeployments;
     }
 
-    private Stream<TypeMemory> memoryStream() {
+    Stream<TypeMemory> memoryStream() {
         return typedMemories.values();
     }
 
@@ -183,7 +189,7 @@ public class SessionMemory implements MemoryStreaming {
             FactHolder factHolder = entry.getValue();
             FactFieldValues fieldValues = newType.readFactValue(type, factHolder.getFact());
             // Evaluate alpha conditions
-            Mask<AlphaConditionHandle> alphaTests = runtime.alphaConditionResults(newType, fieldValues);
+            long[] alphaTests = runtime.alphaConditionResults(newType, fieldValues);
             Collection<AlphaAddress> matchingLocations = AlphaAddress.matchingLocations(alphaTests, alphaLocations);
             //Collection<AlphaAddress> matchingLocations = newType.matchingLocations(runtime, fieldValues, alphaLocations);
             for (AlphaAddress alphaAddress : matchingLocations) {
@@ -211,6 +217,7 @@ public class SessionMemory implements MemoryStreaming {
             FactFieldValues fieldValues = newType.readFactValue(type, fact);
             FactHolder newFactHolder = new FactHolder(handle, valueId, fact);
             newValueIndexer.assignId(valueId, fieldValues);
+            newValueIndexer.retain(valueId);
             newStorage.insert(handle, newFactHolder);
             factCounter.incrementAndGet();
         });
@@ -0,0 +1,288 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Type;
+import org.evrete.api.spi.MemoryScope;
+import org.evrete.api.spi.ValueIndexer;
+import org.evrete.runtime.rete.ConditionMemory;
+import org.evrete.runtime.rete.ReteSessionConditionNode;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * Binary snapshots of a session's memory. A snapshot contains the session's facts and their field values,
+ * the contents of alpha memories, and the main memories of the session's condition nodes, so that
+ * the session can be restored without evaluating any conditions.
+ * </p>
+ * <p>
+ * Types are matched by their logical names, alpha memories by their indices, and condition nodes by
+ * their structure (see {@link ReteSessionConditionNode#fingerprint()}), so a snapshot can be restored only
+ * in a session of the same, or identically built, knowledge. Condition nodes that don't have a match
+ * in the snapshot are rebuilt once their rules are activated. Facts and their field values are written with
+ * Java serialization, and the stream is reset after every {@link #RESET_INTERVAL} facts, so that the stream's
+ * table of written objects doesn't keep every fact of the session reachable. As a consequence, references
+ * between facts are preserved only within a batch of facts: an object shared by facts of different batches is
+ * written once per batch, and the restored facts refer to distinct, equal copies of it.
+ * </p>
+ * <p>
+ * Every section of the snapshot is a sequence of records, each of them preceded by a <code>true</code>
+ * boolean marker, and terminated by a <code>false</code> one.
+ * </p>
+ */
+final class SessionSnapshot {
+    private static final Logger LOGGER = Logger.getLogger(SessionSnapshot.class.getName());
+    private static final int MAGIC = 0x45565353;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Number of facts after which the object stream is reset
+     */
+    static final int RESET_INTERVAL = 1024;
+
+    private SessionSnapshot() {
+    }
+
+    static void write(AbstractRuleSession<?> session, Path file) throws IOException {
+        session._assertActive();
+        if (session.getActionBuffer().hasData()) {
+            throw new IllegalStateException("The session has unprocessed changes, snapshots can be written only after the session is fired");
+        }
+        SessionMemory memory = session.getMemory();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            // 1. Facts and their field values
+            for (TypeMemory typeMemory : memory.memoryStream().collect(Collectors.toList())) {
+                out.writeBoolean(true);
+                writeTypeMemory(typeMemory, out);
+            }
+            out.writeBoolean(false);
+
+            // 2. Alpha memories
+            for (TypeAlphaMemory alphaMemory : memory.getAlphaMemories().values().collect(Collectors.toList())) {
+                out.writeBoolean(true);
+                out.writeInt(alphaMemory.getAlphaAddress().getIndex());
+                out.writeUTF(session.getActiveType(alphaMemory.getAlphaAddress().getType()).getValue().getName());
+                writeAlphaMemory(alphaMemory, out);
+            }
+            out.writeBoolean(false);
+
+            // 3. Condition nodes, only those that are in sync with their sources
+            List<ReteSessionConditionNode> nodes = new ArrayList<>();
+            session.getReteNodes().forEachConditionNode(node -> {
+                if (node.isLive()) {
+                    nodes.add(node);
+                }
+            });
+            for (ReteSessionConditionNode node : nodes) {
+                out.writeBoolean(true);
+                out.writeObject(node.fingerprint());
+                out.writeInt(node.getNodeFactTypes().length);
+                writeConditionMemory(node.getBetaMemory(), out);
+            }
+            out.writeBoolean(false);
+        }
+        LOGGER.fine(() -> "Session snapshot has been written to " + file);
+    }
+
+    private static void writeTypeMemory(TypeMemory typeMemory, ObjectOutputStream out) throws IOException {
+        out.writeUTF(typeMemory.getLogicalType());
+        out.writeInt(typeMemory.getFieldCount());
+        // Field values are shared by facts, each of them is written once
+        Set<Long> writtenValues = new HashSet<>();
+        Iterator<Map.Entry<DefaultFactHandle, FactHolder>> it = typeMemory.stream().iterator();
+        int writtenFacts = 0;
+        while (it.hasNext()) {
+            FactHolder factHolder = it.next().getValue();
+            long valuesId = factHolder.getFieldValuesId();
+            out.writeBoolean(true);
+            out.writeLong(factHolder.getHandle().getId());
+            out.writeLong(valuesId);
+            if (writtenValues.add(valuesId)) {
+                out.writeBoolean(true);
+                out.writeObject(toArray(typeMemory.readFieldValues(valuesId)));
+            } else {
+                out.writeBoolean(false);
+            }
+            out.writeObject(factHolder.getFact());
+            if (++writtenFacts % RESET_INTERVAL == 0) {
+                // Releasing the objects that the stream keeps for back references
+                out.reset();
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+    private static void writeAlphaMemory(TypeAlphaMemory alphaMemory, ObjectOutputStream out) throws IOException {
+        Iterator<Long> keys = alphaMemory.keyIterator(MemoryScope.MAIN);
+        while (keys.hasNext()) {
+            long key = keys.next();
+            out.writeBoolean(true);
+            out.writeLong(key);
+            Iterator<DefaultFactHandle> handles = alphaMemory.valueIterator(MemoryScope.MAIN, key);
+            while (handles.hasNext()) {
+                out.writeBoolean(true);
+                out.writeLong(handles.next().getId());
+            }
+            out.writeBoolean(false);
+        }
+        out.writeBoolean(false);
+    }
+
+    private static void writeConditionMemory(ConditionMemory memory, ObjectOutputStream out) throws IOException {
+        Iterator<ConditionMemory.MemoryEntry> entries = memory.iterator(MemoryScope.MAIN);
+        while (entries.hasNext()) {
+            ConditionMemory.MemoryEntry entry = entries.next();
+            out.writeBoolean(true);
+            for (int i = 0; i < entry.size(); i++) {
+                out.writeLong(entry.valueId(i));
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+    private static Object[] toArray(FactFieldValues values) {
+        Object[] result = new Object[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.valueAt(i);
+        }
+        return result;
+    }
+
+    static void restore(AbstractRuleSession<?> session, Path file) throws IOException {
+        session._assertActive();
+        SessionMemory memory = session.getMemory();
+        if (session.getActionBuffer().hasData() || memory.streamFactEntries().findAny().isPresent()) {
+            throw new IllegalStateException("Snapshots can be restored only in empty sessions");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             ObjectInputStream in = new SnapshotInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE), session.getClassLoader())) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new StreamCorruptedException("Unsupported session snapshot format: " + file);
+            }
+
+            // 1. Facts and their field values
+            while (in.readBoolean()) {
+                restoreTypeMemory(session, in);
+            }
+
+            // 2. Alpha memories
+            Map<Integer, TypeAlphaMemory> alphaMemories = memory.getAlphaMemories()
+                    .values()
+                    .collect(Collectors.toMap(m -> m.getAlphaAddress().getIndex(), m -> m));
+            while (in.readBoolean()) {
+                int index = in.readInt();
+                String logicalType = in.readUTF();
+                TypeAlphaMemory alphaMemory = alphaMemories.get(index);
+                if (alphaMemory == null || !session.getActiveType(alphaMemory.getAlphaAddress().getType()).getValue().getName().equals(logicalType)) {
+                    throw new IllegalStateException("The session has no alpha memory #" + index + " of type '" + logicalType + "'");
+                }
+                restoreAlphaMemory(alphaMemory, in);
+            }
+
+            // 3. Condition nodes
+            Map<String, ReteSessionConditionNode> nodes = new HashMap<>();
+            session.getReteNodes().forEachConditionNode(node -> nodes.put(node.fingerprint(), node));
+            while (in.readBoolean()) {
+                String fingerprint = (String) readObject(in);
+                long[] valueIds = new long[in.readInt()];
+                // Nodes that the session doesn't have, for example those of re-planned graphs, are skipped
+                ReteSessionConditionNode node = nodes.get(fingerprint);
+                while (in.readBoolean()) {
+                    for (int i = 0; i < valueIds.length; i++) {
+                        valueIds[i] = in.readLong();
+                    }
+                    if (node != null) {
+                        node.restoreEntry(valueIds);
+                    }
+                }
+                if (node != null) {
+                    node.restoreCompleted();
+                }
+            }
+        }
+
+        // 4. Nodes that haven't been restored will be rebuilt when needed
+        for (SessionRule rule : session.ruleStorage) {
+            for (SessionFactGroup group : rule.getLhs().getFactGroups()) {
+                group.onMemoryRestored();
+            }
+        }
+        LOGGER.fine(() -> "Session has been restored from " + file);
+    }
+
+    private static void restoreTypeMemory(AbstractRuleSession<?> session, ObjectInputStream in) throws IOException {
+        String logicalType = in.readUTF();
+        int fieldCount = in.readInt();
+        Type<?> type = session.getTypeResolver().getType(logicalType);
+        if (type == null) {
+            throw new IllegalStateException("Unknown type '" + logicalType + "'");
+        }
+        ActiveType activeType = session.getCreateIndexedType(type);
+        SessionMemory memory = session.getMemory();
+        memory.allocateMemoryIfNotExists(activeType.getId(), Collections.emptySet()).join();
+        TypeMemory typeMemory = memory.getTypeMemory(activeType.getId());
+        if (typeMemory.getFieldCount() != fieldCount) {
+            throw new IllegalStateException("Type '" + logicalType + "' has " + typeMemory.getFieldCount() + " active fields, the snapshot has " + fieldCount);
+        }
+        ValueIndexer<FactFieldValues> valueIndexer = typeMemory.getFieldValuesIndexer();
+        while (in.readBoolean()) {
+            long handleId = in.readLong();
+            long valuesId = in.readLong();
+            if (in.readBoolean()) {
+                valueIndexer.assignId(valuesId, activeType.restoreFactValue(type, (Object[]) readObject(in)));
+            }
+            Object fact = readObject(in);
+            typeMemory.insert(new FactHolder(new DefaultFactHandle(handleId, activeType.getId()), valuesId, fact));
+        }
+    }
+
+    private static void restoreAlphaMemory(TypeAlphaMemory alphaMemory, ObjectInputStream in) throws IOException {
+        ActiveType.Idx type = alphaMemory.getAlphaAddress().getType();
+        while (in.readBoolean()) {
+            long key = in.readLong();
+            while (in.readBoolean()) {
+                alphaMemory.insert(key, new DefaultFactHandle(in.readLong(), type));
+            }
+        }
+        alphaMemory.commit();
+    }
+
+    private static Object readObject(ObjectInputStream in) throws IOException {
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to read a snapshot object", e);
+        }
+    }
+
+    /**
+     * Resolves classes with the session's class loader, which also knows the classes of the session's rules.
+     */
+    private static class SnapshotInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader;
+
+        SnapshotInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
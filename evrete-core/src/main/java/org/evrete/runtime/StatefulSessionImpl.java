@@ -3,6 +3,8 @@ package org.evrete.runtime;
 import org.evrete.api.FactHandle;
 import org.evrete.api.StatefulSession;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -49,4 +51,16 @@ public class StatefulSessionImpl extends AbstractRuleSession<StatefulSession> im
         clearInner();
     }
 
+    @Override
+    public StatefulSession writeSnapshot(Path file) throws IOException {
+        SessionSnapshot.write(this, file);
+        return this;
+    }
+
+    @Override
+    public StatefulSession restoreSnapshot(Path file) throws IOException {
+        SessionSnapshot.restore(this, file);
+        return this;
+    }
+
 }
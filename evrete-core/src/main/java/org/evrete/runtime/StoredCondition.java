@@ -3,8 +3,10 @@ package org.evrete.runtime;
 import org.evrete.api.*;
 import org.evrete.api.events.ConditionEvaluationEvent;
 import org.evrete.api.events.Events;
+import org.evrete.runtime.evaluation.ArgumentRelation;
 import org.evrete.runtime.evaluation.ConditionEvaluationEventImpl;
 import org.evrete.runtime.evaluation.DefaultEvaluatorHandle;
+import org.evrete.runtime.evaluation.IndexablePredicate;
 import org.evrete.util.BroadcastingPublisher;
 import org.evrete.util.Indexed;
 
@@ -41,6 +43,45 @@ public class StoredCondition extends LhsCondition<ValuesPredicate, String, Activ
         return publisher;
     }
 
+    /**
+     * @return true if the condition has evaluation listeners
+     */
+    public synchronized boolean hasPublisher() {
+        return publisher != null;
+    }
+
+    /**
+     * Returns relations between the condition's arguments if the underlying predicate provides them.
+     * Conditions with evaluation listeners report no relations, so that every combination
+     * of facts gets evaluated and published.
+     *
+     * @return argument relations, possibly an empty array
+     */
+    public ArgumentRelation[] getRelations() {
+        ValuesPredicate predicate = getCondition();
+        if (publisher == null && predicate instanceof IndexablePredicate) {
+            return ((IndexablePredicate) predicate).getRelations();
+        } else {
+            return ArgumentRelation.EMPTY_ARRAY;
+        }
+    }
+
+    /**
+     * Returns the constant this single-field condition compares its field with, see
+     * {@link IndexablePredicate#getEqualityConstant()}. Like {@link #getRelations()}, conditions with
+     * evaluation listeners report no constants.
+     *
+     * @return the constant or <code>null</code> if the condition is not a constant equality
+     */
+    public Object getEqualityConstant() {
+        ValuesPredicate predicate = getCondition();
+        if (publisher == null && predicate instanceof IndexablePredicate) {
+            return ((IndexablePredicate) predicate).getEqualityConstant();
+        } else {
+            return null;
+        }
+    }
+
     public boolean test(RuleSession<?> context, IntToValue values) {
         if(publisher == null) {
             return getCondition().test(values);
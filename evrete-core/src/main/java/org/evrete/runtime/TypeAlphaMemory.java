@@ -1,10 +1,20 @@
 package org.evrete.runtime;
 
+import org.evrete.api.annotations.NonNull;
 import org.evrete.api.spi.GroupingReteMemory;
+import org.evrete.api.spi.MemoryScope;
+import org.evrete.runtime.rete.IndexedFields;
+import org.evrete.runtime.rete.MemoryIndex;
 import org.evrete.util.GroupingReteMemoryWrapper;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class TypeAlphaMemory extends GroupingReteMemoryWrapper<DefaultFactHandle> {
     private final AlphaAddress alphaAddress;
+    // Indexes of field value ids, created on demand by Rete condition nodes
+    private final Map<IndexedFields, MemoryIndex> indexes = new ConcurrentHashMap<>();
 
     TypeAlphaMemory(GroupingReteMemory<DefaultFactHandle> delegate, AlphaAddress alphaAddress) {
         super(delegate);
@@ -14,4 +24,64 @@ public class TypeAlphaMemory extends GroupingReteMemoryWrapper<DefaultFactHandle
     public AlphaAddress getAlphaAddress() {
         return alphaAddress;
     }
+
+    /**
+     * Returns an existing index of the memory's keys or creates a new one. New indexes are populated
+     * with the memory's current data and are kept in sync with the memory afterward.
+     *
+     * @param fields      the index key definition
+     * @param keyFunction the function that computes index keys from field value ids in the given scope
+     * @return memory index
+     */
+    public MemoryIndex getCreateIndex(IndexedFields fields, MemoryIndex.KeyFunction keyFunction) {
+        return indexes.computeIfAbsent(fields, k -> {
+            MemoryIndex index = fields.newIndex(keyFunction);
+            for (MemoryScope scope : MemoryScope.values()) {
+                Iterator<Long> it = keyIterator(scope);
+                while (it.hasNext()) {
+                    index.add(scope, it.next());
+                }
+            }
+            return index;
+        });
+    }
+
+    @Override
+    public void insert(long key, @NonNull DefaultFactHandle value) {
+        super.insert(key, value);
+        for (MemoryIndex index : indexes.values()) {
+            index.add(MemoryScope.DELTA, key);
+        }
+    }
+
+    @Override
+    public void delete(long key, @NonNull DefaultFactHandle value) {
+        super.delete(key, value);
+        if (!indexes.isEmpty()) {
+            // The key remains in the memory while there are other values stored under it
+            for (MemoryScope scope : MemoryScope.values()) {
+                if (!valueIterator(scope, key).hasNext()) {
+                    for (MemoryIndex index : indexes.values()) {
+                        index.remove(scope, key);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void commit() {
+        super.commit();
+        for (MemoryIndex index : indexes.values()) {
+            index.commit();
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        for (MemoryIndex index : indexes.values()) {
+            index.clear();
+        }
+    }
 }
@@ -63,4 +63,35 @@ public final class TypeMemory extends FactStorageWrapper<DefaultFactHandle, Fact
         insert(value.getHandle(), value);
     }
 
+    // Each stored fact holds a reference to its field values, see ValueIndexer#retain(long)
+
+    @Override
+    public void insert(DefaultFactHandle factHandle, FactHolder value) {
+        super.insert(factHandle, value);
+        fieldValuesIndexer.retain(value.getFieldValuesId());
+    }
+
+    @Override
+    public FactHolder remove(DefaultFactHandle factHandle) {
+        FactHolder removed = super.remove(factHandle);
+        if (removed != null) {
+            fieldValuesIndexer.release(removed.getFieldValuesId());
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        stream().forEach(entry -> fieldValuesIndexer.release(entry.getValue().getFieldValuesId()));
+        super.clear();
+    }
+
+    /**
+     * Deletes field values that are no longer referenced by stored facts. The method must be called
+     * only when the deletes of those facts have been applied to the session's memories.
+     */
+    void reclaimFieldValues() {
+        fieldValuesIndexer.reclaim();
+    }
+
 }
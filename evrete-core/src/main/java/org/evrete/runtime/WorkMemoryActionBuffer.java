@@ -47,11 +47,11 @@ class WorkMemoryActionBuffer {
     }
 
     void addInsert(DeltaMemoryAction.Insert insertOp) {
-        this.actionsPerFactHandle.computeIfAbsent(insertOp.getHandle().getId(), ()->new State(insertOp.getType())).applyInsert(insertOp);
+        this.actionsPerFactHandle.getOrCreate(insertOp.getHandle().getId(), ()->new State(insertOp.getType())).applyInsert(insertOp);
     }
 
     void addDelete(DeltaMemoryAction.Delete deleteOp) {
-        this.actionsPerFactHandle.computeIfAbsent(deleteOp.getHandle().getId(), () -> new State(deleteOp.getType())).applyDelete(deleteOp);
+        this.actionsPerFactHandle.getOrCreate(deleteOp.getHandle().getId(), () -> new State(deleteOp.getType())).applyDelete(deleteOp);
     }
 
     // TODO the executor isn't actually used
@@ -0,0 +1,722 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.api.IntToValue;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * An interpreter of simple literal conditions. It parses conditions that consist of primitive
+ * field references, numeric and boolean literals, arithmetic (<code>+ - * / %</code>), comparisons,
+ * and boolean logic (<code>! &amp;&amp; ||</code>), and turns them into trees of nodes that are
+ * evaluated without generating and compiling Java classes.
+ * </p>
+ * <p>
+ * Nodes follow the Java rules of numeric promotion, so the interpreted conditions return the same
+ * results as their compiled counterparts, including integer overflows and division by zero.
+ * Anything beyond the supported subset, like method calls, string literals, casts, or boxed field
+ * types, is left to the Java compiler.
+ * </p>
+ */
+final class ConditionInterpreter {
+    private final String expression;
+    private final Map<String, Integer> argIndices;
+    private final Class<?>[] argTypes;
+    private int pos;
+
+    private ConditionInterpreter(String expression, Map<String, Integer> argIndices, Class<?>[] argTypes) {
+        this.expression = expression;
+        this.argIndices = argIndices;
+        this.argTypes = argTypes;
+    }
+
+    /**
+     * Parses the condition.
+     *
+     * @param expression condition with its field references replaced by variable names
+     * @param argIndices mapping of variable names to argument indices
+     * @param argTypes   value types of the arguments
+     * @return the condition's root node, or <code>null</code> if the condition must be compiled
+     */
+    static Node parse(String expression, Map<String, Integer> argIndices, Class<?>[] argTypes) {
+        ConditionInterpreter parser = new ConditionInterpreter(expression, argIndices, argTypes);
+        try {
+            Node root = parser.parseOr();
+            parser.skipWhitespaces();
+            if (parser.pos != expression.length() || root.kind != Kind.BOOLEAN) {
+                return null;
+            }
+            return root;
+        } catch (UnsupportedSyntax e) {
+            return null;
+        }
+    }
+
+    private Node parseOr() {
+        Node left = parseAnd();
+        while (accept("||")) {
+            left = new Or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private Node parseAnd() {
+        Node left = parseEquality();
+        while (accept("&&")) {
+            left = new And(left, parseEquality());
+        }
+        return left;
+    }
+
+    private Node parseEquality() {
+        Node left = parseRelational();
+        while (true) {
+            if (accept("==")) {
+                left = new Comparison(Comparison.EQ, left, parseRelational());
+            } else if (accept("!=")) {
+                left = new Comparison(Comparison.NE, left, parseRelational());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseRelational() {
+        Node left = parseAdditive();
+        if (accept("<=")) {
+            return new Comparison(Comparison.LE, left, parseAdditive());
+        } else if (accept(">=")) {
+            return new Comparison(Comparison.GE, left, parseAdditive());
+        } else if (accept("<")) {
+            return new Comparison(Comparison.LT, left, parseAdditive());
+        } else if (accept(">")) {
+            return new Comparison(Comparison.GT, left, parseAdditive());
+        } else {
+            return left;
+        }
+    }
+
+    private Node parseAdditive() {
+        Node left = parseMultiplicative();
+        while (true) {
+            if (accept("+")) {
+                left = new Arithmetic('+', left, parseMultiplicative());
+            } else if (accept("-")) {
+                left = new Arithmetic('-', left, parseMultiplicative());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseMultiplicative() {
+        Node left = parseUnary();
+        while (true) {
+            if (accept("*")) {
+                left = new Arithmetic('*', left, parseUnary());
+            } else if (accept("/")) {
+                left = new Arithmetic('/', left, parseUnary());
+            } else if (accept("%")) {
+                left = new Arithmetic('%', left, parseUnary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseUnary() {
+        if (accept("!")) {
+            return new Not(parseUnary());
+        } else if (accept("-")) {
+            return new Negation(parseUnary());
+        } else {
+            return parsePrimary();
+        }
+    }
+
+    private Node parsePrimary() {
+        skipWhitespaces();
+        if (pos >= expression.length()) {
+            throw new UnsupportedSyntax();
+        }
+        char c = expression.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Node node = parseOr();
+            if (!accept(")")) {
+                throw new UnsupportedSyntax();
+            }
+            return node;
+        } else if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        } else if (Character.isJavaIdentifierStart(c) && c != '$') {
+            int start = pos;
+            while (pos < expression.length() && Character.isJavaIdentifierPart(expression.charAt(pos)) && expression.charAt(pos) != '$') {
+                pos++;
+            }
+            String identifier = expression.substring(start, pos);
+            if (identifier.equals("true")) {
+                return new BooleanConstant(true);
+            } else if (identifier.equals("false")) {
+                return new BooleanConstant(false);
+            }
+            Integer index = argIndices.get(identifier);
+            if (index == null) {
+                // Static references, method calls, etc.
+                throw new UnsupportedSyntax();
+            }
+            return Variable.of(index, argTypes[index]);
+        } else {
+            throw new UnsupportedSyntax();
+        }
+    }
+
+    private Node parseNumber() {
+        int start = pos;
+        boolean decimal = false;
+        while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+            pos++;
+        }
+        if (pos < expression.length() && expression.charAt(pos) == '.') {
+            decimal = true;
+            pos++;
+            while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                pos++;
+            }
+        }
+        if (pos < expression.length() && (expression.charAt(pos) == 'e' || expression.charAt(pos) == 'E')) {
+            decimal = true;
+            pos++;
+            if (pos < expression.length() && (expression.charAt(pos) == '+' || expression.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                pos++;
+            }
+        }
+        String digits = expression.substring(start, pos);
+        char suffix = pos < expression.length() ? Character.toLowerCase(expression.charAt(pos)) : 0;
+        if (suffix == 'l' || suffix == 'f' || suffix == 'd') {
+            pos++;
+        } else {
+            suffix = 0;
+        }
+        if (pos < expression.length() && (Character.isJavaIdentifierPart(expression.charAt(pos)) || expression.charAt(pos) == '.')) {
+            // Hexadecimal, binary, or underscored literals
+            throw new UnsupportedSyntax();
+        }
+        if (decimal && suffix == 'l') {
+            throw new UnsupportedSyntax();
+        }
+        if (!decimal && digits.length() > 1 && digits.charAt(0) == '0') {
+            // Octal literals
+            throw new UnsupportedSyntax();
+        }
+        try {
+            if (suffix == 'f') {
+                return new FloatConstant(Float.parseFloat(digits));
+            } else if (suffix == 'd' || decimal) {
+                return new DoubleConstant(Double.parseDouble(digits));
+            } else if (suffix == 'l') {
+                return new LongConstant(Long.parseLong(digits));
+            } else {
+                return new IntConstant(Integer.parseInt(digits));
+            }
+        } catch (NumberFormatException e) {
+            // Including the Integer.MIN_VALUE literal, which is valid only after the unary minus
+            throw new UnsupportedSyntax();
+        }
+    }
+
+    private boolean accept(String token) {
+        skipWhitespaces();
+        if (!expression.startsWith(token, pos)) {
+            return false;
+        }
+        int end = pos + token.length();
+        if (end < expression.length()) {
+            char next = expression.charAt(end);
+            // Operators that are prefixes of other operators
+            if ((token.equals("<") || token.equals(">") || token.equals("!")) && next == '=') {
+                return false;
+            } else if ((token.equals("&&") || token.equals("||")) && (next == '&' || next == '|')) {
+                return false;
+            } else if ((token.equals("+") || token.equals("-")) && (next == token.charAt(0) || next == '=')) {
+                throw new UnsupportedSyntax();
+            }
+        }
+        if (token.equals("==") && end < expression.length() && expression.charAt(end) == '=') {
+            throw new UnsupportedSyntax();
+        }
+        pos = end;
+        return true;
+    }
+
+    private void skipWhitespaces() {
+        while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static Kind promote(Kind k1, Kind k2) {
+        if (k1 == Kind.BOOLEAN || k2 == Kind.BOOLEAN) {
+            throw new UnsupportedSyntax();
+        }
+        return k1.ordinal() > k2.ordinal() ? k1 : k2;
+    }
+
+    /**
+     * Value kinds after the unary numeric promotion, in the order of the binary numeric promotion.
+     */
+    enum Kind {
+        BOOLEAN,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE
+    }
+
+    private static class UnsupportedSyntax extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedSyntax() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A node of the condition's tree. Numeric nodes implement the method of their own kind,
+     * the methods of wider kinds convert the value.
+     */
+    abstract static class Node {
+        final Kind kind;
+
+        Node(Kind kind) {
+            this.kind = kind;
+        }
+
+        boolean booleanValue(IntToValue values) {
+            throw new IllegalStateException();
+        }
+
+        int intValue(IntToValue values) {
+            throw new IllegalStateException();
+        }
+
+        long longValue(IntToValue values) {
+            return intValue(values);
+        }
+
+        float floatValue(IntToValue values) {
+            return kind == Kind.LONG ? longValue(values) : intValue(values);
+        }
+
+        double doubleValue(IntToValue values) {
+            switch (kind) {
+                case FLOAT:
+                    return floatValue(values);
+                case LONG:
+                    return longValue(values);
+                default:
+                    return intValue(values);
+            }
+        }
+    }
+
+    private abstract static class Variable extends Node {
+        final int index;
+
+        Variable(Kind kind, int index) {
+            super(kind);
+            this.index = index;
+        }
+
+        static Node of(int index, Class<?> type) {
+            if (type == int.class) {
+                return new Variable(Kind.INT, index) {
+                    @Override
+                    int intValue(IntToValue values) {
+                        return (Integer) values.apply(index);
+                    }
+                };
+            } else if (type == long.class) {
+                return new Variable(Kind.LONG, index) {
+                    @Override
+                    long longValue(IntToValue values) {
+                        return (Long) values.apply(index);
+                    }
+                };
+            } else if (type == double.class) {
+                return new Variable(Kind.DOUBLE, index) {
+                    @Override
+                    double doubleValue(IntToValue values) {
+                        return (Double) values.apply(index);
+                    }
+                };
+            } else if (type == float.class) {
+                return new Variable(Kind.FLOAT, index) {
+                    @Override
+                    float floatValue(IntToValue values) {
+                        return (Float) values.apply(index);
+                    }
+                };
+            } else if (type == boolean.class) {
+                return new Variable(Kind.BOOLEAN, index) {
+                    @Override
+                    boolean booleanValue(IntToValue values) {
+                        return (Boolean) values.apply(index);
+                    }
+                };
+            } else if (type == short.class) {
+                return new Variable(Kind.INT, index) {
+                    @Override
+                    int intValue(IntToValue values) {
+                        return (Short) values.apply(index);
+                    }
+                };
+            } else if (type == byte.class) {
+                return new Variable(Kind.INT, index) {
+                    @Override
+                    int intValue(IntToValue values) {
+                        return (Byte) values.apply(index);
+                    }
+                };
+            } else if (type == char.class) {
+                return new Variable(Kind.INT, index) {
+                    @Override
+                    int intValue(IntToValue values) {
+                        return (Character) values.apply(index);
+                    }
+                };
+            } else {
+                // Boxed values can be null, and == compares their references
+                throw new UnsupportedSyntax();
+            }
+        }
+    }
+
+    private static class BooleanConstant extends Node {
+        private final boolean value;
+
+        BooleanConstant(boolean value) {
+            super(Kind.BOOLEAN);
+            this.value = value;
+        }
+
+        @Override
+        boolean booleanValue(IntToValue values) {
+            return value;
+        }
+    }
+
+    private static class IntConstant extends Node {
+        private final int value;
+
+        IntConstant(int value) {
+            super(Kind.INT);
+            this.value = value;
+        }
+
+        @Override
+        int intValue(IntToValue values) {
+            return value;
+        }
+    }
+
+    private static class LongConstant extends Node {
+        private final long value;
+
+        LongConstant(long value) {
+            super(Kind.LONG);
+            this.value = value;
+        }
+
+        @Override
+        long longValue(IntToValue values) {
+            return value;
+        }
+    }
+
+    private static class FloatConstant extends Node {
+        private final float value;
+
+        FloatConstant(float value) {
+            super(Kind.FLOAT);
+            this.value = value;
+        }
+
+        @Override
+        float floatValue(IntToValue values) {
+            return value;
+        }
+    }
+
+    private static class DoubleConstant extends Node {
+        private final double value;
+
+        DoubleConstant(double value) {
+            super(Kind.DOUBLE);
+            this.value = value;
+        }
+
+        @Override
+        double doubleValue(IntToValue values) {
+            return value;
+        }
+    }
+
+    private static class Negation extends Node {
+        private final Node operand;
+
+        Negation(Node operand) {
+            super(promote(operand.kind, Kind.INT));
+            this.operand = operand;
+        }
+
+        @Override
+        int intValue(IntToValue values) {
+            return -operand.intValue(values);
+        }
+
+        @Override
+        long longValue(IntToValue values) {
+            return kind == Kind.LONG ? -operand.longValue(values) : super.longValue(values);
+        }
+
+        @Override
+        float floatValue(IntToValue values) {
+            return kind == Kind.FLOAT ? -operand.floatValue(values) : super.floatValue(values);
+        }
+
+        @Override
+        double doubleValue(IntToValue values) {
+            return kind == Kind.DOUBLE ? -operand.doubleValue(values) : super.doubleValue(values);
+        }
+    }
+
+    private static class Arithmetic extends Node {
+        private final char operator;
+        private final Node left;
+        private final Node right;
+
+        Arithmetic(char operator, Node left, Node right) {
+            super(promote(left.kind, right.kind));
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int intValue(IntToValue values) {
+            int l = left.intValue(values);
+            int r = right.intValue(values);
+            switch (operator) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '/':
+                    return l / r;
+                default:
+                    return l % r;
+            }
+        }
+
+        @Override
+        long longValue(IntToValue values) {
+            if (kind != Kind.LONG) {
+                return super.longValue(values);
+            }
+            long l = left.longValue(values);
+            long r = right.longValue(values);
+            switch (operator) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '/':
+                    return l / r;
+                default:
+                    return l % r;
+            }
+        }
+
+        @Override
+        float floatValue(IntToValue values) {
+            if (kind != Kind.FLOAT) {
+                return super.floatValue(values);
+            }
+            float l = left.floatValue(values);
+            float r = right.floatValue(values);
+            switch (operator) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '/':
+                    return l / r;
+                default:
+                    return l % r;
+            }
+        }
+
+        @Override
+        double doubleValue(IntToValue values) {
+            if (kind != Kind.DOUBLE) {
+                return super.doubleValue(values);
+            }
+            double l = left.doubleValue(values);
+            double r = right.doubleValue(values);
+            switch (operator) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '/':
+                    return l / r;
+                default:
+                    return l % r;
+            }
+        }
+    }
+
+    private static class Comparison extends Node {
+        static final int EQ = 0;
+        static final int NE = 1;
+        static final int LT = 2;
+        static final int LE = 3;
+        static final int GT = 4;
+        static final int GE = 5;
+
+        private final int operator;
+        private final Kind operandKind;
+        private final Node left;
+        private final Node right;
+
+        Comparison(int operator, Node left, Node right) {
+            super(Kind.BOOLEAN);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            if (left.kind == Kind.BOOLEAN && right.kind == Kind.BOOLEAN && operator <= NE) {
+                this.operandKind = Kind.BOOLEAN;
+            } else {
+                this.operandKind = promote(left.kind, right.kind);
+            }
+        }
+
+        @Override
+        boolean booleanValue(IntToValue values) {
+            switch (operandKind) {
+                case BOOLEAN:
+                    return (left.booleanValue(values) == right.booleanValue(values)) == (operator == EQ);
+                case INT:
+                    return test(Integer.compare(left.intValue(values), right.intValue(values)));
+                case LONG:
+                    return test(Long.compare(left.longValue(values), right.longValue(values)));
+                case FLOAT:
+                    return test(left.floatValue(values), right.floatValue(values));
+                default:
+                    return test(left.doubleValue(values), right.doubleValue(values));
+            }
+        }
+
+        private boolean test(int comparison) {
+            switch (operator) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                case LE:
+                    return comparison <= 0;
+                case GT:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+
+        // Floating point operators, unlike Double.compare(), treat NaN as unordered and 0.0 as equal to -0.0
+        private boolean test(double l, double r) {
+            switch (operator) {
+                case EQ:
+                    return l == r;
+                case NE:
+                    return l != r;
+                case LT:
+                    return l < r;
+                case LE:
+                    return l <= r;
+                case GT:
+                    return l > r;
+                default:
+                    return l >= r;
+            }
+        }
+    }
+
+    private static class Not extends Node {
+        private final Node operand;
+
+        Not(Node operand) {
+            super(Kind.BOOLEAN);
+            if (operand.kind != Kind.BOOLEAN) {
+                throw new UnsupportedSyntax();
+            }
+            this.operand = operand;
+        }
+
+        @Override
+        boolean booleanValue(IntToValue values) {
+            return !operand.booleanValue(values);
+        }
+    }
+
+    private static class And extends Node {
+        private final Node left;
+        private final Node right;
+
+        And(Node left, Node right) {
+            super(Kind.BOOLEAN);
+            if (left.kind != Kind.BOOLEAN || right.kind != Kind.BOOLEAN) {
+                throw new UnsupportedSyntax();
+            }
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean booleanValue(IntToValue values) {
+            return left.booleanValue(values) && right.booleanValue(values);
+        }
+    }
+
+    private static class Or extends Node {
+        private final Node left;
+        private final Node right;
+
+        Or(Node left, Node right) {
+            super(Kind.BOOLEAN);
+            if (left.kind != Kind.BOOLEAN || right.kind != Kind.BOOLEAN) {
+                throw new UnsupportedSyntax();
+            }
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean booleanValue(IntToValue values) {
+            return left.booleanValue(values) || right.booleanValue(values);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.api.LhsField;
+import org.evrete.runtime.evaluation.ArgumentRelation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * A very basic analyzer of literal conditions. It splits an encoded (see {@link StringLiteralEncoder})
+ * condition into its top-level <code>&amp;&amp;</code> terms and detects those terms that compare two
+ * field references, like <code>$a.id == $b.ref</code>, <code>$a.code.equals($b.code)</code>,
+ * or <code>$t.ts &lt; $w.end</code>.
+ * </p>
+ * <p>
+ * Every detected relation is a necessary condition for the whole expression to be true,
+ * expressions with top-level <code>||</code> or ternary operators produce no relations at all.
+ * </p>
+ * <p>
+ * The analyzer also detects single-field conditions that compare the field with a constant,
+ * like <code>$e.code.equals("X17")</code> or <code>$e.priority == 5</code>.
+ * </p>
+ */
+final class ConditionRelations {
+    private static final String REF = "\\$[a-zA-Z0-9]+(?:\\.[_a-zA-Z][_a-zA-Z0-9]*)*";
+    private static final Pattern EQUALS_OPERATOR = Pattern.compile("(" + REF + ")==(" + REF + ")");
+    private static final Pattern EQUALS_METHOD = Pattern.compile("(" + REF + ")\\.equals\\((" + REF + ")\\)");
+    private static final Pattern EQUALS_OBJECTS = Pattern.compile("(?:java\\.util\\.)?Objects\\.equals\\((" + REF + "),(" + REF + ")\\)");
+    private static final Pattern COMPARISON = Pattern.compile("(" + REF + ")(<=|>=|<|>)(" + REF + ")");
+    // String constants are encoded by the StringLiteralEncoder
+    private static final String STRING = "\\$\\{const[0-9]+}";
+    private static final String NUMBER = "-?(?:0|[1-9][0-9]*)[lL]?";
+    private static final Pattern[] STRING_EQUALITIES = new Pattern[]{
+            Pattern.compile("(?<ref>" + REF + ")\\.equals\\((?<const>" + STRING + ")\\)"),
+            Pattern.compile("(?<const>" + STRING + ")\\.equals\\((?<ref>" + REF + ")\\)"),
+            Pattern.compile("(?:java\\.util\\.)?Objects\\.equals\\((?<ref>" + REF + "),(?<const>" + STRING + ")\\)"),
+            Pattern.compile("(?:java\\.util\\.)?Objects\\.equals\\((?<const>" + STRING + "),(?<ref>" + REF + ")\\)")
+    };
+    private static final Pattern[] NUMBER_EQUALITIES = new Pattern[]{
+            Pattern.compile("(?<ref>" + REF + ")==(?<const>" + NUMBER + ")"),
+            Pattern.compile("(?<const>" + NUMBER + ")==(?<ref>" + REF + ")")
+    };
+
+    private ConditionRelations() {
+    }
+
+    /**
+     * Resolves argument relations of an encoded condition
+     *
+     * @param encodedExpression the condition with string literals encoded
+     * @param argIndex          mapping of a field reference to the condition's argument index, or null if the reference is unknown
+     * @param argType           mapping of an argument index to the argument's value type
+     * @return detected relations
+     */
+    static ArgumentRelation[] resolve(String encodedExpression, Function<LhsField<String, String>, Integer> argIndex, Function<Integer, Class<?>> argType) {
+        List<String> terms = new ArrayList<>();
+        if (!splitConjunction(encodedExpression.replaceAll("\\s", ""), terms)) {
+            return ArgumentRelation.EMPTY_ARRAY;
+        }
+
+        List<ArgumentRelation> result = new ArrayList<>();
+        for (String term : terms) {
+            Matcher m;
+            ArgumentRelation.Operator operator;
+            String leftRef;
+            String rightRef;
+            if ((m = EQUALS_OPERATOR.matcher(term)).matches() || (m = EQUALS_METHOD.matcher(term)).matches() || (m = EQUALS_OBJECTS.matcher(term)).matches()) {
+                operator = ArgumentRelation.Operator.EQUALS;
+                leftRef = m.group(1);
+                rightRef = m.group(2);
+            } else if ((m = COMPARISON.matcher(term)).matches()) {
+                operator = comparisonOperator(m.group(2));
+                leftRef = m.group(1);
+                rightRef = m.group(3);
+            } else {
+                continue;
+            }
+
+            Integer left = argIndex.apply(LhsField.parseDottedVariable(leftRef));
+            Integer right = argIndex.apply(LhsField.parseDottedVariable(rightRef));
+            if (left == null || right == null || left.equals(right)) {
+                continue;
+            }
+
+            Class<?> leftType = argType.apply(left);
+            Class<?> rightType = argType.apply(right);
+            boolean accepted;
+            if (operator != ArgumentRelation.Operator.EQUALS) {
+                accepted = comparableByOrder(leftType, rightType);
+            } else if (m.pattern() == EQUALS_OPERATOR) {
+                accepted = comparableByEquals(leftType, rightType);
+            } else {
+                accepted = true;
+            }
+
+            if (accepted) {
+                result.add(new ArgumentRelation(left, right, operator));
+            }
+        }
+        return result.toArray(ArgumentRelation.EMPTY_ARRAY);
+    }
+
+    /**
+     * Detects conditions that are equivalent to <code>constant.equals(field)</code> for any non-null value
+     * of their only field. String literals are supported for <code>String</code> fields, integer literals
+     * for integral fields except <code>char</code>.
+     *
+     * @param encodedExpression the condition with string literals encoded
+     * @param stringConstants   encoded string literals, see {@link StringLiteralEncoder#getConstantMap()}
+     * @param argIndex          mapping of a field reference to the condition's argument index, or null if the reference is unknown
+     * @param argType           mapping of an argument index to the argument's value type
+     * @return the constant converted to the field's type, or <code>null</code> if the condition is not a constant equality
+     */
+    static Object equalityConstant(String encodedExpression, Map<String, String> stringConstants, Function<LhsField<String, String>, Integer> argIndex, Function<Integer, Class<?>> argType) {
+        String expression = stripParentheses(encodedExpression.replaceAll("\\s", ""));
+        Matcher m;
+        if ((m = matching(STRING_EQUALITIES, expression)) != null) {
+            Integer arg = argIndex.apply(LhsField.parseDottedVariable(m.group("ref")));
+            String value = stringConstants.get(m.group("const"));
+            // Escape sequences are left to the compiler
+            if (arg != null && arg == 0 && value != null && value.indexOf('\\') < 0 && argType.apply(arg) == String.class) {
+                return value;
+            }
+        } else if ((m = matching(NUMBER_EQUALITIES, expression)) != null) {
+            Integer arg = argIndex.apply(LhsField.parseDottedVariable(m.group("ref")));
+            if (arg != null && arg == 0) {
+                return integralConstant(m.group("const"), box(argType.apply(arg)));
+            }
+        }
+        return null;
+    }
+
+    private static Matcher matching(Pattern[] patterns, String expression) {
+        for (Pattern pattern : patterns) {
+            Matcher m = pattern.matcher(expression);
+            if (m.matches()) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    private static Object integralConstant(String literal, Class<?> type) {
+        long value;
+        try {
+            value = Long.parseLong(literal.endsWith("l") || literal.endsWith("L") ? literal.substring(0, literal.length() - 1) : literal);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (type == Long.class) {
+            return value;
+        } else if (type == Integer.class && value == (int) value) {
+            return (int) value;
+        } else if (type == Short.class && value == (short) value) {
+            return (short) value;
+        } else if (type == Byte.class && value == (byte) value) {
+            return (byte) value;
+        } else {
+            return null;
+        }
+    }
+
+    private static ArgumentRelation.Operator comparisonOperator(String s) {
+        switch (s) {
+            case "<":
+                return ArgumentRelation.Operator.LESS;
+            case "<=":
+                return ArgumentRelation.Operator.LESS_OR_EQUAL;
+            case ">":
+                return ArgumentRelation.Operator.GREATER;
+            case ">=":
+                return ArgumentRelation.Operator.GREATER_OR_EQUAL;
+            default:
+                throw new IllegalArgumentException("Unknown operator " + s);
+        }
+    }
+
+    /**
+     * Comparison operators are only supported on primitive values of the same type. Their boxed counterparts
+     * are never null and are ordered consistently with the operators, while values of different
+     * types can not be compared via {@link Comparable#compareTo(Object)}.
+     */
+    private static boolean comparableByOrder(Class<?> t1, Class<?> t2) {
+        return t1 == t2 && t1.isPrimitive() && t1 != boolean.class;
+    }
+
+    /**
+     * The <code>==</code> operator on primitive values may involve numeric promotion,
+     * e.g. <code>1 == 1L</code>, while their boxed counterparts are not equal. Such relations
+     * are rejected. Reference equality always implies {@link Object#equals(Object)}.
+     */
+    private static boolean comparableByEquals(Class<?> t1, Class<?> t2) {
+        if (t1.isPrimitive() || t2.isPrimitive()) {
+            return box(t1).equals(box(t2));
+        } else {
+            return true;
+        }
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == int.class) return Integer.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == char.class) return Character.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        return type;
+    }
+
+    /**
+     * Splits the expression into top-level <code>&amp;&amp;</code> terms.
+     *
+     * @return false if the expression can not be represented as a conjunction
+     */
+    private static boolean splitConjunction(String expression, List<String> terms) {
+        String expr = stripParentheses(expression);
+        int depth = 0;
+        int start = 0;
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            switch (c) {
+                case '(':
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ')':
+                case ']':
+                case '}':
+                    depth--;
+                    break;
+                case '?':
+                    if (depth == 0) return false;
+                    break;
+                case '|':
+                    if (depth == 0 && i + 1 < expr.length() && expr.charAt(i + 1) == '|') return false;
+                    break;
+                case '&':
+                    if (depth == 0 && i + 1 < expr.length() && expr.charAt(i + 1) == '&') {
+                        parts.add(expr.substring(start, i));
+                        start = i + 2;
+                        i++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        parts.add(expr.substring(start));
+
+        if (parts.size() == 1) {
+            terms.add(expr);
+        } else {
+            for (String part : parts) {
+                // Nested conjunctions are still conjunctions, other sub-expressions are just ignored
+                List<String> nested = new ArrayList<>();
+                if (splitConjunction(part, nested)) {
+                    terms.addAll(nested);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String stripParentheses(String expression) {
+        String s = expression;
+        while (s.length() > 1 && s.charAt(0) == '(' && closingIndex(s) == s.length() - 1) {
+            s = s.substring(1, s.length() - 1);
+        }
+        return s;
+    }
+
+    private static int closingIndex(String s) {
+        int depth = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) return i;
+            }
+        }
+        return -1;
+    }
+}
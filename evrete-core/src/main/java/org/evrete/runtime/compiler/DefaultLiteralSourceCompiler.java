@@ -4,15 +4,24 @@ import org.evrete.Configuration;
 import org.evrete.api.*;
 import org.evrete.api.annotations.NonNull;
 import org.evrete.api.spi.SourceCompiler;
+import org.evrete.runtime.evaluation.ArgumentRelation;
+import org.evrete.runtime.evaluation.IndexablePredicate;
+import org.evrete.runtime.evaluation.StaticMethodPredicate;
 import org.evrete.spi.minimal.AbstractLiteralRhs;
 import org.evrete.util.BaseRuleClass;
 import org.evrete.util.CommonUtils;
 import org.evrete.util.CompilationException;
 
 import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -21,9 +30,9 @@ import static org.evrete.Configuration.*;
 public class DefaultLiteralSourceCompiler  {
     private static final String TAB = "  ";
     private static final String RHS_CLASS_NAME = "Rhs";
-    private static final String RHS_INSTANCE_VAR = "ACTION";
 
-    private static final AtomicLong classCounter = new AtomicLong();
+    private static final String CLASS_NAME_PREFIX = "Rule";
+    private static final int CLASS_NAME_HASH_LENGTH = 16;
     static final String CLASS_PACKAGE = DefaultLiteralSourceCompiler.class.getPackage().getName() + ".compiled";
 
     public <S extends RuleLiteralData<R, C>, R extends Rule, C extends LiteralPredicate> Collection<RuleCompiledSources<S, R, C>> compile(RuntimeContext<?> context, ClassLoader classLoader, Collection<S> sources) throws CompilationException {
@@ -41,36 +50,174 @@ public class DefaultLiteralSourceCompiler  {
 
 
         String stripFlag = configuration.getProperty(SPI_LHS_STRIP_WHITESPACES);
+        boolean retry = stripFlag == null;
+        // By default, try compiling with stripped whitespaces first
+        boolean stripWhitespaces = retry || Boolean.parseBoolean(stripFlag);
+        boolean interpret = configuration.getAsBoolean(COMPILER_INTERPRET_CONDITIONS, false);
+        ExecutorService executor = context.getService().getExecutor();
+
+        List<Shard<S, R, C>> shards = new ArrayList<>();
+        for (List<S> shardSources : shards(sources, configuration.getAsInteger(COMPILER_MIN_SHARD_SIZE, COMPILER_MIN_SHARD_SIZE_DEFAULT))) {
+            shards.add(new Shard<>(context, classLoader, shardSources, stripWhitespaces, interpret));
+        }
+        runAll(shards, executor);
 
-        if (stripFlag == null) {
+        Collection<RuleCompiledSources<S, R, C>> result = new ArrayList<>(sources.size());
+        List<Shard<S, R, C>> retries = new ArrayList<>();
+        for (Shard<S, R, C> shard : shards) {
             try {
-                // Try compiling with stripped whitespaces
-                return compile(context, classLoader, sources, true);
+                result.addAll(shard.get());
             } catch (CompilationException e) {
-                // Compile literals as-is
-                return compile(context, classLoader, sources, false);
+                if (retry) {
+                    // Compile the shard's literals as-is
+                    retries.add(new Shard<>(context, classLoader, shard.sources, false, interpret));
+                } else {
+                    throw e;
+                }
+            }
+        }
+        runAll(retries, executor);
+        for (Shard<S, R, C> shard : retries) {
+            result.addAll(shard.get());
+        }
+        return result;
+    }
+
+    /**
+     * Splits the sources into shards of roughly the same size, at most one shard per available processor.
+     */
+    private static <S> List<List<S>> shards(Collection<S> sources, int minShardSize) {
+        int shardCount = Math.min(Runtime.getRuntime().availableProcessors(), sources.size() / Math.max(1, minShardSize));
+        if (shardCount <= 1) {
+            return Collections.singletonList(new ArrayList<>(sources));
+        }
+        List<List<S>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>(sources.size() / shardCount + 1));
+        }
+        int i = 0;
+        for (S source : sources) {
+            shards.get(i++ % shardCount).add(source);
+        }
+        return shards;
+    }
+
+    /**
+     * Runs the tasks on the executor. Tasks that haven't been picked up by the executor's threads are
+     * run by the current thread, which might be one of those threads.
+     */
+    private static void runAll(List<? extends Runnable> tasks, ExecutorService executor) {
+        for (int i = 1; i < tasks.size(); i++) {
+            executor.execute(tasks.get(i));
+        }
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    static String classNameHash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            byte[] bytes = digest.digest();
+            StringBuilder sb = new StringBuilder(CLASS_NAME_HASH_LENGTH);
+            for (int i = 0; i < CLASS_NAME_HASH_LENGTH / 2; i++) {
+                sb.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(bytes[i] & 0xF, 16));
             }
-        } else {
-            return compile(context, classLoader, sources, Boolean.parseBoolean(stripFlag));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    private <S extends RuleLiteralData<R, C>, R extends Rule, C extends LiteralPredicate> Collection<RuleCompiledSources<S, R, C>> compile(RuntimeContext<?> context, ClassLoader classLoader, Collection<S> sources, boolean stripWhitespaces) throws CompilationException {
-        SourceCompiler compiler = context.getService().getSourceCompilerProvider().instance(classLoader);
+    /**
+     * A group of sources that are compiled together. Java sources are generated when the shard is created,
+     * and the compilation task runs only once, either on the executor or on the calling thread. The source
+     * compiler is created only if the shard has classes to compile.
+     */
+    private static class Shard<S extends RuleLiteralData<R, C>, R extends Rule, C extends LiteralPredicate> implements Runnable {
+        private final Collection<S> sources;
+        private final RuntimeContext<?> context;
+        private final ClassLoader classLoader;
+        // Class names are derived from the classes' contents, identical rules share the same class
+        private final Map<String, List<RuleSource<S, R, C>>> javaSources = new LinkedHashMap<>();
+        // Sources whose conditions are all interpreted, and which have no actions
+        private final List<RuleSource<S, R, C>> classlessSources = new ArrayList<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Collection<RuleCompiledSources<S, R, C>>> result = new CompletableFuture<>();
+
+        Shard(RuntimeContext<?> context, ClassLoader classLoader, Collection<S> sources, boolean stripWhitespaces, boolean interpret) {
+            this.sources = sources;
+            this.context = context;
+            this.classLoader = classLoader;
+            for (S o : sources) {
+                RuleSource<S, R, C> source = new RuleSource<>(o, context, stripWhitespaces, interpret);
+                if (source.needsClass()) {
+                    javaSources.computeIfAbsent(source.className, k -> new ArrayList<>()).add(source);
+                } else {
+                    classlessSources.add(source);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    result.complete(compile());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            }
+        }
+
+        private Collection<RuleCompiledSources<S, R, C>> compile() throws CompilationException {
+            Collection<RuleSource<S, R, C>> uniqueSources = javaSources.values()
+                    .stream()
+                    .map(list -> list.get(0))
+                    .collect(Collectors.toList());
 
-        Collection<RuleSource<S, R, C>> javaSources = sources.stream()
-                .map(o -> new RuleSource<>(o, context, stripWhitespaces))
-                .collect(Collectors.toList());
+            Collection<SourceCompiler.Result<RuleSource<S, R, C>>> compiled = uniqueSources.isEmpty() ?
+                    Collections.emptyList()
+                    :
+                    context.getService().getSourceCompilerProvider().instance(context.getConfiguration(), classLoader).compile(uniqueSources);
 
-        Collection<SourceCompiler.Result<RuleSource<S, R, C>>> result = compiler.compile(javaSources);
+            Collection<RuleCompiledSources<S, R, C>> result = new ArrayList<>(sources.size());
+            for (RuleSource<S, R, C> source : classlessSources) {
+                result.add(new RuleCompiledSourcesImpl<>(null, source, null));
+            }
+            for (SourceCompiler.Result<RuleSource<S, R, C>> compiledSource : compiled) {
+                Class<?> ruleClass = compiledSource.getCompiledClass();
+                for (RuleSource<S, R, C> source : javaSources.get(compiledSource.getSource().className)) {
+                    result.add(new RuleCompiledSourcesImpl<>(ruleClass, source, source.javaSource));
+                }
+            }
+            return result;
+        }
 
-        return result
-                .stream()
-                .map(compiledSource -> {
-                    Class<?> ruleClass = compiledSource.getCompiledClass();
-                    return new RuleCompiledSourcesImpl<>(ruleClass, compiledSource.getSource(), compiledSource.getSource().javaSource);
-                })
-                .collect(Collectors.toList());
+        Collection<RuleCompiledSources<S, R, C>> get() throws CompilationException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Compilation has been interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CompilationException) {
+                    throw (CompilationException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
     }
 
     public static class RuleSource<S extends RuleLiteralData<R, C>, R extends Rule, C extends LiteralPredicate> implements SourceCompiler.ClassSource {
@@ -78,50 +225,59 @@ public class DefaultLiteralSourceCompiler  {
         private final String classSimpleName;
 
         private final S delegate;
-        private final Imports imports;
         private final RhsSource rhsSource;
 
         private final String javaSource;
         private final Collection<ConditionSource<C>> conditionSources;
+        // Conditions that need to be compiled
+        private final Collection<ConditionSource<C>> compiledConditions;
 
-        RuleSource(S delegate, RuntimeContext<?> context, boolean stripWhitespaces) {
+        RuleSource(S delegate, RuntimeContext<?> context, boolean stripWhitespaces, boolean interpret) {
             this.delegate = delegate;
-            this.imports = context.getImports();
-            this.classSimpleName = "Rule" + classCounter.incrementAndGet();
-            this.className = CLASS_PACKAGE + "." + classSimpleName;
 
             AtomicInteger conditionCounter = new AtomicInteger();
             this.conditionSources = delegate.conditions()
                     .stream()
-                    .map(s -> new ConditionSource<>(delegate.getRule(), "condition" + conditionCounter.incrementAndGet(), this.classSimpleName, s, stripWhitespaces))
+                    .map(s -> new ConditionSource<>(delegate.getRule(), "condition" + conditionCounter.incrementAndGet(), s, stripWhitespaces, interpret))
+                    .collect(Collectors.toList());
+            this.compiledConditions = conditionSources
+                    .stream()
+                    .filter(s -> s.interpreted == null)
                     .collect(Collectors.toList());
 
             String rhs = delegate.rhs();
             this.rhsSource = rhs == null ? null : new RhsSource(delegate.getRule(), rhs);
-            this.javaSource = this.buildSource();
-        }
 
-        private String buildSource() {
-            StringBuilder sb = new StringBuilder(4096);
-            // Class header
-            appendHeader(sb);
+            // The class body doesn't refer to the class' own name, so the name can be derived from
+            // the imports, the base class, and the body.
+            String importStatements = importStatements(context.getImports());
+            String baseClassName = delegate.getRule().get(RULE_BASE_CLASS, BaseRuleClass.class.getCanonicalName());
+            String body = this.buildBody();
+            this.classSimpleName = CLASS_NAME_PREFIX + classNameHash(CLASS_PACKAGE, importStatements, baseClassName, body);
+            this.className = CLASS_PACKAGE + "." + classSimpleName;
 
-            // Class RHS body
-            if (this.rhsSource != null) {
-                this.rhsSource.appendClassVar(sb);
-            }
+            StringBuilder sb = new StringBuilder(body.length() + importStatements.length() + 256);
+            // Class header
+            appendHeader(sb, importStatements, baseClassName);
+            sb.append(body);
+            // Class footer
+            appendFooter(sb);
+            this.javaSource = sb.toString();
+        }
 
+        private String buildBody() {
+            StringBuilder sb = new StringBuilder(4096);
             // Class conditions declarations
-            for (ConditionSource<C> source : this.conditionSources) {
+            for (ConditionSource<C> source : this.compiledConditions) {
                 sb.append(TAB);
                 source.appendDeclaration(sb);
             }
 
             // Class conditions definitions
-            if (!this.conditionSources.isEmpty()) {
+            if (!this.compiledConditions.isEmpty()) {
                 sb.append("\n").append(TAB).append("static {\n");
                 sb.append(TAB).append(TAB).append("try {\n");
-                for (ConditionSource<C> source : this.conditionSources) {
+                for (ConditionSource<C> source : this.compiledConditions) {
                     sb.append(TAB);
                     sb.append(TAB);
                     sb.append(TAB);
@@ -134,7 +290,7 @@ public class DefaultLiteralSourceCompiler  {
             }
 
             // Class conditions methods
-            for (ConditionSource<C> source : this.conditionSources) {
+            for (ConditionSource<C> source : this.compiledConditions) {
                 source.appendHandleMethod(sb);
                 source.appendInnerMethod(sb);
                 sb.append("\n");
@@ -144,12 +300,13 @@ public class DefaultLiteralSourceCompiler  {
             if (this.rhsSource != null) {
                 this.rhsSource.appendClassBody(sb);
             }
-
-            // Class footer
-            appendFooter(sb);
             return sb.toString();
         }
 
+        boolean needsClass() {
+            return rhsSource != null || !compiledConditions.isEmpty();
+        }
+
         @Override
         public String binaryName() {
             return className;
@@ -160,16 +317,28 @@ public class DefaultLiteralSourceCompiler  {
             return javaSource;
         }
 
-        private void appendHeader(StringBuilder target) {
+        /**
+         * Import statements, sorted so that the source doesn't depend on the order of the imports.
+         */
+        private static String importStatements(Imports imports) {
+            StringBuilder sb = new StringBuilder();
+            imports.asJavaImportStatements(sb);
+            String separator = System.lineSeparator();
+            return Arrays.stream(sb.toString().split(separator))
+                    .filter(line -> !line.isEmpty())
+                    .sorted()
+                    .map(line -> line + separator)
+                    .collect(Collectors.joining("", "", sb.length() == 0 ? "" : separator));
+        }
+
+        private void appendHeader(StringBuilder target, String importStatements, String baseClassName) {
             // Declare package
             target.append("package ").append(CLASS_PACKAGE).append(";\n\n");
 
             // Declare imports
-            imports.asJavaImportStatements(target);
+            target.append(importStatements);
 
             // Declare class
-            String baseClassName = delegate.getRule().get(RULE_BASE_CLASS, BaseRuleClass.class.getCanonicalName());
-
             target.append("public final class ")
                     .append(classSimpleName)
                     .append(" extends ")
@@ -187,9 +356,9 @@ public class DefaultLiteralSourceCompiler  {
         private static final String DECLARATION_TEMPLATE =
                 "public static final java.lang.invoke.MethodHandle %s;\n";
         private static final String DEFINITION_TEMPLATE =
-                "%s = java.lang.invoke.MethodHandles.lookup().findStatic(%s.class, \"%s\", java.lang.invoke.MethodType.methodType(boolean.class, %s));\n";
+                "%s = java.lang.invoke.MethodHandles.lookup().findStatic(java.lang.invoke.MethodHandles.lookup().lookupClass(), \"%s\", java.lang.invoke.MethodType.methodType(boolean.class, %s));\n";
         private static final String INNER_METHOD_TEMPLATE = "\n" +
-                "  private static boolean %sInner(%s) {\n" +
+                "  public static boolean %sInner(%s) {\n" +
                 "    return %s;\n" +
                 "  }\n";
         private static final String HANDLE_METHOD_TEMPLATE = "\n" +
@@ -200,14 +369,17 @@ public class DefaultLiteralSourceCompiler  {
         final C source;
         final String methodName;
         final String handleName;
-        final String className;
         private final String replaced;
         private final StringJoiner methodArgs;
         private final StringJoiner argCasts;
         private final LhsField.Array<String, TypeField> resolvedFields;
+        private final ArgumentRelation[] relations;
+        private final Object equalityConstant;
+        private final Class<?>[] argTypes;
+        // The condition's interpreted form, or null if the condition must be compiled
+        private final ConditionInterpreter.Node interpreted;
 
-        public ConditionSource(Rule rule, String name, String className, C source, boolean stripWhitespaces) {
-            this.className = className;
+        public ConditionSource(Rule rule, String name, C source, boolean stripWhitespaces, boolean interpret) {
             this.source = source;
             this.methodName = name;
             this.handleName = name.toUpperCase() + "_HANDLE";
@@ -223,6 +395,7 @@ public class DefaultLiteralSourceCompiler  {
             int castVarIndex = 0;
             this.argCasts = new StringJoiner(", ");
             this.methodArgs = new StringJoiner(", ");
+            Map<String, Integer> argIndices = new HashMap<>();
             for (ConditionStringTerm term : terms) {
                 String original = encodedExpression.substring(term.start + accumulatedShift, term.end + accumulatedShift);
                 String javaArgVar = term.varName;
@@ -249,6 +422,7 @@ public class DefaultLiteralSourceCompiler  {
                     //argTypes.add(term.type().getType().getName() + "/" + term.field().getName());
                     argCasts.add("(" + canonicalFieldType + ") values.apply(" + castVarIndex + ")");
                     methodArgs.add(canonicalFieldType + " " + javaArgVar);
+                    argIndices.put(javaArgVar, castVarIndex);
                     castVarIndex++;
                     // Mark as processed
                     uniqueReferences.add(ref);
@@ -257,6 +431,28 @@ public class DefaultLiteralSourceCompiler  {
 
             this.replaced = encoder.unwrapLiterals(encodedExpression);
             this.resolvedFields = new LhsField.Array<>(descriptorBuilder);
+            this.argTypes = new Class<?>[descriptorBuilder.size()];
+            for (int i = 0; i < argTypes.length; i++) {
+                this.argTypes[i] = descriptorBuilder.get(i).field().getValueType();
+            }
+            this.interpreted = interpret ? ConditionInterpreter.parse(encodedExpression, argIndices, argTypes) : null;
+            this.relations = ConditionRelations.resolve(
+                    encoder.getEncoded().value,
+                    ref -> {
+                        int idx = uniqueReferences.indexOf(ref);
+                        return idx < 0 ? null : idx;
+                    },
+                    argIndex -> descriptorBuilder.get(argIndex).field().getValueType()
+            );
+            this.equalityConstant = ConditionRelations.equalityConstant(
+                    encoder.getEncoded().value,
+                    encoder.getConstantMap(),
+                    ref -> {
+                        int idx = uniqueReferences.indexOf(ref);
+                        return idx < 0 ? null : idx;
+                    },
+                    argIndex -> descriptorBuilder.get(argIndex).field().getValueType()
+            );
         }
 
         void appendDeclaration(StringBuilder target) {
@@ -272,7 +468,7 @@ public class DefaultLiteralSourceCompiler  {
         }
 
         void appendDefinition(StringBuilder target) {
-            target.append(String.format(DEFINITION_TEMPLATE, handleName, className, methodName, IntToValue.class.getName() + ".class"));
+            target.append(String.format(DEFINITION_TEMPLATE, handleName, methodName, IntToValue.class.getName() + ".class"));
         }
     }
 
@@ -293,15 +489,6 @@ public class DefaultLiteralSourceCompiler  {
             }
         }
 
-        void appendClassVar(StringBuilder target) {
-            target
-                    .append(TAB)
-                    .append("public static final " + RHS_CLASS_NAME + " ")
-                    .append(RHS_INSTANCE_VAR + " = new " + RHS_CLASS_NAME + "();")
-                    .append("\n")
-            ;
-        }
-
         void appendClassBody(StringBuilder target) {
             target
                     .append("\n")
@@ -389,7 +576,11 @@ public class DefaultLiteralSourceCompiler  {
                     throw new IllegalStateException("Condition not found or not compiled");
                 } else {
                     assert compiled.source.equals(condition);
-                    this.conditions.add(new CompiledPredicateImpl<>(compiled, ruleClass));
+                    if (compiled.interpreted == null) {
+                        this.conditions.add(new CompiledPredicateImpl<>(compiled, ruleClass));
+                    } else {
+                        this.conditions.add(new InterpretedPredicateImpl<>(compiled));
+                    }
                 }
             }
 
@@ -401,12 +592,15 @@ public class DefaultLiteralSourceCompiler  {
             }
         }
 
+        // Rules with identical sources share the same class, and RHS instances are stateful,
+        // so each rule gets an instance of its own
         @SuppressWarnings("unchecked")
         private static Consumer<RhsContext> fromClass(Class<?> ruleClass) {
             try {
-                return (Consumer<RhsContext>) ruleClass.getDeclaredField(RHS_INSTANCE_VAR).get(null);
-            } catch (IllegalAccessException | NoSuchFieldException e) {
-                throw new IllegalStateException("RHS source provided but not compiled");
+                Class<?> rhsClass = Class.forName(ruleClass.getName() + "$" + RHS_CLASS_NAME, true, ruleClass.getClassLoader());
+                return (Consumer<RhsContext>) rhsClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("RHS source provided but not compiled", e);
             }
         }
 
@@ -439,7 +633,7 @@ public class DefaultLiteralSourceCompiler  {
         public CompiledPredicateImpl(ConditionSource<C> compiled, Class<?> ruleClass) {
             this.compiled = compiled;
             C source = compiled.source;
-            this.delegate = new PredicateImpl<>(getHandle(ruleClass, compiled.handleName), compiled.resolvedFields, source);
+            this.delegate = new PredicateImpl<>(getHandle(ruleClass, compiled.handleName), ruleClass, compiled, source);
         }
 
 
@@ -471,24 +665,59 @@ public class DefaultLiteralSourceCompiler  {
             }
         }
 
-        static class PredicateImpl<C extends LiteralPredicate> implements ValuesPredicate {
+        static class PredicateImpl<C extends LiteralPredicate> implements IndexablePredicate, StaticMethodPredicate {
             private final MethodHandle handle;
+            private final Class<?> ruleClass;
+            private final String innerMethodName;
+            private final Class<?>[] argTypes;
             private final LhsField.Array<String, TypeField> resolvedFields;
             private final C source;
+            private final ArgumentRelation[] relations;
+            private final Object equalityConstant;
 
-            PredicateImpl(MethodHandle handle, LhsField.Array<String, TypeField> resolvedFields, C source) {
+            PredicateImpl(MethodHandle handle, Class<?> ruleClass, ConditionSource<C> compiled, C source) {
                 this.handle = handle;
-                this.resolvedFields = resolvedFields;
+                this.ruleClass = ruleClass;
+                this.innerMethodName = compiled.methodName + "Inner";
+                this.argTypes = compiled.argTypes;
+                this.resolvedFields = compiled.resolvedFields;
                 this.source = source;
+                this.relations = compiled.relations;
+                this.equalityConstant = compiled.equalityConstant;
+            }
+
+            @Override
+            public Class<?> getDeclaringClass() {
+                return ruleClass;
+            }
+
+            @Override
+            public String getMethodName() {
+                return innerMethodName;
+            }
+
+            @Override
+            public Class<?>[] getParameterTypes() {
+                return argTypes;
+            }
+
+            @Override
+            public ArgumentRelation[] getRelations() {
+                return relations;
+            }
+
+            @Override
+            public Object getEqualityConstant() {
+                return equalityConstant;
             }
 
             // Two conditions are considered equal if they have the same Java source and the same signature
-            private static boolean sameCondition(PredicateImpl<?> p1, PredicateImpl<?> p2) {
-                if(Objects.equals(p1.source.getSource(), p2.source.getSource())) {
-                    if(p1.resolvedFields.length() == p2.resolvedFields.length()) {
-                        for(int i = 0; i < p1.resolvedFields.length(); i++) {
-                            TypeField f1 = p1.resolvedFields.get(i).field();
-                            TypeField f2 = p2.resolvedFields.get(i).field();
+            static boolean sameCondition(LiteralPredicate source1, LhsField.Array<String, TypeField> fields1, LiteralPredicate source2, LhsField.Array<String, TypeField> fields2) {
+                if(Objects.equals(source1.getSource(), source2.getSource())) {
+                    if(fields1.length() == fields2.length()) {
+                        for(int i = 0; i < fields1.length(); i++) {
+                            TypeField f1 = fields1.get(i).field();
+                            TypeField f2 = fields2.get(i).field();
                             String name1 = f1.getName();
                             String name2 = f2.getName();
                             Class<?> valueType1 = f1.getValueType();
@@ -519,7 +748,7 @@ public class DefaultLiteralSourceCompiler  {
                 if (this == o) return true;
                 if (o == null || getClass() != o.getClass()) return false;
                 PredicateImpl<?> predicate = (PredicateImpl<?>) o;
-                return sameCondition(this, predicate);
+                return sameCondition(source, resolvedFields, predicate.source, predicate.resolvedFields);
             }
 
             @Override
@@ -537,13 +766,105 @@ public class DefaultLiteralSourceCompiler  {
                 try {
                     return (boolean) handle.invokeExact(values);
                 } catch (Throwable t) {
-                    Object[] args = new Object[resolvedFields.length()];
-                    for (int i = 0; i < args.length; i++) {
-                        args[i] = values.apply(i);
-                    }
-                    throw new IllegalStateException("Evaluation exception at " + source + ", fields: " + resolvedFields + ", post-exception values:" + Arrays.toString(args), t);
+                    throw evaluationException(source, resolvedFields, values, t);
+                }
+            }
+        }
+
+        static IllegalStateException evaluationException(LiteralPredicate source, LhsField.Array<String, TypeField> resolvedFields, IntToValue values, Throwable t) {
+            Object[] args = new Object[resolvedFields.length()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = values.apply(i);
+            }
+            return new IllegalStateException("Evaluation exception at " + source + ", fields: " + resolvedFields + ", post-exception values:" + Arrays.toString(args), t);
+        }
+    }
+
+    /**
+     * A condition that is evaluated by walking its expression tree rather than by a compiled method.
+     *
+     * @see ConditionInterpreter
+     */
+    private static class InterpretedPredicateImpl<C extends LiteralPredicate> implements CompiledPredicate<C> {
+        private final ConditionSource<C> compiled;
+        private final PredicateImpl<C> delegate;
+
+        InterpretedPredicateImpl(ConditionSource<C> compiled) {
+            this.compiled = compiled;
+            this.delegate = new PredicateImpl<>(compiled);
+        }
+
+        @Override
+        public LhsField.Array<String, TypeField> resolvedFields() {
+            return compiled.resolvedFields;
+        }
+
+        @Override
+        public ValuesPredicate getPredicate() {
+            return delegate;
+        }
+
+        @Override
+        public C getSource() {
+            return compiled.source;
+        }
+
+        @Override
+        public String toString() {
+            return getSource().toString();
+        }
+
+        static class PredicateImpl<C extends LiteralPredicate> implements IndexablePredicate {
+            private final ConditionInterpreter.Node expression;
+            private final LhsField.Array<String, TypeField> resolvedFields;
+            private final C source;
+            private final ArgumentRelation[] relations;
+            private final Object equalityConstant;
+
+            PredicateImpl(ConditionSource<C> compiled) {
+                this.expression = compiled.interpreted;
+                this.resolvedFields = compiled.resolvedFields;
+                this.source = compiled.source;
+                this.relations = compiled.relations;
+                this.equalityConstant = compiled.equalityConstant;
+            }
+
+            @Override
+            public ArgumentRelation[] getRelations() {
+                return relations;
+            }
+
+            @Override
+            public Object getEqualityConstant() {
+                return equalityConstant;
+            }
+
+            @Override
+            public boolean test(IntToValue values) {
+                try {
+                    return expression.booleanValue(values);
+                } catch (RuntimeException e) {
+                    throw CompiledPredicateImpl.evaluationException(source, resolvedFields, values, e);
                 }
             }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (o == null || getClass() != o.getClass()) return false;
+                PredicateImpl<?> predicate = (PredicateImpl<?>) o;
+                return CompiledPredicateImpl.PredicateImpl.sameCondition(source, resolvedFields, predicate.source, predicate.resolvedFields);
+            }
+
+            @Override
+            public int hashCode() {
+                return source.getSource().hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return source.toString();
+            }
         }
     }
 }
@@ -0,0 +1,200 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.Configuration;
+import org.evrete.api.spi.*;
+import org.evrete.runtime.evaluation.StaticMethodPredicate;
+import org.evrete.util.CompilationException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
+
+/**
+ * Generates and compiles {@link FusedEvaluator} and {@link AlphaMaskEvaluator} classes. A generated class
+ * evaluates the provided predicates in sequence, reading each argument from the facts' field values and
+ * casting it to the respective parameter type of the predicate's static method.
+ * The generated sources refer to the exported types of the {@link org.evrete.api.spi} package only,
+ * so that they can be loaded when the engine runs as a named module. Class names are derived from
+ * the sources, which makes the classes eligible for the compiler's cache.
+ */
+public final class FusedEvaluatorCompiler {
+
+    private FusedEvaluatorCompiler() {
+    }
+
+    /**
+     * Compiles a new evaluator.
+     *
+     * @param provider      the source compiler provider
+     * @param configuration configuration of the requesting context
+     * @param calls         predicates and their arguments' locations
+     * @return new evaluator
+     * @throws CompilationException     if the generated source fails to compile
+     * @throws IllegalArgumentException if the predicates can not be called from the same class
+     */
+    public static FusedEvaluator compile(SourceCompilerProvider provider, Configuration configuration, List<Call> calls) throws CompilationException {
+        return compile(provider, configuration, calls, FusedEvaluator.class, betaSource(calls));
+    }
+
+    /**
+     * Compiles a new alpha evaluator. All the calls must refer to the same fact, position <code>0</code>.
+     *
+     * @param provider      the source compiler provider
+     * @param configuration configuration of the requesting context
+     * @param calls         predicates and their arguments' locations
+     * @param bits          mask bit to set for each of the calls
+     * @return new evaluator
+     * @throws CompilationException     if the generated source fails to compile
+     * @throws IllegalArgumentException if the predicates can not be called from the same class
+     */
+    public static AlphaMaskEvaluator compileAlpha(SourceCompilerProvider provider, Configuration configuration, List<Call> calls, int[] bits) throws CompilationException {
+        return compile(provider, configuration, calls, AlphaMaskEvaluator.class, alphaSource(calls, bits));
+    }
+
+    static SourceCompiler.ClassSource betaSource(List<Call> calls) {
+        return new EvaluatorSource(FusedEvaluator.class, betaMethod(calls));
+    }
+
+    static SourceCompiler.ClassSource alphaSource(List<Call> calls, int[] bits) {
+        if (calls.size() != bits.length) {
+            throw new IllegalArgumentException("Each call must have its mask bit");
+        }
+        return new EvaluatorSource(AlphaMaskEvaluator.class, alphaMethod(calls, bits));
+    }
+
+    private static <T> T compile(SourceCompilerProvider provider, Configuration configuration, List<Call> calls, Class<T> type, SourceCompiler.ClassSource source) throws CompilationException {
+        if (calls.isEmpty()) {
+            throw new IllegalArgumentException("No predicates provided");
+        }
+        ClassLoader classLoader = calls.get(0).predicate.getDeclaringClass().getClassLoader();
+        for (Call call : calls) {
+            Class<?> declaringClass = call.predicate.getDeclaringClass();
+            if (!isVisible(classLoader, declaringClass)) {
+                throw new IllegalArgumentException("Class " + declaringClass + " is not visible from " + classLoader);
+            }
+        }
+
+        SourceCompiler compiler = provider.instance(configuration, classLoader);
+        Collection<SourceCompiler.Result<SourceCompiler.ClassSource>> result = compiler.compile(Collections.singletonList(source));
+        Class<?> compiled = result.iterator().next().getCompiledClass();
+        try {
+            return type.cast(compiled.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to instantiate " + compiled, e);
+        }
+    }
+
+    private static boolean isVisible(ClassLoader classLoader, Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, classLoader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String canonicalName(Class<?> type) {
+        String name = type.getCanonicalName();
+        if (name == null) {
+            throw new IllegalArgumentException("Type " + type + " has no canonical name");
+        } else {
+            return name;
+        }
+    }
+
+    /**
+     * A predicate call. Argument <code>i</code> of the predicate is the field <code>fields[i]</code> of the
+     * fact at <code>positions[i]</code>.
+     */
+    public static final class Call {
+        private final StaticMethodPredicate predicate;
+        private final int[] positions;
+        private final int[] fields;
+
+        public Call(StaticMethodPredicate predicate, int[] positions, int[] fields) {
+            if (positions.length != fields.length || positions.length != predicate.getParameterTypes().length) {
+                throw new IllegalArgumentException("Argument count mismatch for " + predicate);
+            }
+            this.predicate = predicate;
+            this.positions = positions;
+            this.fields = fields;
+        }
+
+        void appendTo(StringBuilder target, IntFunction<String> factValues) {
+            Class<?>[] parameterTypes = predicate.getParameterTypes();
+            StringJoiner args = new StringJoiner(", ");
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> parameterType = parameterTypes[i];
+                String values = factValues.apply(positions[i]);
+                if (parameterType.isPrimitive()) {
+                    // Typed accessors read primitive values without boxing
+                    args.add(values + "." + parameterType.getName() + "At(" + fields[i] + ")");
+                } else {
+                    args.add("(" + canonicalName(parameterType) + ") " + values + ".valueAt(" + fields[i] + ")");
+                }
+            }
+            target
+                    .append(canonicalName(predicate.getDeclaringClass()))
+                    .append('.')
+                    .append(predicate.getMethodName())
+                    .append('(')
+                    .append(args)
+                    .append(')');
+        }
+    }
+
+    private static String betaMethod(List<Call> calls) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("  public boolean test(").append(FieldValues.class.getName()).append("[] values) {\n");
+        sb.append("    return ");
+        for (int i = 0; i < calls.size(); i++) {
+            if (i > 0) {
+                sb.append("\n        && ");
+            }
+            calls.get(i).appendTo(sb, position -> "values[" + position + "]");
+        }
+        sb.append(";\n");
+        sb.append("  }\n");
+        return sb.toString();
+    }
+
+    private static String alphaMethod(List<Call> calls, int[] bits) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("  public void evaluate(").append(FieldValues.class.getName()).append(" values, long[] destination) {\n");
+        for (int i = 0; i < calls.size(); i++) {
+            sb.append("    if (");
+            calls.get(i).appendTo(sb, position -> "values");
+            sb.append(") {\n");
+            sb.append("      destination[").append(bits[i] >>> 6).append("] |= 1L << ").append(bits[i] & 63).append(";\n");
+            sb.append("    }\n");
+        }
+        sb.append("  }\n");
+        return sb.toString();
+    }
+
+    private static class EvaluatorSource implements SourceCompiler.ClassSource {
+        private final String className;
+        private final String javaSource;
+
+        EvaluatorSource(Class<?> evaluatorType, String method) {
+            String simpleName = evaluatorType.getSimpleName() + DefaultLiteralSourceCompiler.classNameHash(DefaultLiteralSourceCompiler.CLASS_PACKAGE, evaluatorType.getName(), method);
+            this.className = DefaultLiteralSourceCompiler.CLASS_PACKAGE + "." + simpleName;
+            this.javaSource = "package " + DefaultLiteralSourceCompiler.CLASS_PACKAGE + ";\n\n" +
+                    "public final class " + simpleName + " implements " + evaluatorType.getName() + " {\n\n" +
+                    "  @Override\n" +
+                    method +
+                    "}\n";
+        }
+
+        @Override
+        public String binaryName() {
+            return className;
+        }
+
+        @Override
+        public String getSource() {
+            return javaSource;
+        }
+    }
+}
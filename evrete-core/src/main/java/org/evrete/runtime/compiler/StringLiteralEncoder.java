@@ -66,7 +66,6 @@ final class StringLiteralEncoder {
         return new StringLiteralEncoder(s, new Encoded(current), stringConstantMap);
     }
 
-    @SuppressWarnings("unused")
     public Map<String, String> getConstantMap() {
         return stringConstantMap;
     }
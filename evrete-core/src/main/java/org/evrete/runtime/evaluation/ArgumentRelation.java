@@ -0,0 +1,73 @@
+package org.evrete.runtime.evaluation;
+
+/**
+ * Describes a relation between two arguments of a {@link IndexablePredicate}. Argument positions
+ * refer to the indices under which the predicate reads its values via
+ * {@link org.evrete.api.IntToValue#get(int)}.
+ */
+public final class ArgumentRelation {
+    public static final ArgumentRelation[] EMPTY_ARRAY = new ArgumentRelation[0];
+    public final int left;
+    public final int right;
+    public final Operator operator;
+
+    public ArgumentRelation(int left, int right, Operator operator) {
+        if (left < 0 || right < 0) {
+            throw new IllegalArgumentException("Argument positions must be non-negative: " + left + ", " + right);
+        } else {
+            this.left = left;
+            this.right = right;
+            this.operator = operator;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "left=" + left +
+                ", " + operator +
+                ", right=" + right +
+                '}';
+    }
+
+    public enum Operator {
+        /**
+         * The values must be equal in terms of {@link Object#equals(Object)}
+         */
+        EQUALS,
+        /**
+         * The left value must be less than the right one in terms of {@link Comparable#compareTo(Object)}
+         */
+        LESS,
+        /**
+         * The left value must be less than or equal to the right one in terms of {@link Comparable#compareTo(Object)}
+         */
+        LESS_OR_EQUAL,
+        /**
+         * The left value must be greater than the right one in terms of {@link Comparable#compareTo(Object)}
+         */
+        GREATER,
+        /**
+         * The left value must be greater than or equal to the right one in terms of {@link Comparable#compareTo(Object)}
+         */
+        GREATER_OR_EQUAL;
+
+        /**
+         * @return the operator that describes the same relation with the arguments swapped
+         */
+        public Operator swapped() {
+            switch (this) {
+                case LESS:
+                    return GREATER;
+                case LESS_OR_EQUAL:
+                    return GREATER_OR_EQUAL;
+                case GREATER:
+                    return LESS;
+                case GREATER_OR_EQUAL:
+                    return LESS_OR_EQUAL;
+                default:
+                    return this;
+            }
+        }
+    }
+}
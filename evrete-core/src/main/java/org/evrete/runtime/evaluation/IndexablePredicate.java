@@ -0,0 +1,26 @@
+package org.evrete.runtime.evaluation;
+
+import org.evrete.api.ValuesPredicate;
+
+/**
+ * A {@link ValuesPredicate} that is able to describe relations between its arguments. Each of the
+ * returned relations must hold for the predicate to return <code>true</code>, so the engine
+ * can use them to index Rete memories and skip combinations that can never match. The predicate
+ * itself is still evaluated on every candidate combination.
+ */
+public interface IndexablePredicate extends ValuesPredicate {
+
+    /**
+     * @return relations between the predicate's arguments, possibly an empty array
+     */
+    ArgumentRelation[] getRelations();
+
+    /**
+     * Returns the constant that the predicate's only argument is compared with if the predicate is
+     * equivalent to <code>constant.equals(argument)</code> for every non-null argument. Such conditions
+     * can be evaluated by hash lookups instead of predicate calls.
+     *
+     * @return the constant or <code>null</code> if the predicate is not a constant equality
+     */
+    Object getEqualityConstant();
+}
@@ -0,0 +1,28 @@
+package org.evrete.runtime.evaluation;
+
+import org.evrete.api.ValuesPredicate;
+
+/**
+ * A {@link ValuesPredicate} backed by a public static method with typed parameters, one per predicate argument.
+ * Generated code can call the method directly instead of passing the arguments through
+ * an {@link org.evrete.api.IntToValue} instance.
+ *
+ * @see org.evrete.api.spi.FusedEvaluator
+ */
+public interface StaticMethodPredicate extends ValuesPredicate {
+
+    /**
+     * @return the class that declares the predicate's method
+     */
+    Class<?> getDeclaringClass();
+
+    /**
+     * @return the name of the predicate's method
+     */
+    String getMethodName();
+
+    /**
+     * @return the method's parameter types in the order of the predicate's arguments
+     */
+    Class<?>[] getParameterTypes();
+}
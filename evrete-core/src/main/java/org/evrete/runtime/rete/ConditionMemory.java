@@ -1,51 +1,117 @@
 package org.evrete.runtime.rete;
 
 import org.evrete.api.ReteMemory;
-import org.evrete.api.annotations.NonNull;
 import org.evrete.api.spi.MemoryScope;
-import org.evrete.runtime.PreHashed;
-
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.function.Predicate;
 
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * <p>
+ * Beta memory of a condition node. Entries are tuples of field values identifiers
+ * (see {@link org.evrete.api.spi.ValueIndexer}) and are kept in packed form,
+ * see {@link HashedCollection}.
+ * </p>
+ * <p>
+ * Entries don't retain the identifiers they contain. An identifier is released only when a fact
+ * leaves its type memory, and the same delete removes every entry with that identifier
+ * (see {@link #deleteAll(Map)}) before the values are reclaimed at the end of the fire cycle.
+ * </p>
+ */
 public class ConditionMemory implements ReteMemory<ConditionMemory.MemoryEntry> {
-    private final HashedCollection main = new HashedCollection();
-    private final HashedCollection delta = new HashedCollection();
+    private final int width;
+    private final HashedCollection main;
+    private final HashedCollection delta;
+    // Indexes of memory entries' handles, created on demand by the node's parent
+    private final Map<IndexedFields, MemoryIndex> indexes = new HashMap<>();
 
-    void deleteAll(Predicate<MemoryEntry> predicate) {
-        this.main.delete(predicate);
-        this.delta.delete(predicate);
+    /**
+     * @param width the number of value ids in each of the memory's entries
+     */
+    ConditionMemory(int width) {
+        this.width = width;
+        this.main = new HashedCollection(width);
+        this.delta = new HashedCollection(width);
     }
 
-    void saveNewEntry(MemoryScope destination, MemoryEntry entry) {
-        if (destination == MemoryScope.DELTA) {
-            delta.add(entry);
-        } else if (destination == MemoryScope.MAIN) {
-            main.add(entry);
-        } else {
-            throw new IllegalArgumentException("Unknown scope: " + destination);
+    /**
+     * Deletes all the entries that contain the provided value ids.
+     *
+     * @param valueIdsByPosition the value ids to delete, grouped by their position inside memory entries
+     */
+    void deleteAll(Map<Integer, ? extends Collection<Long>> valueIdsByPosition) {
+        for (Map.Entry<Integer, ? extends Collection<Long>> e : valueIdsByPosition.entrySet()) {
+            int position = e.getKey();
+            this.main.delete(position, e.getValue(), handle -> removeFromIndexes(MemoryScope.MAIN, handle));
+            this.delta.delete(position, e.getValue(), handle -> removeFromIndexes(MemoryScope.DELTA, handle));
         }
     }
 
-    public int size(MemoryScope scope) {
-        if (scope == MemoryScope.DELTA) {
-            return delta.size();
-        } else if (scope == MemoryScope.MAIN) {
-            return main.size();
-        } else {
-            throw new IllegalArgumentException("Unknown scope: " + scope);
+    /**
+     * Saves a new entry. The provided arrays are copied and can be reused by the caller.
+     *
+     * @param destination the memory scope to save the entry to
+     * @param valueIds    the entry's value ids
+     * @param scopes      the scopes of the value ids
+     */
+    void saveNewEntry(MemoryScope destination, long[] valueIds, MemoryScope[] scopes) {
+        int handle = data(destination).add(valueIds, scopes);
+        if (handle >= 0) {
+            for (MemoryIndex index : indexes.values()) {
+                index.add(destination, handle);
+            }
+        }
+    }
+
+    /**
+     * Returns an existing index of the memory or creates a new one. New indexes are populated
+     * with the memory's current data and are kept in sync with the memory afterward.
+     *
+     * @param fields      the index key definition
+     * @param keyFunction the function that computes index keys from memory entries
+     * @return indexed view of the memory
+     */
+    synchronized ReteSessionNode.IndexedMemory getCreateIndex(IndexedFields fields, BiFunction<MemoryScope, MemoryEntry, Object> keyFunction) {
+        MemoryIndex index = indexes.computeIfAbsent(fields, k -> {
+            MemoryIndex newIndex = fields.newIndex(new HandleKeyFunction(keyFunction));
+            for (MemoryScope scope : MemoryScope.values()) {
+                data(scope).forEachHandle(handle -> newIndex.add(scope, handle));
+            }
+            return newIndex;
+        });
+        return (scope, lookup) -> data(scope).iterator(index.iterator(scope, lookup));
+    }
+
+    private void removeFromIndexes(MemoryScope scope, int handle) {
+        for (MemoryIndex index : indexes.values()) {
+            index.remove(scope, handle);
         }
     }
 
+    public int size(MemoryScope scope) {
+        return data(scope).size();
+    }
+
     @Override
     public void commit() {
-        Iterator<MemoryEntry> iterator = delta.iterator();
-        while (iterator.hasNext()) {
-            MemoryEntry entry = iterator.next();
-            main.add(entry.toMainScope());
-            iterator.remove();
+        long[] valueIds = new long[width];
+        MemoryScope[] scopes = new MemoryScope[width];
+        Arrays.fill(scopes, MemoryScope.MAIN);
+        delta.forEachHandle(deltaHandle -> {
+            for (int i = 0; i < width; i++) {
+                valueIds[i] = delta.valueId(deltaHandle, i);
+            }
+            int handle = main.add(valueIds, scopes);
+            if (handle >= 0) {
+                for (MemoryIndex index : indexes.values()) {
+                    index.add(MemoryScope.MAIN, handle);
+                }
+            }
+        });
+        delta.reset();
+        main.compact();
+        for (MemoryIndex index : indexes.values()) {
+            index.clearDelta();
         }
     }
 
@@ -53,10 +119,16 @@ public class ConditionMemory implements ReteMemory<ConditionMemory.MemoryEntry>
     public void clear() {
         this.main.reset();
         this.delta.reset();
+        for (MemoryIndex index : indexes.values()) {
+            index.clear();
+        }
     }
 
     void clearDeltaMemory() {
         this.delta.reset();
+        for (MemoryIndex index : indexes.values()) {
+            index.clearDelta();
+        }
     }
 
     @Override
@@ -67,145 +139,99 @@ public class ConditionMemory implements ReteMemory<ConditionMemory.MemoryEntry>
                 '}';
     }
 
+    /**
+     * Returns an iterator over the memory's entries. To avoid allocations, the iterator
+     * reuses the same {@link MemoryEntry} instance, so the returned entries are only valid until
+     * the next call of the iterator's <code>next()</code> method.
+     *
+     * @param scope the memory scope
+     * @return an iterator over memory entries
+     */
     public Iterator<MemoryEntry> iterator(MemoryScope scope) {
+        return data(scope).iterator();
+    }
+
+    private HashedCollection data(MemoryScope scope) {
         switch (scope) {
             case DELTA:
-                return delta.iterator();
+                return delta;
             case MAIN:
-                return main.iterator();
+                return main;
             default:
                 throw new IllegalStateException("Unknown scope " + scope);
         }
     }
 
     /**
-     * A wrapper for an array of {@link ConditionMemory.ScopedValueId} values.
+     * A view of a tuple of field values identifiers (see {@link org.evrete.api.spi.ValueIndexer})
+     * and their scopes.
      */
-    public static final class MemoryEntry extends PreHashed {
-        private final ScopedValueId[] scopedValueIds;
+    public abstract static class MemoryEntry {
 
-        public MemoryEntry(ScopedValueId[] scopedValueIds) {
-            super(hashOf(scopedValueIds));
-            this.scopedValueIds = scopedValueIds;
-        }
+        public abstract int size();
 
-        private MemoryEntry(ScopedValueId single) {
-            this(new ScopedValueId[]{single});
-        }
+        public abstract long valueId(int position);
 
-        private static int hashOf(ScopedValueId[] scopedValueIds) {
-            int hash = 0;
-            for (ScopedValueId single : scopedValueIds) {
-                hash += hash * 31 + single.hashCode();
-            }
-            return hash;
-        }
+        public abstract MemoryScope scope(int position);
 
-        ScopedValueId[] scopedValues() {
-            return scopedValueIds;
+        static MemoryEntry fromEntryNode(long valueId, MemoryScope scope) {
+            return new SingleValueEntry(valueId, scope);
         }
 
-        MemoryEntry toMainScope() {
-            ScopedValueId[] newKeys = new ScopedValueId[scopedValueIds.length];
-            for (int i = 0; i < scopedValueIds.length; i++) {
-                newKeys[i] = scopedValueIds[i].toScope(MemoryScope.MAIN);
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (int i = 0; i < size(); i++) {
+                joiner.add(scope(i) + ":" + valueId(i));
             }
-            return new MemoryEntry(newKeys);
-        }
-
-        static MemoryEntry fromEntryNode(long values, MemoryScope scope) {
-            return new MemoryEntry(new ScopedValueId(values, scope));
+            return joiner.toString();
         }
-
-        public ScopedValueId[] getScopedValueIds() {
-            return scopedValueIds;
-        }
-
     }
 
-    /**
-     * A simple and memory efficient wrapper for field values identifiers (see {@link org.evrete.api.spi.ValueIndexer})
-     */
-    public static class ScopedValueId {
+    private static final class SingleValueEntry extends MemoryEntry {
         private final long valueId;
-        private final byte scope;
-
-        public ScopedValueId(long valueId, MemoryScope scope) {
-            this(valueId, toByte(scope));
-        }
+        private final MemoryScope scope;
 
-        private ScopedValueId(long valueId, byte scope) {
+        SingleValueEntry(long valueId, MemoryScope scope) {
             this.valueId = valueId;
             this.scope = scope;
         }
 
-        public MemoryScope getScope() {
-            return fromByte(scope);
-        }
-
-        public ScopedValueId toScope(MemoryScope scope) {
-            byte b;
-            if (this.scope == (b = toByte(scope))) {
-                return this;
-            } else {
-                return new ScopedValueId(valueId, b);
-            }
-        }
-
-        public long getValueId() {
-            return valueId;
-        }
-
         @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            ScopedValueId that = (ScopedValueId) o;
-            return valueId == that.valueId && scope == that.scope;
+        public int size() {
+            return 1;
         }
 
         @Override
-        public int hashCode() {
-            return (int) valueId;
-        }
-
-        static byte toByte(MemoryScope scope) {
-            return (byte) (scope == MemoryScope.MAIN ? 0 : 1);
+        public long valueId(int position) {
+            return valueId;
         }
 
-        static MemoryScope fromByte(byte b) {
-            return b == 0 ? MemoryScope.MAIN : MemoryScope.DELTA;
+        @Override
+        public MemoryScope scope(int position) {
+            return scope;
         }
     }
 
-    public static class DeletePredicate implements Predicate<ConditionMemory.MemoryEntry> {
-        private final int index;
-        private final Set<Long> valuesToDelete;
-
-        DeletePredicate(int index, Set<Long> valuesToDelete) {
-            this.index = index;
-            this.valuesToDelete = valuesToDelete;
+    /**
+     * Converts entry handles into index keys
+     */
+    private class HandleKeyFunction implements MemoryIndex.KeyFunction {
+        private final BiFunction<MemoryScope, MemoryEntry, Object> delegate;
+        private final Map<MemoryScope, HashedCollection.Entry> entries = new EnumMap<>(MemoryScope.class);
+
+        HandleKeyFunction(BiFunction<MemoryScope, MemoryEntry, Object> delegate) {
+            this.delegate = delegate;
+            for (MemoryScope scope : MemoryScope.values()) {
+                entries.put(scope, data(scope).newEntry());
+            }
         }
 
         @Override
-        public boolean test(ConditionMemory.MemoryEntry memoryEntry) {
-            ConditionMemory.ScopedValueId v = memoryEntry.getScopedValueIds()[index];
-            return valuesToDelete.contains(v.getValueId());
-        }
-
-        @NonNull
-        public static Predicate<ConditionMemory.MemoryEntry> ofMultipleOR(@NonNull Collection<DeletePredicate> predicates) {
-            Iterator<DeletePredicate> iterator = predicates.iterator();
-            if (iterator.hasNext()) {
-                Predicate<ConditionMemory.MemoryEntry> predicate = iterator.next();
-                while (iterator.hasNext()) {
-                    predicate = predicate.or(iterator.next());
-                }
-                return predicate;
-            } else {
-                return memoryEntry -> false;
-            }
+        public Object apply(MemoryScope scope, long handle) {
+            HashedCollection.Entry entry = entries.get(scope);
+            entry.handle = (int) handle;
+            return delegate.apply(scope, entry);
         }
     }
-
 }
@@ -0,0 +1,54 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.api.spi.MemoryScope;
+import org.evrete.runtime.PreHashed;
+
+import java.util.*;
+
+/**
+ * A hash index over elements of a {@link org.evrete.api.ReteMemory}, used to join memories
+ * on equal field values.
+ */
+public class HashIndex extends MemoryIndex {
+    private static final PrimitiveIterator.OfLong EMPTY = new LongSet().iterator();
+
+    public HashIndex(KeyFunction keyFunction) {
+        super(keyFunction);
+    }
+
+    @Override
+    Map<Object, LongSet> newData() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator(MemoryScope scope, Object key) {
+        LongSet elements = data(scope).get(key);
+        return elements == null ? EMPTY : elements.iterator();
+    }
+
+    /**
+     * Key of a multi-field index
+     */
+    static final class CompositeKey extends PreHashed {
+        private final Object[] values;
+
+        CompositeKey(Object[] values) {
+            super(Arrays.hashCode(values));
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CompositeKey that = (CompositeKey) o;
+            return Arrays.equals(values, that.values);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+}
@@ -1,33 +1,530 @@
 package org.evrete.runtime.rete;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.function.Predicate;
+import org.evrete.api.spi.MemoryScope;
 
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>
+ * A packed set of fixed-width tuples of value ids. Tuples are stored in a flat <code>long[]</code> array
+ * and are addressed by <code>int</code> handles that remain stable for the tuple's lifetime, while
+ * the scopes of the tuple's value ids are kept as bits in a separate array. Uniqueness of tuples is
+ * maintained by an open-addressing hash table of handles.
+ * </p>
+ * <p>
+ * The collection also keeps a reverse index that maps value ids at each of the tuples' positions
+ * to the handles of the tuples that contain them. The reverse index allows deletes to touch only
+ * the affected tuples. Like the tuples themselves, the index is made of primitive arrays: per position,
+ * a hash table maps value ids to the first tuple handle, and the tuples sharing a value id are chained
+ * through arrays of handles.
+ * </p>
+ */
 class HashedCollection {
-    private Set<ConditionMemory.MemoryEntry> data = new HashSet<>();
+    // The minimum size after which the collection will be compacted
+    private static final int COMPACTION_THRESHOLD = 64;
+    private static final int INITIAL_CAPACITY = 16;
+    // Hash table markers, occupied slots contain handle + 1
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+
+    private final int width;
+    private final int scopeWords;
+    private final ValueIdIndex[] byValueId;
+    private final long[] scopeBuffer;
+    private long[] values;
+    private long[] scopeBits;
+    private int[] table;
+    private int[] freeHandles;
+    private BitSet liveHandles;
+    private int freeCount;
+    private int handleLimit;
+    private int size;
+    private int removedSlots;
+    private int peakSize;
+
+    HashedCollection(int width) {
+        this.width = width;
+        this.scopeWords = (width + 63) >>> 6;
+        this.scopeBuffer = new long[scopeWords];
+        this.byValueId = new ValueIdIndex[width];
+        this.reset();
+    }
 
     void reset() {
-        this.data = new HashSet<>();
+        this.values = new long[INITIAL_CAPACITY * width];
+        this.scopeBits = new long[INITIAL_CAPACITY * scopeWords];
+        this.table = new int[INITIAL_CAPACITY * 2];
+        this.freeHandles = new int[INITIAL_CAPACITY];
+        this.liveHandles = new BitSet();
+        for (int i = 0; i < width; i++) {
+            this.byValueId[i] = new ValueIdIndex(INITIAL_CAPACITY);
+        }
+        this.freeCount = 0;
+        this.handleLimit = 0;
+        this.size = 0;
+        this.removedSlots = 0;
+        this.peakSize = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int tableLength() {
+        return table.length;
     }
 
-    void delete(Predicate<ConditionMemory.MemoryEntry> predicate) {
-        // Actual logic of the method
-        if (this.data.removeIf(predicate)) {
-            this.data = new HashSet<>(this.data);
+    long valueId(int handle, int position) {
+        return values[handle * width + position];
+    }
+
+    MemoryScope scope(int handle, int position) {
+        long word = scopeBits[handle * scopeWords + (position >>> 6)];
+        return (word & (1L << position)) == 0 ? MemoryScope.MAIN : MemoryScope.DELTA;
+    }
+
+    /**
+     * Adds a new tuple to the collection.
+     *
+     * @param ids    the tuple's value ids
+     * @param scopes the scopes of the value ids
+     * @return the new tuple's handle, or <code>-1</code> if the collection already contains the tuple
+     */
+    int add(long[] ids, MemoryScope[] scopes) {
+        long[] bits = this.scopeBuffer;
+        Arrays.fill(bits, 0L);
+        for (int i = 0; i < width; i++) {
+            if (scopes[i] == MemoryScope.DELTA) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+
+        int mask = table.length - 1;
+        int slot = hash(ids, 0, bits, 0) & mask;
+        int insertSlot = -1;
+        int current;
+        while ((current = table[slot]) != EMPTY) {
+            if (current == REMOVED) {
+                if (insertSlot < 0) {
+                    insertSlot = slot;
+                }
+            } else if (sameTuple(current - 1, ids, bits)) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (insertSlot < 0) {
+            insertSlot = slot;
+        } else {
+            removedSlots--;
+        }
+
+        int handle = allocateHandle();
+        System.arraycopy(ids, 0, values, handle * width, width);
+        System.arraycopy(bits, 0, scopeBits, handle * scopeWords, scopeWords);
+        table[insertSlot] = handle + 1;
+        liveHandles.set(handle);
+        for (int i = 0; i < width; i++) {
+            byValueId[i].link(handle, ids[i]);
+        }
+
+        size++;
+        peakSize = Math.max(peakSize, size);
+        if ((size + removedSlots) * 4 > table.length * 3) {
+            if (size * 2 > table.length) {
+                rehash(table.length * 2);
+            } else {
+                // The load is mostly made of tombstones, purging them without growing the table
+                rehash(Math.min(table.length, tableCapacity(size * 2)));
+            }
         }
+        return handle;
     }
 
+    /**
+     * Deletes the tuples that contain any of the provided value ids at the given position.
+     *
+     * @param position        the position of value ids inside tuples
+     * @param valueIds        the value ids to delete
+     * @param removedListener the consumer of removed tuples' handles. The handles remain readable
+     *                        until the next {@link #add(long[], MemoryScope[])} call.
+     */
+    void delete(int position, Collection<Long> valueIds, IntConsumer removedListener) {
+        ValueIdIndex index = byValueId[position];
+        for (Long valueId : valueIds) {
+            int handle = index.unlinkAll(valueId);
+            while (handle >= 0) {
+                // The chain of the deleted position is detached and isn't modified by removals
+                int next = index.next(handle);
+                remove(handle, position);
+                removedListener.accept(handle);
+                handle = next;
+            }
+        }
+    }
+
+    /**
+     * Shrinks the underlying storage if it has lost most of its tuples since the last compaction.
+     */
+    void compact() {
+        if (peakSize > COMPACTION_THRESHOLD && size < peakSize / 4) {
+            // Handles above the highest live one can be released
+            int newLimit = liveHandles.length();
+            int newFreeCount = 0;
+            for (int i = 0; i < freeCount; i++) {
+                if (freeHandles[i] < newLimit) {
+                    freeHandles[newFreeCount++] = freeHandles[i];
+                }
+            }
+            this.freeCount = newFreeCount;
+            this.handleLimit = newLimit;
+            int capacity = Math.max(INITIAL_CAPACITY, newLimit);
+            this.values = Arrays.copyOf(values, capacity * width);
+            this.scopeBits = Arrays.copyOf(scopeBits, capacity * scopeWords);
+            this.freeHandles = Arrays.copyOf(freeHandles, Math.max(INITIAL_CAPACITY, newFreeCount));
+            for (ValueIdIndex index : byValueId) {
+                index.compact(capacity);
+            }
+            rehash(tableCapacity(size));
+            this.peakSize = size;
+        }
+    }
+
+    void forEachHandle(IntConsumer consumer) {
+        BitSet live = this.liveHandles;
+        for (int handle = live.nextSetBit(0); handle >= 0; handle = live.nextSetBit(handle + 1)) {
+            consumer.accept(handle);
+        }
+    }
+
+    /**
+     * Returns an iterator over the collection's tuples. The iterator reuses the same {@link ConditionMemory.MemoryEntry}
+     * instance, so the returned entries are valid only until the next call of the iterator's <code>next()</code> method.
+     *
+     * @return an iterator over the collection's tuples
+     */
     Iterator<ConditionMemory.MemoryEntry> iterator() {
-        return data.iterator();
+        return new Iterator<ConditionMemory.MemoryEntry>() {
+            private final Entry entry = new Entry();
+            private int next = liveHandles.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public ConditionMemory.MemoryEntry next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                entry.handle = next;
+                next = liveHandles.nextSetBit(next + 1);
+                return entry;
+            }
+        };
     }
 
-    int size() {
-        return data.size();
+    /**
+     * Returns an iterator over the tuples with the provided handles. Like {@link #iterator()}, the returned
+     * iterator reuses the same entry instance.
+     *
+     * @param handles tuple handles
+     * @return an iterator over the requested tuples
+     */
+    Iterator<ConditionMemory.MemoryEntry> iterator(PrimitiveIterator.OfLong handles) {
+        return new Iterator<ConditionMemory.MemoryEntry>() {
+            private final Entry entry = new Entry();
+
+            @Override
+            public boolean hasNext() {
+                return handles.hasNext();
+            }
+
+            @Override
+            public ConditionMemory.MemoryEntry next() {
+                entry.handle = (int) handles.nextLong();
+                return entry;
+            }
+        };
     }
 
-    void add(ConditionMemory.MemoryEntry entry) {
-        this.data.add(entry);
+    private void remove(int handle, int deletedPosition) {
+        // Locating the handle in the hash table
+        int mask = table.length - 1;
+        int slot = hash(values, handle * width, scopeBits, handle * scopeWords) & mask;
+        while (table[slot] != handle + 1) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = REMOVED;
+        removedSlots++;
+
+        // Updating the reverse index
+        int offset = handle * width;
+        for (int i = 0; i < width; i++) {
+            if (i != deletedPosition) {
+                byValueId[i].unlink(handle, values[offset + i]);
+            }
+        }
+
+        liveHandles.clear(handle);
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        size--;
+    }
+
+    private int allocateHandle() {
+        if (freeCount > 0) {
+            return freeHandles[--freeCount];
+        } else {
+            int handle = handleLimit++;
+            if (handleLimit * width > values.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, handleLimit * 2);
+                values = Arrays.copyOf(values, capacity * width);
+                scopeBits = Arrays.copyOf(scopeBits, capacity * scopeWords);
+                for (ValueIdIndex index : byValueId) {
+                    index.resizeLinks(capacity);
+                }
+            }
+            return handle;
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        int mask = capacity - 1;
+        forEachHandle(handle -> {
+            int slot = hash(values, handle * width, scopeBits, handle * scopeWords) & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = handle + 1;
+        });
+        this.table = newTable;
+        this.removedSlots = 0;
+    }
+
+    private boolean sameTuple(int handle, long[] ids, long[] bits) {
+        int offset = handle * width;
+        for (int i = 0; i < width; i++) {
+            if (values[offset + i] != ids[i]) {
+                return false;
+            }
+        }
+        int bitsOffset = handle * scopeWords;
+        for (int i = 0; i < scopeWords; i++) {
+            if (scopeBits[bitsOffset + i] != bits[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(long[] ids, int idsOffset, long[] bits, int bitsOffset) {
+        long h = 0;
+        for (int i = 0; i < width; i++) {
+            h = h * 31 + ids[idsOffset + i];
+        }
+        for (int i = 0; i < scopeWords; i++) {
+            h = h * 31 + bits[bitsOffset + i];
+        }
+        // Spreading the bits, the same way 64-bit hash mixers do
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int tableCapacity(int size) {
+        int capacity = INITIAL_CAPACITY * 2;
+        while (capacity * 3 <= size * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    Entry newEntry() {
+        return new Entry();
+    }
+
+    /**
+     * The reverse index of a single tuple position. An open-addressing table maps value ids to the handles
+     * of the first tuples in their chains, and doubly linked chains of tuple handles are stored in the
+     * <code>next</code> and <code>prev</code> arrays, which are indexed by handles. Missing links are
+     * denoted by <code>-1</code>.
+     */
+    private static final class ValueIdIndex {
+        private static final int NONE = -1;
+        private long[] keys;
+        // Head handles + 1, zero marks empty slots
+        private int[] heads;
+        private int keyCount;
+        private int[] next;
+        private int[] prev;
+
+        ValueIdIndex(int handleCapacity) {
+            this.keys = new long[INITIAL_CAPACITY];
+            this.heads = new int[INITIAL_CAPACITY];
+            this.next = new int[handleCapacity];
+            this.prev = new int[handleCapacity];
+        }
+
+        int next(int handle) {
+            return next[handle];
+        }
+
+        void resizeLinks(int handleCapacity) {
+            this.next = Arrays.copyOf(next, handleCapacity);
+            this.prev = Arrays.copyOf(prev, handleCapacity);
+        }
+
+        void compact(int handleCapacity) {
+            resizeLinks(handleCapacity);
+            int capacity = INITIAL_CAPACITY;
+            while (capacity * 2 < keyCount * 3) {
+                capacity <<= 1;
+            }
+            if (capacity < heads.length) {
+                resize(capacity);
+            }
+        }
+
+        void link(int handle, long valueId) {
+            int slot = find(keys, heads, valueId);
+            if (slot >= 0) {
+                int head = heads[slot] - 1;
+                next[handle] = head;
+                prev[head] = handle;
+                heads[slot] = handle + 1;
+            } else {
+                next[handle] = NONE;
+                slot = -slot - 1;
+                keys[slot] = valueId;
+                heads[slot] = handle + 1;
+                if (++keyCount * 3 > heads.length * 2) {
+                    resize(heads.length * 2);
+                }
+            }
+            prev[handle] = NONE;
+        }
+
+        void unlink(int handle, long valueId) {
+            int before = prev[handle];
+            int after = next[handle];
+            if (after != NONE) {
+                prev[after] = before;
+            }
+            if (before != NONE) {
+                next[before] = after;
+            } else {
+                int slot = find(keys, heads, valueId);
+                if (after == NONE) {
+                    removeAt(slot);
+                } else {
+                    heads[slot] = after + 1;
+                }
+            }
+        }
+
+        /**
+         * Removes the value id from the index.
+         *
+         * @return the first handle of the value id's chain, or <code>-1</code> if there's none
+         */
+        int unlinkAll(long valueId) {
+            int slot = find(keys, heads, valueId);
+            if (slot < 0) {
+                return NONE;
+            } else {
+                int head = heads[slot] - 1;
+                removeAt(slot);
+                return head;
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 29));
+        }
+
+        /**
+         * @return index of the key's slot, or <code>-(insertion point) - 1</code> if the key is not present
+         */
+        private static int find(long[] keys, int[] heads, long key) {
+            int mask = heads.length - 1;
+            int i = hash(key) & mask;
+            while (heads[i] != 0) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -i - 1;
+        }
+
+        private void resize(int capacity) {
+            long[] newKeys = new long[capacity];
+            int[] newHeads = new int[capacity];
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != 0) {
+                    int slot = -find(newKeys, newHeads, keys[i]) - 1;
+                    newKeys[slot] = keys[i];
+                    newHeads[slot] = heads[i];
+                }
+            }
+            this.keys = newKeys;
+            this.heads = newHeads;
+        }
+
+        // Backward shift deletion, the table is kept free of tombstones
+        private void removeAt(int index) {
+            int mask = heads.length - 1;
+            int gap = index;
+            int i = index;
+            while (true) {
+                i = (i + 1) & mask;
+                if (heads[i] == 0) {
+                    break;
+                }
+                int home = hash(keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    heads[gap] = heads[i];
+                    gap = i;
+                }
+            }
+            heads[gap] = 0;
+            keyCount--;
+        }
+    }
+
+    /**
+     * A reusable view of a stored tuple
+     */
+    final class Entry extends ConditionMemory.MemoryEntry {
+        int handle;
+
+        @Override
+        public int size() {
+            return width;
+        }
+
+        @Override
+        public long valueId(int position) {
+            return values[handle * width + position];
+        }
+
+        @Override
+        public MemoryScope scope(int position) {
+            return HashedCollection.this.scope(handle, position);
+        }
     }
 }
@@ -0,0 +1,104 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.runtime.FactFieldValues;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Describes the fields that form a key of a {@link MemoryIndex}. Each field is identified by the position
+ * of its fact inside a Rete node and by the field's value index (see {@link org.evrete.runtime.ActiveField#valueIndex()}).
+ * Sorted definitions describe {@link RangeIndex} keys and always consist of a single field.
+ */
+public final class IndexedFields {
+    private final int[] factPositions;
+    private final int[] valueIndices;
+    private final boolean sorted;
+    private final int hash;
+
+    IndexedFields(int[] factPositions, int[] valueIndices) {
+        this(factPositions, valueIndices, false);
+    }
+
+    IndexedFields(int factPosition, int valueIndex, boolean sorted) {
+        this(new int[]{factPosition}, new int[]{valueIndex}, sorted);
+    }
+
+    private IndexedFields(int[] factPositions, int[] valueIndices, boolean sorted) {
+        if (factPositions.length != valueIndices.length || factPositions.length == 0) {
+            throw new IllegalArgumentException("Invalid index key definition");
+        } else {
+            this.factPositions = factPositions;
+            this.valueIndices = valueIndices;
+            this.sorted = sorted;
+            this.hash = 31 * (31 * Arrays.hashCode(factPositions) + Arrays.hashCode(valueIndices)) + (sorted ? 1 : 0);
+        }
+    }
+
+    /**
+     * Creates a new empty index for these fields.
+     *
+     * @param keyFunction the function that computes index keys of memory elements in the given scope
+     * @return new index
+     */
+    public MemoryIndex newIndex(MemoryIndex.KeyFunction keyFunction) {
+        return sorted ? new RangeIndex(keyFunction) : new HashIndex(keyFunction);
+    }
+
+    /**
+     * Computes the index key from the provided field values.
+     *
+     * @param valuesByPosition the field values of the facts, addressed by their positions
+     * @return index key
+     */
+    public Object keyOf(IntFunction<FactFieldValues> valuesByPosition) {
+        if (factPositions.length == 1) {
+            return valueAt(valuesByPosition, 0);
+        } else {
+            Object[] values = new Object[factPositions.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = valueAt(valuesByPosition, i);
+            }
+            return new HashIndex.CompositeKey(values);
+        }
+    }
+
+    int size() {
+        return factPositions.length;
+    }
+
+    private Object valueAt(IntFunction<FactFieldValues> valuesByPosition, int i) {
+        Object value = valuesByPosition.apply(factPositions[i]).valueAt(valueIndices[i]);
+        // Primitive 0.0 == -0.0, but their boxed versions are not equal
+        if (value instanceof Double && (Double) value == 0.0) {
+            return 0.0;
+        } else if (value instanceof Float && (Float) value == 0.0f) {
+            return 0.0f;
+        } else {
+            return value;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IndexedFields that = (IndexedFields) o;
+        return sorted == that.sorted && Arrays.equals(factPositions, that.factPositions) && Arrays.equals(valueIndices, that.valueIndices);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < factPositions.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(factPositions[i]).append('.').append(valueIndices[i]);
+        }
+        return sb.append(sorted ? ", sorted]" : "]").toString();
+    }
+}
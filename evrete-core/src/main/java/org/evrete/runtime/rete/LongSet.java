@@ -0,0 +1,199 @@
+package org.evrete.runtime.rete;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A set of non-negative <code>long</code> values, such as value ids or tuple handles. Small sets are arrays
+ * that keep the insertion order, sets larger than {@value #LINEAR_LIMIT} are open-addressing hash tables.
+ * In both cases, empty array elements are marked with {@link #FREE}, so that the same iterator serves
+ * both representations.
+ */
+final class LongSet {
+    static final int LINEAR_LIMIT = 8;
+    private static final long FREE = -1L;
+    private long[] elements;
+    private int size;
+    private boolean hashed;
+
+    LongSet() {
+        this.elements = new long[2];
+        Arrays.fill(elements, FREE);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean add(long value) {
+        assert value >= 0 : "Negative value " + value;
+        if (hashed) {
+            if (hashedAdd(elements, value)) {
+                if (++size * 2 > elements.length) {
+                    rehash(elements.length * 2);
+                }
+                return true;
+            } else {
+                return false;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (elements[i] == value) {
+                    return false;
+                }
+            }
+            if (size == elements.length) {
+                if (size >= LINEAR_LIMIT) {
+                    rehash(size * 4);
+                    hashedAdd(elements, value);
+                    size++;
+                    return true;
+                }
+                int oldLength = elements.length;
+                this.elements = Arrays.copyOf(elements, oldLength * 2);
+                Arrays.fill(elements, oldLength, elements.length, FREE);
+            }
+            elements[size++] = value;
+            return true;
+        }
+    }
+
+    void addAll(LongSet other) {
+        for (long e : other.elements) {
+            if (e != FREE) {
+                add(e);
+            }
+        }
+    }
+
+    boolean remove(long value) {
+        if (hashed) {
+            int mask = elements.length - 1;
+            int i = spread(value) & mask;
+            long e;
+            while ((e = elements[i]) != FREE) {
+                if (e == value) {
+                    hashedRemoveAt(i);
+                    if (--size <= LINEAR_LIMIT / 2) {
+                        toLinear();
+                    }
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (elements[i] == value) {
+                    System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+                    elements[--size] = FREE;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = this.elements;
+        long[] table = new long[capacity];
+        Arrays.fill(table, FREE);
+        for (long e : old) {
+            if (e != FREE) {
+                hashedAdd(table, e);
+            }
+        }
+        this.elements = table;
+        this.hashed = true;
+    }
+
+    private void toLinear() {
+        long[] linear = new long[LINEAR_LIMIT];
+        Arrays.fill(linear, FREE);
+        int i = 0;
+        for (long e : elements) {
+            if (e != FREE) {
+                linear[i++] = e;
+            }
+        }
+        this.elements = linear;
+        this.hashed = false;
+    }
+
+    // Backward shift deletion, the table is kept free of tombstones
+    private void hashedRemoveAt(int index) {
+        long[] table = this.elements;
+        int mask = table.length - 1;
+        int gap = index;
+        int i = index;
+        while (true) {
+            i = (i + 1) & mask;
+            long e = table[i];
+            if (e == FREE) {
+                break;
+            }
+            int home = spread(e) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = e;
+                gap = i;
+            }
+        }
+        table[gap] = FREE;
+    }
+
+    private static boolean hashedAdd(long[] table, long value) {
+        int mask = table.length - 1;
+        int i = spread(value) & mask;
+        long e;
+        while ((e = table[i]) != FREE) {
+            if (e == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        return true;
+    }
+
+    private static int spread(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    /**
+     * @return an iterator over the set's values. The set must not be modified while the iterator is in use.
+     */
+    PrimitiveIterator.OfLong iterator() {
+        long[] array = this.elements;
+        return new PrimitiveIterator.OfLong() {
+            int next = advance(0);
+
+            private int advance(int from) {
+                int i = from;
+                while (i < array.length && array[i] == FREE) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < array.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (next >= array.length) {
+                    throw new NoSuchElementException();
+                }
+                long result = array[next];
+                next = advance(next + 1);
+                return result;
+            }
+        };
+    }
+}
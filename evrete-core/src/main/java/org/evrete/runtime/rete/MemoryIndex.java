@@ -0,0 +1,117 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.api.spi.MemoryScope;
+
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ * <p>
+ * Base class for indexes over elements of a {@link org.evrete.api.ReteMemory}. Like the memory itself,
+ * an index is split into the main and delta parts. Elements are grouped by the key computed by
+ * the index's key function, and condition nodes use these groups to look up join partners
+ * directly instead of scanning the whole memory.
+ * </p>
+ * <p>
+ * Elements are non-negative <code>long</code> values, value ids or tuple handles, and each group
+ * is a primitive {@link LongSet}, so the index holds no per-element objects.
+ * </p>
+ * <p>
+ * The owner of the index is responsible for keeping it in sync with the indexed memory.
+ * </p>
+ */
+public abstract class MemoryIndex {
+    private final KeyFunction keyFunction;
+    final Map<Object, LongSet> main;
+    final Map<Object, LongSet> delta;
+
+    MemoryIndex(KeyFunction keyFunction) {
+        this.keyFunction = keyFunction;
+        this.main = newData();
+        this.delta = newData();
+    }
+
+    abstract Map<Object, LongSet> newData();
+
+    /**
+     * Returns the elements that match the provided lookup argument.
+     *
+     * @param scope  the memory scope
+     * @param lookup index key or, depending on the implementation, a key range
+     * @return an iterator over matching elements
+     */
+    public abstract PrimitiveIterator.OfLong iterator(MemoryScope scope, Object lookup);
+
+    public synchronized void add(MemoryScope scope, long element) {
+        data(scope).computeIfAbsent(keyFunction.apply(scope, element), k -> new LongSet()).add(element);
+    }
+
+    public synchronized void remove(MemoryScope scope, long element) {
+        Map<Object, LongSet> data = data(scope);
+        Object key = keyFunction.apply(scope, element);
+        LongSet elements = data.get(key);
+        if (elements != null) {
+            elements.remove(element);
+            if (elements.isEmpty()) {
+                data.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Moves delta elements into the main part of the index. This method is only applicable
+     * when the indexed memory doesn't change its elements upon commit.
+     */
+    public synchronized void commit() {
+        for (Map.Entry<Object, LongSet> entry : delta.entrySet()) {
+            LongSet existing = main.get(entry.getKey());
+            if (existing == null) {
+                main.put(entry.getKey(), entry.getValue());
+            } else {
+                existing.addAll(entry.getValue());
+            }
+        }
+        delta.clear();
+    }
+
+    public synchronized void clearDelta() {
+        delta.clear();
+    }
+
+    public synchronized void clear() {
+        main.clear();
+        delta.clear();
+    }
+
+    Map<Object, LongSet> data(MemoryScope scope) {
+        switch (scope) {
+            case MAIN:
+                return main;
+            case DELTA:
+                return delta;
+            default:
+                throw new IllegalStateException("Unknown scope " + scope);
+        }
+    }
+
+    /**
+     * Computes index keys of elements
+     */
+    @FunctionalInterface
+    public interface KeyFunction {
+        /**
+         * @param scope   the memory scope of the element
+         * @param element the indexed element
+         * @return the element's index key
+         */
+        Object apply(MemoryScope scope, long element);
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "main=" + main.size() +
+                ", delta=" + delta.size() +
+                '}';
+    }
+}
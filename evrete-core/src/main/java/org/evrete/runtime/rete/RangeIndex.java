@@ -0,0 +1,99 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.api.spi.MemoryScope;
+
+import java.util.*;
+
+/**
+ * A sorted index over elements of a {@link org.evrete.api.ReteMemory}. Index keys are single
+ * {@link Comparable} values of the same type, and lookups are performed with {@link Range} arguments,
+ * which allows condition nodes to join memories on inequality conditions like
+ * <code>$a.price &gt;= $b.limit</code> by scanning a key range instead of the whole memory.
+ */
+public class RangeIndex extends MemoryIndex {
+
+    public RangeIndex(KeyFunction keyFunction) {
+        super(keyFunction);
+    }
+
+    @Override
+    Map<Object, LongSet> newData() {
+        return new TreeMap<>();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator(MemoryScope scope, Object lookup) {
+        Range range = (Range) lookup;
+        NavigableMap<Object, LongSet> data = (NavigableMap<Object, LongSet>) data(scope);
+        NavigableMap<Object, LongSet> subMap;
+        if (range.lower == null) {
+            subMap = range.upper == null ? data : data.headMap(range.upper, range.upperInclusive);
+        } else if (range.upper == null) {
+            subMap = data.tailMap(range.lower, range.lowerInclusive);
+        } else if (range.isEmpty()) {
+            return new FlatIterator(Collections.emptyIterator());
+        } else {
+            subMap = data.subMap(range.lower, range.lowerInclusive, range.upper, range.upperInclusive);
+        }
+        return new FlatIterator(subMap.values().iterator());
+    }
+
+    private static final class FlatIterator implements PrimitiveIterator.OfLong {
+        private final Iterator<LongSet> sets;
+        private PrimitiveIterator.OfLong current;
+
+        FlatIterator(Iterator<LongSet> sets) {
+            this.sets = sets;
+            this.current = sets.hasNext() ? sets.next().iterator() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current != null) {
+                if (current.hasNext()) {
+                    return true;
+                }
+                current = sets.hasNext() ? sets.next().iterator() : null;
+            }
+            return false;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.nextLong();
+        }
+    }
+
+    /**
+     * A range of index keys. Null bounds denote unbounded ranges.
+     */
+    static final class Range {
+        private final Comparable<Object> lower;
+        private final boolean lowerInclusive;
+        private final Comparable<Object> upper;
+        private final boolean upperInclusive;
+
+        @SuppressWarnings("unchecked")
+        Range(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+            this.lower = (Comparable<Object>) lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = (Comparable<Object>) upper;
+            this.upperInclusive = upperInclusive;
+        }
+
+        private boolean isEmpty() {
+            int cmp = lower.compareTo(upper);
+            return cmp > 0 || (cmp == 0 && !(lowerInclusive && upperInclusive));
+        }
+
+        @Override
+        public String toString() {
+            return (lower == null ? "(-" : (lowerInclusive ? "[" : "(") + lower) +
+                    ", " +
+                    (upper == null ? "+)" : upper + (upperInclusive ? "]" : ")"));
+        }
+    }
+}
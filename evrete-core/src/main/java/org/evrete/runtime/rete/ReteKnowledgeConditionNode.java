@@ -5,14 +5,27 @@ import org.evrete.runtime.evaluation.BetaEvaluator;
 
 public class ReteKnowledgeConditionNode extends ReteKnowledgeNode {
     final ReteKnowledgeEvaluator evaluator;
+    private final BetaEvaluator betaEvaluator;
+    private final ReteNodeKey key;
 
     public ReteKnowledgeConditionNode(BetaEvaluator evaluator, ReteKnowledgeNode[] sourceNodes) {
         super(sourceNodes);
+        this.betaEvaluator = evaluator;
         this.evaluator = new ReteKnowledgeEvaluator(evaluator, this);
+        this.key = ReteNodeKey.conditionNode(sourceNodes, this.evaluator);
+    }
+
+    @Override
+    ReteNodeKey getKey() {
+        return key;
     }
 
     public ReteKnowledgeEvaluator getEvaluator() {
         return evaluator;
     }
 
+    public BetaEvaluator getBetaEvaluator() {
+        return betaEvaluator;
+    }
+
 }
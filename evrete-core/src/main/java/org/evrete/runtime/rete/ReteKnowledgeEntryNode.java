@@ -4,10 +4,17 @@ import org.evrete.runtime.FactType;
 
 public class ReteKnowledgeEntryNode extends ReteKnowledgeNode {
     final FactType factType;
+    private final ReteNodeKey key;
 
     public ReteKnowledgeEntryNode(FactType factType) {
         super(factType);
         this.factType = factType;
+        this.key = ReteNodeKey.entryNode(factType.getAlphaAddress());
+    }
+
+    @Override
+    ReteNodeKey getKey() {
+        return key;
     }
 
 }
@@ -1,11 +1,27 @@
 package org.evrete.runtime.rete;
 
+import org.evrete.Configuration;
 import org.evrete.api.IntToValue;
 import org.evrete.api.LhsField;
+import org.evrete.api.ValuesPredicate;
+import org.evrete.api.spi.FusedEvaluator;
+import org.evrete.api.spi.SourceCompilerProvider;
 import org.evrete.runtime.ActiveField;
 import org.evrete.runtime.FactType;
 import org.evrete.runtime.LhsConditionDH;
+import org.evrete.runtime.StoredCondition;
+import org.evrete.runtime.compiler.FusedEvaluatorCompiler;
 import org.evrete.runtime.evaluation.BetaEvaluator;
+import org.evrete.runtime.evaluation.StaticMethodPredicate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The context-aware version of the {@link BetaEvaluator}. For each component of the parent class,
@@ -13,7 +29,11 @@ import org.evrete.runtime.evaluation.BetaEvaluator;
  * {@link org.evrete.api.ValuesPredicate#test(IntToValue)} method arguments.
  */
 public class ReteKnowledgeEvaluator {
+    private static final Logger LOGGER = Logger.getLogger(ReteKnowledgeEvaluator.class.getName());
+    private static final AtomicBoolean compilationFailureReported = new AtomicBoolean();
     private final Component[] components;
+    private final AtomicBoolean fusedEvaluatorRequested = new AtomicBoolean();
+    private volatile Fused fused;
 
     public ReteKnowledgeEvaluator(BetaEvaluator parent, ReteKnowledgeNode node) {
         LhsConditionDH<FactType, ActiveField>[] conditions = parent.getComponents();
@@ -28,6 +48,82 @@ public class ReteKnowledgeEvaluator {
         return components;
     }
 
+    /**
+     * Returns the fused evaluator if it has been compiled for exactly the provided conditions.
+     *
+     * @param conditions current conditions, one per component
+     * @return the fused evaluator or <code>null</code> if it's not available or not applicable
+     */
+    FusedEvaluator getFusedEvaluator(StoredCondition[] conditions) {
+        Fused current = this.fused;
+        if (current == null) {
+            return null;
+        }
+        for (int i = 0; i < conditions.length; i++) {
+            StoredCondition condition = conditions[i];
+            if (condition.hasPublisher() || condition.getCondition() != current.predicates[i]) {
+                return null;
+            }
+        }
+        return current.evaluator;
+    }
+
+    /**
+     * Requests a background compilation of the fused evaluator for the provided conditions. The request
+     * is ignored if the evaluator has already been requested or if any of the conditions can not be
+     * called directly from the generated code.
+     *
+     * @param provider      source compiler provider
+     * @param configuration configuration of the requesting session
+     * @param executor      executor to compile the evaluator
+     * @param conditions    current conditions, one per component
+     */
+    void requestFusedEvaluator(SourceCompilerProvider provider, Configuration configuration, Executor executor, StoredCondition[] conditions) {
+        if (fusedEvaluatorRequested.get()) {
+            return;
+        }
+        ValuesPredicate[] predicates = new ValuesPredicate[conditions.length];
+        List<FusedEvaluatorCompiler.Call> calls = new ArrayList<>(conditions.length);
+        for (int i = 0; i < conditions.length; i++) {
+            StoredCondition condition = conditions[i];
+            ValuesPredicate predicate = condition.getCondition();
+            if (condition.hasPublisher() || !(predicate instanceof StaticMethodPredicate)) {
+                return;
+            }
+            Coordinate[] coordinates = components[i].coordinates;
+            int[] positions = new int[coordinates.length];
+            int[] fields = new int[coordinates.length];
+            for (int j = 0; j < coordinates.length; j++) {
+                positions[j] = coordinates[j].inNodeIdx;
+                fields[j] = coordinates[j].fieldIdx;
+            }
+            predicates[i] = predicate;
+            calls.add(new FusedEvaluatorCompiler.Call((StaticMethodPredicate) predicate, positions, fields));
+        }
+
+        if (fusedEvaluatorRequested.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    this.fused = new Fused(FusedEvaluatorCompiler.compile(provider, configuration, calls), predicates);
+                } catch (Exception | LinkageError e) {
+                    // The node will keep evaluating its conditions one by one
+                    Level level = compilationFailureReported.compareAndSet(false, true) ? Level.WARNING : Level.FINE;
+                    LOGGER.log(level, e, () -> "Unable to compile fused evaluator for " + Arrays.toString(predicates));
+                }
+            }, executor);
+        }
+    }
+
+    private static class Fused {
+        private final FusedEvaluator evaluator;
+        private final ValuesPredicate[] predicates;
+
+        Fused(FusedEvaluator evaluator, ValuesPredicate[] predicates) {
+            this.evaluator = evaluator;
+            this.predicates = predicates;
+        }
+    }
+
     //TODO use a subclass of LhsConditionDH
     public static class Component {
         private final LhsConditionDH<FactType, ActiveField> delegate;
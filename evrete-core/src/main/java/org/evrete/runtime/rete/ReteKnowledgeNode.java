@@ -65,4 +65,10 @@ public abstract class ReteKnowledgeNode extends ReteNode<ReteKnowledgeNode> {
     public FactType[] getNodeFactTypes() {
         return nodeFactTypes;
     }
+
+    /**
+     * @return the node's structural identity
+     * @see ReteSessionNodes
+     */
+    abstract ReteNodeKey getKey();
 }
@@ -0,0 +1,130 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.runtime.AlphaAddress;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Structural identity of a knowledge-level Rete node. Entry nodes are identified by their alpha memories,
+ * condition nodes by their source nodes' keys and by the evaluators they apply to the node's fact positions.
+ * </p>
+ * <p>
+ * Nodes with equal keys read the same alpha memories, evaluate the same conditions and store their entries
+ * in the same layout, so their session counterparts can be shared between rules.
+ * </p>
+ */
+final class ReteNodeKey {
+    private static final ReteNodeKey[] EMPTY_ARRAY = new ReteNodeKey[0];
+    private final int alphaAddress;
+    private final ReteNodeKey[] sources;
+    private final Set<ConditionKey> conditions;
+    private final int hash;
+
+    private ReteNodeKey(int alphaAddress, ReteNodeKey[] sources, Set<ConditionKey> conditions) {
+        this.alphaAddress = alphaAddress;
+        this.sources = sources;
+        this.conditions = conditions;
+        this.hash = 31 * (31 * alphaAddress + Arrays.hashCode(sources)) + conditions.hashCode();
+    }
+
+    static ReteNodeKey entryNode(AlphaAddress alphaAddress) {
+        return new ReteNodeKey(alphaAddress.getIndex(), EMPTY_ARRAY, new HashSet<>());
+    }
+
+    static ReteNodeKey conditionNode(ReteKnowledgeNode[] sourceNodes, ReteKnowledgeEvaluator evaluator) {
+        ReteNodeKey[] sources = new ReteNodeKey[sourceNodes.length];
+        for (int i = 0; i < sourceNodes.length; i++) {
+            sources[i] = sourceNodes[i].getKey();
+        }
+        // The order of an evaluator's components affects only the evaluation cost, not the result
+        Set<ConditionKey> conditions = new HashSet<>();
+        for (ReteKnowledgeEvaluator.Component component : evaluator.getComponents()) {
+            conditions.add(new ConditionKey(component));
+        }
+        return new ReteNodeKey(-1, sources, conditions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReteNodeKey that = (ReteNodeKey) o;
+        return hash == that.hash
+                && alphaAddress == that.alphaAddress
+                && Arrays.equals(sources, that.sources)
+                && conditions.equals(that.conditions);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns a string form of the key that doesn't depend on the iteration order of its conditions.
+     * Keys of identically built knowledge instances have equal fingerprints, which allows matching
+     * nodes of different sessions, see {@link ReteSessionConditionNode#fingerprint()}.
+     *
+     * @return the key's fingerprint
+     */
+    String fingerprint() {
+        if (alphaAddress >= 0) {
+            return "{alpha=" + alphaAddress + "}";
+        }
+        List<String> sortedConditions = new ArrayList<>(conditions.size());
+        for (ConditionKey condition : conditions) {
+            sortedConditions.add(condition.toString());
+        }
+        Collections.sort(sortedConditions);
+        StringJoiner joiner = new StringJoiner(", ", "{conditions=" + sortedConditions + ", sources=[", "]}");
+        for (ReteNodeKey source : sources) {
+            joiner.add(source.fingerprint());
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public String toString() {
+        return alphaAddress >= 0 ?
+                "{alpha=" + alphaAddress + "}"
+                :
+                "{conditions=" + conditions + ", sources=" + Arrays.toString(sources) + "}";
+    }
+
+    /**
+     * Evaluator handle and the node positions and fields of its arguments
+     */
+    private static final class ConditionKey {
+        private final int handle;
+        private final int[] coordinates;
+
+        ConditionKey(ReteKnowledgeEvaluator.Component component) {
+            ReteKnowledgeEvaluator.Coordinate[] arguments = component.getCoordinates();
+            this.handle = component.getDelegate().getCondition().getIndex();
+            this.coordinates = new int[arguments.length * 2];
+            for (int i = 0; i < arguments.length; i++) {
+                this.coordinates[2 * i] = arguments[i].inNodeIdx;
+                this.coordinates[2 * i + 1] = arguments[i].fieldIdx;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConditionKey that = (ConditionKey) o;
+            return handle == that.handle && Arrays.equals(coordinates, that.coordinates);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * handle + Arrays.hashCode(coordinates);
+        }
+
+        @Override
+        public String toString() {
+            return handle + ":" + Arrays.toString(coordinates);
+        }
+    }
+}
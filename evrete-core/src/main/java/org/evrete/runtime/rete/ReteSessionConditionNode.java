@@ -1,48 +1,100 @@
 package org.evrete.runtime.rete;
 
 import org.evrete.api.IntToValue;
+import org.evrete.api.spi.FusedEvaluator;
 import org.evrete.api.spi.MemoryScope;
 import org.evrete.runtime.*;
+import org.evrete.runtime.evaluation.ArgumentRelation;
+import org.evrete.runtime.evaluation.BetaEvaluator;
 import org.evrete.runtime.evaluation.DefaultEvaluatorHandle;
-import org.evrete.util.CombinationIterator;
 import org.evrete.util.CommonUtils;
-import org.evrete.util.FlatMapIterator;
-import org.evrete.util.MappingIterator;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.IntFunction;
-import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class ReteSessionConditionNode extends ReteSessionNode {
     private static final Logger LOGGER = Logger.getLogger(ReteSessionConditionNode.class.getName());
-    private final ConditionMemory.MemoryEntry[] currentMemoryEntries;
+    /**
+     * Number of condition evaluations after which the node requests a fused evaluator
+     * (see {@link FusedEvaluator}). Compiling the evaluator pays off only for nodes that stay hot.
+     */
+    static final long FUSED_EVALUATOR_THRESHOLD = 10_000L;
     /**
      * This is a "flattened" state of current memory entries coming from source nodes
      */
     private final FieldValuesMeta[] currentFieldValues;
+    // Same values as above, in the form accepted by fused evaluators
+    private final FactFieldValues[] currentValueArray;
     private final ResolvedEvaluator evaluator;
     private final ConditionMemory betaMemory;
     private final TypeMemory[] nodeTypeMemories;
-
-
-    public ReteSessionConditionNode(AbstractRuleSessionBase<?> session, ReteSessionNode[] sourceNodes, ReteKnowledgeConditionNode knowledgeConditionNode) {
+    /**
+     * Source node index for each of the node's facts
+     */
+    private final int[] factSources;
+    /**
+     * Fact's position inside its source node
+     */
+    private final int[] factInSourcePositions;
+    private final IntFunction<FactFieldValues> currentValues;
+    // Reusable buffers for new memory entries
+    private final long[] entryValueIds;
+    private final MemoryScope[] entryScopes;
+    private final MemoryScope[] restoredScopes;
+    private final ReteSessionNodes registry;
+    private final ReteNodeKey key;
+    private final BetaEvaluator betaEvaluator;
+    // Alpha memories this node's data comes from
+    private final Mask<AlphaAddress> alphaAddressMask;
+    // Number of fact groups using this node, guarded by the registry
+    int references;
+    // Delta computation of the current cycle, the node can be shared by several rules
+    private CompletableFuture<Void> deltaComputation;
+    private int deltaComputationCycle;
+    private DeltaMemoryMode deltaComputationMode;
+    // Whether the node's main memory is in sync with its sources
+    private boolean live;
+
+    ReteSessionConditionNode(AbstractRuleSessionBase<?> session, ReteSessionNodes registry, ReteSessionNode[] sourceNodes, ReteKnowledgeConditionNode knowledgeConditionNode) {
         super(session, knowledgeConditionNode, sourceNodes);
+        this.registry = registry;
+        this.key = knowledgeConditionNode.getKey();
+        this.betaEvaluator = knowledgeConditionNode.getBetaEvaluator();
         int totalSources = sourceNodes.length;
-        this.currentMemoryEntries = new ConditionMemory.MemoryEntry[totalSources];
 
 
         FactType[] nodeFactTypes = getNodeFactTypes();
         this.currentFieldValues = new FieldValuesMeta[nodeFactTypes.length];
+        this.currentValueArray = new FactFieldValues[nodeFactTypes.length];
+        this.currentValues = position -> currentFieldValues[position].values;
+        this.entryValueIds = new long[nodeFactTypes.length];
+        this.entryScopes = new MemoryScope[nodeFactTypes.length];
+        this.restoredScopes = new MemoryScope[nodeFactTypes.length];
+        Arrays.fill(this.restoredScopes, MemoryScope.MAIN);
 
         this.nodeTypeMemories = new TypeMemory[nodeFactTypes.length];
+        this.alphaAddressMask = Mask.alphaAddressMask();
         for (int i = 0; i < nodeFactTypes.length; i++) {
             this.nodeTypeMemories[i] = session.getMemory().getTypeMemory(nodeFactTypes[i]);
+            this.alphaAddressMask.set(nodeFactTypes[i].getAlphaAddress());
+        }
+
+        this.factSources = new int[nodeFactTypes.length];
+        this.factInSourcePositions = new int[nodeFactTypes.length];
+        for (int sourceIndex = 0; sourceIndex < totalSources; sourceIndex++) {
+            int sourceFactCount = sourceNodes[sourceIndex].getNodeFactTypes().length;
+            for (int inSourceIndex = 0; inSourceIndex < sourceFactCount; inSourceIndex++) {
+                int position = location(sourceIndex, inSourceIndex);
+                this.factSources[position] = sourceIndex;
+                this.factInSourcePositions[position] = inSourceIndex;
+            }
         }
 
-        this.betaMemory = new ConditionMemory();
+        this.betaMemory = new ConditionMemory(nodeFactTypes.length);
         this.evaluator = new ResolvedEvaluator(session, knowledgeConditionNode.getEvaluator());
 
     }
@@ -53,12 +105,23 @@ public class ReteSessionConditionNode extends ReteSessionNode {
     }
 
     @Override
-    public CompletableFuture<Void> computeDeltaMemoryAsync(DeltaMemoryMode mode) {
+    public synchronized CompletableFuture<Void> computeDeltaMemoryAsync(DeltaMemoryMode mode) {
+        if (mode == DeltaMemoryMode.HOT_DEPLOYMENT && live) {
+            // The node is already in use by other rules and its main memory is up-to-date
+            return CompletableFuture.completedFuture(null);
+        }
+        int cycle = registry.computeCycle();
+        if (deltaComputation != null && deltaComputationCycle == cycle && deltaComputationMode == mode) {
+            // The node is shared, and another rule has already requested the computation
+            return deltaComputation;
+        }
         LOGGER.fine(()->"Node " + this.debugName() + " is requesting delta memories from sources: " + debugName(sourceNodes));
 
         // To compute this node's delta memory, we need the node's source nodes
         // to compute their deltas first.
-        return CommonUtils.completeAll(
+        this.deltaComputationCycle = cycle;
+        this.deltaComputationMode = mode;
+        this.deltaComputation = CommonUtils.completeAll(
                         sourceNodes,
                         sourceNode -> sourceNode.computeDeltaMemoryAsync(mode)
                 )
@@ -66,17 +129,79 @@ public class ReteSessionConditionNode extends ReteSessionNode {
                         () -> this.computeDeltaLocally(mode),
                         getExecutor()
                 );
+        return this.deltaComputation;
     }
 
     public ConditionMemory getBetaMemory() {
         return betaMemory;
     }
 
-    public void deleteAll(Collection<FactHolder> factHolders) {
-        betaMemory.deleteAll(ConditionMemory.DeletePredicate.ofMultipleOR(createDeletePredicates(factHolders)));
+    public BetaEvaluator getBetaEvaluator() {
+        return betaEvaluator;
+    }
+
+    /**
+     * @return the fused evaluator currently used by the node, or <code>null</code> if the node
+     * evaluates its conditions one by one
+     */
+    public FusedEvaluator getFusedEvaluator() {
+        return evaluator.fused;
+    }
+
+    ReteNodeKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return the fingerprint of the node's structure, see {@link ReteNodeKey#fingerprint()}
+     */
+    public String fingerprint() {
+        return key.fingerprint();
+    }
+
+    /**
+     * @return true if the node's main memory is in sync with its sources
+     */
+    public synchronized boolean isLive() {
+        return live;
+    }
+
+    /**
+     * Saves an entry restored from a session snapshot to the node's main memory. No conditions are evaluated.
+     *
+     * @param valueIds the entry's value ids, the array is copied and can be reused by the caller
+     * @see #restoreCompleted()
+     */
+    public synchronized void restoreEntry(long[] valueIds) {
+        if (valueIds.length != restoredScopes.length) {
+            throw new IllegalArgumentException("Invalid entry size " + valueIds.length + " for node " + debugName());
+        }
+        this.betaMemory.saveNewEntry(MemoryScope.MAIN, valueIds, restoredScopes);
+    }
+
+    /**
+     * Marks the node's main memory, restored by the {@link #restoreEntry(long[])} method, as being in sync
+     * with its sources.
+     */
+    public synchronized void restoreCompleted() {
+        this.deltaComputation = null;
+        this.live = true;
+    }
+
+    @Override
+    public long size(MemoryScope scope) {
+        return betaMemory.size(scope);
+    }
+
+    /**
+     * @param alphaAddresses changed alpha memories
+     * @return true if the node's data comes from any of the provided alpha memories
+     */
+    public boolean dependsOn(Mask<AlphaAddress> alphaAddresses) {
+        return alphaAddressMask.intersects(alphaAddresses);
     }
 
-    private Collection<ConditionMemory.DeletePredicate> createDeletePredicates(Collection<FactHolder> factHolders) {
+    public synchronized void deleteAll(Collection<FactHolder> factHolders) {
         MapOfSet<Integer, Long> mapping = new MapOfSet<>();
         for (FactHolder factHolder : factHolders) {
             ActiveType.Idx type = factHolder.getHandle().getType();
@@ -86,13 +211,7 @@ public class ReteSessionConditionNode extends ReteSessionNode {
                 mapping.add(index, factHolder.getFieldValuesId());
             }
         }
-
-        Collection<ConditionMemory.DeletePredicate> result = new ArrayList<>(mapping.size());
-        for(Map.Entry<Integer, Set<Long>> entry : mapping.entrySet()) {
-            result.add(new ConditionMemory.DeletePredicate(entry.getKey(), entry.getValue()));
-        }
-
-        return result;
+        betaMemory.deleteAll(mapping);
     }
 
 
@@ -118,6 +237,11 @@ public class ReteSessionConditionNode extends ReteSessionNode {
         }
 
         computeDeltaLocally(saveDestination, sourceScopes);
+        if (mode == DeltaMemoryMode.HOT_DEPLOYMENT) {
+            synchronized (this) {
+                this.live = true;
+            }
+        }
     }
 
     /**
@@ -131,33 +255,196 @@ public class ReteSessionConditionNode extends ReteSessionNode {
         // 1. Clear this node's delta memory
         this.betaMemory.clearDeltaMemory();
 
-        // 2. Create iterator over all possible source combinations
+        // 2. Build join plans. Sources that are related to already visited ones via equality or comparison
+        //    conditions are looked up by memory indexes, the rest are scanned in full.
+        List<JoinRelation> relations = joinRelations();
+        JoinStep[][] plans = new JoinStep[sourceNodes.length][];
 
-        ReteSessionNode[] sourceNodes = sourceNodes();
-        Iterator<ConditionMemory.MemoryEntry[]> sourceCombinations = new FlatMapIterator<>(
-                sourceScopes,
-                scopes -> new ListeningCombinationIterator(
-                        currentMemoryEntries,
-                        index -> sourceNodes[index].iterator(scopes[index]),
-                        this::sourceValueChanged
-                )
+        // 3. Evaluate the node's condition for every candidate combination and save to the destination storage
+        while (sourceScopes.hasNext()) {
+            MemoryScope[] scopes = sourceScopes.next();
+            if (hasEmptySources(scopes)) {
+                continue;
+            }
+            int first = relations.isEmpty() ? 0 : firstDeltaSource(scopes);
+            JoinStep[] plan = plans[first];
+            if (plan == null) {
+                plan = plans[first] = createJoinPlan(first, relations);
+            }
+            join(plan, 0, scopes, saveDestination);
+        }
+        LOGGER.fine(()->"Node " + this.debugName() + " has finished computing its delta memory. New delta memory size: " + this.betaMemory.size(MemoryScope.DELTA) + ", main memory size: " + this.betaMemory.size(MemoryScope.MAIN));
+
+    }
+
+    private void join(JoinStep[] plan, int stepIndex, MemoryScope[] scopes, MemoryScope saveDestination) {
+        if (stepIndex == plan.length) {
+            evaluateAndSave(saveDestination);
+        } else {
+            JoinStep step = plan[stepIndex];
+            int sourceIndex = step.sourceIndex;
+            Iterator<ConditionMemory.MemoryEntry> entries = step.entries(scopes[sourceIndex]);
+            while (entries.hasNext()) {
+                sourceValueChanged(entries.next(), sourceIndex);
+                join(plan, stepIndex + 1, scopes, saveDestination);
+            }
+        }
+    }
+
+    private boolean hasEmptySources(MemoryScope[] scopes) {
+        for (int i = 0; i < scopes.length; i++) {
+            if (!sourceNodes[i].iterator(scopes[i]).hasNext()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int firstDeltaSource(MemoryScope[] scopes) {
+        for (int i = 0; i < scopes.length; i++) {
+            if (scopes[i] == MemoryScope.DELTA) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Collects relations between facts that come from different source nodes.
+     *
+     * @return relations that can be used to join source nodes
+     */
+    private List<JoinRelation> joinRelations() {
+        List<JoinRelation> result = new ArrayList<>();
+        for (ResolvedEvaluatorComponent component : evaluator.components) {
+            for (ArgumentRelation relation : component.condition.getRelations()) {
+                ReteKnowledgeEvaluator.Coordinate left = component.coordinates[relation.left];
+                ReteKnowledgeEvaluator.Coordinate right = component.coordinates[relation.right];
+                if (factSources[left.inNodeIdx] != factSources[right.inNodeIdx]) {
+                    result.add(new JoinRelation(left, right, relation.operator));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a join plan that starts with the provided source node. Each subsequent step picks the source
+     * that has the most equalities with the sources visited so far, and if there are none, the source
+     * that has the most comparison relations with them.
+     *
+     * @param first     the index of the first source node
+     * @param relations relations between source nodes
+     * @return join plan
+     */
+    private JoinStep[] createJoinPlan(int first, List<JoinRelation> relations) {
+        JoinStep[] plan = new JoinStep[sourceNodes.length];
+        boolean[] visited = new boolean[sourceNodes.length];
+        plan[0] = new JoinStep(first);
+        visited[first] = true;
+
+        for (int stepIndex = 1; stepIndex < plan.length; stepIndex++) {
+            int next = -1;
+            int nextEqualities = -1;
+            int nextComparisons = -1;
+            for (int sourceIndex = 0; sourceIndex < sourceNodes.length; sourceIndex++) {
+                if (!visited[sourceIndex]) {
+                    int equalities = 0;
+                    int comparisons = 0;
+                    for (JoinRelation relation : relations) {
+                        if (relation.joins(sourceIndex, visited)) {
+                            if (relation.operator == ArgumentRelation.Operator.EQUALS) {
+                                equalities++;
+                            } else {
+                                comparisons++;
+                            }
+                        }
+                    }
+                    if (equalities > nextEqualities || (equalities == nextEqualities && comparisons > nextComparisons)) {
+                        next = sourceIndex;
+                        nextEqualities = equalities;
+                        nextComparisons = comparisons;
+                    }
+                }
+            }
+
+            if (nextEqualities > 0) {
+                plan[stepIndex] = createHashJoinStep(next, nextEqualities, relations, visited);
+            } else if (nextComparisons > 0) {
+                plan[stepIndex] = createRangeJoinStep(next, relations, visited);
+            } else {
+                plan[stepIndex] = new JoinStep(next);
+            }
+            visited[next] = true;
+        }
+        LOGGER.fine(() -> "Node " + this.debugName() + " join plan: " + Arrays.toString(plan));
+        return plan;
+    }
+
+    private JoinStep createHashJoinStep(int sourceIndex, int equalities, List<JoinRelation> relations, boolean[] visited) {
+        int[] ownPositions = new int[equalities];
+        int[] ownFields = new int[equalities];
+        int[] probePositions = new int[equalities];
+        int[] probeFields = new int[equalities];
+        int i = 0;
+        for (JoinRelation relation : relations) {
+            if (relation.operator == ArgumentRelation.Operator.EQUALS && relation.joins(sourceIndex, visited)) {
+                ReteKnowledgeEvaluator.Coordinate own = relation.own(sourceIndex);
+                ReteKnowledgeEvaluator.Coordinate partner = relation.partner(sourceIndex);
+                ownPositions[i] = factInSourcePositions[own.inNodeIdx];
+                ownFields[i] = own.fieldIdx;
+                probePositions[i] = partner.inNodeIdx;
+                probeFields[i] = partner.fieldIdx;
+                i++;
+            }
+        }
+        return new HashJoinStep(
+                sourceIndex,
+                sourceNodes[sourceIndex].indexedMemory(new IndexedFields(ownPositions, ownFields)),
+                new IndexedFields(probePositions, probeFields)
         );
+    }
 
-        // 3. Evaluate the node's condition and save to the destination storage
-        sourceCombinations.forEachRemaining(ignored -> evaluateAndSave(saveDestination));
-        LOGGER.fine(()->"Node " + this.debugName() + " has finished computing its delta memory. New delta memory size: " + this.betaMemory.size(MemoryScope.DELTA) + ", main memory size: " + this.betaMemory.size(MemoryScope.MAIN));
+    private JoinStep createRangeJoinStep(int sourceIndex, List<JoinRelation> relations, boolean[] visited) {
+        // The range is built for a single field of the source, bounded by at most one
+        // lower and one upper value of the visited facts.
+        ReteKnowledgeEvaluator.Coordinate own = null;
+        JoinRelation lower = null;
+        JoinRelation upper = null;
+        for (JoinRelation relation : relations) {
+            if (relation.operator != ArgumentRelation.Operator.EQUALS && relation.joins(sourceIndex, visited)) {
+                ReteKnowledgeEvaluator.Coordinate c = relation.own(sourceIndex);
+                if (own == null) {
+                    own = c;
+                } else if (own.inNodeIdx != c.inNodeIdx || own.fieldIdx != c.fieldIdx) {
+                    continue;
+                }
 
+                ArgumentRelation.Operator operator = relation.operator(sourceIndex);
+                boolean isLowerBound = operator == ArgumentRelation.Operator.GREATER || operator == ArgumentRelation.Operator.GREATER_OR_EQUAL;
+                if (isLowerBound && lower == null) {
+                    lower = relation;
+                } else if (!isLowerBound && upper == null) {
+                    upper = relation;
+                }
+            }
+        }
+        assert own != null;
+        return new RangeJoinStep(
+                sourceIndex,
+                sourceNodes[sourceIndex].indexedMemory(new IndexedFields(factInSourcePositions[own.inNodeIdx], own.fieldIdx, true)),
+                lower,
+                upper
+        );
     }
 
     private void evaluateAndSave(MemoryScope saveDestination) {
         if (evaluator.test()) {
-            ConditionMemory.ScopedValueId[] ids = new ConditionMemory.ScopedValueId[currentFieldValues.length];
-            for (int i = 0; i < ids.length; i++) {
-                ids[i] = new ConditionMemory.ScopedValueId(currentFieldValues[i].valuesId, currentFieldValues[i].scope) ;
+            for (int i = 0; i < currentFieldValues.length; i++) {
+                entryValueIds[i] = currentFieldValues[i].valuesId;
+                entryScopes[i] = currentFieldValues[i].scope;
             }
-
-            ConditionMemory.MemoryEntry entry = new ConditionMemory.MemoryEntry(ids);
-            this.betaMemory.saveNewEntry(saveDestination, entry);
+            this.betaMemory.saveNewEntry(saveDestination, entryValueIds, entryScopes);
             LOGGER.finer(()->"Node " + this.debugName() + ", new delta entry: " + Arrays.toString(this.currentFieldValues) + ". Delta memory size: " + this.betaMemory.size(MemoryScope.DELTA));
         }
     }
@@ -170,17 +457,18 @@ public class ReteSessionConditionNode extends ReteSessionNode {
      * @param sourceIndex the index of the source node
      */
     private void sourceValueChanged(ConditionMemory.MemoryEntry memoryEntry, int sourceIndex) {
-        ConditionMemory.ScopedValueId[] valueIds = memoryEntry.getScopedValueIds();
-        for (int i = 0; i < valueIds.length; i++) {
+        int size = memoryEntry.size();
+        for (int i = 0; i < size; i++) {
             int pos = location(sourceIndex, i);
-            long newValuesId = valueIds[i].getValueId();
-            MemoryScope newScope = valueIds[i].getScope();
+            long newValuesId = memoryEntry.valueId(i);
+            MemoryScope newScope = memoryEntry.scope(i);
 
             FieldValuesMeta localVal = currentFieldValues[pos];
             if(localVal == null || localVal.valuesId != newValuesId || localVal.scope != newScope) {
                 // We need to read or update cached values
                 FactFieldValues fieldValues = nodeTypeMemories[pos].readFieldValues(newValuesId);
                 currentFieldValues[pos] = new FieldValuesMeta(fieldValues, newValuesId, newScope);
+                currentValueArray[pos] = fieldValues;
             }
         }
     }
@@ -191,22 +479,45 @@ public class ReteSessionConditionNode extends ReteSessionNode {
         return this.betaMemory.iterator(scope);
     }
 
+    @Override
+    IndexedMemory indexedMemory(IndexedFields fields) {
+        return this.betaMemory.getCreateIndex(
+                fields,
+                (scope, entry) -> fields.keyOf(position -> nodeTypeMemories[position].readFieldValues(entry.valueId(position)))
+        );
+    }
+
     /**
-     * Returns an iterator over computed memory entries.
+     * Returns an iterator over computed memory entries. The returned entries are only valid until
+     * the next call of the iterator's <code>next()</code> method.
      *
      * @param scope the requested inner memory scope
-     * @return an iterator over arrays of {@link ConditionMemory.ScopedValueId} values
+     * @return an iterator over memory entries
      */
-    public Iterator<ConditionMemory.ScopedValueId[]> memoryIterator(MemoryScope scope) {
-        return new MappingIterator<>(iterator(scope), ConditionMemory.MemoryEntry::scopedValues);
+    public Iterator<ConditionMemory.MemoryEntry> memoryIterator(MemoryScope scope) {
+        return iterator(scope);
     }
 
-    public void commit() {
+    public synchronized void commit() {
         this.betaMemory.commit();
+        this.deltaComputation = null;
+        this.live = true;
+    }
+
+    public synchronized void clearMemories() {
+        this.betaMemory.clear();
+        this.deltaComputation = null;
     }
 
-    public void clearMemories() {
+    /**
+     * Unlinks the node from its sources. Unlinked nodes are not kept in sync with their sources, so their
+     * memories are released and rebuilt in the {@link DeltaMemoryMode#HOT_DEPLOYMENT} mode once
+     * the node is needed again.
+     */
+    public synchronized void unlink() {
         this.betaMemory.clear();
+        this.deltaComputation = null;
+        this.live = false;
     }
 
     @Override
@@ -218,41 +529,184 @@ public class ReteSessionConditionNode extends ReteSessionNode {
                 '}';
     }
 
-    private static class ListeningCombinationIterator extends CombinationIterator<ConditionMemory.MemoryEntry> {
-        private final ObjIntConsumer<ConditionMemory.MemoryEntry> listener;
+    /**
+     * A single step of a join plan, the default implementation scans the source node's memory in full
+     */
+    private class JoinStep {
+        final int sourceIndex;
+
+        JoinStep(int sourceIndex) {
+            this.sourceIndex = sourceIndex;
+        }
 
-        public ListeningCombinationIterator(ConditionMemory.MemoryEntry[] sharedResultArray, IntFunction<Iterator<ConditionMemory.MemoryEntry>> iteratorFunction, ObjIntConsumer<ConditionMemory.MemoryEntry> listener) {
-            super(sharedResultArray, iteratorFunction);
-            this.listener = listener;
+        Iterator<ConditionMemory.MemoryEntry> entries(MemoryScope scope) {
+            return sourceNodes[sourceIndex].iterator(scope);
         }
 
         @Override
-        protected ConditionMemory.MemoryEntry advanceIterator(int sourceIndex) {
-            ConditionMemory.MemoryEntry entry = super.advanceIterator(sourceIndex);
-            listener.accept(entry, sourceIndex);
-            return entry;
+        public String toString() {
+            return "{source=" + sourceIndex + "}";
+        }
+    }
+
+    /**
+     * A join step that looks up source entries with field values equal to those of already visited facts
+     */
+    private class HashJoinStep extends JoinStep {
+        private final IndexedMemory indexedMemory;
+        private final IndexedFields probeFields;
+
+        HashJoinStep(int sourceIndex, IndexedMemory indexedMemory, IndexedFields probeFields) {
+            super(sourceIndex);
+            this.indexedMemory = indexedMemory;
+            this.probeFields = probeFields;
+        }
+
+        @Override
+        Iterator<ConditionMemory.MemoryEntry> entries(MemoryScope scope) {
+            return indexedMemory.iterator(scope, probeFields.keyOf(currentValues));
+        }
+
+        @Override
+        public String toString() {
+            return "{source=" + sourceIndex + ", key=" + probeFields + "}";
+        }
+    }
+
+    /**
+     * A join step that scans the range of source entries bounded by field values of already visited facts
+     */
+    private class RangeJoinStep extends JoinStep {
+        private final IndexedMemory indexedMemory;
+        private final IndexedFields lowerProbe;
+        private final boolean lowerInclusive;
+        private final IndexedFields upperProbe;
+        private final boolean upperInclusive;
+
+        RangeJoinStep(int sourceIndex, IndexedMemory indexedMemory, JoinRelation lower, JoinRelation upper) {
+            super(sourceIndex);
+            this.indexedMemory = indexedMemory;
+            if (lower == null) {
+                this.lowerProbe = null;
+                this.lowerInclusive = false;
+            } else {
+                ReteKnowledgeEvaluator.Coordinate partner = lower.partner(sourceIndex);
+                this.lowerProbe = new IndexedFields(partner.inNodeIdx, partner.fieldIdx, true);
+                this.lowerInclusive = lower.operator(sourceIndex) == ArgumentRelation.Operator.GREATER_OR_EQUAL;
+            }
+            if (upper == null) {
+                this.upperProbe = null;
+                this.upperInclusive = false;
+            } else {
+                ReteKnowledgeEvaluator.Coordinate partner = upper.partner(sourceIndex);
+                this.upperProbe = new IndexedFields(partner.inNodeIdx, partner.fieldIdx, true);
+                this.upperInclusive = upper.operator(sourceIndex) == ArgumentRelation.Operator.LESS_OR_EQUAL;
+            }
+        }
+
+        @Override
+        Iterator<ConditionMemory.MemoryEntry> entries(MemoryScope scope) {
+            RangeIndex.Range range = new RangeIndex.Range(
+                    lowerProbe == null ? null : lowerProbe.keyOf(currentValues),
+                    lowerInclusive,
+                    upperProbe == null ? null : upperProbe.keyOf(currentValues),
+                    upperInclusive
+            );
+            return indexedMemory.iterator(scope, range);
+        }
+
+        @Override
+        public String toString() {
+            return "{source=" + sourceIndex +
+                    ", lower=" + (lowerProbe == null ? "none" : (lowerInclusive ? "[" : "(") + lowerProbe) +
+                    ", upper=" + (upperProbe == null ? "none" : upperProbe + (upperInclusive ? "]" : ")")) +
+                    "}";
+        }
+    }
+
+    private class JoinRelation {
+        final ReteKnowledgeEvaluator.Coordinate left;
+        final ReteKnowledgeEvaluator.Coordinate right;
+        final ArgumentRelation.Operator operator;
+
+        JoinRelation(ReteKnowledgeEvaluator.Coordinate left, ReteKnowledgeEvaluator.Coordinate right, ArgumentRelation.Operator operator) {
+            this.left = left;
+            this.right = right;
+            this.operator = operator;
+        }
+
+        /**
+         * @return true if this relation links the given source node with one of the visited source nodes
+         */
+        boolean joins(int sourceIndex, boolean[] visited) {
+            int leftSource = factSources[left.inNodeIdx];
+            int rightSource = factSources[right.inNodeIdx];
+            return (leftSource == sourceIndex && visited[rightSource]) || (rightSource == sourceIndex && visited[leftSource]);
+        }
+
+        ReteKnowledgeEvaluator.Coordinate own(int sourceIndex) {
+            return factSources[left.inNodeIdx] == sourceIndex ? left : right;
+        }
+
+        ReteKnowledgeEvaluator.Coordinate partner(int sourceIndex) {
+            return factSources[left.inNodeIdx] == sourceIndex ? right : left;
+        }
+
+        /**
+         * @return the relation's operator as seen from the given source node's side
+         */
+        ArgumentRelation.Operator operator(int sourceIndex) {
+            return factSources[left.inNodeIdx] == sourceIndex ? operator : operator.swapped();
         }
     }
 
     private class ResolvedEvaluator {
         private final ResolvedEvaluatorComponent[] components;
+        private final ReteKnowledgeEvaluator knowledgeEvaluator;
+        private final AbstractRuleSessionBase<?> session;
+        private final StoredCondition[] conditions;
+        private FusedEvaluator fused;
+        private long evaluationCount;
 
         ResolvedEvaluator(AbstractRuleSessionBase<?> session, ReteKnowledgeEvaluator evaluator) {
+            this.knowledgeEvaluator = evaluator;
+            this.session = session;
             // Converting evaluator handles to actual evaluators
             ReteKnowledgeEvaluator.Component[] componentDescriptors = evaluator.getComponents();
             this.components = new ResolvedEvaluatorComponent[componentDescriptors.length];
             for (int i = 0; i < componentDescriptors.length; i++) {
                 this.components[i] = new ResolvedEvaluatorComponent(session, componentDescriptors[i]);
             }
+            this.conditions = new StoredCondition[components.length];
         }
 
         void refreshConditions() {
-            for (ResolvedEvaluatorComponent component : components ){
-                component.refreshCondition();
+            for (int i = 0; i < components.length; i++) {
+                conditions[i] = components[i].refreshCondition();
+            }
+
+            // The fused evaluator is compiled in the background and is valid only for the current conditions
+            this.fused = knowledgeEvaluator.getFusedEvaluator(conditions);
+            if (fused == null && evaluationCount >= FUSED_EVALUATOR_THRESHOLD) {
+                knowledgeEvaluator.requestFusedEvaluator(session.getService().getSourceCompilerProvider(), session.getConfiguration(), getExecutor(), conditions);
             }
         }
 
         boolean test() {
+            evaluationCount++;
+            FusedEvaluator f = this.fused;
+            if (f != null) {
+                try {
+                    return f.test(currentValueArray);
+                } catch (RuntimeException e) {
+                    // Falling back to component evaluation, which reports the failing condition
+                    LOGGER.log(Level.FINE, e, () -> "Fused evaluation failed at node " + debugName());
+                }
+            }
+            return testComponents();
+        }
+
+        private boolean testComponents() {
             for(ResolvedEvaluatorComponent component : components) {
                 if(!component.test()) {
                     return false;
@@ -272,6 +726,7 @@ public class ReteSessionConditionNode extends ReteSessionNode {
         StoredCondition condition;
         final AbstractRuleSessionBase<?> session;
         final DefaultEvaluatorHandle evaluatorHandle;
+        final ReteKnowledgeEvaluator.Coordinate[] coordinates;
 
         ResolvedEvaluatorComponent(AbstractRuleSessionBase<?> session, ReteKnowledgeEvaluator.Component component) {
             this.session = session;
@@ -279,6 +734,7 @@ public class ReteSessionConditionNode extends ReteSessionNode {
             this.condition = refreshCondition();
 
             final ReteKnowledgeEvaluator.Coordinate[] coordinates = component.getCoordinates();
+            this.coordinates = coordinates;
 
             this.values = argIndex -> {
                 ReteKnowledgeEvaluator.Coordinate c = coordinates[argIndex];
@@ -5,6 +5,7 @@ import org.evrete.runtime.*;
 import org.evrete.util.MappingIterator;
 
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.concurrent.CompletableFuture;
 
 public class ReteSessionEntryNode extends ReteSessionNode {
@@ -49,6 +50,34 @@ public class ReteSessionEntryNode extends ReteSessionNode {
         );
     }
 
+    @Override
+    public long size(MemoryScope scope) {
+        return alphaMemory().keyCount(scope);
+    }
+
+    @Override
+    IndexedMemory indexedMemory(IndexedFields fields) {
+        TypeMemory typeMemory = memory.getTypeMemory(getNodeFactTypes()[0]);
+        MemoryIndex index = alphaMemory().getCreateIndex(
+                fields,
+                (scope, valuesId) -> fields.keyOf(position -> typeMemory.readFieldValues(valuesId))
+        );
+        return (scope, lookup) -> {
+            PrimitiveIterator.OfLong valueIds = index.iterator(scope, lookup);
+            return new Iterator<ConditionMemory.MemoryEntry>() {
+                @Override
+                public boolean hasNext() {
+                    return valueIds.hasNext();
+                }
+
+                @Override
+                public ConditionMemory.MemoryEntry next() {
+                    return ConditionMemory.MemoryEntry.fromEntryNode(valueIds.nextLong(), scope);
+                }
+            };
+        };
+    }
+
     @Override
     public String toString() {
         return "{" +
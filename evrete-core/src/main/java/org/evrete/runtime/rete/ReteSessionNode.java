@@ -60,4 +60,35 @@ public abstract class ReteSessionNode extends ReteNode<ReteSessionNode> {
 
     abstract Iterator<ConditionMemory.MemoryEntry> iterator(MemoryScope scope);
 
+    /**
+     * Returns the number of entries in the node's memory. Entry nodes count their alpha memory keys,
+     * so the call's cost is proportional to the memory size.
+     *
+     * @param scope the memory scope
+     * @return the number of memory entries
+     */
+    public abstract long size(MemoryScope scope);
+
+    /**
+     * Returns an index of the node's memory. The index's keys are formed by the values of the provided fields,
+     * where fact positions refer to this node's {@link #getNodeFactTypes()} array.
+     *
+     * @param fields the index key definition
+     * @return indexed view of the node's memory
+     */
+    abstract IndexedMemory indexedMemory(IndexedFields fields);
+
+    /**
+     * An indexed view of a node's memory
+     */
+    interface IndexedMemory {
+        /**
+         * @param scope  the memory scope
+         * @param lookup index key (see {@link IndexedFields#keyOf(java.util.function.IntFunction)}) or key range
+         *               for sorted indexes
+         * @return an iterator over matching memory entries
+         */
+        Iterator<ConditionMemory.MemoryEntry> iterator(MemoryScope scope, Object lookup);
+    }
+
 }
@@ -0,0 +1,81 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.runtime.AbstractRuleSessionBase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Session-level registry of Rete condition nodes. Rules whose condition graphs contain structurally
+ * identical nodes (see {@link ReteNodeKey}) share the same session node and, consequently, the same
+ * beta memory.
+ * </p>
+ * <p>
+ * Because a shared node can be requested by several fact groups, the registry also counts delta
+ * computation cycles. Within a cycle, each node computes its delta memory only once.
+ * </p>
+ */
+public class ReteSessionNodes {
+    private final Map<ReteNodeKey, ReteSessionConditionNode> conditionNodes = new HashMap<>();
+    private final AtomicInteger computeCycle = new AtomicInteger();
+
+    /**
+     * Returns the session node for the provided knowledge-level node, creating a new one if this
+     * session has no structurally identical node yet.
+     *
+     * @param session       the session
+     * @param sourceNodes   the session node's sources, used if a new node is created
+     * @param knowledgeNode the knowledge-level node
+     * @return new or existing session node
+     */
+    public synchronized ReteSessionConditionNode getCreateConditionNode(AbstractRuleSessionBase<?> session, ReteSessionNode[] sourceNodes, ReteKnowledgeConditionNode knowledgeNode) {
+        ReteSessionConditionNode node = conditionNodes.computeIfAbsent(
+                knowledgeNode.getKey(),
+                k -> new ReteSessionConditionNode(session, this, sourceNodes, knowledgeNode)
+        );
+        node.references++;
+        return node;
+    }
+
+    /**
+     * Releases a node previously obtained via the
+     * {@link #getCreateConditionNode(AbstractRuleSessionBase, ReteSessionNode[], ReteKnowledgeConditionNode)} method.
+     * Once a node is released by all its users, it is removed from the registry, and its memory is no longer
+     * kept up-to-date.
+     *
+     * @param node the node to release
+     */
+    public synchronized void release(ReteSessionConditionNode node) {
+        if (--node.references == 0) {
+            conditionNodes.remove(node.getKey());
+        }
+    }
+
+    /**
+     * Starts a new delta computation cycle. Must be called before fact groups start computing
+     * their delta memories.
+     */
+    public void newComputeCycle() {
+        computeCycle.incrementAndGet();
+    }
+
+    int computeCycle() {
+        return computeCycle.get();
+    }
+
+    /**
+     * Performs the given action for each registered condition node.
+     *
+     * @param action the action
+     */
+    public synchronized void forEachConditionNode(Consumer<ReteSessionConditionNode> action) {
+        conditionNodes.values().forEach(action);
+    }
+
+    public synchronized int size() {
+        return conditionNodes.size();
+    }
+}
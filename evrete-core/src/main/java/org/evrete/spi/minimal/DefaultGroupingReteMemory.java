@@ -7,15 +7,51 @@ import org.evrete.api.spi.MemoryScope;
 import java.util.*;
 import java.util.stream.Stream;
 
+/**
+ * <p>
+ * The default alpha memory. Commits merge the delta memory into the main one in place, so their cost
+ * is proportional to the size of the delta, not to the size of the whole memory.
+ * </p>
+ * <p>
+ * Both memories are {@link LongMultiMap} instances that store keys as primitives and the common
+ * one-value-per-key case without any per-entry objects.
+ * </p>
+ * <p>
+ * Values are kept as references rather than as primitive identifiers. Alpha memories store fact handles,
+ * which are already retained by the type's fact storage, so a reference adds no object to the heap and
+ * takes no more space than a <code>long</code> identifier would. Storing identifiers instead would also
+ * require re-creating a handle on every read.
+ * </p>
+ * <p>
+ * Hash tables don't shrink, and their scan performance is proportional to their capacity
+ * rather than to their size. The main memory is therefore re-created once its size falls below
+ * <code>1 / {@value #COMPACTION_RATIO}</code> of its peak size since the last re-creation, which keeps
+ * the amortized cost of a delete constant. Large delta memories are replaced instead of being cleared
+ * for the same reason.
+ * </p>
+ * <p>
+ * The maps' tables are split into lock stripes, so that inserts and deletes can run in parallel
+ * without a memory-wide lock.
+ * </p>
+ *
+ * @param <V> value type
+ */
 public class DefaultGroupingReteMemory<V> implements GroupingReteMemory<V> {
-    private MemoryImpl<V> main = new MemoryImpl<>();
-    private MemoryImpl<V> delta = new MemoryImpl<>();
-
-    MemoryImpl<V> getMain() {
+    static final int COMPACTION_RATIO = 4;
+    /**
+     * Memories smaller than this value are neither compacted nor replaced
+     */
+    static final int COMPACTION_MIN_SIZE = 1024;
+    private LongMultiMap<V> main = new LongMultiMap<>();
+    private LongMultiMap<V> delta = new LongMultiMap<>();
+    // Peak size of the main memory since its last re-creation
+    private int mainPeakSize;
+
+    LongMultiMap<V> getMain() {
         return main;
     }
 
-    MemoryImpl<V> getDelta() {
+    LongMultiMap<V> getDelta() {
         return delta;
     }
 
@@ -31,22 +67,32 @@ public class DefaultGroupingReteMemory<V> implements GroupingReteMemory<V> {
         delta.delete(key, value);
     }
 
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
     @Override
     public void commit() {
-        if(!delta.isEmpty()) {
-            // We create new instances as Java Hash collections don't shrink and their scan performance
-            // degrades over time
-            this.main = main.copy();
-            this.delta.forEach((key, value) -> {
-                // Main memory's keys are always have the MAIN scope
-                main.computeIfAbsent(
-                        key,
-                        o -> new ValueCollection<>()
-                ).addAll(value);
-            });
+        if (!delta.isEmpty()) {
+            // Merging the delta memory into the main one. The delta memory is discarded afterward,
+            // so its value sets can be moved rather than copied.
+            this.delta.moveTo(main);
 
             // Clearing the delta memory
-            this.delta = new MemoryImpl<>();
+            if (delta.size() > COMPACTION_MIN_SIZE) {
+                this.delta = new LongMultiMap<>();
+            } else {
+                this.delta.clear();
+            }
+        }
+
+        int mainSize = main.size();
+        if (mainSize > mainPeakSize) {
+            this.mainPeakSize = mainSize;
+        } else if (mainPeakSize > COMPACTION_MIN_SIZE && mainSize < mainPeakSize / COMPACTION_RATIO) {
+            this.main = main.copy();
+            this.mainPeakSize = mainSize;
         }
     }
 
@@ -54,9 +100,21 @@ public class DefaultGroupingReteMemory<V> implements GroupingReteMemory<V> {
     public Iterator<Long> iterator(MemoryScope scope) {
         switch (scope) {
             case MAIN:
-                return main.keySet().iterator();
+                return main.keys();
             case DELTA:
-                return delta.keySet().iterator();
+                return delta.keys();
+            default:
+                throw new IllegalStateException("Unknown scope " + scope);
+        }
+    }
+
+    @Override
+    public long keyCount(MemoryScope scope) {
+        switch (scope) {
+            case MAIN:
+                return main.size();
+            case DELTA:
+                return delta.size();
             default:
                 throw new IllegalStateException("Unknown scope " + scope);
         }
@@ -78,9 +136,9 @@ public class DefaultGroupingReteMemory<V> implements GroupingReteMemory<V> {
     public Stream<Long> stream(MemoryScope scope) {
         switch (scope) {
             case MAIN:
-                return main.keySet().stream();
+                return main.keyStream();
             case DELTA:
-                return delta.keySet().stream();
+                return delta.keyStream();
             default:
                 throw new IllegalStateException("Unknown scope " + scope);
         }
@@ -100,8 +158,9 @@ public class DefaultGroupingReteMemory<V> implements GroupingReteMemory<V> {
 
     @Override
     public void clear() {
-        this.main.clear();
-        this.delta.clear();
+        this.main = new LongMultiMap<>();
+        this.delta = new LongMultiMap<>();
+        this.mainPeakSize = 0;
     }
 
     @Override
@@ -110,97 +169,4 @@ public class DefaultGroupingReteMemory<V> implements GroupingReteMemory<V> {
                 ", delta=" + delta.size() +
                 '}';
     }
-
-    static class MemoryImpl<V> extends HashMap<Long, ValueCollection<V>> {
-
-        MemoryImpl() {
-        }
-
-        private MemoryImpl(MemoryImpl<V> m) {
-            super(m);
-        }
-
-        synchronized void insert(long key, V value) {
-            computeIfAbsent(
-                    key,
-                    k -> new ValueCollection<>()
-            ).add(value);
-        }
-
-        synchronized void delete(long key, V value) {
-            ValueCollection<V> v = get(key);
-            if(v != null) {
-                v.remove(value);
-                if(v.isEmpty()) {
-                    remove(key);
-                }
-            }
-        }
-
-        synchronized MemoryImpl<V> copy() {
-            return new MemoryImpl<>(this);
-        }
-
-        Iterator<V> values(Object key) {
-            ValueCollection<V> collection = get(key);
-            if (collection == null || collection.isEmpty()) {
-                return Collections.emptyIterator();
-            } else {
-                return collection.iterator();
-            }
-        }
-
-        Stream<V> stream(Object key) {
-            ValueCollection<V> collection = get(key);
-            if (collection == null || collection.isEmpty()) {
-                return Stream.empty();
-            } else {
-                return collection.stream();
-            }
-        }
-    }
-
-
-    static class ValueCollection<V> {
-        private final LinkedHashSet<V> delegate;
-
-        ValueCollection(LinkedHashSet<V> delegate) {
-            this.delegate = delegate;
-        }
-
-        void addAll(ValueCollection<V> other) {
-            if (other != null) {
-                this.delegate.addAll(other.delegate);
-            }
-        }
-
-        void remove(V value) {
-            this.delegate.remove(value);
-        }
-
-        public Stream<V> stream() {
-            return delegate.stream();
-        }
-
-        public Iterator<V> iterator() {
-            return delegate.iterator();
-        }
-
-        public boolean isEmpty() {
-            return delegate.isEmpty();
-        }
-
-        void add(V value) {
-            this.delegate.add(value);
-        }
-
-        ValueCollection() {
-            this(new LinkedHashSet<>());
-        }
-
-        @Override
-        public String toString() {
-            return delegate.toString();
-        }
-    }
 }
@@ -1,9 +1,12 @@
 package org.evrete.spi.minimal;
 
+import org.evrete.Configuration;
 import org.evrete.api.spi.SourceCompiler;
 import org.evrete.api.spi.SourceCompilerProvider;
 import org.evrete.spi.minimal.compiler.DefaultSourceCompiler;
 
+import java.nio.file.Paths;
+
 public class DefaultSourceCompilerProvider implements SourceCompilerProvider {
 
     @Override
@@ -11,6 +14,22 @@ public class DefaultSourceCompilerProvider implements SourceCompilerProvider {
         return new DefaultSourceCompiler(classLoader);
     }
 
+    @Override
+    public SourceCompiler instance(Configuration configuration, ClassLoader classLoader) {
+        String cacheDirectory = property(configuration, Configuration.COMPILER_CACHE_DIRECTORY);
+        String precompiledResources = property(configuration, Configuration.COMPILER_PRECOMPILED_RESOURCES);
+        if (cacheDirectory == null && precompiledResources == null) {
+            return instance(classLoader);
+        } else {
+            return new DefaultSourceCompiler(classLoader, cacheDirectory == null ? null : Paths.get(cacheDirectory), precompiledResources);
+        }
+    }
+
+    private static String property(Configuration configuration, String name) {
+        String value = configuration.getProperty(name);
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
     @Override
     public int sortOrder() {
         return Integer.MAX_VALUE;
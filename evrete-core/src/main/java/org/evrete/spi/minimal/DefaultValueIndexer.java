@@ -5,22 +5,53 @@ import org.evrete.api.annotations.Nullable;
 import org.evrete.api.spi.ValueIndexer;
 import org.evrete.collections.LongKeyMap;
 
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * <p>
+ * The default value indexer. Each value has a reference counter, and values whose counters drop to zero
+ * (or which are never retained at all) are deleted by {@link #reclaim()}. Reclamation is epoch-based:
+ * every call of {@link #reclaim()} starts a new epoch, and a value is deleted only if it hasn't been
+ * looked up or assigned since the previous call, so that identifiers which have just been returned
+ * to the engine, but not yet retained, stay valid.
+ * </p>
+ *
+ * @param <T> value type
+ */
 public class DefaultValueIndexer<T> implements ValueIndexer<T> {
     private final ConcurrentHashMap<T, Long> valueToLong = new ConcurrentHashMap<>();
     private final LongKeyMap<T> longToValue = new LongKeyMap<>();
+    private final LongKeyMap<References> references = new LongKeyMap<>();
     private final AtomicLong counter = new AtomicLong();
+    private final AtomicInteger epoch = new AtomicInteger();
+    // Identifiers whose reference counters have dropped to zero, guarded by the instance's monitor
+    private long[] released = new long[16];
+    private int releasedCount;
 
     @Override
     public long getOrCreateId(@NonNull T value) {
-        return valueToLong.computeIfAbsent(value, k -> {
-            long id = counter.getAndIncrement();
-            if(longToValue.put(id, value) == null) {
-                return id;
+        // Unlike computeIfAbsent(), compute() always locks the value's bin, which makes
+        // the lookup atomic with respect to reclamation
+        return valueToLong.compute(value, (k, existing) -> {
+            if (existing == null) {
+                long id = counter.getAndIncrement();
+                if (longToValue.put(id, value) == null) {
+                    references.put(id, new References(epoch.get()));
+                    // The engine may drop the value without retaining it
+                    enqueue(id);
+                    return id;
+                } else {
+                    throw new IllegalStateException("Value already exists: " + value + " : " + valueToLong + " : " + longToValue);
+                }
             } else {
-                throw new IllegalStateException("Value already exists: " + value + " : " + valueToLong + " : " + longToValue);
+                References refs = references.get(existing);
+                if (refs != null) {
+                    refs.lastUsed = epoch.get();
+                }
+                return existing;
             }
         });
     }
@@ -33,11 +64,12 @@ public class DefaultValueIndexer<T> implements ValueIndexer<T> {
 
     @Nullable
     @Override
-    //TODO review usage, it must be used
     public synchronized T delete(long id) {
-        T found = longToValue.remove(id);
-        if(found != null) {
+        T found = longToValue.get(id);
+        if (found != null) {
             valueToLong.remove(found, id);
+            references.remove(id);
+            longToValue.remove(id);
         }
         return found;
     }
@@ -47,15 +79,83 @@ public class DefaultValueIndexer<T> implements ValueIndexer<T> {
         synchronized (this) {
             longToValue.put(id, value);
             valueToLong.put(value, id);
+            references.getOrCreate(id, () -> new References(epoch.get())).lastUsed = epoch.get();
             // Making sure the counter is properly advanced
             this.counter.updateAndGet(operand -> Math.max(operand, id + 1));
         }
     }
 
     @Override
-    public void clear() {
+    public void retain(long id) {
+        References refs = references.get(id);
+        if (refs != null) {
+            refs.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void release(long id) {
+        References refs = references.get(id);
+        if (refs != null && refs.decrementAndGet() == 0) {
+            enqueue(id);
+        }
+    }
+
+    private synchronized void enqueue(long id) {
+        if (releasedCount == released.length) {
+            released = Arrays.copyOf(released, releasedCount * 2);
+        }
+        released[releasedCount++] = id;
+    }
+
+    @Override
+    public void reclaim() {
+        int current = epoch.getAndIncrement();
+        long[] candidates;
+        int candidateCount;
+        synchronized (this) {
+            if (releasedCount == 0) {
+                return;
+            }
+            candidates = released;
+            candidateCount = releasedCount;
+            this.released = new long[16];
+            this.releasedCount = 0;
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            long id = candidates[i];
+            References refs = references.get(id);
+            T value = longToValue.get(id);
+            if (refs == null || value == null || refs.get() > 0) {
+                // Already deleted or referenced again
+                continue;
+            }
+            boolean[] deleted = {false};
+            valueToLong.computeIfPresent(value, (k, existing) -> {
+                if (existing == id && refs.get() == 0 && refs.lastUsed < current) {
+                    references.remove(id);
+                    longToValue.remove(id);
+                    deleted[0] = true;
+                    return null;
+                } else {
+                    return existing;
+                }
+            });
+            if (!deleted[0] && refs.get() == 0) {
+                // Recently used, the value will be checked again
+                enqueue(id);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
         this.longToValue.clear();
         this.valueToLong.clear();
+        this.references.clear();
+        this.released = new long[16];
+        this.releasedCount = 0;
         this.counter.set(0);
     }
 
@@ -70,4 +170,16 @@ public class DefaultValueIndexer<T> implements ValueIndexer<T> {
     AtomicLong getCounter() {
         return counter;
     }
+
+    /**
+     * A value's reference counter and the epoch of its last lookup
+     */
+    private static final class References extends AtomicInteger {
+        private static final long serialVersionUID = 1L;
+        volatile int lastUsed;
+
+        References(int epoch) {
+            this.lastUsed = epoch;
+        }
+    }
 }
@@ -0,0 +1,536 @@
+package org.evrete.spi.minimal;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * A multimap with primitive <code>long</code> keys. Keys are stored in open-addressing tables with linear
+ * probing, and the tables are split into lock stripes, so that updates of different keys can run in parallel.
+ * </p>
+ * <p>
+ * The storage of a key's values depends on their count. A single value, which is the most common case, is stored
+ * in the key's slot as is. Small value sets are stored in arrays, larger ones in open-addressing hash sets.
+ * </p>
+ * <p>
+ * Only updates are thread-safe. Reads and iterations must not run concurrently with updates.
+ * </p>
+ *
+ * @param <V> value type
+ */
+final class LongMultiMap<V> {
+    static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    LongMultiMap() {
+        this(0);
+    }
+
+    private LongMultiMap(int expectedSize) {
+        int capacity = Stripe.capacityFor(expectedSize / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+    }
+
+    // Used in unit tests
+    static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+    }
+
+    void insert(long key, V value) {
+        long hash = hash(key);
+        stripe(hash).insert(key, hash, value);
+    }
+
+    void delete(long key, V value) {
+        long hash = hash(key);
+        stripe(hash).delete(key, hash, value);
+    }
+
+    /**
+     * Moves all the entries of this map to the target map. This map must be discarded or cleared afterward.
+     *
+     * @param target the target map
+     */
+    void moveTo(LongMultiMap<V> target) {
+        for (Stripe stripe : stripes) {
+            long[] keys = stripe.keys;
+            Object[] slots = stripe.slots;
+            for (int i = 0; i < slots.length; i++) {
+                Object slot = slots[i];
+                if (slot != null) {
+                    long key = keys[i];
+                    long hash = hash(key);
+                    target.stripe(hash).merge(key, hash, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new map with the entries of this one. The new map's tables are sized after the current
+     * number of keys. This map must be discarded afterward.
+     *
+     * @return new map
+     */
+    LongMultiMap<V> copy() {
+        LongMultiMap<V> copy = new LongMultiMap<>(size());
+        moveTo(copy);
+        return copy;
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * @return number of keys in the map
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Iterator<Long> keys() {
+        return new KeyIterator();
+    }
+
+    Stream<Long> keyStream() {
+        return StreamSupport.stream(
+                Spliterators.spliterator(keys(), size(), Spliterator.DISTINCT | Spliterator.NONNULL),
+                false
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    Iterator<V> values(long key) {
+        long hash = hash(key);
+        Object slot = stripe(hash).get(key, hash);
+        if (slot == null) {
+            return Collections.emptyIterator();
+        } else if (slot instanceof ValueSet) {
+            return (Iterator<V>) ((ValueSet) slot).iterator();
+        } else {
+            return Collections.singletonList((V) slot).iterator();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    Stream<V> stream(long key) {
+        long hash = hash(key);
+        Object slot = stripe(hash).get(key, hash);
+        if (slot == null) {
+            return Stream.empty();
+        } else if (slot instanceof ValueSet) {
+            ValueSet set = (ValueSet) slot;
+            return (Stream<V>) StreamSupport.stream(
+                    Spliterators.spliterator(set.iterator(), set.size, Spliterator.DISTINCT | Spliterator.NONNULL),
+                    false
+            );
+        } else {
+            return Stream.of((V) slot);
+        }
+    }
+
+    /**
+     * An open-addressing table of keys. A slot is either empty (<code>null</code>), a single value,
+     * or a {@link ValueSet}.
+     */
+    private static final class Stripe {
+        private static final int MIN_CAPACITY = 8;
+        private long[] keys;
+        private Object[] slots;
+        private int size;
+
+        Stripe(int capacity) {
+            this.keys = new long[capacity];
+            this.slots = new Object[capacity];
+        }
+
+        /**
+         * @return table capacity that keeps the load factor of the given number of keys below 2/3
+         */
+        static int capacityFor(int size) {
+            int capacity = MIN_CAPACITY;
+            while (capacity * 2 < size * 3) {
+                capacity <<= 1;
+            }
+            return capacity;
+        }
+
+        /**
+         * @return index of the key's slot, or <code>-(insertion point) - 1</code> if the key is not present
+         */
+        private static int find(long[] keys, Object[] slots, long key, long hash) {
+            int mask = slots.length - 1;
+            int i = (int) hash & mask;
+            while (slots[i] != null) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -i - 1;
+        }
+
+        Object get(long key, long hash) {
+            int i = find(keys, slots, key, hash);
+            return i < 0 ? null : slots[i];
+        }
+
+        synchronized void insert(long key, long hash, Object value) {
+            int i = find(keys, slots, key, hash);
+            if (i >= 0) {
+                slots[i] = ValueSet.add(slots[i], value);
+            } else {
+                put(-i - 1, key, value);
+            }
+        }
+
+        synchronized void merge(long key, long hash, Object slot) {
+            int i = find(keys, slots, key, hash);
+            if (i >= 0) {
+                slots[i] = ValueSet.addAll(slots[i], slot);
+            } else {
+                put(-i - 1, key, slot);
+            }
+        }
+
+        synchronized void delete(long key, long hash, Object value) {
+            int i = find(keys, slots, key, hash);
+            if (i >= 0) {
+                Object updated = ValueSet.remove(slots[i], value);
+                if (updated == null) {
+                    removeAt(i);
+                } else {
+                    slots[i] = updated;
+                }
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(slots, null);
+            this.size = 0;
+        }
+
+        private void put(int index, long key, Object slot) {
+            keys[index] = key;
+            slots[index] = slot;
+            if (++size * 3 > slots.length * 2) {
+                resize(slots.length * 2);
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = this.keys;
+            Object[] oldSlots = this.slots;
+            long[] newKeys = new long[capacity];
+            Object[] newSlots = new Object[capacity];
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != null) {
+                    int index = -find(newKeys, newSlots, oldKeys[i], hash(oldKeys[i])) - 1;
+                    newKeys[index] = oldKeys[i];
+                    newSlots[index] = oldSlots[i];
+                }
+            }
+            this.keys = newKeys;
+            this.slots = newSlots;
+        }
+
+        // Backward shift deletion, the table is kept free of tombstones
+        private void removeAt(int index) {
+            int mask = slots.length - 1;
+            int gap = index;
+            int i = index;
+            while (true) {
+                i = (i + 1) & mask;
+                if (slots[i] == null) {
+                    break;
+                }
+                int home = (int) hash(keys[i]) & mask;
+                // Moving the entry if its home slot is not within (gap, i]
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    slots[gap] = slots[i];
+                    gap = i;
+                }
+            }
+            slots[gap] = null;
+            size--;
+        }
+    }
+
+    /**
+     * A set of two or more values. Small sets are arrays that keep the insertion order, sets larger than
+     * {@value #LINEAR_LIMIT} are open-addressing hash tables. In both cases, empty array elements are
+     * <code>null</code>, so that the same iterator serves both representations.
+     */
+    static final class ValueSet {
+        static final int LINEAR_LIMIT = 8;
+        private Object[] elements;
+        private int size;
+        private boolean hashed;
+
+        private ValueSet(Object first, Object second) {
+            this.elements = new Object[4];
+            this.elements[0] = first;
+            this.elements[1] = second;
+            this.size = 2;
+        }
+
+        static Object add(Object slot, Object value) {
+            if (slot instanceof ValueSet) {
+                ((ValueSet) slot).add(value);
+                return slot;
+            } else if (slot.equals(value)) {
+                return slot;
+            } else {
+                return new ValueSet(slot, value);
+            }
+        }
+
+        static Object addAll(Object slot, Object values) {
+            if (values instanceof ValueSet) {
+                Object result = slot;
+                for (Object value : ((ValueSet) values).elements) {
+                    if (value != null) {
+                        result = add(result, value);
+                    }
+                }
+                return result;
+            } else {
+                return add(slot, values);
+            }
+        }
+
+        /**
+         * @return the updated slot, <code>null</code> if no values are left
+         */
+        static Object remove(Object slot, Object value) {
+            if (slot instanceof ValueSet) {
+                ValueSet set = (ValueSet) slot;
+                set.remove(value);
+                // Sets never get empty, the last value is stored in the slot directly
+                return set.size == 1 ? set.elements[set.firstIndex()] : set;
+            } else {
+                return slot.equals(value) ? null : slot;
+            }
+        }
+
+        private void add(Object value) {
+            if (hashed) {
+                if (hashedAdd(elements, value)) {
+                    if (++size * 2 > elements.length) {
+                        rehash(elements.length * 2);
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (elements[i].equals(value)) {
+                        return;
+                    }
+                }
+                if (size == elements.length) {
+                    if (size >= LINEAR_LIMIT) {
+                        rehash(size * 4);
+                        hashedAdd(elements, value);
+                        size++;
+                        return;
+                    }
+                    this.elements = Arrays.copyOf(elements, size * 2);
+                }
+                elements[size++] = value;
+            }
+        }
+
+        private void remove(Object value) {
+            if (hashed) {
+                int mask = elements.length - 1;
+                int i = spread(value.hashCode()) & mask;
+                Object e;
+                while ((e = elements[i]) != null) {
+                    if (e.equals(value)) {
+                        hashedRemoveAt(i);
+                        if (--size <= LINEAR_LIMIT / 2) {
+                            toLinear();
+                        }
+                        return;
+                    }
+                    i = (i + 1) & mask;
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (elements[i].equals(value)) {
+                        System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+                        elements[--size] = null;
+                        return;
+                    }
+                }
+            }
+        }
+
+        private int firstIndex() {
+            int i = 0;
+            while (elements[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        private void rehash(int capacity) {
+            Object[] old = this.elements;
+            Object[] table = new Object[capacity];
+            for (Object e : old) {
+                if (e != null) {
+                    hashedAdd(table, e);
+                }
+            }
+            this.elements = table;
+            this.hashed = true;
+        }
+
+        private void toLinear() {
+            Object[] linear = new Object[LINEAR_LIMIT];
+            int i = 0;
+            for (Object e : elements) {
+                if (e != null) {
+                    linear[i++] = e;
+                }
+            }
+            this.elements = linear;
+            this.hashed = false;
+        }
+
+        private void hashedRemoveAt(int index) {
+            Object[] table = this.elements;
+            int mask = table.length - 1;
+            int gap = index;
+            int i = index;
+            while (true) {
+                i = (i + 1) & mask;
+                Object e = table[i];
+                if (e == null) {
+                    break;
+                }
+                int home = spread(e.hashCode()) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    table[gap] = e;
+                    gap = i;
+                }
+            }
+            table[gap] = null;
+        }
+
+        private static boolean hashedAdd(Object[] table, Object value) {
+            int mask = table.length - 1;
+            int i = spread(value.hashCode()) & mask;
+            Object e;
+            while ((e = table[i]) != null) {
+                if (e.equals(value)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+            return true;
+        }
+
+        private static int spread(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        int size() {
+            return size;
+        }
+
+        Iterator<Object> iterator() {
+            Object[] array = this.elements;
+            return new Iterator<Object>() {
+                int next = advance(0);
+
+                private int advance(int from) {
+                    int i = from;
+                    while (i < array.length && array[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < array.length;
+                }
+
+                @Override
+                public Object next() {
+                    if (next >= array.length) {
+                        throw new NoSuchElementException();
+                    }
+                    Object result = array[next];
+                    next = advance(next + 1);
+                    return result;
+                }
+            };
+        }
+    }
+
+    private class KeyIterator implements Iterator<Long> {
+        private int stripe = 0;
+        private int index = -1;
+
+        KeyIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (stripe < STRIPES) {
+                Object[] slots = stripes[stripe].slots;
+                while (++index < slots.length) {
+                    if (slots[index] != null) {
+                        return;
+                    }
+                }
+                stripe++;
+                index = -1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return stripe < STRIPES;
+        }
+
+        @Override
+        public Long next() {
+            if (stripe >= STRIPES) {
+                throw new NoSuchElementException();
+            }
+            long key = stripes[stripe].keys[index];
+            advance();
+            return key;
+        }
+    }
+}
@@ -2,19 +2,22 @@ package org.evrete.spi.minimal;
 
 import org.evrete.api.TypeField;
 
-import java.util.function.Function;
+import java.util.function.*;
 
 class TypeFieldImpl implements TypeField {
     private final String name;
     private final Class<?> valueType;
     private final Function<Object, ?> function;
     private final TypeImpl<?> declaringType;
+    // An optional non-boxing reader, see ValueReader.primitiveReader()
+    private final Object primitiveReader;
 
-    TypeFieldImpl(String name, TypeImpl<?> declaringType, Class<?> valueType, Function<Object, ?> function) {
+    TypeFieldImpl(String name, TypeImpl<?> declaringType, Class<?> valueType, Function<Object, ?> function, Object primitiveReader) {
         this.name = name;
         this.valueType = valueType;
         this.function = function;
         this.declaringType = declaringType;
+        this.primitiveReader = primitiveReader;
     }
 
     @Override
@@ -33,6 +36,46 @@ class TypeFieldImpl implements TypeField {
         return (T) function.apply(subject);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public int readInt(Object subject) {
+        if (primitiveReader instanceof ToIntFunction) {
+            return ((ToIntFunction<Object>) primitiveReader).applyAsInt(subject);
+        } else {
+            return TypeField.super.readInt(subject);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long readLong(Object subject) {
+        if (primitiveReader instanceof ToLongFunction) {
+            return ((ToLongFunction<Object>) primitiveReader).applyAsLong(subject);
+        } else {
+            return TypeField.super.readLong(subject);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public double readDouble(Object subject) {
+        if (primitiveReader instanceof ToDoubleFunction) {
+            return ((ToDoubleFunction<Object>) primitiveReader).applyAsDouble(subject);
+        } else {
+            return TypeField.super.readDouble(subject);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean readBoolean(Object subject) {
+        if (primitiveReader instanceof Predicate) {
+            return ((Predicate<Object>) primitiveReader).test(subject);
+        } else {
+            return TypeField.super.readBoolean(subject);
+        }
+    }
+
     @Override
     public String getName() {
         return name;
@@ -10,7 +10,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.function.Function;
+import java.util.function.*;
 
 class TypeImpl<T> implements Type<T> {
     private static final ValueReader[] EMPTY_VALUE_READERS = new ValueReader[0];
@@ -48,7 +48,7 @@ class TypeImpl<T> implements Type<T> {
         }
 
         if (handle != null) {
-            return new ValueReader(handle);
+            return ValueReader.ofField(handle);
         }
 
         // Scanning methods
@@ -58,18 +58,13 @@ class TypeImpl<T> implements Type<T> {
                 if (method.getName().equals(methodName)) {
                     if (meta.validMethod(method)) {
                         try {
-                            handle = lookup.unreflect(method);
-                            break;
+                            return ValueReader.ofMethod(method, lookup.unreflect(method));
                         } catch (IllegalAccessException e) {
                             // Method is not accessible, skipping
                         }
                     }
                 }
             }
-
-            if (handle != null) {
-                return new ValueReader(handle);
-            }
         }
 
         return null;
@@ -128,7 +123,27 @@ class TypeImpl<T> implements Type<T> {
 
     @Override
     public <V> TypeField declareField(String name, Class<V> type, Function<T, V> function) {
-        return innerDeclare(name, type, new Func<>(function));
+        return innerDeclare(name, type, new Func<>(function), null);
+    }
+
+    @Override
+    public TypeField declareIntField(String name, ToIntFunction<T> function) {
+        return innerDeclare(name, int.class, new Func<>(function::applyAsInt), function);
+    }
+
+    @Override
+    public TypeField declareLongField(String name, ToLongFunction<T> function) {
+        return innerDeclare(name, long.class, new Func<>(function::applyAsLong), function);
+    }
+
+    @Override
+    public TypeField declareDoubleField(String name, ToDoubleFunction<T> function) {
+        return innerDeclare(name, double.class, new Func<>(function::applyAsDouble), function);
+    }
+
+    @Override
+    public TypeField declareBooleanField(String name, Predicate<T> function) {
+        return innerDeclare(name, boolean.class, new Func<>(function::test), function);
     }
 
     @Override
@@ -153,9 +168,9 @@ class TypeImpl<T> implements Type<T> {
                 '}';
     }
 
-    private synchronized TypeField innerDeclare(final String name, final Class<?> type, final Function<Object, ?> function) {
+    private synchronized TypeField innerDeclare(final String name, final Class<?> type, final Function<Object, ?> function, final Object primitiveReader) {
         Const.assertName(name);
-        TypeFieldImpl field = new TypeFieldImpl(name, this, type, function);
+        TypeFieldImpl field = new TypeFieldImpl(name, this, type, function, primitiveReader);
         this.fieldMap.put(name, field);
         return field;
     }
@@ -163,6 +178,7 @@ class TypeImpl<T> implements Type<T> {
     private TypeField resolveField(String fieldName) {
         Function<Object, Object> func;
         Class<?> valueType;
+        Object primitiveReader = null;
         if (fieldName == null ||  fieldName.isEmpty()) {
             // "this" field
             valueType = javaType;
@@ -185,12 +201,15 @@ class TypeImpl<T> implements Type<T> {
                 }
             }
 
-            func = getters.size() == 1 ?
-                    new AtomicFunction(getters.get(0))
-                    :
-                    new NestedFunction(getters.toArray(EMPTY_VALUE_READERS));
+            if (getters.size() == 1) {
+                ValueReader reader = getters.get(0);
+                func = new AtomicFunction(reader);
+                primitiveReader = reader.primitiveReader();
+            } else {
+                func = new NestedFunction(getters.toArray(EMPTY_VALUE_READERS));
+            }
         }
-        return innerDeclare(fieldName, valueType, func);
+        return innerDeclare(fieldName, valueType, func, primitiveReader);
     }
 
     private enum MethodMeta {
@@ -268,22 +287,6 @@ class TypeImpl<T> implements Type<T> {
         }
     }
 
-    private static final class ValueReader {
-        private final MethodHandle handle;
-
-        ValueReader(MethodHandle handle) {
-            this.handle = handle;
-        }
-
-        Object read(Object o) throws Throwable {
-            return handle.invoke(o);
-        }
-
-        Class<?> valueType() {
-            return handle.type().returnType();
-        }
-    }
-
     private static class Func<T,V> implements Function<Object, Object> {
         private final Function<T, V> delegate;
 
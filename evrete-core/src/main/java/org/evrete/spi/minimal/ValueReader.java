@@ -0,0 +1,205 @@
+package org.evrete.spi.minimal;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Reads a public field or calls a getter. Method handles stored in instance fields are not constants
+ * to the JIT, so getters are wrapped, if possible, into functional interfaces spun by {@link LambdaMetafactory}.
+ * Their implementations call the getters directly, and getters with <code>int</code>, <code>long</code>,
+ * <code>double</code> or <code>boolean</code> return types get an additional non-boxing accessor.
+ * </p>
+ * <p>
+ * The spun classes are defined by this class' loader, so getters of classes that are not visible
+ * from that loader are invoked via method handles.
+ * </p>
+ * <p>
+ * Spun readers are cached per getter and are attached to the getter's declaring class, so that rebuilding
+ * types doesn't define new classes, and the cached readers become unreachable together with that class.
+ * </p>
+ */
+final class ValueReader {
+    private static final Logger LOGGER = Logger.getLogger(ValueReader.class.getName());
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ModuleReads MODULE_READS = ModuleReads.create();
+    private static final ClassValue<Map<Method, ValueReader>> SPUN_READERS = new ClassValue<Map<Method, ValueReader>>() {
+        @Override
+        protected Map<Method, ValueReader> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final MethodHandle handle;
+    private final Function<Object, Object> function;
+    private final Object primitiveReader;
+
+    private ValueReader(MethodHandle handle, Function<Object, Object> function, Object primitiveReader) {
+        this.handle = handle;
+        this.function = function;
+        this.primitiveReader = primitiveReader;
+    }
+
+    static ValueReader ofField(MethodHandle getter) {
+        // LambdaMetafactory doesn't accept field getters
+        return new ValueReader(getter, null, null);
+    }
+
+    static ValueReader ofMethod(Method method, MethodHandle handle) {
+        if (canSpin(method)) {
+            return SPUN_READERS.get(method.getDeclaringClass()).computeIfAbsent(method, m -> spinReader(m, handle));
+        } else {
+            return new ValueReader(handle, null, null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueReader spinReader(Method method, MethodHandle handle) {
+        try {
+            Class<?> returnType = method.getReturnType();
+            Function<Object, Object> function = (Function<Object, Object>) spin(handle, Function.class, "apply", Object.class, boxed(returnType));
+            Object primitiveReader = null;
+            if (returnType == int.class) {
+                primitiveReader = spin(handle, ToIntFunction.class, "applyAsInt", int.class, int.class);
+            } else if (returnType == long.class) {
+                primitiveReader = spin(handle, ToLongFunction.class, "applyAsLong", long.class, long.class);
+            } else if (returnType == double.class) {
+                primitiveReader = spin(handle, ToDoubleFunction.class, "applyAsDouble", double.class, double.class);
+            } else if (returnType == boolean.class) {
+                primitiveReader = spin(handle, Predicate.class, "test", boolean.class, boolean.class);
+            }
+            return new ValueReader(handle, function, primitiveReader);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, t, () -> "Unable to create an accessor for " + method + ", the method will be called via method handles");
+            return new ValueReader(handle, null, null);
+        }
+    }
+
+    Object read(Object o) throws Throwable {
+        return function == null ? handle.invoke(o) : function.apply(o);
+    }
+
+    Class<?> valueType() {
+        return handle.type().returnType();
+    }
+
+    /**
+     * @return a {@link ToIntFunction}, {@link ToLongFunction}, {@link ToDoubleFunction} or {@link Predicate}
+     * that reads the value without boxing, or <code>null</code> if there's none
+     */
+    Object primitiveReader() {
+        return primitiveReader;
+    }
+
+    private static Object spin(MethodHandle handle, Class<?> functionalInterface, String methodName, Class<?> returnType, Class<?> instantiatedReturnType) throws Throwable {
+        MethodType implType = handle.type();
+        CallSite site = LambdaMetafactory.metafactory(
+                LOOKUP,
+                methodName,
+                MethodType.methodType(functionalInterface),
+                MethodType.methodType(returnType, Object.class),
+                handle,
+                MethodType.methodType(instantiatedReturnType, implType.parameterType(0))
+        );
+        return site.getTarget().invoke();
+    }
+
+    private static boolean canSpin(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        return Modifier.isPublic(declaringClass.getModifiers())
+                && isVisible(declaringClass)
+                && isVisible(method.getReturnType())
+                && MODULE_READS.ensureReadable(declaringClass);
+    }
+
+    private static boolean isVisible(Class<?> cl) {
+        if (cl.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(cl.getName(), false, ValueReader.class.getClassLoader()) == cl;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Class<?> boxed(Class<?> cl) {
+        if (!cl.isPrimitive()) {
+            return cl;
+        } else if (cl == int.class) {
+            return Integer.class;
+        } else if (cl == long.class) {
+            return Long.class;
+        } else if (cl == double.class) {
+            return Double.class;
+        } else if (cl == boolean.class) {
+            return Boolean.class;
+        } else if (cl == float.class) {
+            return Float.class;
+        } else if (cl == short.class) {
+            return Short.class;
+        } else if (cl == byte.class) {
+            return Byte.class;
+        } else if (cl == char.class) {
+            return Character.class;
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + cl);
+        }
+    }
+
+    /**
+     * The spun classes belong to this library's module. When the library runs as a named module, it
+     * must read the modules of fact classes. The module API is accessed reflectively to keep Java 8 support.
+     */
+    private static final class ModuleReads {
+        private final Object module;
+        private final MethodHandle getModule;
+        private final MethodHandle canRead;
+        private final MethodHandle addReads;
+
+        private ModuleReads(Object module, MethodHandle getModule, MethodHandle canRead, MethodHandle addReads) {
+            this.module = module;
+            this.getModule = getModule;
+            this.canRead = canRead;
+            this.addReads = addReads;
+        }
+
+        static ModuleReads create() {
+            try {
+                Class<?> moduleClass = Class.forName("java.lang.Module");
+                MethodHandle getModule = LOOKUP.findVirtual(Class.class, "getModule", MethodType.methodType(moduleClass));
+                MethodHandle canRead = LOOKUP.findVirtual(moduleClass, "canRead", MethodType.methodType(boolean.class, moduleClass));
+                MethodHandle addReads = LOOKUP.findVirtual(moduleClass, "addReads", MethodType.methodType(moduleClass, moduleClass));
+                return new ModuleReads(getModule.invoke(ValueReader.class), getModule, canRead, addReads);
+            } catch (Throwable t) {
+                // Java 8
+                return new ModuleReads(null, null, null, null);
+            }
+        }
+
+        boolean ensureReadable(Class<?> cl) {
+            if (module == null) {
+                return true;
+            }
+            try {
+                Object other = getModule.invoke(cl);
+                if (!(boolean) canRead.invoke(module, other)) {
+                    addReads.invoke(module, other);
+                }
+                return true;
+            } catch (Throwable t) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.evrete.spi.minimal.compiler;
+
+import org.evrete.api.spi.SourceCompiler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * A content-addressed on-disk cache of compiled classes. Each entry holds the bytecode of a class and its
+ * nested classes, and is keyed by the digest of the class' binary name, its source, and the version of the
+ * Java platform. Entries are written to temporary files and then moved in place, so that several JVMs can
+ * share the same directory.
+ * </p>
+ * <p>
+ * Besides the writable directory, entries can be read from class path resources, see
+ * {@link org.evrete.Configuration#COMPILER_PRECOMPILED_RESOURCES}. Such read-only entries are
+ * typically produced at build time by {@link org.evrete.util.KnowledgePrecompiler} and take precedence
+ * over the directory.
+ * </p>
+ * <p>
+ * The cache doesn't track changes of the classes referenced by the sources. If such classes change
+ * in a binary-incompatible way, the cache directory must be cleared.
+ * </p>
+ */
+final class ClassCache {
+    private static final Logger LOGGER = Logger.getLogger(ClassCache.class.getName());
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".classes";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final Path directory;
+    private final ClassLoader resourceLoader;
+    private final String resourceRoot;
+
+    /**
+     * @param directory      writable cache directory, or <code>null</code>
+     * @param resourceLoader class loader of precompiled resources
+     * @param resourceRoot   class path location of precompiled resources, or <code>null</code>
+     */
+    ClassCache(Path directory, ClassLoader resourceLoader, String resourceRoot) {
+        this.directory = directory;
+        this.resourceLoader = resourceLoader == null ? ClassLoader.getSystemClassLoader() : resourceLoader;
+        this.resourceRoot = resourceRoot == null ? null : trimSlashes(resourceRoot);
+    }
+
+    private static String trimSlashes(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
+    /**
+     * @param source class source
+     * @return bytecode of the source's classes by their binary names, or <code>null</code> if the cache has no such entry
+     */
+    Map<String, byte[]> get(SourceCompiler.ClassSource source) {
+        String fileName = key(source) + EXTENSION;
+        Map<String, byte[]> classes = null;
+        if (resourceRoot != null) {
+            String resource = resourceRoot.isEmpty() ? fileName : resourceRoot + "/" + fileName;
+            InputStream stream = resourceLoader.getResourceAsStream(resource);
+            if (stream != null) {
+                classes = read(source, stream, resource);
+            }
+        }
+        if (classes == null && directory != null) {
+            Path file = directory.resolve(fileName);
+            if (Files.isRegularFile(file)) {
+                try {
+                    classes = read(source, Files.newInputStream(file), file);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, e, () -> "Unable to read cached classes from " + file + ", the source will be compiled");
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static Map<String, byte[]> read(SourceCompiler.ClassSource source, InputStream stream, Object location) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            int count = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String binaryName = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(binaryName, bytes);
+            }
+            return classes.containsKey(source.binaryName()) ? classes : null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Unable to read cached classes from " + location + ", the source will be compiled");
+            return null;
+        }
+    }
+
+    /**
+     * Stores the bytecode of the source's classes. Failures are logged and otherwise ignored.
+     *
+     * @param source  class source
+     * @param classes bytecode of the source's classes by their binary names
+     */
+    void put(SourceCompiler.ClassSource source, Map<String, byte[]> classes) {
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(key(source) + EXTENSION);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "tmp-", EXTENSION);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Unable to cache compiled classes in " + file);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Nothing else can be done
+                }
+            }
+        }
+    }
+
+    private static String key(SourceCompiler.ClassSource source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String header = FORMAT_VERSION + "\n" + System.getProperty("java.specification.version") + "\n" + source.binaryName() + "\n";
+            digest.update(header.getBytes(StandardCharsets.UTF_8));
+            digest.update(source.getSource().getBytes(StandardCharsets.UTF_8));
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
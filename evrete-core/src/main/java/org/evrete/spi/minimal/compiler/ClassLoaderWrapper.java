@@ -3,16 +3,55 @@ package org.evrete.spi.minimal.compiler;
 import javax.tools.JavaFileObject;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+/**
+ * <p>
+ * Class loader of compiled classes. Each compiler instance defines its classes in a loader of its own,
+ * so that the classes become eligible for unloading as soon as the objects that use them, typically a
+ * knowledge and its sessions, are no longer reachable. The number of classes held by reachable
+ * loaders is tracked for monitoring purposes, see {@link #retainedClasses()}.
+ * </p>
+ */
 class ClassLoaderWrapper extends ClassLoader {
+    private static final ReferenceQueue<ClassLoaderWrapper> RELEASED = new ReferenceQueue<>();
+    private static final Set<LoaderReference> LOADERS = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong RETAINED = new AtomicLong();
 
     private final Map<String, byte[]> classDefinitions = new HashMap<>();
     private final Map<String, Collection<JavaFileObject>> fileObjects = new HashMap<>();
+    private final LoaderReference reference;
 
     ClassLoaderWrapper(ClassLoader parent) {
         super(parent);
+        expungeReleased();
+        this.reference = new LoaderReference(this);
+        LOADERS.add(reference);
+    }
+
+    /**
+     * @return number of classes defined by loaders that haven't been garbage collected yet
+     */
+    static long retainedClasses() {
+        expungeReleased();
+        return RETAINED.get();
+    }
+
+    private static void expungeReleased() {
+        Reference<? extends ClassLoaderWrapper> ref;
+        while ((ref = RELEASED.poll()) != null) {
+            LoaderReference released = (LoaderReference) ref;
+            if (LOADERS.remove(released)) {
+                RETAINED.addAndGet(-released.classCount.get());
+            }
+        }
     }
 
 
@@ -58,6 +97,8 @@ class ClassLoaderWrapper extends ClassLoader {
     void defineNewClass(String binaryName, byte[] classBytes) {
         String packageName = packageNameOf(binaryName);
         Class<?> defined = super.defineClass(binaryName, classBytes, 0, classBytes.length);
+        this.reference.classCount.incrementAndGet();
+        RETAINED.incrementAndGet();
         this.classDefinitions.put(binaryName, classBytes);
         this.fileObjects.computeIfAbsent(packageName, k -> new ArrayList<>()).add(new ClassPathJavaObject(defined, classBytes));
     }
@@ -66,4 +107,12 @@ class ClassLoaderWrapper extends ClassLoader {
         int lastDot = className.lastIndexOf('.');
         return (lastDot == -1) ? null : className.substring(0, lastDot);
     }
+
+    private static final class LoaderReference extends WeakReference<ClassLoaderWrapper> {
+        private final AtomicInteger classCount = new AtomicInteger();
+
+        LoaderReference(ClassLoaderWrapper loader) {
+            super(loader, RELEASED);
+        }
+    }
 }
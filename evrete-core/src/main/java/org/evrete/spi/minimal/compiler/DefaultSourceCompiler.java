@@ -5,17 +5,58 @@ import org.evrete.util.CompilationException;
 import javax.tools.*;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class DefaultSourceCompiler implements org.evrete.api.spi.SourceCompiler {
     private final static String COMPILER_PARAM_OPTION = "-parameters";
     private final ClassLoaderWrapper classLoader;
-    private final JavaCompiler compiler;
+    private final ClassCache cache;
+    private JavaCompiler compiler;
 
     public DefaultSourceCompiler(ClassLoader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * @param classLoader    parent class loader of compiled classes
+     * @param cacheDirectory directory of the compiled classes' cache, or <code>null</code> if classes must not be cached
+     */
+    public DefaultSourceCompiler(ClassLoader classLoader, Path cacheDirectory) {
+        this(classLoader, cacheDirectory, null);
+    }
+
+    /**
+     * @param classLoader          parent class loader of compiled classes
+     * @param cacheDirectory       directory of the compiled classes' cache, or <code>null</code> if classes must not be cached
+     * @param precompiledResources class path location of precompiled classes, or <code>null</code> if there are none
+     * @see org.evrete.util.KnowledgePrecompiler
+     */
+    public DefaultSourceCompiler(ClassLoader classLoader, Path cacheDirectory, String precompiledResources) {
         this.classLoader = new ClassLoaderWrapper(classLoader);
-        this.compiler = Objects.requireNonNull(ToolProvider.getSystemJavaCompiler(), "No Java compiler provided by this platform");
+        this.cache = cacheDirectory == null && precompiledResources == null ? null : new ClassCache(cacheDirectory, classLoader, precompiledResources);
+    }
+
+    /**
+     * Returns the number of compiled classes that are still held in memory. Compiled classes are defined
+     * by class loaders of their own and are unloaded together with the knowledge instances that use them,
+     * so a steadily growing value indicates that dropped knowledge or sessions are still referenced
+     * somewhere in the application. Only classes defined by this compiler are counted, the JVM-wide
+     * number is available from {@link java.lang.management.ClassLoadingMXBean}.
+     *
+     * @return number of classes defined by compilers whose class loaders haven't been garbage collected yet
+     */
+    public static long retainedClasses() {
+        return ClassLoaderWrapper.retainedClasses();
+    }
+
+    // The system compiler is looked up on first use, platforms without it can still load cached classes
+    private synchronized JavaCompiler compiler() {
+        if (compiler == null) {
+            this.compiler = Objects.requireNonNull(ToolProvider.getSystemJavaCompiler(), "No Java compiler provided by this platform");
+        }
+        return compiler;
     }
 
     @Override
@@ -24,6 +65,74 @@ public class DefaultSourceCompiler implements org.evrete.api.spi.SourceCompiler
         for (S s : sources) {
             sourcesByClassName.put(s.binaryName(), s);
         }
+
+        // 1. Bytecode of cached classes
+        Map<String, byte[]> bytecode = new LinkedHashMap<>();
+        Collection<S> toCompile = new ArrayList<>(sources.size());
+        for (S s : sources) {
+            Map<String, byte[]> cached = cache == null ? null : cache.get(s);
+            if (cached == null) {
+                toCompile.add(s);
+            } else {
+                bytecode.putAll(cached);
+            }
+        }
+
+        // 2. Compiling the rest and updating the cache
+        if (!toCompile.isEmpty()) {
+            Map<String, byte[]> compiled = javac(toCompile);
+            bytecode.putAll(compiled);
+            if (cache != null) {
+                for (S s : toCompile) {
+                    cache.put(s, classesOf(s.binaryName(), compiled));
+                }
+            }
+        }
+
+        // 3. Defining the classes
+        for (Map.Entry<String, byte[]> entry : bytecode.entrySet()) {
+            classLoader.defineNewClass(entry.getKey(), entry.getValue());
+        }
+
+        Collection<Result<S>> result = new ArrayList<>(sourcesByClassName.size());
+        for (S source : sourcesByClassName.values()) {
+            try {
+                Class<?> cl = Class.forName(source.binaryName(), false, classLoader);
+                result.add(new Result<S>() {
+                    @Override
+                    public S getSource() {
+                        return source;
+                    }
+
+                    @Override
+                    public Class<?> getCompiledClass() {
+                        return cl;
+                    }
+                });
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Class has been compiled, but can not be resolved", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Selects the bytecode of a top-level class and of its nested classes.
+     */
+    private static Map<String, byte[]> classesOf(String binaryName, Map<String, byte[]> bytecode) {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        String nestedPrefix = binaryName + "$";
+        for (Map.Entry<String, byte[]> entry : bytecode.entrySet()) {
+            String name = entry.getKey();
+            if (name.equals(binaryName) || name.startsWith(nestedPrefix)) {
+                result.put(name, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, byte[]> javac(Collection<? extends ClassSource> sources) throws CompilationException {
+        JavaCompiler compiler = compiler();
         DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
         try (StandardJavaFileManager systemFm = compiler.getStandardFileManager(diagnostics, null, null)) {
 
@@ -48,44 +157,11 @@ public class DefaultSourceCompiler implements org.evrete.api.spi.SourceCompiler
                 ).call();
 
                 if (success) {
-                    Collection<String> binaryNames = new LinkedList<>();
+                    Map<String, byte[]> bytecode = new LinkedHashMap<>();
                     for (DestinationClassObject compiled : fm.getOutput()) {
-                        classLoader.defineNewClass(compiled.getBinaryName(), compiled.getBytes());
-                        binaryNames.add(compiled.getBinaryName());
+                        bytecode.put(compiled.getBinaryName(), compiled.getBytes());
                     }
-
-                    Collection<Class<?>> compiled = new ArrayList<>(binaryNames.size());
-                    for (String binaryName : binaryNames) {
-                        try {
-                            Class<?> cl = Class.forName(binaryName, false, classLoader);
-                            compiled.add(cl);
-                        } catch (ClassNotFoundException e) {
-                            throw new IllegalStateException("Class has been compiled, but can not be resolved", e);
-                        }
-                    }
-
-                    return compiled.stream()
-                            .map(cl -> {
-                                String binaryName = cl.getName();
-                                final S source = sourcesByClassName.get(binaryName);
-                                if (source == null) {
-                                    return null;
-                                } else {
-                                    return new Result<S>() {
-                                        @Override
-                                        public S getSource() {
-                                            return source;
-                                        }
-
-                                        @Override
-                                        public Class<?> getCompiledClass() {
-                                            return cl;
-                                        }
-                                    };
-                                }
-                            })
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toList());
+                    return bytecode;
                 } else {
                     List<String> otherErrors = new LinkedList<>();
                     Map<ClassSource, List<String>> errorSources = new IdentityHashMap<>();
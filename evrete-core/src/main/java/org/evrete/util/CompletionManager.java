@@ -35,8 +35,18 @@ public class CompletionManager<K, T> {
                 newFuture = existing.thenCompose(t -> mappingFunction.apply(key));
             }
 
-            final CompletableFuture<T> chained = newFuture.whenComplete((t, throwable) -> completions.remove(key));
+            // The chained future must be registered before the new one gets a chance to complete,
+            // otherwise an already completed task would never be removed
+            final CompletableFuture<T> chained = new CompletableFuture<>();
             this.completions.put(key, chained);
+            newFuture.whenComplete((t, throwable) -> {
+                completions.remove(key, chained);
+                if (throwable == null) {
+                    chained.complete(t);
+                } else {
+                    chained.completeExceptionally(throwable);
+                }
+            });
             return chained;
 
         }
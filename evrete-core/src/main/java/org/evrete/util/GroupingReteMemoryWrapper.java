@@ -28,11 +28,21 @@ public class GroupingReteMemoryWrapper<V> implements GroupingReteMemory<V> {
         return delegate.valueIterator(scope, key);
     }
 
+    @Override
+    public boolean isConcurrent() {
+        return delegate.isConcurrent();
+    }
+
     @Override
     public Iterator<Long> iterator(MemoryScope scope) {
         return delegate.iterator(scope);
     }
 
+    @Override
+    public long keyCount(MemoryScope scope) {
+        return delegate.keyCount(scope);
+    }
+
     @Override
     public void commit() {
         delegate.commit();
@@ -0,0 +1,115 @@
+package org.evrete.util;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Compiles rulesets ahead of time. The classes generated for the rulesets' literal conditions and actions
+ * are written to a target directory, which is meant to be packaged as a class path resource of the
+ * application, for example under <code>META-INF/evrete/classes</code>. At runtime, the location is passed
+ * to the engine with the {@link Configuration#COMPILER_PRECOMPILED_RESOURCES} property, and the classes
+ * are loaded without invoking the Java compiler:
+ * </p>
+ * <pre>{@code
+ * Configuration conf = new Configuration();
+ * conf.setProperty(Configuration.COMPILER_PRECOMPILED_RESOURCES, "META-INF/evrete/classes");
+ * KnowledgeService service = new KnowledgeService(conf);
+ * }</pre>
+ * <p>
+ * The precompiler can be run from a build with its {@link #main(String[])} method, for example with
+ * Gradle's <code>JavaExec</code> task or the Maven Exec plugin. Precompiled classes are matched by their
+ * generated sources, so the classes referenced by the rules must be the same at build time and at runtime,
+ * and both must run on the same Java version. Sources that have no precompiled classes are still compiled
+ * at runtime, if the Java compiler is available.
+ * </p>
+ * <p>
+ * Rulesets created with the builder API can be precompiled the same way by building them with the
+ * {@link Configuration#COMPILER_CACHE_DIRECTORY} property pointing to the target directory.
+ * </p>
+ */
+public final class KnowledgePrecompiler {
+    private static final Logger LOGGER = Logger.getLogger(KnowledgePrecompiler.class.getName());
+
+    private KnowledgePrecompiler() {
+    }
+
+    /**
+     * Compiles the rules of the provided sources and writes the generated classes to the target directory.
+     *
+     * @param configuration configuration of the knowledge service that builds the rules
+     * @param target        target directory
+     * @param dsl           name of the DSL provider
+     * @param sources       rule sources, as accepted by the DSL provider
+     * @throws IOException if the sources can not be read, or the target directory can not be created
+     * @see org.evrete.api.RuntimeContext#importRules(String, Object)
+     */
+    public static void precompile(Configuration configuration, Path target, String dsl, Collection<?> sources) throws IOException {
+        Files.createDirectories(target);
+        Configuration conf = configuration.copyOf();
+        conf.setProperty(Configuration.COMPILER_CACHE_DIRECTORY, target.toAbsolutePath().toString());
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            Knowledge knowledge = service.newKnowledge();
+            for (Object source : sources) {
+                knowledge.importRules(dsl, source);
+            }
+            LOGGER.info(() -> "Rules of " + sources.size() + " source(s) have been compiled to " + target);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Command line entry point. The arguments are the target directory, the name of the DSL provider,
+     * and one or more rule sources. Each source is either a file, a URL, or a fully qualified class name.
+     *
+     * @param args command line arguments
+     * @throws IOException if the sources can not be read, or the target directory can not be created
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: " + KnowledgePrecompiler.class.getName() + " <target directory> <DSL name> <source>...");
+        }
+        Path target = Paths.get(args[0]);
+        String dsl = args[1];
+        List<Object> sources = new ArrayList<>(args.length - 2);
+        for (String arg : Arrays.asList(args).subList(2, args.length)) {
+            sources.add(toSource(arg));
+        }
+        precompile(new Configuration(), target, dsl, sources);
+    }
+
+    private static Object toSource(String arg) {
+        File file = new File(arg);
+        if (file.exists()) {
+            return file;
+        }
+        if (arg.indexOf(':') > 0) {
+            try {
+                return new URL(arg);
+            } catch (MalformedURLException e) {
+                // Not a URL
+            }
+        }
+        try {
+            return Class.forName(arg, false, KnowledgePrecompiler.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Source '" + arg + "' is neither a file, nor a URL, nor a class name", e);
+        }
+    }
+}
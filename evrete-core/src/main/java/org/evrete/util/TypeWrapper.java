@@ -4,7 +4,7 @@ import org.evrete.api.Type;
 import org.evrete.api.TypeField;
 import org.evrete.api.annotations.NonNull;
 
-import java.util.function.Function;
+import java.util.function.*;
 
 /**
  * A wrapper class that implements the {@link Type} interface and delegates the calls to another Type implementation.
@@ -54,6 +54,26 @@ public class TypeWrapper<T> implements Type<T> {
         return delegate.declareField(name, type, function);
     }
 
+    @Override
+    public TypeField declareIntField(String name, ToIntFunction<T> function) {
+        return delegate.declareIntField(name, function);
+    }
+
+    @Override
+    public TypeField declareLongField(String name, ToLongFunction<T> function) {
+        return delegate.declareLongField(name, function);
+    }
+
+    @Override
+    public TypeField declareDoubleField(String name, ToDoubleFunction<T> function) {
+        return delegate.declareDoubleField(name, function);
+    }
+
+    @Override
+    public TypeField declareBooleanField(String name, Predicate<T> function) {
+        return delegate.declareBooleanField(name, function);
+    }
+
     @Override
     public Type<T> copyOf() {
         return new TypeWrapper<>(delegate.copyOf());
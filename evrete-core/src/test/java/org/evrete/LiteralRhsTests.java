@@ -112,6 +112,30 @@ public class LiteralRhsTests {
         }
     }
 
+    @Test
+    void identicalRules() {
+        knowledge
+                .addImport(SystemOut.class)
+                .builder()
+                .newRule("rule 1")
+                .forEach("$n", Integer.class)
+                .execute("SystemOut.out($n);")
+                .newRule("rule 2")
+                .forEach("$n", Integer.class)
+                .execute("SystemOut.out($n);")
+                .build();
+
+        // The rules share a compiled class, but not their stateful RHS instances
+        assert knowledge.getRule("rule 1").getRhs() != knowledge.getRule("rule 2").getRhs();
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insertAndFire(10, 20);
+            SystemOut.assertSize(4);
+            assert SystemOut.collector.containsAll(Arrays.asList(10, 20));
+            SystemOut.reset();
+        }
+    }
+
     @SuppressWarnings("unused")
     public static class SystemOut {
         private static final AtomicInteger counter = new AtomicInteger();
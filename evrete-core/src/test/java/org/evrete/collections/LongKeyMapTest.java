@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.evrete.helper.TestUtils.listOf;
@@ -230,6 +231,56 @@ class LongKeyMapTest {
     }
 
 
+    @Test
+    void concurrentUpdates() {
+        int count = 200_000;
+        // Concurrent inserts, reads and deletes of disjoint key ranges
+        IntStream.range(0, count).parallel().forEach(i -> {
+            assertNull(map.put(i, "value" + i));
+            assertEquals("value" + i, map.get(i));
+            if (i % 2 == 1) {
+                assertEquals("value" + i, map.remove(i));
+            }
+        });
+        assertEquals(count / 2, map.size());
+
+        // Concurrent getOrCreate calls must agree on the stored value
+        Set<String> computed = Collections.synchronizedSet(new HashSet<>());
+        IntStream.range(0, count).parallel().forEach(i -> computed.add(map.getOrCreate(i % 1000, () -> "computed" + (i % 1000))));
+        assertEquals(1000, computed.size());
+        for (long key = 0; key < 1000; key += 2) {
+            assertEquals("value" + key, map.get(key));
+        }
+
+        for (int i = 0; i < count; i++) {
+            map.remove(i);
+        }
+        assertEquals(0, map.size());
+        assertEquals(0L, map.keys().count());
+    }
+
+    @Test
+    void splittableStreams() {
+        Set<Long> keys = new HashSet<>();
+        while (keys.size() < 100_000) {
+            keys.add(random.nextLong());
+        }
+        keys.forEach(key -> map.put(key, "value" + key));
+
+        Spliterator<String> spliterator = map.values().spliterator();
+        Spliterator<String> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        long[] counts = new long[2];
+        prefix.forEachRemaining(s -> counts[0]++);
+        spliterator.forEachRemaining(s -> counts[1]++);
+        assertTrue(counts[0] > 0 && counts[1] > 0);
+        assertEquals(keys.size(), counts[0] + counts[1]);
+
+        Set<Long> streamed = Collections.synchronizedSet(new HashSet<>());
+        map.keys().parallel().forEach(streamed::add);
+        assertEquals(keys, streamed);
+    }
+
     private static void assertSameData(LongKeyMap<String> map, Map<Long, String> reference) {
         Assertions.assertEquals(reference.size(), map.size());
         reference.forEach((k, v) -> Assertions.assertEquals(v, map.get(k)));
@@ -10,6 +10,8 @@ import org.evrete.classes.TypeB;
 import org.evrete.classes.TypeC;
 import org.evrete.classes.TypeD;
 
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.*;
 import java.util.function.Predicate;
 
@@ -65,6 +67,26 @@ public final class TestUtils {
         }
     }
 
+    /**
+     * Runs the garbage collector until the number of classes loaded by the JVM stops decreasing.
+     *
+     * @return the lowest observed number of loaded classes
+     */
+    public static int loadedClassesAfterGc() {
+        ClassLoadingMXBean bean = ManagementFactory.getClassLoadingMXBean();
+        int lowest = Integer.MAX_VALUE;
+        for (int attempt = 0; attempt < 20; attempt++) {
+            System.gc();
+            sleep(20);
+            int loaded = bean.getLoadedClassCount();
+            if (loaded >= lowest && attempt >= 3) {
+                break;
+            }
+            lowest = Math.min(lowest, loaded);
+        }
+        return lowest;
+    }
+
     public static Collection<FactEntry> sessionFacts(StatefulSession s) {
         Collection<FactEntry> col = new LinkedList<>();
         s.forEachFact((handle, fact) -> col.add(new FactEntry(handle, fact)));
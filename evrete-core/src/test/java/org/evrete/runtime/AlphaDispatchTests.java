@@ -0,0 +1,202 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.*;
+import org.evrete.api.builders.ConditionManager;
+import org.evrete.api.builders.LhsBuilder;
+import org.evrete.api.builders.RuleBuilder;
+import org.evrete.api.builders.RuleSetBuilder;
+import org.evrete.classes.TypeA;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AlphaDispatchTests {
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void constantEqualities(ActivationMode mode) {
+        int ruleCount = 30;
+        AtomicInteger[] intCounters = new AtomicInteger[ruleCount];
+        AtomicInteger[] stringCounters = new AtomicInteger[ruleCount];
+        AtomicInteger longCounter = new AtomicInteger();
+        AtomicInteger shortCounter = new AtomicInteger();
+        AtomicInteger mixedCounter = new AtomicInteger();
+
+        RuleSetBuilder<Knowledge> builder = knowledge.builder();
+        for (int k = 0; k < ruleCount; k++) {
+            AtomicInteger intCounter = intCounters[k] = new AtomicInteger();
+            AtomicInteger stringCounter = stringCounters[k] = new AtomicInteger();
+            builder = builder
+                    .newRule("int " + k)
+                    .forEach("$a", TypeA.class)
+                    .where(k % 2 == 0 ? "$a.i == " + k : "(" + k + " == $a.i)")
+                    .execute(ctx -> intCounter.incrementAndGet())
+                    .newRule("string " + k)
+                    .forEach("$a", TypeA.class)
+                    .where(k % 2 == 0 ? "\"id" + k + "\".equals($a.id)" : "java.util.Objects.equals($a.id, \"id" + k + "\")")
+                    .execute(ctx -> stringCounter.incrementAndGet());
+        }
+        builder
+                .newRule("long")
+                .forEach("$a", TypeA.class)
+                .where("$a.l == 3")
+                .execute(ctx -> longCounter.incrementAndGet())
+                .newRule("short")
+                .forEach("$a", TypeA.class)
+                .where("$a.s == -2")
+                .execute(ctx -> shortCounter.incrementAndGet())
+                .newRule("mixed")
+                .forEach("$a", TypeA.class)
+                .where("$a.i == 4", "$a.l > 1")
+                .execute(ctx -> mixedCounter.incrementAndGet())
+                .build();
+
+        int factCount = 200;
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < factCount; i++) {
+                TypeA a = new TypeA(i % 7 == 0 ? null : "id" + (i % 40));
+                a.setI(i % 50);
+                a.setL(i % 5);
+                a.setS((short) (i % 6 - 3));
+                session.insert(a);
+            }
+            session.fire();
+        }
+
+        for (int k = 0; k < ruleCount; k++) {
+            int expectedInt = 0;
+            int expectedString = 0;
+            for (int i = 0; i < factCount; i++) {
+                if (i % 50 == k) expectedInt++;
+                if (i % 7 != 0 && i % 40 == k) expectedString++;
+            }
+            assert intCounters[k].get() == expectedInt : "Rule " + k + ", actual: " + intCounters[k].get() + ", expected: " + expectedInt;
+            assert stringCounters[k].get() == expectedString : "Rule " + k + ", actual: " + stringCounters[k].get() + ", expected: " + expectedString;
+        }
+        assert longCounter.get() == factCount / 5 : "Actual: " + longCounter.get();
+        assert shortCounter.get() == factCount / 6 + 1 : "Actual: " + shortCounter.get();
+        // i % 50 == 4 -> i % 5 == 4
+        assert mixedCounter.get() == factCount / 50 : "Actual: " + mixedCounter.get();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void compiledConditions(ActivationMode mode) throws InterruptedException {
+        int ruleCount = 10;
+        AtomicInteger[] counters = new AtomicInteger[ruleCount];
+        AtomicInteger functionalCounter = new AtomicInteger();
+        RuleSetBuilder<Knowledge> builder = knowledge.builder();
+        for (int k = 0; k < ruleCount; k++) {
+            AtomicInteger counter = counters[k] = new AtomicInteger();
+            builder = builder
+                    .newRule("literal " + k)
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i > " + (k * 10), "$a.i + $a.l < " + (k * 20 + 5))
+                    .execute(ctx -> counter.incrementAndGet());
+        }
+        builder
+                .newRule("functional")
+                .forEach("$a", TypeA.class)
+                .where((ValuesPredicate) t -> t.get(0, int.class) % 3 == 0, "$a.i")
+                .execute(ctx -> functionalCounter.incrementAndGet())
+                .build();
+
+        List<TypeA> facts = new ArrayList<>();
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            int i = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            // Conditions are compiled in the background once enough facts are inserted
+            while (!MemoryInspectionUtils.alphaConditionsCompiled(session, TypeA.class)) {
+                assert System.nanoTime() < deadline : "Alpha conditions have not been compiled";
+                for (int j = 0; j < 1000; j++, i++) {
+                    TypeA a = new TypeA();
+                    a.setI(i % 200);
+                    a.setL(i % 9);
+                    facts.add(a);
+                    session.insert(a);
+                }
+                session.fire();
+                Thread.sleep(10);
+            }
+
+            // More facts evaluated by the compiled conditions
+            for (int j = 0; j < 1000; j++, i++) {
+                TypeA a = new TypeA();
+                a.setI(i % 150);
+                a.setL(i % 4);
+                facts.add(a);
+                session.insert(a);
+            }
+            session.fire();
+        }
+
+        for (int k = 0; k < ruleCount; k++) {
+            int expected = 0;
+            for (TypeA a : facts) {
+                if (a.getI() > k * 10 && a.getI() + a.getL() < k * 20 + 5) {
+                    expected++;
+                }
+            }
+            assert counters[k].get() == expected : "Rule " + k + ", actual: " + counters[k].get() + ", expected: " + expected;
+        }
+        long expectedFunctional = facts.stream().filter(a -> a.getI() % 3 == 0).count();
+        assert functionalCounter.get() == expectedFunctional : "Actual: " + functionalCounter.get();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void replacedPredicate(ActivationMode mode) {
+        RuleBuilder<Knowledge> ruleBuilder = knowledge.builder().newRule();
+        LhsBuilder<Knowledge> lhsBuilder = ruleBuilder.forEach("$a", TypeA.class);
+        ConditionManager manager = ruleBuilder.getConditionManager();
+        CompletableFuture<EvaluatorHandle> handleFuture = manager.addCondition("$a.i == 5");
+
+        AtomicInteger counter = new AtomicInteger();
+        lhsBuilder
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+        EvaluatorHandle handle = handleFuture.join();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 10; i++) {
+                session.insert(new TypeA(i));
+            }
+            session.fire();
+            assert counter.get() == 1 : "Actual: " + counter.get();
+
+            session.getEvaluatorsContext().replacePredicate(handle, t -> t.get(0, int.class) > 5);
+            counter.set(0);
+            for (int i = 0; i < 10; i++) {
+                session.insert(new TypeA(i));
+            }
+            session.fire();
+            assert counter.get() == 4 : "Actual: " + counter.get();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.Type;
+import org.evrete.api.TypeField;
+import org.evrete.classes.TypeA;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class FactFieldValuesTest {
+    private static KnowledgeService service;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @Test
+    void primitiveSlots() {
+        Type<TypeA> type = service.newKnowledge().getTypeResolver().declare(TypeA.class);
+        TypeField boxed = type.declareField("boxed", Integer.class, a -> a.getI() < 0 ? null : a.getI());
+        TypeField[] fields = new TypeField[]{
+                type.getField("i"),
+                type.getField("id"),
+                type.getField("d"),
+                type.getField("l"),
+                type.getField("f"),
+                boxed
+        };
+        FieldValuesLayout layout = FieldValuesLayout.of(type, fields);
+        assert layout.isValid(type, fields.length);
+
+        TypeA a = new TypeA("a");
+        a.setI(3);
+        a.setD(-0.0);
+        a.setL(Long.MAX_VALUE);
+        a.setF(2.5f);
+
+        FactFieldValues values = layout.read(a);
+        assert values.size() == fields.length;
+        assert values.intAt(0) == 3;
+        assert values.valueAt(0).equals(3);
+        assert values.valueAt(1).equals("a");
+        assert Double.doubleToLongBits(values.doubleAt(2)) == Double.doubleToLongBits(-0.0);
+        assert values.valueAt(2).equals(-0.0);
+        assert values.longAt(3) == Long.MAX_VALUE;
+        assert values.floatAt(4) == 2.5f;
+        // Reference slots support typed accessors too
+        assert values.intAt(5) == 3;
+
+        TypeA same = new TypeA("a");
+        same.setI(3);
+        same.setD(-0.0);
+        same.setL(Long.MAX_VALUE);
+        same.setF(2.5f);
+        FactFieldValues sameValues = layout.read(same);
+        assert values.equals(sameValues);
+        assert values.hashCode() == sameValues.hashCode();
+
+        // Values restored as references only are equal to the original ones
+        FactFieldValues restored = new FactFieldValues(new Object[]{3, "a", -0.0, Long.MAX_VALUE, 2.5f, 3});
+        assert values.equals(restored);
+        assert restored.equals(values);
+        assert values.hashCode() == restored.hashCode();
+
+        // The same value as 0.0 under the == operator, but not under Double.equals()
+        same.setD(0.0);
+        assert !values.equals(layout.read(same));
+
+        // Re-declared fields invalidate the layout
+        type.declareField("boxed", Integer.class, a1 -> 0);
+        assert !layout.isValid(type, fields.length);
+    }
+
+    @Test
+    void nullPrimitives() {
+        Type<TypeA> type = service.newKnowledge().getTypeResolver().declare(TypeA.class);
+        TypeField nullable = type.declareField("nullable", int.class, a -> a.getI() < 0 ? null : a.getI());
+        FieldValuesLayout layout = FieldValuesLayout.of(type, new TypeField[]{nullable, type.getField("id")});
+
+        FactFieldValues values = layout.read(new TypeA(-1));
+        assert values.valueAt(0) == null;
+        assert values.valueAt(1) == null;
+
+        values = layout.read(new TypeA(5));
+        assert values.intAt(0) == 5;
+        assert values.equals(layout.read(new TypeA(5)));
+        assert !values.equals(layout.read(new TypeA(6)));
+    }
+
+    @Test
+    void referenceValues() {
+        FactFieldValues values1 = new FactFieldValues(new Object[]{1, "a", null});
+        FactFieldValues values2 = new FactFieldValues(new Object[]{1, "a", null});
+        assert values1.equals(values2);
+        assert values1.hashCode() == values2.hashCode();
+        assert values1.intAt(0) == 1;
+        assert values1.valueAt(2) == null;
+        assert !values1.equals(new FactFieldValues(new Object[]{1L, "a", null}));
+    }
+}
@@ -0,0 +1,121 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.runtime.rete.ReteSessionConditionNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class FusedEvaluatorTests {
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void hotNode(ActivationMode mode) throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule("hot")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                // Conditions that can not be turned into hash joins
+                .where("$a.i + $b.i == 100", "$a.l * 2 != $b.l")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        List<TypeA> allA = new ArrayList<>();
+        List<TypeB> allB = new ArrayList<>();
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 150; i++) {
+                TypeA a = new TypeA();
+                a.setI(i);
+                a.setL(i % 3);
+                TypeB b = new TypeB();
+                b.setI(i);
+                b.setL(i % 5);
+                allA.add(a);
+                allB.add(b);
+                session.insert(a);
+                session.insert(b);
+            }
+            session.fire();
+
+            List<ReteSessionConditionNode> nodes = MemoryInspectionUtils.conditionNodes(session, "hot");
+            assert nodes.size() == 1;
+            ReteSessionConditionNode node = nodes.get(0);
+
+            // The evaluator is compiled in the background, new facts keep the node busy meanwhile
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            int i = 0;
+            while (node.getFusedEvaluator() == null) {
+                assert System.nanoTime() < deadline : "Fused evaluator has not been compiled";
+                TypeA a = new TypeA();
+                a.setI(i % 100);
+                a.setL(i % 7);
+                allA.add(a);
+                session.insert(a);
+                session.fire();
+                Thread.sleep(10);
+                i++;
+            }
+
+            // A few more cycles with the fused evaluator
+            for (int j = 0; j < 20; j++) {
+                TypeA a = new TypeA();
+                a.setI(j * 5);
+                a.setL(j % 4);
+                allA.add(a);
+                session.insert(a);
+                TypeB b = new TypeB();
+                b.setI(j * 3);
+                b.setL(j % 6);
+                allB.add(b);
+                session.insert(b);
+                session.fire();
+            }
+            assert node.getFusedEvaluator() != null;
+        }
+
+        int expected = 0;
+        for (TypeA a : allA) {
+            for (TypeB b : allB) {
+                if (a.getI() + b.getI() == 100 && a.getL() * 2 != b.getL()) {
+                    expected++;
+                }
+            }
+        }
+        assert counter.get() == expected : "Actual: " + counter.get() + ", expected: " + expected;
+    }
+}
@@ -0,0 +1,360 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class IndexedJoinTests {
+    private static KnowledgeService service;
+    private KnowledgeRuntime knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = (KnowledgeRuntime) service.newKnowledge();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void equalityChain(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule()
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where("$a.i == $b.i && $b.l == $c.l")
+                .where("$a.d < $c.d")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        List<TypeA> listA = new ArrayList<>();
+        List<TypeB> listB = new ArrayList<>();
+        List<TypeC> listC = new ArrayList<>();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            // Batch 1
+            List<FactHandle> handlesA = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                TypeA a = newA(i);
+                listA.add(a);
+                handlesA.add(session.insert(a));
+                TypeB b = newB(i);
+                listB.add(b);
+                session.insert(b);
+                TypeC c = newC(i);
+                listC.add(c);
+                session.insert(c);
+            }
+            session.fire();
+            int expected1 = expectedChainMatches(listA, listB, listC);
+            assert expected1 > 0;
+            assert counter.get() == expected1 : "Actual: " + counter.get() + ", expected: " + expected1;
+
+            // Deleting every other A-fact
+            for (int i = 0; i < handlesA.size(); i += 2) {
+                session.delete(handlesA.get(i));
+            }
+            List<TypeA> remainingA = new ArrayList<>();
+            for (int i = 1; i < listA.size(); i += 2) {
+                remainingA.add(listA.get(i));
+            }
+            counter.set(0);
+            session.fire();
+            assert counter.get() == 0;
+
+            // Batch 2
+            int remainingMatches = expectedChainMatches(remainingA, listB, listC);
+            for (int i = 40; i < 80; i++) {
+                TypeA a = newA(i);
+                remainingA.add(a);
+                session.insert(a);
+                TypeB b = newB(i);
+                listB.add(b);
+                session.insert(b);
+                TypeC c = newC(i);
+                listC.add(c);
+                session.insert(c);
+            }
+            session.fire();
+            int expected2 = expectedChainMatches(remainingA, listB, listC) - remainingMatches;
+            assert expected2 > 0;
+            assert counter.get() == expected2 : "Actual: " + counter.get() + ", expected: " + expected2;
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void compositeKeys(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule()
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i && $a.id.equals($b.id) && $a.d == $b.d")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        List<TypeA> listA = new ArrayList<>();
+        List<TypeB> listB = new ArrayList<>();
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 60; i++) {
+                TypeA a = newA(i);
+                a.setD(i % 2 == 0 ? 0.0 : -0.0);
+                listA.add(a);
+                session.insert(a);
+                TypeB b = newB(i);
+                b.setD(0.0);
+                listB.add(b);
+                session.insert(b);
+            }
+            session.fire();
+        }
+
+        int expected = 0;
+        for (TypeA a : listA) {
+            for (TypeB b : listB) {
+                if (a.getI() == b.getI() && a.getId().equals(b.getId()) && a.getD() == b.getD()) {
+                    expected++;
+                }
+            }
+        }
+        assert expected > 0;
+        assert counter.get() == expected : "Actual: " + counter.get() + ", expected: " + expected;
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void rangeWindow(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule()
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where("$a.i > $b.i && $c.i >= $a.i")
+                .where("$b.d <= $c.d")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        List<TypeA> listA = new ArrayList<>();
+        List<TypeB> listB = new ArrayList<>();
+        List<TypeC> listC = new ArrayList<>();
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            List<FactHandle> handlesB = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                TypeA a = newA(i);
+                a.setI(i);
+                listA.add(a);
+                session.insert(a);
+                TypeB b = newB(i);
+                b.setI(i % 10);
+                b.setD(i % 2 == 0 ? 0.0 : -0.0);
+                listB.add(b);
+                handlesB.add(session.insert(b));
+                TypeC c = newC(i);
+                c.setI(i + (i % 3));
+                c.setD(i % 3 == 0 ? -0.0 : 0.0);
+                listC.add(c);
+                session.insert(c);
+            }
+            session.fire();
+            int expected1 = expectedWindowMatches(listA, listB, listC);
+            assert expected1 > 0;
+            assert counter.get() == expected1 : "Actual: " + counter.get() + ", expected: " + expected1;
+
+            // Deleting half of the windows and inserting new facts
+            List<TypeB> remainingB = new ArrayList<>();
+            for (int i = 0; i < handlesB.size(); i++) {
+                if (i % 2 == 0) {
+                    session.delete(handlesB.get(i));
+                } else {
+                    remainingB.add(listB.get(i));
+                }
+            }
+            int remainingMatches = expectedWindowMatches(listA, remainingB, listC);
+            counter.set(0);
+            for (int i = 30; i < 45; i++) {
+                TypeA a = newA(i);
+                a.setI(i % 20);
+                listA.add(a);
+                session.insert(a);
+                TypeC c = newC(i);
+                c.setI(i % 25);
+                listC.add(c);
+                session.insert(c);
+            }
+            session.fire();
+            int expected2 = expectedWindowMatches(listA, remainingB, listC) - remainingMatches;
+            assert expected2 > 0;
+            assert counter.get() == expected2 : "Actual: " + counter.get() + ", expected: " + expected2;
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void selfJoinDeletes(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule()
+                .forEach(
+                        fact("$x", TypeA.class),
+                        fact("$y", TypeA.class)
+                )
+                .where("$x.i == $y.i")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            List<FactHandle> handles = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                handles.add(session.insert(newA(i)));
+            }
+            session.fire();
+            // 40 facts, i % 7 -> five groups of 6 facts and two groups of 5 facts
+            assert counter.get() == 5 * 36 + 2 * 25 : "Actual: " + counter.get();
+
+            // Re-inserted facts must match again, both with each other and with the remaining facts
+            List<Object> deleted = new ArrayList<>();
+            for (int i = 0; i < handles.size(); i += 2) {
+                deleted.add(session.getFact(handles.get(i)));
+                session.delete(handles.get(i));
+            }
+            session.fire();
+            counter.set(0);
+            deleted.forEach(session::insert);
+            session.fire();
+            assert counter.get() == 5 * 36 + 2 * 25 - (6 * 9 + 2 * 2) : "Actual: " + counter.get();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void disjunctionNotIndexed(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule()
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i || $a.l == $b.l")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        List<TypeA> listA = new ArrayList<>();
+        List<TypeB> listB = new ArrayList<>();
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 30; i++) {
+                TypeA a = newA(i);
+                listA.add(a);
+                session.insert(a);
+                TypeB b = newB(i);
+                listB.add(b);
+                session.insert(b);
+            }
+            session.fire();
+        }
+
+        int expected = 0;
+        for (TypeA a : listA) {
+            for (TypeB b : listB) {
+                if (a.getI() == b.getI() || a.getL() == b.getL()) {
+                    expected++;
+                }
+            }
+        }
+        assert counter.get() == expected : "Actual: " + counter.get() + ", expected: " + expected;
+    }
+
+    private static int expectedChainMatches(List<TypeA> listA, List<TypeB> listB, List<TypeC> listC) {
+        int count = 0;
+        for (TypeA a : listA) {
+            for (TypeB b : listB) {
+                if (a.getI() == b.getI()) {
+                    for (TypeC c : listC) {
+                        if (b.getL() == c.getL() && a.getD() < c.getD()) {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int expectedWindowMatches(List<TypeA> listA, List<TypeB> listB, List<TypeC> listC) {
+        int count = 0;
+        for (TypeA a : listA) {
+            for (TypeB b : listB) {
+                if (a.getI() > b.getI()) {
+                    for (TypeC c : listC) {
+                        if (c.getI() >= a.getI() && b.getD() <= c.getD()) {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static TypeA newA(int i) {
+        TypeA a = new TypeA("id" + (i % 5));
+        a.setI(i % 7);
+        a.setL(i % 3);
+        a.setD(i);
+        return a;
+    }
+
+    private static TypeB newB(int i) {
+        TypeB b = new TypeB("id" + (i % 4));
+        b.setI(i % 5);
+        b.setL(i % 11);
+        b.setD(i);
+        return b;
+    }
+
+    private static TypeC newC(int i) {
+        TypeC c = new TypeC("id" + i);
+        c.setI(i);
+        c.setL(i % 4);
+        c.setD(i % 13);
+        return c;
+    }
+}
@@ -0,0 +1,126 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class JoinPlanningTests {
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void explodingJoin(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger mismatches = new AtomicInteger();
+        // The first condition is the cheapest one, but it matches every pair of A and B facts
+        knowledge
+                .builder()
+                .newRule("test")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where("$a.i == $b.i", 1.0)
+                .where("$b.l == $c.l", 10.0)
+                .where("$a.l == $c.l", 10.0)
+                .execute(ctx -> {
+                    TypeA a = ctx.get("$a");
+                    TypeB b = ctx.get("$b");
+                    TypeC c = ctx.get("$c");
+                    if (a.getL() != c.getL() || b.getL() != c.getL()) {
+                        mismatches.incrementAndGet();
+                    }
+                    counter.incrementAndGet();
+                })
+                .build();
+
+        int count = 200;
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            List<FactHandle> handlesA = new ArrayList<>();
+            for (int k = 0; k < count; k++) {
+                handlesA.add(session.insert(newA(k)));
+                session.insert(newB(k));
+                session.insert(newC(k));
+            }
+            session.fire();
+            assert counter.get() == count : "Actual: " + counter.get();
+
+            // The graph must have been re-planned after the first cycle
+            long memorySize = MemoryInspectionUtils.conditionMemorySize(session, "test");
+            assert memorySize < 5L * count : "Actual: " + memorySize;
+
+            // The new graph must be maintained incrementally
+            counter.set(0);
+            for (int k = count; k < count + 10; k++) {
+                session.insert(newA(k));
+                session.insert(newB(k));
+                session.insert(newC(k));
+            }
+            session.fire();
+            assert counter.get() == 10 : "Actual: " + counter.get();
+
+            List<TypeA> deleted = new ArrayList<>();
+            for (int k = 0; k < count; k += 2) {
+                deleted.add(session.getFact(handlesA.get(k)));
+                session.delete(handlesA.get(k));
+            }
+            session.fire();
+            counter.set(0);
+            deleted.forEach(session::insert);
+            session.fire();
+            assert counter.get() == count / 2 : "Actual: " + counter.get();
+            assert mismatches.get() == 0 : "Actual: " + mismatches.get();
+        }
+    }
+
+    private static TypeA newA(int k) {
+        TypeA a = new TypeA("a" + k);
+        a.setL(k);
+        return a;
+    }
+
+    private static TypeB newB(int k) {
+        TypeB b = new TypeB("b" + k);
+        b.setL(k);
+        return b;
+    }
+
+    private static TypeC newC(int k) {
+        TypeC c = new TypeC("c" + k);
+        c.setL(k);
+        return c;
+    }
+}
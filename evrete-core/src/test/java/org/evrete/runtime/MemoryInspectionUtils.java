@@ -6,7 +6,9 @@ import org.evrete.api.spi.MemoryScope;
 import org.evrete.runtime.rete.*;
 import org.evrete.util.MapFunction;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
@@ -49,6 +51,18 @@ public class MemoryInspectionUtils {
         }
     }
 
+    static long fieldValuesId(FactHandle handle, RuleSession<?> session) {
+        AbstractRuleSession<?> s = cast(session);
+        DefaultFactHandle fh = s.unwrapFactHandle(handle);
+        return s.getMemory().getTypeMemory(fh).get(fh).getFieldValuesId();
+    }
+
+    static FactFieldValues fieldValues(FactHandle handle, long valuesId, RuleSession<?> session) {
+        AbstractRuleSession<?> s = cast(session);
+        DefaultFactHandle fh = s.unwrapFactHandle(handle);
+        return s.getMemory().getTypeMemory(fh).readFieldValues(valuesId);
+    }
+
     static void assertNoDeltaStates(RuleSession<?> session) {
         AbstractRuleSession<?> s = cast(session);
 
@@ -85,6 +99,31 @@ public class MemoryInspectionUtils {
         }
     }
 
+    static boolean alphaConditionsCompiled(RuleSession<?> session, Class<?> javaType) {
+        AbstractRuleSession<?> s = cast(session);
+        ActiveType activeType = s.activeTypes()
+                .filter(type -> type.getValue().getJavaClass().equals(javaType))
+                .findFirst()
+                .orElseThrow(NoSuchElementException::new);
+        return s.alphaConditionDispatch(activeType).isCompiled();
+    }
+
+    static long conditionMemorySize(RuleSession<?> session, String ruleName) {
+        AbstractRuleSession<?> s = cast(session);
+        SessionRule rule = (SessionRule) s.getRule(ruleName);
+        long[] size = new long[1];
+        forEachConditionNode(rule, node -> size[0] += node.size(MemoryScope.MAIN));
+        return size[0];
+    }
+
+    static List<ReteSessionConditionNode> conditionNodes(RuleSession<?> session, String ruleName) {
+        AbstractRuleSession<?> s = cast(session);
+        SessionRule rule = (SessionRule) s.getRule(ruleName);
+        List<ReteSessionConditionNode> nodes = new ArrayList<>();
+        forEachConditionNode(rule, nodes::add);
+        return nodes;
+    }
+
     private static void forEachConditionNode(SessionRule rule, Consumer<ReteSessionConditionNode> consumer) {
         SessionFactGroup[] groups = rule.getLhs().getFactGroups();
         for (SessionFactGroup group : groups) {
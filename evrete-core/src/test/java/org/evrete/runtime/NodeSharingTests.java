@@ -0,0 +1,187 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class NodeSharingTests {
+    private static KnowledgeService service;
+    private KnowledgeRuntime knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = (KnowledgeRuntime) service.newKnowledge();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void identicalJoins(ActivationMode mode) {
+        AtomicInteger counter1 = new AtomicInteger();
+        AtomicInteger counter2 = new AtomicInteger();
+        AtomicInteger counter3 = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule("rule 1")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter1.incrementAndGet())
+                .newRule("rule 2")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter2.incrementAndGet())
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            AbstractRuleSessionBase<?> sessionBase = (AbstractRuleSessionBase<?>) session;
+            assert sessionBase.getReteNodes().size() == 1 : "Actual: " + sessionBase.getReteNodes().size();
+
+            List<FactHandle> handlesA = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                handlesA.add(session.insert(newA(i)));
+                session.insert(newB(i));
+            }
+            session.fire();
+            // 20 facts of each type, i % 4 -> 4 groups of 5
+            int expected = 4 * 25;
+            assert counter1.get() == expected : "Actual: " + counter1.get();
+            assert counter2.get() == expected : "Actual: " + counter2.get();
+
+            // Deleting and re-inserting A-facts
+            List<Object> deleted = new ArrayList<>();
+            for (int i = 0; i < handlesA.size(); i += 2) {
+                deleted.add(session.getFact(handlesA.get(i)));
+                session.delete(handlesA.get(i));
+            }
+            session.fire();
+            counter1.set(0);
+            counter2.set(0);
+            deleted.forEach(session::insert);
+            session.fire();
+            assert counter1.get() == 10 * 5 : "Actual: " + counter1.get();
+            assert counter2.get() == 10 * 5 : "Actual: " + counter2.get();
+
+            // Deploying an identical rule into the live session
+            session
+                    .builder()
+                    .newRule("rule 3")
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class)
+                    )
+                    .where("$a.i == $b.i")
+                    .execute(ctx -> counter3.incrementAndGet())
+                    .build();
+            assert sessionBase.getReteNodes().size() == 1 : "Actual: " + sessionBase.getReteNodes().size();
+
+            counter1.set(0);
+            counter2.set(0);
+            session.insert(newA(0));
+            session.fire();
+            assert counter1.get() == 5 : "Actual: " + counter1.get();
+            assert counter2.get() == 5 : "Actual: " + counter2.get();
+            assert counter3.get() == 5 : "Actual: " + counter3.get();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void differentConditions(ActivationMode mode) {
+        AtomicInteger counter1 = new AtomicInteger();
+        AtomicInteger counter2 = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule("rule 1")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter1.incrementAndGet())
+                .newRule("rule 2")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .where("$a.l > $b.l")
+                .execute(ctx -> counter2.incrementAndGet())
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            AbstractRuleSessionBase<?> sessionBase = (AbstractRuleSessionBase<?>) session;
+            assert sessionBase.getReteNodes().size() == 2 : "Actual: " + sessionBase.getReteNodes().size();
+
+            List<TypeA> listA = new ArrayList<>();
+            List<TypeB> listB = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                TypeA a = newA(i);
+                listA.add(a);
+                session.insert(a);
+                TypeB b = newB(i);
+                listB.add(b);
+                session.insert(b);
+            }
+            session.fire();
+
+            int expected1 = 0;
+            int expected2 = 0;
+            for (TypeA a : listA) {
+                for (TypeB b : listB) {
+                    if (a.getI() == b.getI()) {
+                        expected1++;
+                        if (a.getL() > b.getL()) {
+                            expected2++;
+                        }
+                    }
+                }
+            }
+            assert expected2 > 0;
+            assert counter1.get() == expected1 : "Actual: " + counter1.get() + ", expected: " + expected1;
+            assert counter2.get() == expected2 : "Actual: " + counter2.get() + ", expected: " + expected2;
+        }
+    }
+
+    private static TypeA newA(int i) {
+        TypeA a = new TypeA("a" + i);
+        a.setI(i % 4);
+        a.setL(i);
+        return a;
+    }
+
+    private static TypeB newB(int i) {
+        TypeB b = new TypeB("b" + i);
+        b.setI(i % 4);
+        b.setL(i % 7);
+        return b;
+    }
+}
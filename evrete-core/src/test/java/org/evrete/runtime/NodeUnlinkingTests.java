@@ -0,0 +1,133 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class NodeUnlinkingTests {
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void dormantRule(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule("dormant")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where("$a.i == $b.i")
+                .where("$b.i == $c.i")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            List<FactHandle> handlesA = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                handlesA.add(session.insert(new TypeA(i)));
+                session.insert(new TypeB(i));
+            }
+            session.fire();
+            // No C facts, the rule's condition nodes must not be computed
+            assert counter.get() == 0;
+            assert MemoryInspectionUtils.conditionMemorySize(session, "dormant") == 0L;
+
+            // Changing the A facts while the rule is dormant
+            session.delete(handlesA.get(0));
+            session.insert(new TypeA(5));
+            session.fire();
+            assert MemoryInspectionUtils.conditionMemorySize(session, "dormant") == 0L;
+
+            // The first C facts make the rule active
+            for (int i = 0; i < 10; i++) {
+                session.insert(new TypeC(i));
+            }
+            session.fire();
+            // 9 matches for i in [1..9], plus one for the second A with i == 5
+            assert counter.get() == 10 : "Actual: " + counter.get();
+
+            // The rebuilt nodes must be maintained incrementally
+            counter.set(0);
+            session.insert(new TypeB(5));
+            session.fire();
+            assert counter.get() == 2 : "Actual: " + counter.get();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void sharedNodes(ActivationMode mode) {
+        AtomicInteger counter1 = new AtomicInteger();
+        AtomicInteger counter2 = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule("rule 1")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter1.incrementAndGet())
+                .newRule("rule 2")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter2.incrementAndGet())
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 10; i++) {
+                session.insert(new TypeA(i));
+                session.insert(new TypeB(i));
+            }
+            session.fire();
+            assert counter1.get() == 10 : "Actual: " + counter1.get();
+            assert counter2.get() == 0 : "Actual: " + counter2.get();
+
+            // The second rule's condition node is maintained by the first rule
+            session.insert(new TypeC(0));
+            session.insert(new TypeA(3));
+            session.fire();
+            assert counter1.get() == 11 : "Actual: " + counter1.get();
+            assert counter2.get() == 11 : "Actual: " + counter2.get();
+        }
+    }
+}
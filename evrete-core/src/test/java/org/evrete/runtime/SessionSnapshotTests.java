@@ -0,0 +1,272 @@
+package org.evrete.runtime;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class SessionSnapshotTests {
+    private static KnowledgeService service;
+    private Path file;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() throws IOException {
+        file = Files.createTempFile("evrete-snapshot", ".bin");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void restoreWithoutEvaluations(ActivationMode mode) throws IOException {
+        AtomicInteger evaluations = new AtomicInteger();
+        AtomicInteger matches = new AtomicInteger();
+        Predicate<Object[]> large = values -> {
+            evaluations.incrementAndGet();
+            return (int) values[0] > 10;
+        };
+        Predicate<Object[]> sameCustomer = values -> {
+            evaluations.incrementAndGet();
+            return (int) values[0] == (int) values[1];
+        };
+        Knowledge knowledge = service.newKnowledge()
+                .builder()
+                .newRule("large orders")
+                .forEach(
+                        fact("$c", Customer.class),
+                        fact("$o", Order.class)
+                )
+                .where(large, "$o.amount")
+                .where(sameCustomer, "$c.id", "$o.customerId")
+                .execute(ctx -> matches.incrementAndGet())
+                .build();
+
+        List<FactHandle> customers = new ArrayList<>();
+        try (StatefulSession source = knowledge.newStatefulSession(mode);
+             StatefulSession restored = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 50; i++) {
+                customers.add(source.insert(new Customer(i)));
+            }
+            for (int i = 0; i < 200; i++) {
+                source.insert(new Order(i % 50, i % 30));
+            }
+            source.fire();
+            // Amounts in [11..29] out of [0..29], and the orders of the last incomplete cycle
+            assert matches.get() == 6 * 19 + 9 : "Actual: " + matches.get();
+            source.writeSnapshot(file);
+
+            evaluations.set(0);
+            restored.restoreSnapshot(file);
+            assert evaluations.get() == 0;
+            assert restored.streamFacts(Customer.class).count() == 50L;
+            assert restored.streamFacts(Order.class).count() == 200L;
+            for (int i = 0; i < customers.size(); i++) {
+                Customer customer = restored.getFact(customers.get(i));
+                assert customer.getId() == i;
+            }
+
+            // Both sessions must react to the same changes in the same way
+            for (StatefulSession session : new StatefulSession[]{source, restored}) {
+                matches.set(0);
+                session.delete(customers.get(3));
+                session.insert(new Order(3, 20));
+                session.insert(new Order(4, 20));
+                session.insert(new Order(4, 5));
+                session.insert(new Customer(4));
+                session.fire();
+                // The new large order of both customers #4, and the two existing large orders of the new customer
+                assert matches.get() == 2 + 2 : "Actual: " + matches.get();
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void unlinkedNodes(ActivationMode mode) throws IOException {
+        AtomicInteger matches = new AtomicInteger();
+        Knowledge knowledge = service.newKnowledge()
+                .builder()
+                .newRule("dormant")
+                .forEach(
+                        fact("$c", Customer.class),
+                        fact("$o", Order.class),
+                        fact("$v", Vendor.class)
+                )
+                .where("$c.id == $o.customerId")
+                .where("$o.amount == $v.id")
+                .execute(ctx -> matches.incrementAndGet())
+                .build();
+
+        try (StatefulSession source = knowledge.newStatefulSession(mode);
+             StatefulSession restored = knowledge.newStatefulSession(mode)) {
+            for (int i = 0; i < 10; i++) {
+                source.insert(new Customer(i));
+                source.insert(new Order(i, i));
+            }
+            source.fire();
+            source.writeSnapshot(file);
+            restored.restoreSnapshot(file);
+
+            // Without vendors, the rule's nodes haven't been computed. They're rebuilt once the rule is linked.
+            for (int i = 0; i < 5; i++) {
+                restored.insert(new Vendor(i));
+            }
+            restored.fire();
+            assert matches.get() == 5 : "Actual: " + matches.get();
+        }
+    }
+
+    @Test
+    void invalidStates() throws IOException {
+        Knowledge knowledge = service.newKnowledge()
+                .builder()
+                .newRule()
+                .forEach("$c", Customer.class)
+                .where("$c.id > 0")
+                .execute()
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insert(new Customer(1));
+            try {
+                session.writeSnapshot(file);
+                assert false : "Unprocessed changes must not be written";
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            session.fire();
+            session.writeSnapshot(file);
+            try {
+                session.restoreSnapshot(file);
+                assert false : "Snapshots must not be restored in non-empty sessions";
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    void sharedReferences() throws IOException {
+        Knowledge knowledge = service.newKnowledge()
+                .builder()
+                .newRule()
+                .forEach("$n", Note.class)
+                .where("$n.owner.id >= 0")
+                .execute()
+                .build();
+
+        int count = SessionSnapshot.RESET_INTERVAL * 3;
+        try (StatefulSession source = knowledge.newStatefulSession();
+             StatefulSession restored = knowledge.newStatefulSession()) {
+            Customer owner = new Customer(7);
+            for (int i = 0; i < count; i++) {
+                source.insert(new Note(owner));
+            }
+            source.fire();
+            source.writeSnapshot(file);
+            restored.restoreSnapshot(file);
+
+            // The stream is reset between batches of facts, so every batch gets its own copy of the owner
+            Set<Customer> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+            restored.streamFacts(Note.class).forEach(note -> {
+                assert note.getOwner().getId() == 7;
+                owners.add(note.getOwner());
+            });
+            assert restored.streamFacts(Note.class).count() == count;
+            assert owners.size() > 1 && owners.size() <= 3 : "Actual: " + owners.size();
+        }
+    }
+
+    public static class Note implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final Customer owner;
+
+        public Note(Customer owner) {
+            this.owner = owner;
+        }
+
+        public Customer getOwner() {
+            return owner;
+        }
+    }
+
+    public static class Customer implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int id;
+
+        public Customer(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    public static class Vendor implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int id;
+
+        public Vendor(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    public static class Order implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int customerId;
+        private final int amount;
+
+        public Order(int customerId, int amount) {
+            this.customerId = customerId;
+            this.amount = amount;
+        }
+
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+    }
+}
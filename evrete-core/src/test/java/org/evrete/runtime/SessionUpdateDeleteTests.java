@@ -491,6 +491,58 @@ class SessionUpdateDeleteTests {
         }
     }
 
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void fieldValuesReclamation(ActivationMode mode) {
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .builder()
+                .newRule("join")
+                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+
+        int count = 100;
+        try (StatefulSession s = knowledge.newStatefulSession(mode)) {
+            FactHandle[] handles = new FactHandle[count];
+            long[] valueIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                handles[i] = s.insert(new TypeA(i));
+                valueIds[i] = MemoryInspectionUtils.fieldValuesId(handles[i], s);
+                s.insert(new TypeB(i));
+            }
+            s.fire();
+            assert counter.get() == count : "Actual: " + counter.get();
+
+            for (FactHandle handle : handles) {
+                s.delete(handle);
+            }
+            // Field values must stay available until the deletes are applied
+            FactHandle probe = s.insert(new TypeA(-1));
+            for (long id : valueIds) {
+                assert MemoryInspectionUtils.fieldValues(probe, id, s) != null;
+            }
+            s.fire();
+            for (long id : valueIds) {
+                assert MemoryInspectionUtils.fieldValues(probe, id, s) == null : "Values " + id + " have not been reclaimed";
+            }
+            // Beta memories must not refer to the reclaimed values
+            assert MemoryInspectionUtils.conditionMemorySize(s, "join") == 0;
+
+            // Same values, new facts
+            for (int i = 0; i < count; i++) {
+                handles[i] = s.insert(new TypeA(i));
+            }
+            s.fire();
+            assert counter.get() == 2 * count : "Actual: " + counter.get();
+            for (FactHandle handle : handles) {
+                long id = MemoryInspectionUtils.fieldValuesId(handle, s);
+                assert MemoryInspectionUtils.fieldValues(handle, id, s) != null;
+            }
+        }
+    }
+
     @ParameterizedTest
     @EnumSource(ActivationMode.class)
     void retractMemoryTest(ActivationMode mode) {
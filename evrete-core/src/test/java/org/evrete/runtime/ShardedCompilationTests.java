@@ -0,0 +1,100 @@
+package org.evrete.runtime;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.api.builders.RuleSetBuilder;
+import org.evrete.classes.TypeA;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShardedCompilationTests {
+    private static final int RULE_COUNT = 40;
+    public static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @BeforeEach
+    void init() {
+        COUNTER.set(0);
+    }
+
+    @Test
+    void shardedRules() throws Exception {
+        KnowledgeService service = new KnowledgeService(configuration());
+        try {
+            assert buildAndRun(service) == RULE_COUNT / 2;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void singleThreadExecutor() throws Exception {
+        // The only thread of the executor is blocked by the build, so the shards are compiled by that thread
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            KnowledgeService service = KnowledgeService.builder(configuration())
+                    .withExecutor(executor)
+                    .build();
+            Knowledge knowledge = executor.submit(() -> rules(service.newKnowledge()).build()).get();
+            assert run(knowledge) == RULE_COUNT / 2;
+            service.shutdown();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void compilationErrors() {
+        KnowledgeService service = new KnowledgeService(configuration());
+        try {
+            RuleSetBuilder<Knowledge> builder = rules(service.newKnowledge());
+            builder.newRule("invalid")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i > unknownVariable")
+                    .execute();
+            try {
+                builder.build();
+                assert false : "Compilation must fail";
+            } catch (RuntimeException e) {
+                // Expected
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static Configuration configuration() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Configuration.COMPILER_MIN_SHARD_SIZE, "4");
+        return configuration;
+    }
+
+    private static int buildAndRun(KnowledgeService service) {
+        return run(rules(service.newKnowledge()).build());
+    }
+
+    private static int run(Knowledge knowledge) {
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            TypeA a = new TypeA("A");
+            a.setI(RULE_COUNT / 2);
+            session.insertAndFire(a);
+        }
+        return COUNTER.get();
+    }
+
+    private static RuleSetBuilder<Knowledge> rules(Knowledge knowledge) {
+        RuleSetBuilder<Knowledge> builder = knowledge.builder();
+        for (int i = 0; i < RULE_COUNT; i++) {
+            builder.newRule("rule " + i)
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i > " + i)
+                    .execute(ShardedCompilationTests.class.getName() + ".COUNTER.incrementAndGet();");
+        }
+        return builder;
+    }
+}
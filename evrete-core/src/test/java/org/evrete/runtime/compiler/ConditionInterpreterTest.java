@@ -0,0 +1,188 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.IntToValue;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.api.spi.SourceCompiler;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.spi.minimal.DefaultSourceCompilerProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class ConditionInterpreterTest {
+    private static final Class<?>[] TYPES = {int.class, long.class, double.class, float.class, boolean.class, short.class};
+    private static final Map<String, Integer> VARS = new HashMap<>();
+
+    static {
+        VARS.put("i", 0);
+        VARS.put("l", 1);
+        VARS.put("d", 2);
+        VARS.put("f", 3);
+        VARS.put("b", 4);
+        VARS.put("s", 5);
+    }
+
+    @Test
+    void javaSemantics() {
+        int i = Integer.MAX_VALUE;
+        long l = 3L;
+        double d = Double.NaN;
+        float f = 0.5f;
+        boolean b = true;
+        short s = -2;
+        IntToValue values = values(i, l, d, f, b, s);
+
+        assert eval("i + 1 < 0", values) == (i + 1 < 0);
+        assert eval("i + 1L < 0", values) == (i + 1L < 0);
+        assert eval("i * l / 2 == 3221225470L", values) == (i * l / 2 == 3221225470L);
+        assert eval("d == d", values) == (d == d);
+        assert eval("d != d", values) == (d != d);
+        assert eval("!(d < 1.0) && !(d >= 1.0)", values) == (!(d < 1.0) && !(d >= 1.0));
+        assert eval("f * 2 == 1", values) == (f * 2 == 1);
+        assert eval("s % 3 == -2 || b == false", values) == (s % 3 == -2 || !b);
+        assert eval("-s + 2 * l > 7.5e0 / f", values) == (-s + 2 * l > 7.5e0 / f);
+        assert eval("b != (l > 2) || i / 2 == 1073741823", values) == (b != (l > 2) || i / 2 == 1073741823);
+        assert eval("(i % 7 - 3.0) / 0 > 0", values) == ((i % 7 - 3.0) / 0 > 0);
+
+        try {
+            eval("i / (s + 2) > 0", values);
+            assert false : "Integer division by zero must fail";
+        } catch (ArithmeticException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void unsupportedConditions() {
+        assert ConditionInterpreter.parse("i > 0", VARS, TYPES) != null;
+        assert ConditionInterpreter.parse("Math.abs(i) > 0", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i > 0x10", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i > 1_000", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i > 2147483648", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i + 1", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i++ > 0", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("(long) i > 0", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i > unknown", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("b > 0", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i > ${const1}", VARS, TYPES) == null;
+        assert ConditionInterpreter.parse("i > 0", VARS, new Class<?>[]{Integer.class}) == null;
+    }
+
+    @Test
+    void interpretedRules() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Configuration.COMPILER_INTERPRET_CONDITIONS, "true");
+        KnowledgeService service = new KnowledgeService(configuration);
+        try {
+            AtomicInteger alpha = new AtomicInteger();
+            AtomicInteger beta = new AtomicInteger();
+            AtomicInteger mixed = new AtomicInteger();
+            Knowledge knowledge = service.newKnowledge()
+                    .builder()
+                    .newRule("alpha")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i > 1 && $a.d * 2 < 10.0")
+                    .execute(ctx -> alpha.incrementAndGet())
+                    .newRule("beta")
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class)
+                    )
+                    .where("$a.i == $b.i")
+                    .execute(ctx -> beta.incrementAndGet())
+                    .newRule("mixed")
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class)
+                    )
+                    .where("$a.i + $b.i > 3", "$a.id.equals(\"A2\")")
+                    .execute(ctx -> mixed.incrementAndGet())
+                    .build();
+
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                TypeA a1 = new TypeA("A1");
+                a1.setI(1);
+                a1.setD(1.0);
+                TypeA a2 = new TypeA("A2");
+                a2.setI(2);
+                a2.setD(4.5);
+                TypeB b = new TypeB("B");
+                b.setI(2);
+                session.insertAndFire(a1, a2, b);
+            }
+            assert alpha.get() == 1;
+            assert beta.get() == 1;
+            assert mixed.get() == 1;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void interpretedRulesWithoutCompiler() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Configuration.COMPILER_INTERPRET_CONDITIONS, "true");
+        // Platforms without a Java compiler can run rules that need no generated classes
+        KnowledgeService service = KnowledgeService.builder(configuration)
+                .withSourceCompilerProvider(NoCompilerProvider.class)
+                .build();
+        try {
+            AtomicInteger counter = new AtomicInteger();
+            Knowledge knowledge = service.newKnowledge()
+                    .builder()
+                    .newRule("alpha")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i > 1")
+                    .execute(ctx -> counter.incrementAndGet())
+                    .newRule("beta")
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class)
+                    )
+                    .where("$a.i == $b.i")
+                    .execute(ctx -> counter.incrementAndGet())
+                    .build();
+
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                TypeA a = new TypeA("A");
+                a.setI(2);
+                TypeB b = new TypeB("B");
+                b.setI(2);
+                session.insertAndFire(a, b);
+            }
+            assert counter.get() == 2;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static boolean eval(String expression, IntToValue values) {
+        ConditionInterpreter.Node node = ConditionInterpreter.parse(expression, VARS, TYPES);
+        assert node != null : "Not interpreted: " + expression;
+        return node.booleanValue(values);
+    }
+
+    private static IntToValue values(Object... args) {
+        return i -> args[i];
+    }
+
+    public static class NoCompilerProvider extends DefaultSourceCompilerProvider {
+        @Override
+        public SourceCompiler instance(ClassLoader classLoader) {
+            throw new IllegalStateException("No Java compiler");
+        }
+
+        @Override
+        public SourceCompiler instance(Configuration configuration, ClassLoader classLoader) {
+            throw new IllegalStateException("No Java compiler");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.api.IntToValue;
+import org.evrete.api.spi.SourceCompiler;
+import org.evrete.runtime.evaluation.StaticMethodPredicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles and runs generated evaluators with the engine on the module path, where only
+ * the exported packages of the engine are accessible to the generated classes.
+ */
+class FusedEvaluatorModuleTests {
+    private static final String DRIVER = "" +
+            "import org.evrete.api.spi.*;\n" +
+            "\n" +
+            "public class ModulePathDriver {\n" +
+            "  public static void main(String[] args) throws Exception {\n" +
+            "    FusedEvaluator fused = (FusedEvaluator) Class.forName(args[0]).getDeclaredConstructor().newInstance();\n" +
+            "    AlphaMaskEvaluator alpha = (AlphaMaskEvaluator) Class.forName(args[1]).getDeclaredConstructor().newInstance();\n" +
+            "    long[] mask = new long[2];\n" +
+            "    alpha.evaluate(values(\"x\", 55, true), mask);\n" +
+            "    System.out.print(fused.test(new FieldValues[]{values(\"a\"), values(\"a\", 55, true)}) + \" \" +\n" +
+            "        fused.test(new FieldValues[]{values(\"a\"), values(\"b\", 55, true)}) + \" \" + mask[0] + \" \" + mask[1]);\n" +
+            "  }\n" +
+            "\n" +
+            "  private static FieldValues values(Object... values) {\n" +
+            "    return new FieldValues() {\n" +
+            "      public int size() { return values.length; }\n" +
+            "      public Object valueAt(int i) { return values[i]; }\n" +
+            "      public int intAt(int i) { return (Integer) values[i]; }\n" +
+            "      public long longAt(int i) { return (Long) values[i]; }\n" +
+            "      public double doubleAt(int i) { return (Double) values[i]; }\n" +
+            "      public float floatAt(int i) { return (Float) values[i]; }\n" +
+            "      public short shortAt(int i) { return (Short) values[i]; }\n" +
+            "      public byte byteAt(int i) { return (Byte) values[i]; }\n" +
+            "      public char charAt(int i) { return (Character) values[i]; }\n" +
+            "      public boolean booleanAt(int i) { return (Boolean) values[i]; }\n" +
+            "    };\n" +
+            "  }\n" +
+            "}\n";
+
+    private Path root;
+
+    @BeforeEach
+    void init() throws IOException {
+        root = Files.createTempDirectory("evrete-module-path");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void generatedEvaluators() throws Exception {
+        Path core = Paths.get(FusedEvaluatorCompiler.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        // Java 8 builds have no module descriptor
+        Assumptions.assumeTrue(Files.exists(core.resolve("module-info.class")), "The engine is not a module");
+
+        SourceCompiler.ClassSource beta = FusedEvaluatorCompiler.betaSource(Arrays.asList(
+                new FusedEvaluatorCompiler.Call(predicate(Objects.class, "equals", Object.class, Object.class), new int[]{0, 1}, new int[]{0, 0}),
+                new FusedEvaluatorCompiler.Call(predicate(Character.class, "isDigit", int.class), new int[]{1}, new int[]{1})
+        ));
+        SourceCompiler.ClassSource alpha = FusedEvaluatorCompiler.alphaSource(Arrays.asList(
+                new FusedEvaluatorCompiler.Call(predicate(Character.class, "isDigit", int.class), new int[]{0}, new int[]{1}),
+                new FusedEvaluatorCompiler.Call(predicate(Boolean.class, "logicalAnd", boolean.class, boolean.class), new int[]{0, 0}, new int[]{2, 2})
+        ), new int[]{3, 65});
+
+        // Same sources, same class names
+        assert beta.binaryName().equals(FusedEvaluatorCompiler.betaSource(Arrays.asList(
+                new FusedEvaluatorCompiler.Call(predicate(Objects.class, "equals", Object.class, Object.class), new int[]{0, 1}, new int[]{0, 0}),
+                new FusedEvaluatorCompiler.Call(predicate(Character.class, "isDigit", int.class), new int[]{1}, new int[]{1})
+        )).binaryName());
+
+        Path sources = root.resolve("src");
+        Path classes = root.resolve("classes");
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "-d", classes.toString(),
+                "--module-path", core.toString(),
+                "--add-modules", "org.evrete.core"
+        ));
+        args.add(write(sources, beta).toString());
+        args.add(write(sources, alpha).toString());
+        Path driver = sources.resolve("ModulePathDriver.java");
+        Files.write(driver, DRIVER.getBytes(StandardCharsets.UTF_8));
+        args.add(driver.toString());
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, args.toArray(new String[0]));
+        assert status == 0 : errors.toString();
+
+        Process process = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "--module-path", core.toString(),
+                "--add-modules", "org.evrete.core",
+                "-cp", classes.toString(),
+                "ModulePathDriver",
+                beta.binaryName(),
+                alpha.binaryName()
+        ).redirectErrorStream(true).start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = readAll(in);
+        }
+        assert process.waitFor() == 0 : output;
+        assert output.equals("true false 8 2") : output;
+    }
+
+    private static Path write(Path root, SourceCompiler.ClassSource source) throws IOException {
+        Path file = root.resolve(source.binaryName().replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getSource().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static StaticMethodPredicate predicate(Class<?> declaringClass, String methodName, Class<?>... parameterTypes) {
+        return new StaticMethodPredicate() {
+            @Override
+            public Class<?> getDeclaringClass() {
+                return declaringClass;
+            }
+
+            @Override
+            public String getMethodName() {
+                return methodName;
+            }
+
+            @Override
+            public Class<?>[] getParameterTypes() {
+                return parameterTypes;
+            }
+
+            @Override
+            public boolean test(IntToValue t) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
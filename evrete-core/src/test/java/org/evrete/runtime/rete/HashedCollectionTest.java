@@ -0,0 +1,175 @@
+package org.evrete.runtime.rete;
+
+import org.evrete.api.spi.MemoryScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedCollectionTest {
+
+    @Test
+    void testAddAndRead() {
+        HashedCollection collection = new HashedCollection(3);
+        int h1 = collection.add(new long[]{1, 2, 3}, scopes(MemoryScope.MAIN, MemoryScope.DELTA, MemoryScope.MAIN));
+        int h2 = collection.add(new long[]{4, 5, 6}, scopes(MemoryScope.MAIN, MemoryScope.MAIN, MemoryScope.MAIN));
+        assertTrue(h1 >= 0);
+        assertTrue(h2 >= 0);
+        assertEquals(2, collection.size());
+
+        assertEquals(2L, collection.valueId(h1, 1));
+        assertEquals(MemoryScope.DELTA, collection.scope(h1, 1));
+        assertEquals(MemoryScope.MAIN, collection.scope(h1, 2));
+        assertEquals(6L, collection.valueId(h2, 2));
+    }
+
+    @Test
+    void testDuplicates() {
+        HashedCollection collection = new HashedCollection(2);
+        assertTrue(collection.add(new long[]{1, 2}, scopes(MemoryScope.MAIN, MemoryScope.MAIN)) >= 0);
+        assertEquals(-1, collection.add(new long[]{1, 2}, scopes(MemoryScope.MAIN, MemoryScope.MAIN)));
+        // Same value ids in a different scope make a different tuple
+        assertTrue(collection.add(new long[]{1, 2}, scopes(MemoryScope.DELTA, MemoryScope.MAIN)) >= 0);
+        assertEquals(2, collection.size());
+    }
+
+    @Test
+    void testDelete() {
+        HashedCollection collection = new HashedCollection(2);
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            collection.add(new long[]{i, i % 10}, scopes(MemoryScope.MAIN, MemoryScope.MAIN));
+        }
+        assertEquals(count, collection.size());
+
+        // Deleting by the second position
+        Set<Long> removed = new HashSet<>();
+        collection.delete(1, Arrays.asList(3L, 7L), handle -> removed.add(collection.valueId(handle, 0)));
+        assertEquals(count / 5, removed.size());
+        assertEquals(count - count / 5, collection.size());
+        for (long id : removed) {
+            assertTrue(id % 10 == 3 || id % 10 == 7);
+        }
+
+        // Deleted tuples must not be reported again
+        removed.clear();
+        collection.delete(0, Arrays.asList(3L, 4L), handle -> removed.add(collection.valueId(handle, 0)));
+        assertEquals(Collections.singleton(4L), removed);
+
+        // Deleted tuples can be added again
+        assertTrue(collection.add(new long[]{3, 3}, scopes(MemoryScope.MAIN, MemoryScope.MAIN)) >= 0);
+        assertEquals(-1, collection.add(new long[]{5, 5}, scopes(MemoryScope.MAIN, MemoryScope.MAIN)));
+        assertEquals(count - count / 5, collection.size());
+    }
+
+    @Test
+    void testCompaction() {
+        HashedCollection collection = new HashedCollection(2);
+        int count = 10_000;
+        List<Long> toDelete = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            collection.add(new long[]{i, -i}, scopes(MemoryScope.MAIN, MemoryScope.DELTA));
+            if (i >= 100) {
+                toDelete.add((long) i);
+            }
+        }
+        collection.delete(0, toDelete, handle -> {
+        });
+        collection.compact();
+        assertEquals(100, collection.size());
+
+        Set<Long> remaining = new HashSet<>();
+        Iterator<ConditionMemory.MemoryEntry> it = collection.iterator();
+        while (it.hasNext()) {
+            ConditionMemory.MemoryEntry entry = it.next();
+            assertEquals(-entry.valueId(0), entry.valueId(1));
+            assertEquals(MemoryScope.MAIN, entry.scope(0));
+            assertEquals(MemoryScope.DELTA, entry.scope(1));
+            remaining.add(entry.valueId(0));
+        }
+        assertEquals(100, remaining.size());
+
+        // The collection must remain fully functional after compaction
+        for (int i = 0; i < count; i++) {
+            int handle = collection.add(new long[]{i, -i}, scopes(MemoryScope.MAIN, MemoryScope.DELTA));
+            assertEquals(i < 100, handle < 0);
+        }
+        assertEquals(count, collection.size());
+    }
+
+    @Test
+    void testChurn() {
+        HashedCollection collection = new HashedCollection(2);
+        int live = 1000;
+        for (int i = 0; i < live; i++) {
+            collection.add(new long[]{i, i}, scopes(MemoryScope.MAIN, MemoryScope.MAIN));
+        }
+        int tableLength = collection.tableLength();
+
+        // Deleting and re-inserting tuples must not grow the hash table
+        for (int i = live; i < 200_000; i++) {
+            collection.delete(0, Collections.singletonList((long) (i - live)), handle -> {
+            });
+            assertTrue(collection.add(new long[]{i, i}, scopes(MemoryScope.MAIN, MemoryScope.MAIN)) >= 0);
+        }
+        assertEquals(live, collection.size());
+        assertTrue(collection.tableLength() <= tableLength, "Table length: " + collection.tableLength());
+
+        for (int i = 200_000 - live; i < 200_000; i++) {
+            assertEquals(-1, collection.add(new long[]{i, i}, scopes(MemoryScope.MAIN, MemoryScope.MAIN)));
+        }
+    }
+
+    @Test
+    void testReverseIndex() {
+        // Random inserts and deletes at both positions, compared with a plain set of tuples
+        HashedCollection collection = new HashedCollection(2);
+        Set<List<Long>> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 20_000; step++) {
+            long a = random.nextInt(50);
+            long b = random.nextInt(50);
+            if (random.nextInt(3) > 0) {
+                int handle = collection.add(new long[]{a, b}, scopes(MemoryScope.MAIN, MemoryScope.MAIN));
+                assertEquals(expected.add(Arrays.asList(a, b)), handle >= 0);
+            } else {
+                int position = random.nextInt(2);
+                long valueId = position == 0 ? a : b;
+                Set<List<Long>> removed = new HashSet<>();
+                collection.delete(position, Collections.singletonList(valueId), handle -> removed.add(Arrays.asList(collection.valueId(handle, 0), collection.valueId(handle, 1))));
+                Set<List<Long>> expectedRemoved = new HashSet<>();
+                expected.removeIf(t -> t.get(position) == valueId && expectedRemoved.add(t));
+                assertEquals(expectedRemoved, removed);
+            }
+            if (step % 1000 == 0) {
+                collection.compact();
+            }
+            assertEquals(expected.size(), collection.size());
+        }
+    }
+
+    @Test
+    void testWideTuples() {
+        int width = 70;
+        HashedCollection collection = new HashedCollection(width);
+        long[] ids = new long[width];
+        MemoryScope[] scopes = new MemoryScope[width];
+        for (int i = 0; i < width; i++) {
+            ids[i] = i;
+            scopes[i] = i % 3 == 0 ? MemoryScope.DELTA : MemoryScope.MAIN;
+        }
+        int handle = collection.add(ids, scopes);
+        for (int i = 0; i < width; i++) {
+            assertEquals(i, collection.valueId(handle, i));
+            assertEquals(scopes[i], collection.scope(handle, i));
+        }
+        scopes[68] = MemoryScope.DELTA;
+        assertTrue(collection.add(ids, scopes) >= 0);
+        assertEquals(2, collection.size());
+    }
+
+    private static MemoryScope[] scopes(MemoryScope... scopes) {
+        return scopes;
+    }
+}
@@ -0,0 +1,78 @@
+package org.evrete.runtime.rete;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSetTest {
+
+    @Test
+    void testLinearAndHashed() {
+        LongSet set = new LongSet();
+        Set<Long> expected = new HashSet<>();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+
+        // Array and hashed representations, and back
+        for (long i = 0; i < LongSet.LINEAR_LIMIT * 4; i++) {
+            assertTrue(set.add(i * 7));
+            assertFalse(set.add(i * 7));
+            expected.add(i * 7);
+            assertEquals(expected, values(set));
+        }
+        for (long i = 0; i < LongSet.LINEAR_LIMIT * 4; i++) {
+            assertTrue(set.remove(i * 7));
+            assertFalse(set.remove(i * 7));
+            expected.remove(i * 7);
+            assertEquals(expected, values(set));
+        }
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void testAddAll() {
+        LongSet a = new LongSet();
+        LongSet b = new LongSet();
+        for (long i = 0; i < 20; i++) {
+            a.add(i);
+            b.add(i + 10);
+        }
+        a.addAll(b);
+        assertEquals(30, a.size());
+        Set<Long> expected = new HashSet<>();
+        for (long i = 0; i < 30; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, values(a));
+    }
+
+    @Test
+    void testRandomUpdates() {
+        Random random = new Random(42);
+        LongSet set = new LongSet();
+        Set<Long> model = new HashSet<>();
+        for (int step = 0; step < 100_000; step++) {
+            // A narrow value range keeps the set switching between its representations
+            long value = random.nextInt(24) * 1024L;
+            if (random.nextBoolean()) {
+                assertEquals(model.add(value), set.add(value));
+            } else {
+                assertEquals(model.remove(value), set.remove(value));
+            }
+            assertEquals(model.size(), set.size());
+        }
+        assertEquals(model, values(set));
+    }
+
+    private static Set<Long> values(LongSet set) {
+        Set<Long> values = new HashSet<>();
+        PrimitiveIterator.OfLong it = set.iterator();
+        while (it.hasNext()) {
+            assertTrue(values.add(it.nextLong()));
+        }
+        assertEquals(set.size(), values.size());
+        return values;
+    }
+}
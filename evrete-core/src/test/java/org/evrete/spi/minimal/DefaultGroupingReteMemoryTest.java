@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.evrete.helper.TestUtils.listOf;
 
@@ -21,6 +22,7 @@ class DefaultGroupingReteMemoryTest {
     Set<Long> keys(MemoryScope scope) {
         Set<Long> result = new HashSet<>();
         memory.iterator(scope).forEachRemaining(result::add);
+        assert memory.keyCount(scope) == result.size();
         return result;
     }
 
@@ -225,4 +227,110 @@ class DefaultGroupingReteMemoryTest {
         Set<Long> tmp1 = keys(MemoryScope.DELTA);
         assert tmp1.size() == 2;
     }
+
+    @Test
+    void commitInPlace() {
+        memory.insert(1L, "one");
+        memory.commit();
+        LongMultiMap<String> main = memory.getMain();
+
+        for (long key = 0; key < 100; key++) {
+            memory.insert(key, "value " + key);
+            memory.commit();
+            // The main memory must not be copied on commits
+            assert memory.getMain() == main;
+            assert memory.getDelta().isEmpty();
+        }
+
+        assert keys(MemoryScope.MAIN).size() == 100;
+        assert stream(MemoryScope.MAIN, 1L).containsAll(listOf("one", "value 1"));
+        assert stream(MemoryScope.MAIN, 99L).contains("value 99");
+    }
+
+    @Test
+    void compaction() {
+        int size = DefaultGroupingReteMemory.COMPACTION_MIN_SIZE * 10;
+        for (long key = 0; key < size; key++) {
+            memory.insert(key, "value " + key);
+        }
+        memory.commit();
+        LongMultiMap<String> main = memory.getMain();
+
+        // Deleting half of the keys, the memory must not be compacted
+        long key = 0;
+        for (; key < size / 2; key++) {
+            memory.delete(key, "value " + key);
+        }
+        memory.commit();
+        assert memory.getMain() == main;
+
+        // Deleting more keys
+        for (; key < size - 10; key++) {
+            memory.delete(key, "value " + key);
+        }
+        memory.commit();
+        assert memory.getMain() != main;
+
+        Set<Long> keys = keys(MemoryScope.MAIN);
+        assert keys.size() == 10;
+        for (long k = size - 10; k < size; k++) {
+            assert keys.contains(k);
+            assert stream(MemoryScope.MAIN, k).contains("value " + k);
+        }
+    }
+
+    @Test
+    void concurrentUpdates() {
+        assert memory.isConcurrent();
+        int keys = 64;
+        int valuesPerKey = 2000;
+        IntStream.range(0, keys * valuesPerKey).parallel().forEach(i -> memory.insert(i % keys, "value " + i));
+        memory.commit();
+
+        assert keys(MemoryScope.MAIN).size() == keys;
+        for (long key = 0; key < keys; key++) {
+            assert stream(MemoryScope.MAIN, key).size() == valuesPerKey;
+        }
+
+        // Deleting odd keys entirely, and a half of the values of even keys
+        IntStream.range(0, keys * valuesPerKey).parallel()
+                .filter(i -> (i % keys) % 2 == 1 || (i / keys) % 2 == 0)
+                .forEach(i -> memory.delete(i % keys, "value " + i));
+        memory.commit();
+
+        Set<Long> remaining = keys(MemoryScope.MAIN);
+        assert remaining.size() == keys / 2;
+        for (long key = 0; key < keys; key += 2) {
+            assert remaining.contains(key);
+            assert stream(MemoryScope.MAIN, key).size() == valuesPerKey / 2 : stream(MemoryScope.MAIN, key).size();
+        }
+    }
+
+    @Test
+    void valueSets() {
+        int size = LongMultiMap.ValueSet.LINEAR_LIMIT * 20;
+        for (int i = 0; i < size; i++) {
+            memory.insert(7L, "value " + i);
+            // Duplicates must be ignored
+            memory.insert(7L, "value " + i / 2);
+        }
+        memory.insert(8L, "single");
+        memory.commit();
+        assert stream(MemoryScope.MAIN, 7L).size() == size;
+        assert memory.stream(MemoryScope.MAIN, 7L).count() == size;
+        assert stream(MemoryScope.MAIN, 8L).size() == 1;
+
+        // Shrinking the set back to a single value
+        for (int i = 1; i < size; i++) {
+            memory.delete(7L, "value " + i);
+            assert stream(MemoryScope.MAIN, 7L).size() == size - i;
+        }
+        assert stream(MemoryScope.MAIN, 7L).contains("value 0");
+        memory.delete(7L, "unknown");
+        memory.delete(7L, "value 0");
+        assert keys(MemoryScope.MAIN).size() == 1;
+        assert stream(MemoryScope.MAIN, 7L).isEmpty();
+        assert memory.stream(MemoryScope.MAIN, 7L).count() == 0L;
+        assert memory.stream(MemoryScope.MAIN, 8L).count() == 1L;
+    }
 }
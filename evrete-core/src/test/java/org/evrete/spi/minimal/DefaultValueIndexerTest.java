@@ -72,6 +72,35 @@ class DefaultValueIndexerTest {
         assertState();
     }
 
+    @Test
+    void reclamation() {
+        long retained = indexer.getOrCreateId("retained");
+        long released = indexer.getOrCreateId("released");
+        long unused = indexer.getOrCreateId("unused");
+        indexer.retain(retained);
+        indexer.retain(released);
+        indexer.release(released);
+
+        // Values looked up since the previous reclamation must survive
+        indexer.reclaim();
+        Assertions.assertEquals("released", indexer.get(released));
+        Assertions.assertEquals("unused", indexer.get(unused));
+        assertState();
+
+        indexer.reclaim();
+        Assertions.assertNull(indexer.get(released));
+        Assertions.assertNull(indexer.get(unused));
+        Assertions.assertEquals("retained", indexer.get(retained));
+        assertState();
+
+        // Reclaimed values get new ids
+        long recreated = indexer.getOrCreateId("released");
+        Assertions.assertNotEquals(released, recreated);
+        indexer.reclaim();
+        Assertions.assertEquals("released", indexer.get(recreated));
+        assertState();
+    }
+
     private void assertState() {
         Set<String> values1 = storedValues1();
         Set<String> values2 = storedValues2();
@@ -0,0 +1,151 @@
+package org.evrete.spi.minimal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+class LongMultiMapTests {
+    // Initial capacity of the map's tables
+    private static final int CAPACITY = 8;
+
+    @Test
+    void singleAndMultipleValues() {
+        LongMultiMap<String> map = new LongMultiMap<>();
+        map.insert(1L, "a");
+        map.insert(1L, "a");
+        assert values(map, 1L).equals(Collections.singleton("a"));
+
+        // Array and hashed value sets, and back
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < LongMultiMap.ValueSet.LINEAR_LIMIT * 4; i++) {
+            String value = "v" + i;
+            map.insert(2L, value);
+            expected.add(value);
+            assert values(map, 2L).equals(expected);
+        }
+        for (int i = 0; i < LongMultiMap.ValueSet.LINEAR_LIMIT * 4; i++) {
+            String value = "v" + i;
+            map.delete(2L, value);
+            expected.remove(value);
+            assert values(map, 2L).equals(expected);
+        }
+        assert map.size() == 1;
+        map.delete(1L, "unknown");
+        map.delete(1L, "a");
+        assert map.isEmpty();
+        assert !map.values(1L).hasNext();
+    }
+
+    @Test
+    void wrappedDeletes() {
+        // Colliding keys of a single stripe, placed at the end of the table and wrapped to its start
+        List<Long> all = new ArrayList<>();
+        all.addAll(keys(0, CAPACITY - 2, 1));
+        all.addAll(keys(0, CAPACITY - 1, 2));
+        all.addAll(keys(0, 0, 1));
+
+        for (long deleted : all) {
+            LongMultiMap<Long> map = new LongMultiMap<>();
+            for (long key : all) {
+                map.insert(key, key);
+            }
+            map.delete(deleted, deleted);
+            assert map.size() == all.size() - 1;
+            assert !map.values(deleted).hasNext();
+            for (long key : all) {
+                if (key != deleted) {
+                    assert values(map, key).equals(Collections.singleton(key)) : "Key " + key + " lost after deleting " + deleted;
+                }
+            }
+            // The freed slot must be reused without duplicates
+            map.insert(deleted, deleted);
+            assert map.size() == all.size();
+            assert keySet(map).equals(new HashSet<>(all));
+        }
+    }
+
+    @Test
+    void rehashing() {
+        LongMultiMap<Integer> map = new LongMultiMap<>();
+        int count = 50_000;
+        for (int i = 0; i < count; i++) {
+            map.insert(i, i);
+            map.insert(i, -i - 1);
+        }
+        assert map.size() == count;
+        for (int i = 0; i < count; i += 2) {
+            map.delete(i, i);
+            map.delete(i, -i - 1);
+        }
+        assert map.size() == count / 2;
+
+        LongMultiMap<Integer> copy = map.copy();
+        assert copy.size() == count / 2;
+        for (int i = 0; i < count; i++) {
+            Set<Integer> expected = i % 2 == 0 ? Collections.emptySet() : new HashSet<>(Arrays.asList(i, -i - 1));
+            assert values(copy, i).equals(expected) : "Key " + i;
+        }
+
+        // Merging into a map that already has some of the keys
+        LongMultiMap<Integer> target = new LongMultiMap<>();
+        target.insert(1L, 100);
+        copy.moveTo(target);
+        assert target.size() == count / 2;
+        assert values(target, 1L).equals(new HashSet<>(Arrays.asList(1, -2, 100)));
+    }
+
+    @Test
+    void randomUpdates() {
+        Random random = new Random(42);
+        LongMultiMap<Integer> map = new LongMultiMap<>();
+        Map<Long, Set<Integer>> model = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // A narrow key range keeps the tables dense, with long collision chains
+            long key = random.nextInt(2_000) - 1_000;
+            int value = random.nextInt(12);
+            if (random.nextInt(3) == 0) {
+                map.delete(key, value);
+                Set<Integer> values = model.get(key);
+                if (values != null && values.remove(value) && values.isEmpty()) {
+                    model.remove(key);
+                }
+            } else {
+                map.insert(key, value);
+                model.computeIfAbsent(key, k -> new HashSet<>()).add(value);
+            }
+        }
+        assert map.size() == model.size();
+        assert keySet(map).equals(model.keySet());
+        for (Map.Entry<Long, Set<Integer>> entry : model.entrySet()) {
+            assert values(map, entry.getKey()).equals(entry.getValue());
+        }
+    }
+
+    /**
+     * @return keys of the given stripe whose home slot in the stripe's initial table is the given one
+     */
+    private static List<Long> keys(int stripe, int home, int count) {
+        List<Long> keys = new ArrayList<>(count);
+        for (long key = 0; keys.size() < count; key++) {
+            long hash = LongMultiMap.hash(key);
+            if ((int) (hash >>> (64 - LongMultiMap.STRIPE_BITS)) == stripe && ((int) hash & (CAPACITY - 1)) == home) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static <V> Set<V> values(LongMultiMap<V> map, long key) {
+        Set<V> values = new HashSet<>();
+        map.values(key).forEachRemaining(values::add);
+        assert map.stream(key).count() == values.size();
+        return values;
+    }
+
+    private static Set<Long> keySet(LongMultiMap<?> map) {
+        Set<Long> keys = new HashSet<>();
+        map.keys().forEachRemaining(keys::add);
+        assert keys.size() == map.size();
+        return keys;
+    }
+}
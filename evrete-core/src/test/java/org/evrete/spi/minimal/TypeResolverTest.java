@@ -5,14 +5,22 @@ import org.evrete.KnowledgeService;
 import org.evrete.api.Knowledge;
 import org.evrete.api.StatefulSession;
 import org.evrete.api.Type;
+import org.evrete.api.TypeField;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeD;
 import org.evrete.helper.RhsAssert;
+import org.evrete.helper.TestUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
 
 class TypeResolverTest {
     private static KnowledgeService service;
@@ -102,4 +110,105 @@ class TypeResolverTest {
         session.insertAndFire(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
         assert assertSet.size() == 5 && assertSet.containsAll(Arrays.asList(6, 7, 8, 9, 10));
     }
+
+    @Test
+    void primitiveReaders() throws Exception {
+        Type<TypeA> type = new TypeImpl<>("A", TypeA.class);
+        TypeA a = new TypeA("a");
+        a.setI(7);
+        a.setL(-8L);
+        a.setD(2.5);
+
+        TypeField i = type.getField("i");
+        TypeField l = type.getField("l");
+        TypeField d = type.getField("d");
+        TypeField id = type.getField("id");
+        assert i.readInt(a) == 7;
+        assert i.readValue(a).equals(7);
+        assert l.readLong(a) == -8L;
+        assert l.readValue(a).equals(-8L);
+        assert d.readDouble(a) == 2.5;
+        assert id.readValue(a).equals("a");
+
+        TypeField positive = type.declareBooleanField("positive", o -> o.getI() > 0);
+        assert positive.readBoolean(a);
+        assert positive.readValue(a).equals(true);
+
+        // Nested fields are read via boxed values
+        TypeField nested = type.getField("typeD.i");
+        try {
+            nested.readInt(a);
+            assert false : "Null values can not be read as primitives";
+        } catch (NullPointerException e) {
+            // Expected
+        }
+        TypeD typeD = new TypeD("d");
+        typeD.setI(3);
+        a.setTypeD(typeD);
+        assert nested.readInt(a) == 3;
+    }
+
+    @Test
+    void spunAccessors() throws Throwable {
+        Method getI = TypeA.class.getMethod("getI");
+        ValueReader reader = ValueReader.ofMethod(getI, MethodHandles.publicLookup().unreflect(getI));
+        assert reader.primitiveReader() instanceof ToIntFunction;
+        assert reader.valueType() == int.class;
+        TypeA a = new TypeA(5);
+        assert reader.read(a).equals(5);
+
+        Method getId = TypeA.class.getMethod("getId");
+        reader = ValueReader.ofMethod(getId, MethodHandles.publicLookup().unreflect(getId));
+        assert reader.primitiveReader() == null;
+        a.setId("id");
+        assert reader.read(a).equals("id");
+
+        // Methods of non-public classes are called via method handles
+        Method length = Hidden.class.getMethod("length");
+        reader = ValueReader.ofMethod(length, MethodHandles.lookup().unreflect(length));
+        assert reader.primitiveReader() == null;
+        assert reader.read(new Hidden()).equals(3);
+    }
+
+    @Test
+    void spunAccessorsAreReused() throws Throwable {
+        Method getL = TypeA.class.getMethod("getL");
+        ValueReader reader = ValueReader.ofMethod(getL, MethodHandles.publicLookup().unreflect(getL));
+        assert ValueReader.ofMethod(getL, MethodHandles.lookup().unreflect(getL)) == reader;
+
+        // Rebuilding knowledge must not leave new classes behind
+        for (int i = 0; i < 5; i++) {
+            buildAndRun();
+        }
+        int before = TestUtils.loadedClassesAfterGc();
+        for (int i = 0; i < 100; i++) {
+            buildAndRun();
+        }
+        int after = TestUtils.loadedClassesAfterGc();
+        assert after - before < 50 : "Loaded classes before: " + before + ", after: " + after;
+    }
+
+    private static void buildAndRun() {
+        AtomicInteger counter = new AtomicInteger();
+        Knowledge knowledge = service
+                .newKnowledge()
+                .builder()
+                .newRule()
+                .forEach("$a", TypeA.class)
+                .where("$a.l > 0")
+                .execute(ctx -> counter.incrementAndGet())
+                .build();
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            TypeA a = new TypeA("a");
+            a.setL(1L);
+            session.insertAndFire(a);
+        }
+        assert counter.get() == 1;
+    }
+
+    static class Hidden {
+        public int length() {
+            return 3;
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package org.evrete.spi.minimal.compiler;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class ClassCacheTests {
+    private Path root;
+    private Path directory;
+    private KnowledgeService service;
+
+    @BeforeEach
+    void init() throws IOException {
+        root = Files.createTempDirectory("evrete-classes");
+        directory = root.resolve("cache");
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Configuration.COMPILER_CACHE_DIRECTORY, directory.toString());
+        service = new KnowledgeService(configuration);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        service.shutdown();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void cachedClasses() throws IOException {
+        assert buildAndRun(service) == 2;
+        List<Path> cached = cachedFiles(directory);
+        // Two rules, and a third one that is identical to the second
+        assert cached.size() == 2 : "Actual: " + cached;
+
+        // Deterministic class names must lead to the same cache entries
+        assert buildAndRun(service) == 2;
+        assert cachedFiles(directory).equals(cached);
+
+        // Broken entries are ignored and replaced
+        for (Path file : cached) {
+            Files.write(file, new byte[]{1, 2, 3});
+        }
+        assert buildAndRun(service) == 2;
+        assert cachedFiles(directory).equals(cached);
+        for (Path file : cached) {
+            assert Files.size(file) > 3L;
+        }
+    }
+
+    @Test
+    void precompiledResources() throws IOException {
+        // The cache directory is a class path resource of the next service
+        assert buildAndRun(service) == 2;
+
+        Path secondCache = root.resolve("second-cache");
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Configuration.COMPILER_PRECOMPILED_RESOURCES, "/cache/");
+        configuration.setProperty(Configuration.COMPILER_CACHE_DIRECTORY, secondCache.toString());
+        KnowledgeService precompiled = new KnowledgeService(configuration);
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toUri().toURL()}, getClass().getClassLoader())) {
+            precompiled.setClassLoader(classLoader);
+            assert buildAndRun(precompiled) == 2;
+        } finally {
+            precompiled.shutdown();
+        }
+        // Nothing has been compiled
+        assert !Files.exists(secondCache);
+    }
+
+    private static int buildAndRun(KnowledgeService service) {
+        AtomicInteger counter = new AtomicInteger();
+        Knowledge knowledge = service.newKnowledge()
+                .builder()
+                .newRule("rule 1")
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 1")
+                .execute(ctx -> counter.incrementAndGet())
+                .newRule("rule 2")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter.incrementAndGet())
+                .newRule("rule 3")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class)
+                )
+                .where("$a.i == $b.i")
+                .execute()
+                .build();
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            TypeA a1 = new TypeA("A1");
+            a1.setI(1);
+            TypeA a2 = new TypeA("A2");
+            a2.setI(2);
+            TypeB b = new TypeB("B");
+            b.setI(1);
+            session.insertAndFire(a1, a2, b);
+        }
+        return counter.get();
+    }
+
+    private static List<Path> cachedFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.evrete.spi.minimal.compiler;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.api.builders.RuleSetBuilder;
+import org.evrete.classes.TypeA;
+import org.evrete.helper.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ClassUnloadingTests {
+    private static final int RULE_COUNT = 5;
+
+    @Test
+    void droppedKnowledge() throws InterruptedException {
+        KnowledgeService service = new KnowledgeService();
+        try {
+            long baseline = collect(0L);
+            WeakReference<Knowledge> ref = new WeakReference<>(buildAndRun(service));
+            assert DefaultSourceCompiler.retainedClasses() >= baseline + RULE_COUNT : "Actual: " + DefaultSourceCompiler.retainedClasses() + ", baseline: " + baseline;
+
+            long retained = collect(baseline);
+            assert ref.get() == null : "Knowledge hasn't been collected";
+            assert retained <= baseline : "Actual: " + retained + ", baseline: " + baseline;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void repeatedBuilds() {
+        // The compiler's metric doesn't cover classes spun outside the compiler, like field readers,
+        // so the JVM-wide number of loaded classes is checked as well
+        KnowledgeService service = new KnowledgeService();
+        try {
+            for (int i = 0; i < 5; i++) {
+                buildAndRun(service);
+            }
+            int loadedBefore = TestUtils.loadedClassesAfterGc();
+            long retainedBefore = DefaultSourceCompiler.retainedClasses();
+            for (int i = 0; i < 50; i++) {
+                buildAndRun(service);
+            }
+            int loadedAfter = TestUtils.loadedClassesAfterGc();
+            long retainedAfter = DefaultSourceCompiler.retainedClasses();
+            assert retainedAfter <= retainedBefore : "Retained before: " + retainedBefore + ", after: " + retainedAfter;
+            assert loadedAfter - loadedBefore < RULE_COUNT * 5 : "Loaded before: " + loadedBefore + ", after: " + loadedAfter;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static Knowledge buildAndRun(KnowledgeService service) {
+        AtomicInteger counter = new AtomicInteger();
+        RuleSetBuilder<Knowledge> builder = service.newKnowledge().builder();
+        for (int i = 0; i < RULE_COUNT; i++) {
+            builder.newRule("rule " + i)
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i > " + i, "$a.l >= 0")
+                    .execute(ctx -> counter.incrementAndGet());
+        }
+        Knowledge knowledge = builder.build();
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insertAndFire(new TypeA(RULE_COUNT));
+        }
+        assert counter.get() == RULE_COUNT;
+        return knowledge;
+    }
+
+    /**
+     * Runs the garbage collector until the number of retained classes drops to the target value
+     * or stops changing.
+     */
+    private static long collect(long target) throws InterruptedException {
+        long previous = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+            long retained = DefaultSourceCompiler.retainedClasses();
+            if (retained <= target || (retained == previous && attempt >= 5)) {
+                return retained;
+            }
+            previous = retained;
+        }
+        return previous;
+    }
+}
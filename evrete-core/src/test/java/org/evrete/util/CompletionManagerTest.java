@@ -0,0 +1,43 @@
+package org.evrete.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+class CompletionManagerTest {
+
+    @Test
+    void completedTasksAreRemoved() {
+        CompletionManager<String, Integer> manager = new CompletionManager<>();
+
+        // Tasks that are already complete when they are enqueued
+        assert manager.enqueue("a", k -> CompletableFuture.completedFuture(1)).join() == 1;
+        assert manager.taskCount() == 0 : "Actual: " + manager.taskCount();
+
+        // A task chained after a pending one
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        CompletableFuture<Integer> first = manager.enqueue("b", k -> pending);
+        CompletableFuture<Integer> second = manager.enqueue("b", k -> CompletableFuture.completedFuture(3));
+        assert manager.taskCount() == 1;
+        pending.complete(2);
+        assert first.join() == 2;
+        assert second.join() == 3;
+        assert manager.taskCount() == 0 : "Actual: " + manager.taskCount();
+    }
+
+    @Test
+    void failedTasksAreRemoved() {
+        CompletionManager<String, Integer> manager = new CompletionManager<>();
+        CompletableFuture<Integer> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Expected"));
+        CompletableFuture<Integer> result = manager.enqueue("a", k -> failed);
+        try {
+            result.join();
+            assert false : "The failure must be propagated";
+        } catch (CompletionException e) {
+            assert e.getCause() instanceof IllegalStateException;
+        }
+        assert manager.taskCount() == 0 : "Actual: " + manager.taskCount();
+    }
+}
@@ -0,0 +1,93 @@
+package org.evrete.dsl;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.util.KnowledgePrecompiler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.evrete.dsl.TestUtils.testResourceAsFile;
+
+class KnowledgePrecompilerTests {
+    private Path root;
+
+    @BeforeEach
+    void init() throws IOException {
+        root = Files.createTempDirectory("evrete-precompiled");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void precompiledRuleset() throws IOException {
+        File source = testResourceAsFile("java/PrimeNumbers1.java");
+        Path target = root.resolve("classes").resolve("META-INF").resolve("evrete");
+        KnowledgePrecompiler.main(new String[]{target.toString(), Constants.PROVIDER_JAVA_SOURCE, source.getPath()});
+        try (Stream<Path> files = Files.list(target)) {
+            // The ruleset class and the class of its condition
+            assert files.count() >= 2L;
+        }
+
+        // Anything compiled at runtime would end up in the cache directory
+        Path runtimeCache = root.resolve("runtime-cache");
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Configuration.COMPILER_PRECOMPILED_RESOURCES, "META-INF/evrete");
+        configuration.setProperty(Configuration.COMPILER_CACHE_DIRECTORY, runtimeCache.toString());
+        KnowledgeService service = new KnowledgeService(configuration);
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{root.resolve("classes").toUri().toURL()}, getClass().getClassLoader())) {
+            service.setClassLoader(classLoader);
+            Knowledge knowledge = service.newKnowledge().importRules(Constants.PROVIDER_JAVA_SOURCE, source);
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                for (int i = 2; i < 100; i++) {
+                    session.insert(i);
+                }
+                session.fire();
+                AtomicInteger primeCounter = new AtomicInteger();
+                session.forEachFact((h, o) -> primeCounter.incrementAndGet());
+                assert primeCounter.get() == 25;
+            }
+        } finally {
+            service.shutdown();
+        }
+        assert !Files.exists(runtimeCache);
+    }
+
+    @Test
+    void invalidArguments() {
+        String target = root.resolve("classes").toString();
+        IllegalArgumentException usage = Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> KnowledgePrecompiler.main(new String[]{target, Constants.PROVIDER_JAVA_SOURCE})
+        );
+        assert usage.getMessage().startsWith("Usage: ");
+
+        IllegalArgumentException source = Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> KnowledgePrecompiler.main(new String[]{target, Constants.PROVIDER_JAVA_SOURCE, "org.evrete.NoSuchRuleset"})
+        );
+        assert source.getMessage().contains("org.evrete.NoSuchRuleset");
+        assert !Files.exists(root.resolve("classes"));
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * This module provides a memory implementation that keeps session data in memory-mapped files
+ * rather than in the Java heap.
+ */
+module org.evrete.mmap {
+    requires org.evrete.core;
+
+    exports org.evrete.mmap;
+}
@@ -0,0 +1,41 @@
+package org.evrete.mmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Converts facts and their field values to bytes and back. The memory-mapped storage is unaware of
+ * the Java objects it stores, so everything that the engine keeps in its memories, except for the engine's
+ * own structures, is written through a codec.
+ * </p>
+ * <p>
+ * Implementations must be thread-safe and must provide a public no-argument constructor if they are
+ * configured by the {@link MappedMemoryFactoryProvider#CODEC} property. Values read by a codec are expected
+ * to be equal to the written ones, and to have the same hash codes.
+ * </p>
+ *
+ * @see SerializationCodec
+ */
+public interface FactCodec {
+
+    /**
+     * Writes a value.
+     *
+     * @param value the value to write, may be <code>null</code>
+     * @param out   the output
+     * @throws IOException if the value can not be written
+     */
+    void write(Object value, DataOutput out) throws IOException;
+
+    /**
+     * Reads a value previously written by the {@link #write(Object, DataOutput)} method.
+     *
+     * @param in          the input
+     * @param classLoader the class loader of the session
+     * @return the value
+     * @throws IOException if the value can not be read
+     */
+    Object read(DataInput in, ClassLoader classLoader) throws IOException;
+}
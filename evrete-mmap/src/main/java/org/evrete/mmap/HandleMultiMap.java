@@ -0,0 +1,215 @@
+package org.evrete.mmap;
+
+import org.evrete.api.FactHandle;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * <p>
+ * A multimap of <code>long</code> keys and fact handles. Each key's handles are stored in a bucket record,
+ * which is an array of handle identifiers and type indices that is re-allocated with double capacity when full.
+ * A second table keeps the position of each handle in its bucket, so that deletes don't need to scan buckets.
+ * </p>
+ * <p>
+ * The class is not thread-safe. Reads may run concurrently with each other, but not with updates.
+ * </p>
+ */
+final class HandleMultiMap {
+    private static final int COUNT = 0;
+    private static final int ENTRIES = 8;
+    private static final int ENTRY_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 2;
+    private final RecordCodec.HandleCodec handles;
+    // Key to bucket address
+    private final LongTable buckets;
+    // Handle identifier to position in its bucket
+    private final LongTable positions;
+    private RecordHeap heap;
+    private long size;
+
+    HandleMultiMap(StorageOptions options, RecordCodec.HandleCodec handles) {
+        this.handles = handles;
+        this.buckets = new LongTable(options);
+        this.positions = new LongTable(options);
+        this.heap = new RecordHeap(options);
+    }
+
+    long size() {
+        return size;
+    }
+
+    long keyCount() {
+        return buckets.size();
+    }
+
+    void insert(long key, long id, int type) {
+        long address = buckets.get(key);
+        int count;
+        if (address < 0L) {
+            address = newBucket(INITIAL_CAPACITY);
+            buckets.put(key, address);
+            count = 0;
+        } else {
+            count = heap.getInt(RecordHeap.payload(address) + COUNT);
+            int capacity = (heap.length(address) - ENTRIES) / ENTRY_SIZE;
+            if (count == capacity) {
+                long grown = newBucket(capacity * 2);
+                for (int i = 0; i < count; i++) {
+                    long entry = entry(address, i);
+                    long target = entry(grown, i);
+                    heap.putLong(target, heap.getLong(entry));
+                    heap.putInt(target + 8, heap.getInt(entry + 8));
+                }
+                heap.free(address);
+                buckets.put(key, grown);
+                // Compaction moves buckets
+                compactIfNeeded();
+                address = buckets.get(key);
+            }
+        }
+        long entry = entry(address, count);
+        heap.putLong(entry, id);
+        heap.putInt(entry + 8, type);
+        heap.putInt(RecordHeap.payload(address) + COUNT, count + 1);
+        positions.put(id, count);
+        size++;
+    }
+
+    boolean delete(long key, long id) {
+        long address = buckets.get(key);
+        if (address < 0L) {
+            return false;
+        }
+        long countAddress = RecordHeap.payload(address) + COUNT;
+        int count = heap.getInt(countAddress);
+        int index = (int) positions.get(id);
+        boolean indexed = index >= 0 && index < count && heap.getLong(entry(address, index)) == id;
+        if (!indexed) {
+            // The handle is stored under several keys, which is possible, but unusual
+            index = -1;
+            for (int i = 0; i < count; i++) {
+                if (heap.getLong(entry(address, i)) == id) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+        }
+
+        int last = count - 1;
+        if (index != last) {
+            long lastEntry = entry(address, last);
+            long lastId = heap.getLong(lastEntry);
+            long target = entry(address, index);
+            heap.putLong(target, lastId);
+            heap.putInt(target + 8, heap.getInt(lastEntry + 8));
+            positions.put(lastId, index);
+        }
+        heap.putInt(countAddress, last);
+        if (indexed) {
+            positions.remove(id);
+        }
+        size--;
+        if (last == 0) {
+            buckets.remove(key);
+            heap.free(address);
+            compactIfNeeded();
+        }
+        return true;
+    }
+
+    PrimitiveIterator.OfLong keys() {
+        long[] keys = buckets.keys();
+        return new PrimitiveIterator.OfLong() {
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                return pos < keys.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (pos < keys.length) {
+                    return keys[pos++];
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        };
+    }
+
+    Iterator<FactHandle> values(long key) {
+        long address = buckets.get(key);
+        if (address < 0L) {
+            return Collections.emptyIterator();
+        }
+        MappedRegion.Segments segments = heap.segments();
+        int count = segments.getInt(RecordHeap.payload(address) + COUNT);
+        return new Iterator<FactHandle>() {
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                return pos < count;
+            }
+
+            @Override
+            public FactHandle next() {
+                if (pos < count) {
+                    long entry = entry(address, pos++);
+                    return handles.handle(segments.getLong(entry), segments.getInt(entry + 8));
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        };
+    }
+
+    /**
+     * Moves all the entries of this map to the target map and clears this map.
+     *
+     * @param target the target map
+     */
+    void moveTo(HandleMultiMap target) {
+        buckets.forEach((key, address) -> {
+            int count = heap.getInt(RecordHeap.payload(address) + COUNT);
+            for (int i = 0; i < count; i++) {
+                long entry = entry(address, i);
+                target.insert(key, heap.getLong(entry), heap.getInt(entry + 8));
+            }
+        });
+        clear();
+    }
+
+    void clear() {
+        buckets.clear();
+        positions.clear();
+        heap.clear();
+        this.size = 0L;
+    }
+
+    private long newBucket(int capacity) {
+        int length = ENTRIES + capacity * ENTRY_SIZE;
+        return heap.write(new byte[length], length);
+    }
+
+    private static long entry(long address, int index) {
+        return RecordHeap.payload(address) + ENTRIES + (long) index * ENTRY_SIZE;
+    }
+
+    private void compactIfNeeded() {
+        if (heap.needsCompaction()) {
+            RecordHeap source = this.heap;
+            RecordHeap target = source.newEmpty();
+            buckets.replaceValues(address -> source.copyTo(address, target));
+            source.clear();
+            this.heap = target;
+        }
+    }
+}
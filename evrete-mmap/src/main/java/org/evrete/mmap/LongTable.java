@@ -0,0 +1,294 @@
+package org.evrete.mmap;
+
+import java.util.function.LongUnaryOperator;
+
+/**
+ * <p>
+ * An open-addressing hash table with <code>long</code> keys and non-negative <code>long</code> values,
+ * stored in a {@link MappedRegion}. Each slot holds a key and the value plus one, so that zero marks
+ * empty slots. Collisions are resolved with linear probing, and deletes shift the following entries
+ * backward, so the table needs no tombstones.
+ * </p>
+ * <p>
+ * The table can be used as a map ({@link #put(long, long)}) or as a multimap ({@link #add(long, long)}),
+ * but not as both at once. The class is not thread-safe.
+ * </p>
+ */
+final class LongTable {
+    private static final int SLOT_SIZE = 16;
+    private static final long MIN_CAPACITY = 1L << 10;
+    private final StorageOptions options;
+    private MappedRegion region;
+    private long capacity;
+    private long size;
+
+    LongTable(StorageOptions options) {
+        this.options = options;
+        this.region = new MappedRegion(options);
+    }
+
+    private static long slot(long key, long mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (h ^ (h >>> 29)) & mask;
+    }
+
+    long size() {
+        return size;
+    }
+
+    private long keyAt(long slot) {
+        return region.getLong(slot * SLOT_SIZE);
+    }
+
+    private long storedAt(long slot) {
+        return region.getLong(slot * SLOT_SIZE + 8);
+    }
+
+    private void write(long slot, long key, long stored) {
+        region.putLong(slot * SLOT_SIZE, key);
+        region.putLong(slot * SLOT_SIZE + 8, stored);
+    }
+
+    /**
+     * @param key the key
+     * @return the value of the first entry with this key, or -1 if there's none
+     */
+    long get(long key) {
+        if (size == 0L) {
+            return -1L;
+        }
+        long mask = capacity - 1;
+        for (long i = slot(key, mask); ; i = (i + 1) & mask) {
+            long stored = storedAt(i);
+            if (stored == 0L) {
+                return -1L;
+            } else if (keyAt(i) == key) {
+                return stored - 1;
+            }
+        }
+    }
+
+    /**
+     * Associates the value with the key, replacing the existing value, if any.
+     *
+     * @param key   the key
+     * @param value non-negative value
+     * @return the previous value, or -1 if there was none
+     */
+    long put(long key, long value) {
+        ensureSpace();
+        long mask = capacity - 1;
+        for (long i = slot(key, mask); ; i = (i + 1) & mask) {
+            long stored = storedAt(i);
+            if (stored == 0L) {
+                write(i, key, value + 1);
+                size++;
+                return -1L;
+            } else if (keyAt(i) == key) {
+                write(i, key, value + 1);
+                return stored - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds an entry without checking whether the key is already present.
+     *
+     * @param key   the key
+     * @param value non-negative value
+     */
+    void add(long key, long value) {
+        ensureSpace();
+        insertNew(key, value + 1);
+    }
+
+    /**
+     * Iterates over the values of the given key.
+     *
+     * @param key     the key
+     * @param visitor the visitor, which returns <code>false</code> to stop the iteration
+     */
+    void forEach(long key, ValueVisitor visitor) {
+        if (size == 0L) {
+            return;
+        }
+        long mask = capacity - 1;
+        for (long i = slot(key, mask); ; i = (i + 1) & mask) {
+            long stored = storedAt(i);
+            if (stored == 0L || (keyAt(i) == key && !visitor.visit(stored - 1))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes the first entry with the given key.
+     *
+     * @param key the key
+     * @return the deleted value, or -1 if there was none
+     */
+    long remove(long key) {
+        if (size == 0L) {
+            return -1L;
+        }
+        long mask = capacity - 1;
+        for (long i = slot(key, mask); ; i = (i + 1) & mask) {
+            long stored = storedAt(i);
+            if (stored == 0L) {
+                return -1L;
+            } else if (keyAt(i) == key) {
+                deleteAt(i);
+                return stored - 1;
+            }
+        }
+    }
+
+    /**
+     * Deletes the given entry.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return true if the entry has been found
+     */
+    boolean remove(long key, long value) {
+        if (size == 0L) {
+            return false;
+        }
+        long mask = capacity - 1;
+        for (long i = slot(key, mask); ; i = (i + 1) & mask) {
+            long stored = storedAt(i);
+            if (stored == 0L) {
+                return false;
+            } else if (keyAt(i) == key && stored == value + 1) {
+                deleteAt(i);
+                return true;
+            }
+        }
+    }
+
+    void forEach(EntryVisitor visitor) {
+        for (long i = 0; i < capacity; i++) {
+            long stored = storedAt(i);
+            if (stored != 0L) {
+                visitor.visit(keyAt(i), stored - 1);
+            }
+        }
+    }
+
+    /**
+     * @return an array of all the stored keys
+     */
+    long[] keys() {
+        return collect(false);
+    }
+
+    /**
+     * @return an array of all the stored values
+     */
+    long[] values() {
+        return collect(true);
+    }
+
+    private long[] collect(boolean values) {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many entries: " + size);
+        }
+        long[] result = new long[(int) size];
+        int pos = 0;
+        for (long i = 0; i < capacity; i++) {
+            long stored = storedAt(i);
+            if (stored != 0L) {
+                result[pos++] = values ? stored - 1 : keyAt(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces every value with the result of the given function. Keys remain in their slots.
+     *
+     * @param function the function
+     */
+    void replaceValues(LongUnaryOperator function) {
+        for (long i = 0; i < capacity; i++) {
+            long stored = storedAt(i);
+            if (stored != 0L) {
+                region.putLong(i * SLOT_SIZE + 8, function.applyAsLong(stored - 1) + 1);
+            }
+        }
+    }
+
+    void clear() {
+        region.reset();
+        this.capacity = 0L;
+        this.size = 0L;
+    }
+
+    private void insertNew(long key, long stored) {
+        long mask = capacity - 1;
+        for (long i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (storedAt(i) == 0L) {
+                write(i, key, stored);
+                size++;
+                return;
+            }
+        }
+    }
+
+    private void deleteAt(long slot) {
+        long mask = capacity - 1;
+        long hole = slot;
+        long i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long stored = storedAt(i);
+            if (stored == 0L) {
+                break;
+            }
+            long key = keyAt(i);
+            // The entry can fill the hole unless its home slot lies cyclically in (hole, i]
+            if (((i - slot(key, mask)) & mask) >= ((i - hole) & mask)) {
+                write(hole, key, stored);
+                hole = i;
+            }
+        }
+        write(hole, 0L, 0L);
+        size--;
+    }
+
+    private void ensureSpace() {
+        if (capacity == 0L) {
+            this.capacity = MIN_CAPACITY;
+            region.ensureCapacity(capacity * SLOT_SIZE);
+        } else if ((size + 1) * 3 > capacity * 2) {
+            resize(capacity * 2);
+        }
+    }
+
+    private void resize(long newCapacity) {
+        MappedRegion old = this.region;
+        long oldCapacity = this.capacity;
+        this.region = new MappedRegion(options);
+        this.region.ensureCapacity(newCapacity * SLOT_SIZE);
+        this.capacity = newCapacity;
+        this.size = 0L;
+        MappedRegion.Segments segments = old.segments();
+        for (long i = 0; i < oldCapacity; i++) {
+            long stored = segments.getLong(i * SLOT_SIZE + 8);
+            if (stored != 0L) {
+                insertNew(segments.getLong(i * SLOT_SIZE), stored);
+            }
+        }
+        old.reset();
+    }
+
+    @FunctionalInterface
+    interface ValueVisitor {
+        boolean visit(long value);
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(long key, long value);
+    }
+}
@@ -0,0 +1,155 @@
+package org.evrete.mmap;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.spi.FactStorage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A fact storage that keeps its entries in a {@link RecordHeap}, indexed by handle identifiers in a {@link LongTable}.
+ * Each record contains the fact handle and the value, so every read returns new instances of both.
+ * </p>
+ * <p>
+ * The {@link #stream()} method takes a snapshot of the records' addresses, and decodes the records lazily.
+ * </p>
+ *
+ * @param <V> value type
+ */
+class MappedFactStorage<V> implements FactStorage<FactHandle, V> {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RecordCodec<Map.Entry<FactHandle, V>> codec;
+    private final LongTable index;
+    private RecordHeap heap;
+
+    MappedFactStorage(Class<V> valueType, StorageOptions options) {
+        this.codec = new EntryCodec<>(options, RecordCodec.of(valueType, options));
+        this.index = new LongTable(options);
+        this.heap = new RecordHeap(options);
+    }
+
+    @Override
+    public void insert(FactHandle factHandle, V value) {
+        RecordCodec.RecordOutput out = codec.encode(new AbstractMap.SimpleImmutableEntry<>(factHandle, value), 0);
+        lock.writeLock().lock();
+        try {
+            long address = heap.write(out.buffer(), out.length());
+            long previous = index.put(factHandle.getId(), address);
+            if (previous >= 0L) {
+                heap.free(previous);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public V remove(FactHandle factHandle) {
+        byte[] record;
+        lock.writeLock().lock();
+        try {
+            long address = index.remove(factHandle.getId());
+            if (address < 0L) {
+                return null;
+            }
+            record = heap.read(address);
+            heap.free(address);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return codec.decode(record, 0).getValue();
+    }
+
+    @Override
+    public V get(FactHandle factHandle) {
+        byte[] record;
+        lock.readLock().lock();
+        try {
+            long address = index.get(factHandle.getId());
+            if (address < 0L) {
+                return null;
+            }
+            record = heap.read(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return codec.decode(record, 0).getValue();
+    }
+
+    @Override
+    public Stream<Map.Entry<FactHandle, V>> stream() {
+        MappedRegion.Segments segments;
+        long[] addresses;
+        lock.readLock().lock();
+        try {
+            segments = heap.segments();
+            addresses = index.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Arrays.stream(addresses).mapToObj(address -> codec.decode(RecordHeap.read(segments, address), 0));
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            heap.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    long size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (heap.needsCompaction()) {
+            RecordHeap source = this.heap;
+            RecordHeap target = source.newEmpty();
+            index.replaceValues(address -> source.copyTo(address, target));
+            source.clear();
+            this.heap = target;
+        }
+    }
+
+    private static final class EntryCodec<V> extends RecordCodec<Map.Entry<FactHandle, V>> {
+        private final HandleCodec handles;
+        private final RecordCodec<V> values;
+
+        EntryCodec(StorageOptions options, RecordCodec<V> values) {
+            super(options);
+            this.handles = new HandleCodec(options);
+            this.values = values;
+        }
+
+        @Override
+        void write(Map.Entry<FactHandle, V> value, DataOutput out) throws IOException {
+            handles.write(value.getKey(), out);
+            values.write(value.getValue(), out);
+        }
+
+        @Override
+        Map.Entry<FactHandle, V> read(DataInput in) throws IOException {
+            FactHandle handle = handles.read(in);
+            return new AbstractMap.SimpleImmutableEntry<>(handle, values.read(in));
+        }
+    }
+}
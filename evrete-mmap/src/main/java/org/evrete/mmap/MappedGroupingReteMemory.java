@@ -0,0 +1,81 @@
+package org.evrete.mmap;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.annotations.NonNull;
+import org.evrete.api.spi.GroupingReteMemory;
+import org.evrete.api.spi.MemoryScope;
+
+import java.util.Iterator;
+
+/**
+ * An alpha memory that consists of two {@link HandleMultiMap} instances. Commits move the delta
+ * memory's entries into the main one, so their cost is proportional to the size of the delta.
+ */
+class MappedGroupingReteMemory implements GroupingReteMemory<FactHandle> {
+    private final HandleMultiMap main;
+    private final HandleMultiMap delta;
+
+    MappedGroupingReteMemory(StorageOptions options) {
+        RecordCodec.HandleCodec handles = new RecordCodec.HandleCodec(options);
+        this.main = new HandleMultiMap(options, handles);
+        this.delta = new HandleMultiMap(options, handles);
+    }
+
+    @Override
+    public synchronized void insert(long key, @NonNull FactHandle value) {
+        delta.insert(key, value.getId(), RecordCodec.RECORDS.handleType(value));
+    }
+
+    @Override
+    public synchronized void delete(long key, @NonNull FactHandle value) {
+        long id = value.getId();
+        main.delete(key, id);
+        delta.delete(key, id);
+    }
+
+    @Override
+    public Iterator<FactHandle> valueIterator(MemoryScope scope, long key) {
+        return map(scope).values(key);
+    }
+
+    @Override
+    public Iterator<Long> iterator(MemoryScope scope) {
+        return map(scope).keys();
+    }
+
+    @Override
+    public long keyCount(MemoryScope scope) {
+        return map(scope).keyCount();
+    }
+
+    @Override
+    public synchronized void commit() {
+        if (delta.size() > 0L) {
+            delta.moveTo(main);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        main.clear();
+        delta.clear();
+    }
+
+    private HandleMultiMap map(MemoryScope scope) {
+        switch (scope) {
+            case MAIN:
+                return main;
+            case DELTA:
+                return delta;
+            default:
+                throw new IllegalStateException("Unknown scope " + scope);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{main=" + main.size() +
+                ", delta=" + delta.size() +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package org.evrete.mmap;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.spi.FactStorage;
+import org.evrete.api.spi.GroupingReteMemory;
+import org.evrete.api.spi.MemoryFactory;
+import org.evrete.api.spi.ValueIndexer;
+
+class MappedMemoryFactory implements MemoryFactory<FactHandle> {
+    private final StorageOptions options;
+
+    MappedMemoryFactory(StorageOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public <V> FactStorage<FactHandle, V> newFactStorage(Class<V> valueType) {
+        return new MappedFactStorage<>(valueType, options);
+    }
+
+    @Override
+    public GroupingReteMemory<FactHandle> newGroupedFactStorage(Class<FactHandle> valueType) {
+        return new MappedGroupingReteMemory(options);
+    }
+
+    @Override
+    public <T> ValueIndexer<T> newValueIndexed(Class<T> valueType) {
+        return new MappedValueIndexer<>(valueType, options);
+    }
+}
@@ -0,0 +1,89 @@
+package org.evrete.mmap;
+
+import org.evrete.Configuration;
+import org.evrete.api.FactHandle;
+import org.evrete.api.RuntimeContext;
+import org.evrete.api.spi.MemoryFactory;
+import org.evrete.api.spi.MemoryFactoryProvider;
+import org.evrete.api.spi.MemoryRecords;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * <p>
+ * A memory provider that keeps facts, field values and alpha memories in memory-mapped files rather
+ * than in the Java heap, so that the size of a session is bounded by disk space. Facts and field values
+ * are written through a {@link FactCodec}, and every read returns new instances, so the identity of facts
+ * is not preserved: facts returned by sessions, for example by {@link org.evrete.api.RuleSession#getFact(org.evrete.api.FactHandle)},
+ * are copies of the inserted ones.
+ * </p>
+ * <p>
+ * Because of that, the provider is not registered as a service and must be selected explicitly, either with
+ * {@link org.evrete.KnowledgeService.Builder#withMemoryFactoryProvider(Class)}, or by setting the
+ * <code>evrete.spi.memory-factory</code> configuration property to this class' name.
+ * It is configured by the following properties:
+ * </p>
+ * <ul>
+ *     <li>{@link #DIRECTORY}, the directory of the mapped files, defaults to <code>java.io.tmpdir</code>;</li>
+ *     <li>{@link #SEGMENT_SIZE}, the size of mapped segments in bytes, defaults to {@value #SEGMENT_SIZE_DEFAULT}.
+ *     A single record, for example the facts of an alpha memory that share the same field values,
+ *     can't be larger than a segment;</li>
+ *     <li>{@link #CODEC}, the class name of a {@link FactCodec} implementation, defaults to {@link SerializationCodec}.</li>
+ * </ul>
+ * <p>
+ * Mapped files are temporary: each one is deleted when its memory is cleared or garbage collected.
+ * </p>
+ */
+public class MappedMemoryFactoryProvider implements MemoryFactoryProvider {
+    public static final String DIRECTORY = "evrete.mmap.directory";
+    public static final String SEGMENT_SIZE = "evrete.mmap.segment-size";
+    public static final int SEGMENT_SIZE_DEFAULT = 1 << 26;
+    public static final String CODEC = "evrete.mmap.codec";
+    private static final int ORDER = 100;
+
+    @Override
+    public int sortOrder() {
+        return ORDER;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <FH extends FactHandle> MemoryFactory<FH> instance(RuntimeContext<?> context, Class<FH> factHandleType) {
+        if (MemoryRecords.getInstance().kindOf(factHandleType) != MemoryRecords.Kind.FACT_HANDLE) {
+            throw new IllegalArgumentException("Unsupported fact handle type " + factHandleType);
+        }
+        Configuration configuration = context.getConfiguration();
+        StorageOptions options = new StorageOptions(
+                directory(configuration),
+                configuration.getAsInteger(SEGMENT_SIZE, SEGMENT_SIZE_DEFAULT),
+                codec(configuration, context.getClassLoader()),
+                context.getClassLoader()
+        );
+        return (MemoryFactory<FH>) new MappedMemoryFactory(options);
+    }
+
+    private static Path directory(Configuration configuration) {
+        Path directory = Paths.get(configuration.getProperty(DIRECTORY, System.getProperty("java.io.tmpdir")));
+        try {
+            return Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create directory " + directory, e);
+        }
+    }
+
+    private static FactCodec codec(Configuration configuration, ClassLoader classLoader) {
+        String className = configuration.getProperty(CODEC);
+        if (className == null) {
+            return new SerializationCodec();
+        }
+        try {
+            return (FactCodec) Class.forName(className, true, classLoader).getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to instantiate codec " + className, e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.evrete.mmap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A growable address space backed by a temporary file. The file is mapped in segments of equal size,
+ * except for the first one, which grows from a small size up to the segment size, so that small
+ * memories don't reserve a whole segment. Reads and writes must not cross segment boundaries.
+ * </p>
+ * <p>
+ * The file is created on first growth, and no file descriptors are held open between growths.
+ * It is deleted when the region is reset, or when the region becomes unreachable. Mapped buffers can't be
+ * unmapped explicitly, so their memory is released by the garbage collector, and readers that have taken
+ * a {@link Segments} snapshot can safely finish their reads after a reset.
+ * </p>
+ * <p>
+ * The class is not thread-safe.
+ * </p>
+ */
+final class MappedRegion {
+    static final int MIN_SEGMENT_SIZE = 1 << 20;
+    private static final int INITIAL_SIZE = 1 << 16;
+    private static final Cleaner CLEANER = Cleaner.create();
+    private final StorageOptions options;
+    private final int segmentShift;
+    private Segments segments;
+    private Path file;
+    private Cleaner.Cleanable cleanable;
+
+    MappedRegion(StorageOptions options) {
+        this.options = options;
+        this.segmentShift = options.getSegmentShift();
+        this.segments = new Segments(new MappedByteBuffer[0], segmentShift);
+    }
+
+    long segmentSize() {
+        return 1L << segmentShift;
+    }
+
+    long capacity() {
+        return segments.capacity;
+    }
+
+    Segments segments() {
+        return segments;
+    }
+
+    /**
+     * Grows the region so that it covers at least the given number of bytes. New space is zero-filled.
+     *
+     * @param size required capacity in bytes
+     */
+    void ensureCapacity(long size) {
+        if (size <= segments.capacity) {
+            return;
+        }
+        try {
+            if (file == null) {
+                this.file = Files.createTempFile(options.getDirectory(), "evrete-", ".mmap");
+                this.cleanable = CLEANER.register(this, new FileDeletion(file));
+            }
+            long segmentSize = segmentSize();
+            MappedByteBuffer[] current = segments.buffers;
+            MappedByteBuffer[] grown;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (size <= segmentSize) {
+                    long newSize = Math.max(INITIAL_SIZE, segments.capacity);
+                    while (newSize < size) {
+                        newSize <<= 1;
+                    }
+                    grown = new MappedByteBuffer[]{channel.map(FileChannel.MapMode.READ_WRITE, 0L, Math.min(newSize, segmentSize))};
+                } else {
+                    int count = (int) ((size + segmentSize - 1) >>> segmentShift);
+                    grown = Arrays.copyOf(current, count);
+                    for (int i = 0; i < count; i++) {
+                        if (grown[i] == null || grown[i].capacity() < segmentSize) {
+                            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << segmentShift, segmentSize);
+                        }
+                    }
+                }
+            }
+            this.segments = new Segments(grown, segmentShift);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map " + file, e);
+        }
+    }
+
+    long getLong(long address) {
+        return segments.getLong(address);
+    }
+
+    int getInt(long address) {
+        return segments.getInt(address);
+    }
+
+    void putLong(long address, long value) {
+        segments.buffer(address).putLong(segments.offset(address), value);
+    }
+
+    void putInt(long address, int value) {
+        segments.buffer(address).putInt(segments.offset(address), value);
+    }
+
+    void write(long address, byte[] source, int offset, int length) {
+        ByteBuffer buffer = segments.buffer(address).duplicate();
+        buffer.position(segments.offset(address));
+        buffer.put(source, offset, length);
+    }
+
+    /**
+     * Discards the region's content and deletes its file.
+     */
+    void reset() {
+        this.segments = new Segments(new MappedByteBuffer[0], segmentShift);
+        if (cleanable != null) {
+            cleanable.clean();
+            this.cleanable = null;
+            this.file = null;
+        }
+    }
+
+    /**
+     * An immutable view of the region's mapped segments. Views remain readable after the region grows
+     * or is reset, and can be read by several threads at once.
+     */
+    static final class Segments {
+        private final MappedByteBuffer[] buffers;
+        private final int shift;
+        private final long mask;
+        private final long capacity;
+
+        private Segments(MappedByteBuffer[] buffers, int shift) {
+            this.buffers = buffers;
+            this.shift = shift;
+            this.mask = (1L << shift) - 1;
+            long total = 0L;
+            for (MappedByteBuffer buffer : buffers) {
+                total += buffer.capacity();
+            }
+            this.capacity = total;
+        }
+
+        private ByteBuffer buffer(long address) {
+            return buffers[(int) (address >>> shift)];
+        }
+
+        private int offset(long address) {
+            return (int) (address & mask);
+        }
+
+        long getLong(long address) {
+            return buffer(address).getLong(offset(address));
+        }
+
+        int getInt(long address) {
+            return buffer(address).getInt(offset(address));
+        }
+
+        void read(long address, byte[] destination, int start, int length) {
+            ByteBuffer buffer = buffer(address).duplicate();
+            buffer.position(offset(address));
+            buffer.get(destination, start, length);
+        }
+    }
+
+    private static class FileDeletion implements Runnable {
+        private final Path file;
+
+        FileDeletion(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Files that are still mapped can't be deleted on some platforms
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+}
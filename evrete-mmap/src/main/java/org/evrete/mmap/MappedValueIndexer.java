@@ -0,0 +1,321 @@
+package org.evrete.mmap;
+
+import org.evrete.api.annotations.NonNull;
+import org.evrete.api.annotations.Nullable;
+import org.evrete.api.spi.ValueIndexer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>
+ * A value indexer that keeps values in a {@link RecordHeap}. Each record starts with the value's hash code,
+ * its reference counter and the epoch of its last lookup, followed by the encoded value. Two {@link LongTable}
+ * instances map identifiers to records and hash codes to identifiers.
+ * </p>
+ * <p>
+ * Lookups first compare the encoded forms of values, and decode the stored value only if the encoded forms
+ * differ, which is the case for codecs that write equal values differently. Reference counting and
+ * reclamation follow the same epoch-based scheme as the default indexer.
+ * </p>
+ *
+ * @param <T> value type
+ */
+class MappedValueIndexer<T> implements ValueIndexer<T> {
+    private static final int HASH = 0;
+    private static final int REFS = 4;
+    private static final int LAST_USED = 8;
+    private static final int VALUE = 16;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RecordCodec<T> codec;
+    private final LongTable ids;
+    private final LongTable hashes;
+    private RecordHeap heap;
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicInteger epoch = new AtomicInteger();
+    // Identifiers whose reference counters have dropped to zero, guarded by the instance's monitor
+    private long[] released = new long[16];
+    private int releasedCount;
+
+    MappedValueIndexer(Class<T> valueType, StorageOptions options) {
+        this.codec = RecordCodec.of(valueType, options);
+        this.ids = new LongTable(options);
+        this.hashes = new LongTable(options);
+        this.heap = new RecordHeap(options);
+    }
+
+    @Override
+    public long getOrCreateId(@NonNull T value) {
+        int hash = value.hashCode();
+        RecordCodec.RecordOutput out = codec.encode(value, VALUE);
+        long id;
+        lock.readLock().lock();
+        try {
+            id = find(value, hash, out);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (id >= 0L) {
+            return id;
+        }
+
+        lock.writeLock().lock();
+        try {
+            id = find(value, hash, out);
+            if (id >= 0L) {
+                return id;
+            }
+            id = counter.getAndIncrement();
+            store(id, hash, out);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // The engine may drop the value without retaining it
+        enqueue(id);
+        return id;
+    }
+
+    @Nullable
+    @Override
+    public T get(long id) {
+        byte[] record;
+        lock.readLock().lock();
+        try {
+            long address = ids.get(id);
+            if (address < 0L) {
+                return null;
+            }
+            record = heap.read(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return codec.decode(record, VALUE);
+    }
+
+    @Nullable
+    @Override
+    public T delete(long id) {
+        byte[] record;
+        lock.writeLock().lock();
+        try {
+            record = remove(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return record == null ? null : codec.decode(record, VALUE);
+    }
+
+    @Override
+    public void assignId(long id, @NonNull T value) {
+        int hash = value.hashCode();
+        RecordCodec.RecordOutput out = codec.encode(value, VALUE);
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            store(id, hash, out);
+            // Making sure the counter is properly advanced
+            this.counter.updateAndGet(operand -> Math.max(operand, id + 1));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void retain(long id) {
+        lock.writeLock().lock();
+        try {
+            long address = ids.get(id);
+            if (address >= 0L) {
+                long refs = RecordHeap.payload(address) + REFS;
+                heap.putInt(refs, heap.getInt(refs) + 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void release(long id) {
+        boolean unused = false;
+        lock.writeLock().lock();
+        try {
+            long address = ids.get(id);
+            if (address >= 0L) {
+                long refs = RecordHeap.payload(address) + REFS;
+                int count = heap.getInt(refs) - 1;
+                heap.putInt(refs, count);
+                unused = count == 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (unused) {
+            enqueue(id);
+        }
+    }
+
+    @Override
+    public void reclaim() {
+        int current = epoch.getAndIncrement();
+        long[] candidates;
+        int candidateCount;
+        synchronized (this) {
+            if (releasedCount == 0) {
+                return;
+            }
+            candidates = released;
+            candidateCount = releasedCount;
+            this.released = new long[16];
+            this.releasedCount = 0;
+        }
+
+        int retained = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < candidateCount; i++) {
+                long id = candidates[i];
+                long address = ids.get(id);
+                if (address < 0L) {
+                    // Already deleted
+                    continue;
+                }
+                long payload = RecordHeap.payload(address);
+                if (heap.getInt(payload + REFS) > 0) {
+                    // Referenced again
+                    continue;
+                }
+                if (heap.getInt(payload + LAST_USED) < current) {
+                    remove(id);
+                } else {
+                    // Recently used, the value will be checked again
+                    candidates[retained++] = id;
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (int i = 0; i < retained; i++) {
+            enqueue(candidates[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            hashes.clear();
+            heap.clear();
+            this.counter.set(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        synchronized (this) {
+            this.released = new long[16];
+            this.releasedCount = 0;
+        }
+    }
+
+    long size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private synchronized void enqueue(long id) {
+        if (releasedCount == released.length) {
+            released = Arrays.copyOf(released, releasedCount * 2);
+        }
+        released[releasedCount++] = id;
+    }
+
+    /**
+     * Looks up the value's identifier and marks the value as used in the current epoch.
+     * Must be called under the read or the write lock.
+     */
+    private long find(T value, int hash, RecordCodec.RecordOutput out) {
+        long[] found = {-1L};
+        hashes.forEach(hash, id -> {
+            long address = ids.get(id);
+            if (address >= 0L && matches(address, value, out)) {
+                found[0] = id;
+                return false;
+            } else {
+                return true;
+            }
+        });
+        if (found[0] >= 0L) {
+            // Concurrent lookups under the read lock write the same value
+            heap.putInt(RecordHeap.payload(ids.get(found[0])) + LAST_USED, epoch.get());
+        }
+        return found[0];
+    }
+
+    private boolean matches(long address, T value, RecordCodec.RecordOutput out) {
+        byte[] record = heap.read(address);
+        byte[] encoded = out.buffer();
+        int length = out.length();
+        if (record.length == length) {
+            boolean same = true;
+            for (int i = VALUE; i < length; i++) {
+                if (record[i] != encoded[i]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return true;
+            }
+        }
+        return value.equals(codec.decode(record, VALUE));
+    }
+
+    /**
+     * Must be called under the write lock.
+     */
+    private void store(long id, int hash, RecordCodec.RecordOutput out) {
+        ByteBuffer header = ByteBuffer.wrap(out.buffer());
+        header.putInt(HASH, hash);
+        header.putInt(REFS, 0);
+        header.putInt(LAST_USED, epoch.get());
+        long address = heap.write(out.buffer(), out.length());
+        ids.put(id, address);
+        hashes.add(hash, id);
+    }
+
+    /**
+     * Must be called under the write lock.
+     *
+     * @return the deleted record or <code>null</code>
+     */
+    private byte[] remove(long id) {
+        long address = ids.remove(id);
+        if (address < 0L) {
+            return null;
+        } else {
+            byte[] record = heap.read(address);
+            hashes.remove(heap.getInt(RecordHeap.payload(address) + HASH), id);
+            heap.free(address);
+            return record;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (heap.needsCompaction()) {
+            RecordHeap source = this.heap;
+            RecordHeap target = source.newEmpty();
+            ids.replaceValues(address -> source.copyTo(address, target));
+            source.clear();
+            this.heap = target;
+        }
+    }
+}
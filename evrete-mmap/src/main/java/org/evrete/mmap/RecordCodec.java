@@ -0,0 +1,192 @@
+package org.evrete.mmap;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.spi.MemoryRecords;
+
+import java.io.*;
+
+/**
+ * <p>
+ * Converts stored values to records. The engine's own structures (fact handles, fact holders and
+ * field values) are written field by field via {@link MemoryRecords}, facts and everything else are
+ * written by the configured {@link FactCodec}.
+ * </p>
+ *
+ * @param <V> value type
+ */
+abstract class RecordCodec<V> {
+    static final MemoryRecords RECORDS = MemoryRecords.getInstance();
+    final StorageOptions options;
+
+    RecordCodec(StorageOptions options) {
+        this.options = options;
+    }
+
+    abstract void write(V value, DataOutput out) throws IOException;
+
+    abstract V read(DataInput in) throws IOException;
+
+    @SuppressWarnings("unchecked")
+    static <V> RecordCodec<V> of(Class<V> type, StorageOptions options) {
+        switch (RECORDS.kindOf(type)) {
+            case FACT_HOLDER:
+                return (RecordCodec<V>) new FactHolderCodec(options);
+            case FIELD_VALUES:
+                return (RecordCodec<V>) new FieldValuesCodec(options);
+            case FACT_HANDLE:
+                return (RecordCodec<V>) new HandleCodec(options);
+            default:
+                return new GenericCodec<>(options);
+        }
+    }
+
+    /**
+     * Encodes a value after the given number of reserved bytes.
+     *
+     * @param value    the value
+     * @param reserved number of leading bytes that the caller will fill in
+     * @return the output
+     */
+    final RecordOutput encode(V value, int reserved) {
+        RecordOutput out = new RecordOutput();
+        try {
+            for (int i = 0; i < reserved; i++) {
+                out.writeByte(0);
+            }
+            write(value, out);
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write " + value, e);
+        }
+    }
+
+    final V decode(byte[] bytes, int offset) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes, offset, bytes.length - offset)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read a stored value", e);
+        }
+    }
+
+    final Object readObject(DataInput in) throws IOException {
+        return options.getCodec().read(in, options.getClassLoader());
+    }
+
+    final void writeObject(Object o, DataOutput out) throws IOException {
+        options.getCodec().write(o, out);
+    }
+
+    static final class HandleCodec extends RecordCodec<FactHandle> {
+
+        HandleCodec(StorageOptions options) {
+            super(options);
+        }
+
+        @Override
+        void write(FactHandle value, DataOutput out) throws IOException {
+            out.writeLong(value.getId());
+            out.writeInt(RECORDS.handleType(value));
+        }
+
+        @Override
+        FactHandle read(DataInput in) throws IOException {
+            long id = in.readLong();
+            return handle(id, in.readInt());
+        }
+
+        FactHandle handle(long id, int type) {
+            return RECORDS.newHandle(id, type);
+        }
+    }
+
+    static final class FactHolderCodec extends RecordCodec<Object> {
+        private final HandleCodec handles;
+
+        FactHolderCodec(StorageOptions options) {
+            super(options);
+            this.handles = new HandleCodec(options);
+        }
+
+        @Override
+        void write(Object value, DataOutput out) throws IOException {
+            handles.write(RECORDS.holderHandle(value), out);
+            out.writeLong(RECORDS.holderFieldValuesId(value));
+            writeObject(RECORDS.holderFact(value), out);
+        }
+
+        @Override
+        Object read(DataInput in) throws IOException {
+            FactHandle handle = handles.read(in);
+            long fieldValuesId = in.readLong();
+            return RECORDS.newHolder(handle, fieldValuesId, readObject(in));
+        }
+    }
+
+    static final class FieldValuesCodec extends RecordCodec<Object> {
+        FieldValuesCodec(StorageOptions options) {
+            super(options);
+        }
+
+        @Override
+        void write(Object value, DataOutput out) throws IOException {
+            Object[] values = RECORDS.fieldValues(value);
+            out.writeInt(values.length);
+            for (Object v : values) {
+                writeObject(v, out);
+            }
+        }
+
+        @Override
+        Object read(DataInput in) throws IOException {
+            Object[] values = new Object[in.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readObject(in);
+            }
+            return RECORDS.newFieldValues(values);
+        }
+    }
+
+    static final class GenericCodec<V> extends RecordCodec<V> {
+        GenericCodec(StorageOptions options) {
+            super(options);
+        }
+
+        @Override
+        void write(V value, DataOutput out) throws IOException {
+            writeObject(value, out);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        V read(DataInput in) throws IOException {
+            return (V) readObject(in);
+        }
+    }
+
+    /**
+     * A data output whose buffer can be written to a heap without copying.
+     */
+    static final class RecordOutput extends DataOutputStream {
+        RecordOutput() {
+            super(new Buffer());
+        }
+
+        byte[] buffer() {
+            return ((Buffer) out).buffer();
+        }
+
+        int length() {
+            return ((Buffer) out).size();
+        }
+
+        private static final class Buffer extends ByteArrayOutputStream {
+            Buffer() {
+                super(64);
+            }
+
+            byte[] buffer() {
+                return buf;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.evrete.mmap;
+
+/**
+ * <p>
+ * Append-only storage of variable-length records in a {@link MappedRegion}. Each record is prefixed with
+ * its length and aligned to eight bytes. The space of freed records is not reused until the heap
+ * is cleared or compacted: owners should check {@link #needsCompaction()} after deletes and, if needed,
+ * copy live records into a new heap with {@link #copyTo(long, RecordHeap)}.
+ * </p>
+ * <p>
+ * The class is not thread-safe.
+ * </p>
+ */
+final class RecordHeap {
+    private static final int HEADER = 4;
+    private static final long COMPACTION_MIN_GARBAGE = 1L << 20;
+    private final StorageOptions options;
+    private final MappedRegion region;
+    private long top;
+    private long live;
+
+    RecordHeap(StorageOptions options) {
+        this.options = options;
+        this.region = new MappedRegion(options);
+    }
+
+    /**
+     * Creates an empty heap with the same settings.
+     *
+     * @return new heap
+     */
+    RecordHeap newEmpty() {
+        return new RecordHeap(options);
+    }
+
+    MappedRegion.Segments segments() {
+        return region.segments();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param payload the record's content
+     * @param length  number of bytes to take from the payload array
+     * @return the record's address
+     */
+    long write(byte[] payload, int length) {
+        long size = align(HEADER + length);
+        long segmentSize = region.segmentSize();
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes exceeds the segment size of " + segmentSize + " bytes");
+        }
+        long address = top;
+        long segmentEnd = (address | (segmentSize - 1)) + 1;
+        if (address + size > segmentEnd) {
+            // Records don't cross segment boundaries
+            address = segmentEnd;
+        }
+        region.ensureCapacity(address + size);
+        region.putInt(address, length);
+        region.write(address + HEADER, payload, 0, length);
+        this.top = address + size;
+        this.live += size;
+        return address;
+    }
+
+    byte[] read(long address) {
+        return read(region.segments(), address);
+    }
+
+    /**
+     * Reads a record from a snapshot of a heap's segments.
+     *
+     * @param segments the segments
+     * @param address  the record's address
+     * @return the record's content
+     */
+    static byte[] read(MappedRegion.Segments segments, long address) {
+        byte[] payload = new byte[segments.getInt(address)];
+        segments.read(address + HEADER, payload, 0, payload.length);
+        return payload;
+    }
+
+    /**
+     * @param address the record's address
+     * @return the address of the record's content
+     */
+    static long payload(long address) {
+        return address + HEADER;
+    }
+
+    /**
+     * @param address the record's address
+     * @return the record's content length
+     */
+    int length(long address) {
+        return region.getInt(address);
+    }
+
+    int getInt(long address) {
+        return region.getInt(address);
+    }
+
+    void putInt(long address, int value) {
+        region.putInt(address, value);
+    }
+
+    long getLong(long address) {
+        return region.getLong(address);
+    }
+
+    void putLong(long address, long value) {
+        region.putLong(address, value);
+    }
+
+    void free(long address) {
+        this.live -= align(HEADER + region.getInt(address));
+    }
+
+    boolean needsCompaction() {
+        long garbage = top - live;
+        return garbage > COMPACTION_MIN_GARBAGE && garbage > live;
+    }
+
+    /**
+     * Copies a record into another heap.
+     *
+     * @param address the record's address in this heap
+     * @param target  the target heap
+     * @return the record's address in the target heap
+     */
+    long copyTo(long address, RecordHeap target) {
+        byte[] payload = read(address);
+        return target.write(payload, payload.length);
+    }
+
+    void clear() {
+        region.reset();
+        this.top = 0L;
+        this.live = 0L;
+    }
+
+    private static long align(long size) {
+        return (size + 7L) & ~7L;
+    }
+}
@@ -0,0 +1,39 @@
+package org.evrete.mmap;
+
+import java.nio.file.Path;
+
+/**
+ * Settings shared by the memories of a session.
+ */
+final class StorageOptions {
+    private final Path directory;
+    private final int segmentShift;
+    private final FactCodec codec;
+    private final ClassLoader classLoader;
+
+    StorageOptions(Path directory, int segmentSize, FactCodec codec, ClassLoader classLoader) {
+        if (segmentSize < MappedRegion.MIN_SEGMENT_SIZE || Integer.bitCount(segmentSize) != 1) {
+            throw new IllegalArgumentException("Segment size must be a power of two not less than " + MappedRegion.MIN_SEGMENT_SIZE + ", got " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        this.codec = codec;
+        this.classLoader = classLoader;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    int getSegmentShift() {
+        return segmentShift;
+    }
+
+    FactCodec getCodec() {
+        return codec;
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+}
@@ -0,0 +1,222 @@
+package org.evrete.mmap;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.api.spi.MemoryFactoryProvider;
+import org.evrete.spi.minimal.DefaultMemoryFactoryProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class MappedSessionTests {
+    private Path directory;
+
+    @BeforeEach
+    void init() throws IOException {
+        directory = Files.createTempDirectory("evrete-mmap-test");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private KnowledgeService service(Class<? extends MemoryFactoryProvider> provider) {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(MappedMemoryFactoryProvider.DIRECTORY, directory.toString());
+        configuration.setProperty(MappedMemoryFactoryProvider.SEGMENT_SIZE, String.valueOf(MappedRegion.MIN_SEGMENT_SIZE));
+        return KnowledgeService.builder(configuration)
+                .withMemoryFactoryProvider(provider)
+                .build();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ActivationMode.class)
+    void sameResults(ActivationMode mode) {
+        assert run(DefaultMemoryFactoryProvider.class, mode).equals(run(MappedMemoryFactoryProvider.class, mode));
+    }
+
+    @Test
+    void providerLoading() {
+        // The provider is opt-in, having the module on the classpath doesn't change the default
+        KnowledgeService service = new KnowledgeService();
+        try {
+            assert service.getMemoryFactoryProvider() instanceof DefaultMemoryFactoryProvider;
+        } finally {
+            service.shutdown();
+        }
+
+        Configuration configuration = new Configuration();
+        configuration.setProperty("evrete.spi.memory-factory", MappedMemoryFactoryProvider.class.getName());
+        service = new KnowledgeService(configuration);
+        try {
+            assert service.getMemoryFactoryProvider() instanceof MappedMemoryFactoryProvider;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void factIdentity() {
+        Item item = new Item(1, "c1", 10);
+        assert fetch(DefaultMemoryFactoryProvider.class, item) == item;
+
+        // Mapped memories return copies of the inserted facts
+        Item copy = (Item) fetch(MappedMemoryFactoryProvider.class, item);
+        assert copy != item;
+        assert copy.getId() == item.getId();
+        assert copy.getCategory().equals(item.getCategory());
+        assert copy.getPrice() == item.getPrice();
+    }
+
+    private Object fetch(Class<? extends MemoryFactoryProvider> provider, Object fact) {
+        KnowledgeService service = service(provider);
+        Knowledge knowledge = service.newKnowledge()
+                .builder()
+                .newRule()
+                .forEach("$f", fact.getClass())
+                .execute()
+                .build();
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            FactHandle handle = session.insert(fact);
+            return session.getFact(handle);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private Map<String, Object> run(Class<? extends MemoryFactoryProvider> provider, ActivationMode mode) {
+        KnowledgeService service = service(provider);
+        try {
+            Set<Integer> expensive = ConcurrentHashMap.newKeySet();
+            AtomicInteger joined = new AtomicInteger();
+            AtomicInteger updated = new AtomicInteger();
+            Knowledge knowledge = service.newKnowledge()
+                    .builder()
+                    .newRule("cheap")
+                    .forEach(fact("$i", Item.class))
+                    .where("$i.price < 50")
+                    .execute(ctx -> {
+                        Item item = ctx.get("$i");
+                        item.setPrice(item.getPrice() + 100);
+                        ctx.update(item);
+                        updated.incrementAndGet();
+                    })
+                    .newRule("expensive")
+                    .forEach(fact("$i", Item.class))
+                    .where("$i.price > 120")
+                    .execute(ctx -> expensive.add(ctx.<Item>get("$i").getId()))
+                    .newRule("join")
+                    .forEach(
+                            fact("$i", Item.class),
+                            fact("$o", Order.class)
+                    )
+                    .where("$o.itemId == $i.id")
+                    .where("$i.category == $o.category")
+                    .execute(ctx -> joined.incrementAndGet())
+                    .build();
+
+            Map<String, Object> results = new HashMap<>();
+            try (StatefulSession session = knowledge.newStatefulSession(mode)) {
+                List<FactHandle> orders = new ArrayList<>();
+                for (int i = 0; i < 5_000; i++) {
+                    session.insert(new Item(i, "c" + (i % 7), i % 200));
+                    orders.add(session.insert(new Order(i % 1_000, "c" + (i % 3))));
+                }
+                session.fire();
+                results.put("expensive", new TreeSet<>(expensive));
+                results.put("joined", joined.get());
+                results.put("updated", updated.get());
+
+                // Deleting half of the orders and firing again
+                for (int i = 0; i < orders.size(); i += 2) {
+                    session.delete(orders.get(i));
+                }
+                joined.set(0);
+                session.insert(new Item(10_000, "c0", 1));
+                session.fire();
+                results.put("joined2", joined.get());
+                results.put("updated2", updated.get());
+
+                Map<Integer, Integer> prices = new TreeMap<>();
+                session.streamFacts(Item.class).forEach(item -> prices.put(item.getId(), item.getPrice()));
+                results.put("prices", prices);
+                results.put("orders", session.streamFacts(Order.class).count());
+            }
+            return results;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int id;
+        private final String category;
+        private int price;
+
+        public Item(int id, String category, int price) {
+            this.id = id;
+            this.category = category;
+            this.price = price;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+
+        public void setPrice(int price) {
+            this.price = price;
+        }
+    }
+
+    public static class Order implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int itemId;
+        private final String category;
+
+        public Order(int itemId, String category) {
+            this.itemId = itemId;
+            this.category = category;
+        }
+
+        public int getItemId() {
+            return itemId;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+    }
+}
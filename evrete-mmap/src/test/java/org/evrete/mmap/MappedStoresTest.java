@@ -0,0 +1,253 @@
+package org.evrete.mmap;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.spi.MemoryRecords;
+import org.evrete.api.spi.MemoryScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class MappedStoresTest {
+    private static final MemoryRecords RECORDS = MemoryRecords.getInstance();
+    private static final Class<Object> FIELD_VALUES = typeOf(RECORDS.newFieldValues(new Object[0]));
+    private static final Class<Object> FACT_HOLDER = typeOf(RECORDS.newHolder(RECORDS.newHandle(0L, 0), 0L, "fact"));
+    private Path directory;
+    private StorageOptions options;
+
+    @BeforeEach
+    void init() throws IOException {
+        directory = Files.createTempDirectory("evrete-mmap-test");
+        // The smallest segments, so that tests cover multi-segment regions
+        options = new StorageOptions(directory, MappedRegion.MIN_SEGMENT_SIZE, new SerializationCodec(), getClass().getClassLoader());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void longTable() throws IOException {
+        LongTable table = new LongTable(options);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(1L);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(50_000) - 25_000L;
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                assert table.remove(key) == (removed == null ? -1L : removed);
+            } else {
+                long value = random.nextInt(Integer.MAX_VALUE);
+                Long previous = expected.put(key, value);
+                assert table.put(key, value) == (previous == null ? -1L : previous);
+            }
+        }
+        assert table.size() == expected.size();
+        for (long key = -25_000L; key < 25_000L; key++) {
+            Long value = expected.get(key);
+            assert table.get(key) == (value == null ? -1L : value);
+        }
+        Set<Long> keys = new HashSet<>();
+        for (long key : table.keys()) {
+            keys.add(key);
+        }
+        assert keys.equals(expected.keySet());
+
+        table.clear();
+        assert table.size() == 0L;
+        assert table.get(keys.iterator().next()) == -1L;
+        assert fileCount() == 0L;
+    }
+
+    @Test
+    void longMultiTable() {
+        LongTable table = new LongTable(options);
+        for (long i = 0; i < 10_000; i++) {
+            table.add(i % 10, i);
+        }
+        List<Long> values = new ArrayList<>();
+        table.forEach(3L, value -> values.add(value));
+        assert values.size() == 1_000;
+        assert values.stream().allMatch(v -> v % 10 == 3);
+
+        assert table.remove(3L, 13L);
+        assert !table.remove(3L, 13L);
+        assert !table.remove(4L, 13L);
+        values.clear();
+        table.forEach(3L, value -> values.add(value));
+        assert values.size() == 999;
+        assert !values.contains(13L);
+    }
+
+    @Test
+    void valueIndexer() throws IOException {
+        MappedValueIndexer<Object> indexer = new MappedValueIndexer<>(FIELD_VALUES, options);
+        Object v1 = RECORDS.newFieldValues(new Object[]{1, "a", null});
+        Object v2 = RECORDS.newFieldValues(new Object[]{2, "b", 3.0});
+
+        long id1 = indexer.getOrCreateId(v1);
+        long id2 = indexer.getOrCreateId(v2);
+        assert id1 != id2;
+        assert indexer.getOrCreateId(RECORDS.newFieldValues(new Object[]{1, "a", null})) == id1;
+        assert v1.equals(indexer.get(id1));
+        assert v2.equals(indexer.get(id2));
+        assert indexer.get(id2 + 100) == null;
+
+        // Values that have just been looked up survive the first reclaim
+        indexer.retain(id1);
+        indexer.reclaim();
+        assert indexer.size() == 2L;
+        indexer.reclaim();
+        assert indexer.size() == 1L;
+        assert indexer.get(id2) == null;
+
+        indexer.release(id1);
+        indexer.reclaim();
+        assert indexer.size() == 0L;
+
+        indexer.assignId(100L, v2);
+        assert v2.equals(indexer.get(100L));
+        assert indexer.getOrCreateId(v2) == 100L;
+        assert indexer.getOrCreateId(v1) == 101L;
+        assert v2.equals(indexer.delete(100L));
+        assert indexer.get(100L) == null;
+
+        indexer.clear();
+        assert indexer.size() == 0L;
+        assert fileCount() == 0L;
+    }
+
+    @Test
+    void valueIndexerVolume() {
+        MappedValueIndexer<Object> indexer = new MappedValueIndexer<>(FIELD_VALUES, options);
+        int count = 100_000;
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = indexer.getOrCreateId(RECORDS.newFieldValues(new Object[]{i, "value-" + i}));
+            indexer.retain(ids[i]);
+        }
+        for (int round = 0; round < 3; round++) {
+            // Releasing and reclaiming most values makes the heap compact itself
+            for (int i = 0; i < count; i++) {
+                if (i % 10 != 0) {
+                    indexer.release(ids[i]);
+                    ids[i] = indexer.getOrCreateId(RECORDS.newFieldValues(new Object[]{i, "value-" + i + "-" + round}));
+                    indexer.retain(ids[i]);
+                }
+            }
+            indexer.reclaim();
+            indexer.reclaim();
+        }
+        assert indexer.size() == count;
+        for (int i = 0; i < count; i++) {
+            Object expected = i % 10 == 0 ? "value-" + i : "value-" + i + "-2";
+            Object[] values = RECORDS.fieldValues(indexer.get(ids[i]));
+            assert values[0].equals(i);
+            assert values[1].equals(expected);
+        }
+    }
+
+    @Test
+    void groupingMemory() throws IOException {
+        MappedGroupingReteMemory memory = new MappedGroupingReteMemory(options);
+        int type = 2;
+        List<FactHandle> handles = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            FactHandle handle = RECORDS.newHandle(1_000_000L + i, type);
+            handles.add(handle);
+            // Key 0 gets a large bucket
+            memory.insert(i % 2 == 0 ? 0L : i, handle);
+        }
+        assert keys(memory, MemoryScope.MAIN).isEmpty();
+        assert keys(memory, MemoryScope.DELTA).size() == 5_001;
+        memory.commit();
+        assert keys(memory, MemoryScope.DELTA).isEmpty();
+        assert keys(memory, MemoryScope.MAIN).size() == 5_001;
+
+        List<FactHandle> bucket = values(memory, MemoryScope.MAIN, 0L);
+        assert bucket.size() == 5_000;
+        assert bucket.stream().allMatch(h -> h.getId() % 2 == 0 && RECORDS.handleType(h) == 2);
+
+        // Deleting every second handle of the large bucket and all the odd keys
+        for (int i = 0; i < handles.size(); i++) {
+            if (i % 4 == 0) {
+                memory.delete(0L, handles.get(i));
+            } else if (i % 2 == 1) {
+                memory.delete(i, handles.get(i));
+            }
+        }
+        bucket = values(memory, MemoryScope.MAIN, 0L);
+        assert bucket.size() == 2_500;
+        assert bucket.stream().allMatch(h -> h.getId() % 4 == 2);
+        assert keys(memory, MemoryScope.MAIN).equals(Collections.singleton(0L));
+
+        memory.clear();
+        assert keys(memory, MemoryScope.MAIN).isEmpty();
+        assert fileCount() == 0L;
+    }
+
+    @Test
+    void factStorage() throws IOException {
+        MappedFactStorage<Object> storage = new MappedFactStorage<>(FACT_HOLDER, options);
+        int type = 0;
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            FactHandle handle = RECORDS.newHandle(i + 1L, type);
+            storage.insert(handle, RECORDS.newHolder(handle, i, "fact-" + i));
+        }
+        assert storage.size() == count;
+        Object holder = storage.get(RECORDS.newHandle(101L, type));
+        assert holder != null;
+        assert RECORDS.holderFact(holder).equals("fact-100");
+        assert RECORDS.holderFieldValuesId(holder) == 100L;
+        assert RECORDS.holderHandle(holder).getId() == 101L;
+
+        for (int i = 0; i < count; i += 2) {
+            assert storage.remove(RECORDS.newHandle(i + 1L, type)) != null;
+        }
+        assert storage.remove(RECORDS.newHandle(1L, type)) == null;
+        assert storage.size() == count / 2;
+        assert storage.stream().allMatch(e -> e.getKey().getId() % 2 == 0 && RECORDS.holderFact(e.getValue()).equals("fact-" + (e.getKey().getId() - 1)));
+        assert storage.stream().parallel().count() == count / 2;
+
+        storage.clear();
+        assert storage.stream().count() == 0L;
+        assert fileCount() == 0L;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Object> typeOf(Object o) {
+        return (Class<Object>) o.getClass();
+    }
+
+    private static Set<Long> keys(MappedGroupingReteMemory memory, MemoryScope scope) {
+        Set<Long> keys = new HashSet<>();
+        memory.iterator(scope).forEachRemaining(keys::add);
+        assert memory.keyCount(scope) == keys.size();
+        return keys;
+    }
+
+    private static List<FactHandle> values(MappedGroupingReteMemory memory, MemoryScope scope, long key) {
+        List<FactHandle> values = new ArrayList<>();
+        memory.valueIterator(scope, key).forEachRemaining(values::add);
+        return values;
+    }
+}
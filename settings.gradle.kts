@@ -9,6 +9,7 @@ include(
         "evrete-core-8",
         "evrete-dsl-java",
         "evrete-dsl-java-8",
+        "evrete-mmap",
         "evrete-jsr94",
         "evrete-benchmarks",
         "evrete-code-samples"